@@ -53,6 +53,7 @@ import com.amazonaws.athena.connector.lambda.security.EncryptionKeyFactory;
 import com.amazonaws.athena.connector.lambda.security.FederatedIdentity;
 import com.amazonaws.athena.connector.substrait.SubstraitRelUtils;
 import com.amazonaws.athena.connector.substrait.model.ColumnPredicate;
+import com.amazonaws.athena.connector.substrait.model.SubstraitOperator;
 import com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants;
 import com.amazonaws.athena.connectors.dynamodb.credentials.CrossAccountCredentialsProviderV2;
 import com.amazonaws.athena.connectors.dynamodb.model.DynamoDBIndex;
@@ -62,6 +63,7 @@ import com.amazonaws.athena.connectors.dynamodb.qpt.DDBQueryPassthrough;
 import com.amazonaws.athena.connectors.dynamodb.resolver.DynamoDBTableResolver;
 import com.amazonaws.athena.connectors.dynamodb.util.DDBPredicateUtils;
 import com.amazonaws.athena.connectors.dynamodb.util.DDBRecordMetadata;
+import com.amazonaws.athena.connectors.dynamodb.util.DDBScanSegmentPlanner;
 import com.amazonaws.athena.connectors.dynamodb.util.DDBTableUtils;
 import com.amazonaws.athena.connectors.dynamodb.util.DDBTypeUtils;
 import com.amazonaws.athena.connectors.dynamodb.util.IncrementingValueNameProducer;
@@ -103,6 +105,7 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.Set;
 import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
@@ -115,6 +118,8 @@ import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstan
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.INDEX_METADATA;
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.NON_KEY_FILTER_METADATA;
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.PARTITION_TYPE_METADATA;
+import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.POINT_LOOKUP_KEYS_PROPERTY;
+import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.POINT_LOOKUP_PARTITION_TYPE;
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.QUERY_PARTITION_TYPE;
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.RANGE_KEY_FILTER_METADATA;
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.RANGE_KEY_NAME_METADATA;
@@ -135,8 +140,10 @@ import static com.amazonaws.athena.connectors.dynamodb.util.DDBTableUtils.SCHEMA
  * is not found, it falls back to doing a small table scan and derives a schema from that.<br>
  * 2. Determines if the data splits will need to perform DDB Queries or Scans.<br>
  * 3. Splits up the hash key into distinct Query splits if possible, otherwise falls back to creating Scan splits.<br>
+ * When the full primary key is pinned to a set of values, the keys are instead packed into a few BatchGetItem splits.<br>
  * 4. Also determines the best index to use (if available) if the available predicates align with Key Attributes.<br>
- * 5. Creates scan splits that support Parallel Scan and tries to choose the optimal number of splits.<br>
+ * 5. Creates scan splits that support Parallel Scan and tries to choose the optimal number of splits for the table's
+ * capacity mode, the projected columns and any LIMIT.<br>
  * 6. Pushes down all other predicates into ready-to-use filter expressions to pass to DDB.
  */
 public class DynamoDBMetadataHandler
@@ -155,11 +162,18 @@ public class DynamoDBMetadataHandler
             || (table.storageDescriptor().parameters() != null && DYNAMODB.equals(table.storageDescriptor().parameters().get("classification")));
     // used to filter out Glue databases which lack the DYNAMO_DB_FLAG in the URI.
     private static final DatabaseFilter DB_FILTER = (Database database) -> (database.locationUri() != null && database.locationUri().contains(DYNAMO_DB_FLAG));
+    // the max number of primary keys read by a single point lookup split, 0 disables point lookups
+    static final String POINT_LOOKUP_KEYS_PER_SPLIT_ENV = "point_lookup_keys_per_split";
+    private static final int DEFAULT_POINT_LOOKUP_KEYS_PER_SPLIT = 500;
+    // above this many hash and range key combinations the keys are read with Query splits instead
+    @VisibleForTesting
+    static final int MAX_POINT_LOOKUP_KEYS = 100_000;
 
     private final ThrottlingInvoker invoker;
     private final DynamoDbClient ddbClient;
     private final GlueClient glueClient;
     private final DynamoDBTableResolver tableResolver;
+    private final DDBScanSegmentPlanner segmentPlanner;
 
     private final DDBQueryPassthrough queryPassthrough;
 
@@ -169,7 +183,8 @@ public class DynamoDBMetadataHandler
         this.ddbClient = buildDynamoDbClient(configOptions);
         this.glueClient = getAwsGlue();
         this.invoker = ThrottlingInvoker.newDefaultBuilder(EXCEPTION_FILTER, configOptions).build();
-        this.tableResolver = new DynamoDBTableResolver(invoker, ddbClient);
+        this.tableResolver = new DynamoDBTableResolver(invoker, ddbClient, configOptions);
+        this.segmentPlanner = new DDBScanSegmentPlanner(configOptions);
         this.queryPassthrough = new DDBQueryPassthrough();
     }
 
@@ -188,7 +203,8 @@ public class DynamoDBMetadataHandler
         this.glueClient = glueClient;
         this.ddbClient = ddbClient;
         this.invoker = ThrottlingInvoker.newDefaultBuilder(EXCEPTION_FILTER, configOptions).build();
-        this.tableResolver = new DynamoDBTableResolver(invoker, ddbClient);
+        this.tableResolver = new DynamoDBTableResolver(invoker, ddbClient, configOptions);
+        this.segmentPlanner = new DDBScanSegmentPlanner(configOptions);
         this.queryPassthrough = new DDBQueryPassthrough();
     }
 
@@ -405,6 +421,7 @@ public class DynamoDBMetadataHandler
         String hashKeyName = index.getHashKey();
         
         HashKeyPredicateInfo hashKeyInfo = extractHashKeyInfo(hashKeyName, summary, filterPredicates, useQueryPlan);
+        PointLookupKeys pointLookupKeys = extractPointLookupKeys(table, index, hashKeyInfo, summary, filterPredicates, useQueryPlan);
 
         DDBRecordMetadata recordMetadata = new DDBRecordMetadata(request.getSchema());
 
@@ -412,7 +429,11 @@ public class DynamoDBMetadataHandler
         List<AttributeValue> valueAccumulator = new ArrayList<>();
         IncrementingValueNameProducer valueNameProducer = new IncrementingValueNameProducer();
         
-        if (!hashKeyInfo.isEmpty()) {
+        if (pointLookupKeys != null) {
+            // can read the keys directly rather than querying each hash key
+            setupPointLookupPartition(partitionSchemaBuilder, pointLookupKeys, columnsToIgnore);
+        }
+        else if (!hashKeyInfo.isEmpty()) {
             // can "partition" on hash key
             setupQueryPartition(partitionSchemaBuilder, hashKeyName, hashKeyInfo.arrowType(), table, index, columnsToIgnore);
 
@@ -435,8 +456,8 @@ public class DynamoDBMetadataHandler
     }
 
     /**
-     * Generates hash key partitions if possible or generates a single partition with the heuristically
-     * determined optimal scan segment count specified inside of it
+     * Generates one partition per primary key for point lookups, hash key partitions if possible or generates a
+     * single partition with the heuristically determined optimal scan segment count specified inside of it
      *
      * @see GlueMetadataHandler
      */
@@ -446,7 +467,6 @@ public class DynamoDBMetadataHandler
     {
         FederatedIdentity federatedIdentity = request.getIdentity();
         AwsRequestOverrideConfiguration overrideConfig = getRequestOverrideConfig(federatedIdentity.getConfigOptions());
-        // TODO consider caching this repeated work in #enhancePartitionSchema
         // use the source table name from the schema if available (in case Glue table name != actual table name)
         String tableName = getSourceTableName(request.getSchema());
         if (tableName == null) {
@@ -456,6 +476,7 @@ public class DynamoDBMetadataHandler
 
         List<String> requestedCols = request.getSchema().getFields().stream().map(Field::getName).collect(Collectors.toList());
         QueryPlan queryPlan = request.getConstraints().getQueryPlan();
+        Map<String, ValueSet> summary = request.getConstraints().getSummary();
         Plan plan = null;
         boolean useQueryPlan = false;
         DynamoDBIndex index;
@@ -467,11 +488,17 @@ public class DynamoDBMetadataHandler
             useQueryPlan = true;
         }
         else {
-            Map<String, ValueSet> summary = request.getConstraints().getSummary();
             index = DDBPredicateUtils.getBestIndexForPredicates(table, requestedCols, summary);
         }
 
         String hashKeyName = index.getHashKey();
+        PointLookupKeys pointLookupKeys = extractPointLookupKeys(table, index,
+                extractHashKeyInfo(hashKeyName, summary, filterPredicates, useQueryPlan), summary, filterPredicates, useQueryPlan);
+        if (pointLookupKeys != null) {
+            writePointLookupPartitions(blockWriter, pointLookupKeys);
+            return;
+        }
+
         List<Object> hashKeyValues = new ArrayList<>();
         if (useQueryPlan) {
             if (filterPredicates.get(hashKeyName) != null) {
@@ -482,7 +509,6 @@ public class DynamoDBMetadataHandler
             }
         }
         else {
-            Map<String, ValueSet> summary = request.getConstraints().getSummary();
             ValueSet hashKeyValueSet = summary.get(hashKeyName);
             hashKeyValues = (hashKeyValueSet != null) ? DDBPredicateUtils.getHashKeyAttributeValues(hashKeyValueSet)
                     : Collections.emptyList();
@@ -499,7 +525,11 @@ public class DynamoDBMetadataHandler
         }
         else {
             // always fall back to a scan, need to return at least one partition so stick the segment count in it
-            int segmentCount = DDBTableUtils.getNumSegments(table.getProvisionedReadCapacity(), table.getApproxTableSizeInBytes());
+            Optional<Integer> limit = DDBPredicateUtils.getApplicableLimit(plan, request.getConstraints());
+            // the scan's remaining predicates become a non-key filter, under which a limit no longer bounds the items read
+            boolean filtered = !filterPredicates.isEmpty() || (summary != null && !summary.isEmpty());
+            int segmentCount = segmentPlanner.getNumSegments(table, DDBPredicateUtils.getProjectedColumnFraction(plan),
+                    limit.isPresent() ? OptionalLong.of(limit.get()) : OptionalLong.empty(), filtered);
             blockWriter.writeRows((Block block, int rowNum) -> {
                 block.setValue(SEGMENT_COUNT_METADATA, rowNum, segmentCount);
                 return 1;
@@ -636,6 +666,49 @@ public class DynamoDBMetadataHandler
             }
             return new GetSplitsResponse(request.getCatalogName(), splits, null);
         }
+        else if (POINT_LOOKUP_PARTITION_TYPE.equals(partitionType)) {
+            String hashKeyName = partitionMetadata.get(HASH_KEY_NAME_METADATA);
+            String rangeKeyName = partitionMetadata.get(RANGE_KEY_NAME_METADATA);
+            FieldReader hashKeyValueReader = partitions.getFieldReader(hashKeyName);
+            FieldReader rangeKeyValueReader = (rangeKeyName != null) ? partitions.getFieldReader(rangeKeyName) : null;
+            int keysPerSplit = getPointLookupKeysPerSplit();
+            // many keys per split (since one DDB BatchGetItem can read the keys of any number of hash key values)
+            List<AttributeValue> keys = new ArrayList<>();
+            for (int curPartition = partitionContd; curPartition < partitions.getRowCount(); curPartition++) {
+                hashKeyValueReader.setPosition(curPartition);
+                Map<String, AttributeValue> key = new HashMap<>();
+                key.put(hashKeyName, DDBTypeUtils.toAttributeValue(DDBTypeUtils.convertArrowTypeIfNecessary(hashKeyName, hashKeyValueReader.readObject())));
+                if (rangeKeyValueReader != null) {
+                    rangeKeyValueReader.setPosition(curPartition);
+                    key.put(rangeKeyName, DDBTypeUtils.toAttributeValue(DDBTypeUtils.convertArrowTypeIfNecessary(rangeKeyName, rangeKeyValueReader.readObject())));
+                }
+                keys.add(AttributeValue.fromM(key));
+
+                boolean lastPartition = curPartition == partitions.getRowCount() - 1;
+                if (keys.size() < keysPerSplit && !lastPartition) {
+                    continue;
+                }
+
+                //Every split must have a unique location if we wish to spill to avoid failures
+                SpillLocation spillLocation = makeSpillLocation(request);
+
+                // copy all partition metadata to the split
+                Map<String, String> splitMetadata = new HashMap<>(partitionMetadata);
+                splitMetadata.put(POINT_LOOKUP_KEYS_PROPERTY, DDBTypeUtils.attributeToJson(AttributeValue.fromL(keys), POINT_LOOKUP_KEYS_PROPERTY));
+
+                splits.add(new Split(spillLocation, makeEncryptionKey(overrideConfig), splitMetadata));
+                keys = new ArrayList<>();
+
+                if (splits.size() == MAX_SPLITS_PER_REQUEST && !lastPartition) {
+                    // We've reached max page size and this is not the last partition
+                    // so send the page back
+                    return new GetSplitsResponse(request.getCatalogName(),
+                            splits,
+                            encodeContinuationToken(curPartition));
+                }
+            }
+            return new GetSplitsResponse(request.getCatalogName(), splits, null);
+        }
         else {
             throw new AthenaConnectorException("Unexpected partition type " + partitionType, ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
         }
@@ -672,7 +745,7 @@ public class DynamoDBMetadataHandler
     }
     
     /**
-     * Extracts hash key values and type information from constraints.
+     * Extracts hash key values and type information from constraints. Also used for the range key of point lookups.
      */
     private HashKeyPredicateInfo extractHashKeyInfo(String hashKeyName, Map<String, ValueSet> summary,
                                                     Map<String, List<ColumnPredicate>> filterPredicates, boolean useQueryPlan)
@@ -683,7 +756,7 @@ public class DynamoDBMetadataHandler
                 List<ColumnPredicate> hashKeyPredicates = DDBPredicateUtils.getHashKeyAttributeValues(predicates);
                 if (!hashKeyPredicates.isEmpty()) {
                     return new HashKeyPredicateInfo(
-                        Collections.singletonList(hashKeyPredicates),
+                        hashKeyPredicates.stream().map(ColumnPredicate::getValue).distinct().collect(Collectors.toList()),
                         hashKeyPredicates.get(0).getArrowType()
                     );
                 }
@@ -699,6 +772,87 @@ public class DynamoDBMetadataHandler
         }
     }
     
+    /**
+     * Returns the keys to read with point lookups if the table's full primary key is pinned to a set of values and no
+     * other columns are constrained, since BatchGetItem can't apply a filter expression. Otherwise returns null.
+     */
+    private PointLookupKeys extractPointLookupKeys(DynamoDBTable table, DynamoDBIndex index, HashKeyPredicateInfo hashKeyInfo,
+                                                   Map<String, ValueSet> summary, Map<String, List<ColumnPredicate>> filterPredicates,
+                                                   boolean useQueryPlan)
+    {
+        if (getPointLookupKeysPerSplit() <= 0 || hashKeyInfo.isEmpty() || !table.getName().equals(index.getName())) {
+            return null;
+        }
+        Set<String> keyColumns = new HashSet<>();
+        keyColumns.add(table.getHashKey());
+        table.getRangeKey().ifPresent(keyColumns::add);
+        Set<String> constrainedColumns = useQueryPlan ? filterPredicates.keySet() : summary.keySet();
+        if (!keyColumns.containsAll(constrainedColumns)) {
+            return null;
+        }
+        if (useQueryPlan && !filterPredicates.values().stream()
+                .flatMap(List::stream)
+                .allMatch(predicate -> SubstraitOperator.EQUAL.equals(predicate.getOperator()))) {
+            return null;
+        }
+
+        long keyCount = hashKeyInfo.values().size();
+        HashKeyPredicateInfo rangeKeyInfo = null;
+        if (table.getRangeKey().isPresent()) {
+            rangeKeyInfo = extractHashKeyInfo(table.getRangeKey().get(), summary, filterPredicates, useQueryPlan);
+            if (rangeKeyInfo.isEmpty()) {
+                return null;
+            }
+            keyCount *= rangeKeyInfo.values().size();
+        }
+        if (keyCount > MAX_POINT_LOOKUP_KEYS) {
+            return null;
+        }
+        return new PointLookupKeys(table.getHashKey(), hashKeyInfo, table.getRangeKey().orElse(null), rangeKeyInfo);
+    }
+
+    /**
+     * Sets up point lookup partition metadata in the schema builder.
+     */
+    private void setupPointLookupPartition(SchemaBuilder partitionSchemaBuilder, PointLookupKeys pointLookupKeys, Set<String> columnsToIgnore)
+    {
+        partitionSchemaBuilder.addField(pointLookupKeys.hashKeyName, pointLookupKeys.hashKeyInfo.arrowType());
+        partitionSchemaBuilder.addMetadata(HASH_KEY_NAME_METADATA, pointLookupKeys.hashKeyName);
+        columnsToIgnore.add(pointLookupKeys.hashKeyName);
+        if (pointLookupKeys.rangeKeyName != null) {
+            partitionSchemaBuilder.addField(pointLookupKeys.rangeKeyName, pointLookupKeys.rangeKeyInfo.arrowType());
+            partitionSchemaBuilder.addMetadata(RANGE_KEY_NAME_METADATA, pointLookupKeys.rangeKeyName);
+            columnsToIgnore.add(pointLookupKeys.rangeKeyName);
+        }
+        partitionSchemaBuilder.addMetadata(PARTITION_TYPE_METADATA, POINT_LOOKUP_PARTITION_TYPE);
+    }
+
+    /**
+     * Writes one partition per combination of hash and range key values.
+     */
+    private void writePointLookupPartitions(BlockWriter blockWriter, PointLookupKeys pointLookupKeys)
+    {
+        List<Object> rangeKeyValues = (pointLookupKeys.rangeKeyName != null)
+                ? pointLookupKeys.rangeKeyInfo.values() : Collections.singletonList(null);
+        for (Object hashKeyValue : pointLookupKeys.hashKeyInfo.values()) {
+            for (Object rangeKeyValue : rangeKeyValues) {
+                blockWriter.writeRows((Block block, int rowNum) -> {
+                    block.setValue(pointLookupKeys.hashKeyName, rowNum, hashKeyValue);
+                    if (pointLookupKeys.rangeKeyName != null) {
+                        block.setValue(pointLookupKeys.rangeKeyName, rowNum, rangeKeyValue);
+                    }
+                    //we added 1 partition per primary key
+                    return 1;
+                });
+            }
+        }
+    }
+
+    private int getPointLookupKeysPerSplit()
+    {
+        return Integer.parseInt(configOptions.getOrDefault(POINT_LOOKUP_KEYS_PER_SPLIT_ENV, String.valueOf(DEFAULT_POINT_LOOKUP_KEYS_PER_SPLIT)).trim());
+    }
+
     /**
      * Sets up query partition metadata in the schema builder.
      */
@@ -768,6 +922,25 @@ public class DynamoDBMetadataHandler
                         .build());
     }
 
+    /**
+     * Helper class to encapsulate the primary key values of point lookups.
+     */
+    private static final class PointLookupKeys
+    {
+        private final String hashKeyName;
+        private final HashKeyPredicateInfo hashKeyInfo;
+        private final String rangeKeyName;
+        private final HashKeyPredicateInfo rangeKeyInfo;
+
+        PointLookupKeys(String hashKeyName, HashKeyPredicateInfo hashKeyInfo, String rangeKeyName, HashKeyPredicateInfo rangeKeyInfo)
+        {
+            this.hashKeyName = hashKeyName;
+            this.hashKeyInfo = hashKeyInfo;
+            this.rangeKeyName = rangeKeyName;
+            this.rangeKeyInfo = rangeKeyInfo;
+        }
+    }
+
     /**
      * Helper class to encapsulate hash key information.
      */
@@ -33,40 +33,42 @@ import com.amazonaws.athena.connector.lambda.handlers.RecordHandler;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connector.lambda.security.FederatedIdentity;
 import com.amazonaws.athena.connector.substrait.SubstraitRelUtils;
-import com.amazonaws.athena.connector.substrait.model.SubstraitRelModel;
 import com.amazonaws.athena.connectors.dynamodb.credentials.CrossAccountCredentialsProviderV2;
 import com.amazonaws.athena.connectors.dynamodb.qpt.DDBQueryPassthrough;
 import com.amazonaws.athena.connectors.dynamodb.resolver.DynamoDBFieldResolver;
+import com.amazonaws.athena.connectors.dynamodb.util.DDBBatchGetIterator;
+import com.amazonaws.athena.connectors.dynamodb.util.DDBItemDecoder;
 import com.amazonaws.athena.connectors.dynamodb.util.DDBPredicateUtils;
+import com.amazonaws.athena.connectors.dynamodb.util.DDBPrefetchingIterator;
 import com.amazonaws.athena.connectors.dynamodb.util.DDBRecordMetadata;
 import com.amazonaws.athena.connectors.dynamodb.util.DDBTypeUtils;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
-import io.substrait.proto.FetchRel;
 import io.substrait.proto.Plan;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.apache.commons.lang3.tuple.Pair;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
 import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
 import software.amazon.awssdk.enhanced.dynamodb.document.EnhancedDocument;
 import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.athena.AthenaClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClientBuilder;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
 import software.amazon.awssdk.services.dynamodb.model.ExecuteStatementRequest;
 import software.amazon.awssdk.services.dynamodb.model.ExecuteStatementResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
 import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
-import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
-import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
 import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
-import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
 import software.amazon.awssdk.services.glue.model.ErrorDetails;
 import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
 import software.amazon.awssdk.services.s3.S3Client;
@@ -75,6 +77,7 @@ import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 import java.io.IOException;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -82,7 +85,6 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.EXPRESSION_NAMES_METADATA;
@@ -90,6 +92,9 @@ import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstan
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.HASH_KEY_NAME_METADATA;
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.INDEX_METADATA;
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.NON_KEY_FILTER_METADATA;
+import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.PARTITION_TYPE_METADATA;
+import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.POINT_LOOKUP_KEYS_PROPERTY;
+import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.POINT_LOOKUP_PARTITION_TYPE;
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.RANGE_KEY_FILTER_METADATA;
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.SEGMENT_COUNT_METADATA;
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.SEGMENT_ID_PROPERTY;
@@ -102,8 +107,8 @@ import static com.google.common.base.Preconditions.checkArgument;
  * <p>
  * For more detail, please see the module's README.md, some notable characteristics of this class include:
  * <p>
- * 1. Reads and maps DynamoDB data for a specific split.  The split can either represent a single hash key
- * or a table scan segment.<br>
+ * 1. Reads and maps DynamoDB data for a specific split.  The split can either represent a single hash key,
+ * a set of primary keys read with BatchGetItem or a table scan segment.<br>
  * 2. Attempts to push down all predicates into DynamoDB to reduce read cost and bytes over the wire.
  */
 public class DynamoDBRecordHandler
@@ -113,14 +118,19 @@ public class DynamoDBRecordHandler
     private static final String sourceType = "ddb";
 
     private static final String DISABLE_PROJECTION_AND_CASING_ENV = "disable_projection_and_casing";
+    //The number of Query/Scan pages fetched ahead of the page being written, 0 fetches each page once the previous one is written.
+    private static final String PREFETCH_PAGES_ENV = "prefetch_pages";
+    private static final int DEFAULT_PREFETCH_PAGES = 2;
+    //The number of items decoded together, one column at a time, before their rows are written.
+    private static final int DECODE_PAGE_SIZE = 256;
 
     private static final String HASH_KEY_VALUE_ALIAS = ":hashKeyValue";
 
     private static final TypeReference<HashMap<String, String>> STRING_MAP_TYPE_REFERENCE = new TypeReference<HashMap<String, String>>() {};
     private static final TypeReference<HashMap<String, AttributeValue>> ATTRIBUTE_VALUE_MAP_TYPE_REFERENCE = new TypeReference<HashMap<String, AttributeValue>>() {};
 
-    private final LoadingCache<String, ThrottlingInvoker> invokerCache;
     private final DynamoDbClient ddbClient;
+    private final DynamoDbAsyncClient ddbAsyncClient;
 
     private final DDBQueryPassthrough queryPassthrough = new DDBQueryPassthrough();
 
@@ -128,44 +138,43 @@ public class DynamoDBRecordHandler
     {
         super(sourceType, configOptions);
         String region = System.getenv("AWS_REGION");
+        AwsCredentialsProvider credentialsProvider = CrossAccountCredentialsProviderV2.getCrossAccountCredentialsIfPresent(configOptions, "DynamoDBMetadataHandler_CrossAccountRoleSession");
         DynamoDbClientBuilder builder = DynamoDbClient.builder()
                 .region(Region.of(region))
-                .credentialsProvider(CrossAccountCredentialsProviderV2.getCrossAccountCredentialsIfPresent(configOptions, "DynamoDBMetadataHandler_CrossAccountRoleSession"));
+                .credentialsProvider(credentialsProvider);
+        DynamoDbAsyncClientBuilder asyncBuilder = DynamoDbAsyncClient.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentialsProvider);
         if (region != null && region.startsWith("eusc-")) {
             builder.endpointOverride(URI.create("https://dynamodb." + region + ".amazonaws.eu"));
+            asyncBuilder.endpointOverride(URI.create("https://dynamodb." + region + ".amazonaws.eu"));
         }
         this.ddbClient = builder.build();
-        this.invokerCache = CacheBuilder.newBuilder().build(
-            new CacheLoader<String, ThrottlingInvoker>() {
-                @Override
-                public ThrottlingInvoker load(String tableName)
-                        throws Exception
-                {
-                    return ThrottlingInvoker.newDefaultBuilder(EXCEPTION_FILTER, configOptions).build();
-                }
-            }
-        );
+        this.ddbAsyncClient = asyncBuilder.build();
     }
 
     @VisibleForTesting
-    DynamoDBRecordHandler(DynamoDbClient ddbClient, S3Client amazonS3, SecretsManagerClient secretsManager, AthenaClient athena, String sourceType, java.util.Map<String, String> configOptions)
+    DynamoDBRecordHandler(DynamoDbClient ddbClient, DynamoDbAsyncClient ddbAsyncClient, S3Client amazonS3, SecretsManagerClient secretsManager, AthenaClient athena, String sourceType, java.util.Map<String, String> configOptions)
     {
         super(amazonS3, secretsManager, athena, sourceType, configOptions);
         this.ddbClient = ddbClient;
-        this.invokerCache = CacheBuilder.newBuilder().build(
-            new CacheLoader<String, ThrottlingInvoker>() {
-                @Override
-                public ThrottlingInvoker load(String tableName)
-                        throws Exception
-                {
-                    return ThrottlingInvoker.newDefaultBuilder(EXCEPTION_FILTER, configOptions).build();
-                }
-            }
-        );
+        this.ddbAsyncClient = ddbAsyncClient;
     }
 
     /**
-     * Reads data from DynamoDB by submitting either a Query or a Scan, depending
+     * Creates an invoker for a single read request. Congestion state is shared by every request for the same table in
+     * this process so that parallel segments back off together, while the spiller stays private to the request.
+     */
+    private ThrottlingInvoker newInvoker(String tableName, BlockSpiller spiller)
+    {
+        return ThrottlingInvoker.newDefaultBuilder(EXCEPTION_FILTER, configOptions)
+                .withSharedRateController(sourceType + "/" + tableName)
+                .withSpiller(spiller)
+                .build();
+    }
+
+    /**
+     * Reads data from DynamoDB by submitting either a Query, a Scan or BatchGetItems, depending
      * on the type of split, and includes any filters specified in the split.
      *
      * @see RecordHandler
@@ -182,7 +191,7 @@ public class DynamoDBRecordHandler
         Split split = recordsRequest.getSplit();
         // use the property instead of the request table name because of case sensitivity
         String tableName = split.getProperty(TABLE_METADATA);
-        invokerCache.get(tableName).setBlockSpiller(spiller);
+        ThrottlingInvoker invoker = newInvoker(tableName, spiller);
         DDBRecordMetadata recordMetadata = new DDBRecordMetadata(recordsRequest.getSchema());
 
         String disableProjectionAndCasingEnvValue = configOptions.getOrDefault(DISABLE_PROJECTION_AND_CASING_ENV, "auto").toLowerCase();
@@ -226,12 +235,18 @@ public class DynamoDBRecordHandler
             plan = SubstraitRelUtils.deserializeSubstraitPlan(queryPlan.getSubstraitPlan());
         }
 
-        Iterator<Map<String, AttributeValue>> itemIterator =
-                getIterator(split, tableName, recordsRequest.getSchema(), recordsRequest.getConstraints(),
-                        disableProjectionAndCasing, plan, overrideConfig);
         // Variable to determine limit can be applied or not, If applicable what is the limit value.
         Pair<Boolean, Integer> limitPair = getLimit(plan, recordsRequest.getConstraints());
-        writeItemsToBlock(spiller, recordsRequest, queryStatusChecker, recordMetadata, itemIterator, disableProjectionAndCasing, limitPair);
+        if (isPointLookupRequest(split)) {
+            Iterator<Map<String, AttributeValue>> itemIterator = getPointLookupIterator(split, tableName, recordsRequest.getSchema(),
+                    disableProjectionAndCasing, overrideConfig, invoker);
+            writeItemsToBlock(spiller, recordsRequest, queryStatusChecker, recordMetadata, itemIterator, disableProjectionAndCasing, limitPair);
+            return;
+        }
+        try (DDBPrefetchingIterator itemIterator = getIterator(split, tableName, recordsRequest.getSchema(),
+                disableProjectionAndCasing, limitPair, overrideConfig, invoker, queryStatusChecker)) {
+            writeItemsToBlock(spiller, recordsRequest, queryStatusChecker, recordMetadata, itemIterator, disableProjectionAndCasing, limitPair);
+        }
     }
 
     private void handleQueryPassthroughPartiQLQuery(BlockSpiller spiller, ReadRecordsRequest recordsRequest, QueryStatusChecker queryStatusChecker)
@@ -270,21 +285,23 @@ public class DynamoDBRecordHandler
         String disableProjectionAndCasingEnvValue = configOptions.getOrDefault(DISABLE_PROJECTION_AND_CASING_ENV, "auto").toLowerCase();
         logger.info(DISABLE_PROJECTION_AND_CASING_ENV + " environment variable set to: " + disableProjectionAndCasingEnvValue);
 
+        DDBItemDecoder decoder = new DDBItemDecoder(recordsRequest.getSchema().getFields(), recordMetadata, disableProjectionAndCasing);
         GeneratedRowWriter.RowWriterBuilder rowWriterBuilder = GeneratedRowWriter.newBuilder(recordsRequest.getConstraints());
         //register extract and field writer factory for each field.
         for (Field next : recordsRequest.getSchema().getFields()) {
-            Optional<Extractor> extractor = DDBTypeUtils.makeExtractor(next, recordMetadata, disableProjectionAndCasing);
+            Optional<Extractor> extractor = decoder.makeExtractor(next);
             //generate extractor for supported data types
             if (extractor.isPresent()) {
                 rowWriterBuilder.withExtractor(next.getName(), extractor.get());
             }
             else {
                 //generate field writer factor for complex data types.
-                rowWriterBuilder.withFieldWriterFactory(next.getName(), DDBTypeUtils.makeFactory(next, recordMetadata, resolver, disableProjectionAndCasing));
+                rowWriterBuilder.withFieldWriterFactory(next.getName(), decoder.makeFactory(next, resolver));
             }
         }
 
         GeneratedRowWriter rowWriter = rowWriterBuilder.build();
+        List<Map<String, AttributeValue>> page = new ArrayList<>(DECODE_PAGE_SIZE);
         long numRows = 0;
         while (itemIterator.hasNext()) {
             if (!queryStatusChecker.isQueryRunning()) {
@@ -292,14 +309,25 @@ public class DynamoDBRecordHandler
                 return;
             }
 
-            Map<String, AttributeValue> item = itemIterator.next();
-            if (item == null) {
-                // this can happen regardless of the hasNext() check above for the very first iteration since itemIterator
-                // had not made any DDB calls yet and there may be zero items returned when it does
-                continue;
+            // collect a page of items, which is then decoded one column at a time
+            long pageSize = limitPair.getLeft() ? Math.min(DECODE_PAGE_SIZE, limitPair.getRight() - numRows) : DECODE_PAGE_SIZE;
+            page.clear();
+            while (page.size() < pageSize && itemIterator.hasNext()) {
+                Map<String, AttributeValue> item = itemIterator.next();
+                if (item == null) {
+                    // this can happen regardless of the hasNext() check above for the very first iteration since itemIterator
+                    // had not made any DDB calls yet and there may be zero items returned when it does
+                    continue;
+                }
+                page.add(item);
+            }
+
+            int decodedRows = decoder.decode(page);
+            for (int row = 0; row < decodedRows; row++) {
+                Object context = decoder.row(row);
+                spiller.writeRows((Block block, int rowNum) -> rowWriter.writeRow(block, rowNum, context) ? 1 : 0);
             }
-            spiller.writeRows((Block block, int rowNum) -> rowWriter.writeRow(block, rowNum, item) ? 1 : 0);
-            numRows++;
+            numRows += decodedRows;
             // If limit is enabled and records fetched is greater than limit, We can stop execution.
             if (limitPair.getLeft() && numRows >= limitPair.getRight()) {
                 return;
@@ -308,24 +336,6 @@ public class DynamoDBRecordHandler
         logger.info("readWithConstraint: numRows[{}]", numRows);
     }
 
-    private Optional<Integer> canApplyLimit(Constraints constraints,
-                                  SubstraitRelModel substraitRelModel,
-                                  boolean useQueryPlan)
-    {
-        if (useQueryPlan) {
-            if (substraitRelModel.getSortRel() == null && substraitRelModel.getFetchRel() != null) {
-                FetchRel fetchRel = substraitRelModel.getFetchRel();
-                int limit = (int) fetchRel.getCount();
-                return Optional.of(limit);
-            }
-            return Optional.empty();
-        }
-        if (constraints.hasLimit() && !constraints.hasNonEmptyOrderByClause()) {
-            return Optional.of((int) constraints.getLimit());
-        }
-        return Optional.empty();
-    }
-
     private boolean rangeFilterHasIn(String rangeKeyFilter) 
     {
         String[] filterArray = rangeKeyFilter.split(" ");
@@ -354,6 +364,11 @@ public class DynamoDBRecordHandler
         return split.getProperty(SEGMENT_ID_PROPERTY) == null;
     }
 
+    private boolean isPointLookupRequest(Split split)
+    {
+        return POINT_LOOKUP_PARTITION_TYPE.equals(split.getProperty(PARTITION_TYPE_METADATA));
+    }
+
     /*
     Converts a split into a Query
      */
@@ -486,66 +501,100 @@ public class DynamoDBRecordHandler
     }
 
     /*
-    Creates an iterator that can iterate through a Query or Scan, sending paginated requests as necessary
+    Creates an iterator that can iterate through a Query or Scan, requesting the following pages ahead of the consumer
      */
-    private Iterator<Map<String, AttributeValue>> getIterator(Split split, String tableName, Schema schema,
-                                                              Constraints constraints, boolean disableProjectionAndCasing,
-                                                              Plan plan, AwsRequestOverrideConfiguration requestOverrideConfiguration)
+    private DDBPrefetchingIterator getIterator(Split split, String tableName, Schema schema,
+                                               boolean disableProjectionAndCasing, Pair<Boolean, Integer> limitPair,
+                                               AwsRequestOverrideConfiguration requestOverrideConfiguration,
+                                               ThrottlingInvoker invoker, QueryStatusChecker queryStatusChecker)
     {
-        return new Iterator<Map<String, AttributeValue>>() {
-            AtomicReference<Map<String, AttributeValue>> lastKeyEvaluated = new AtomicReference<>();
-            AtomicReference<Iterator<Map<String, AttributeValue>>> currentPageIterator = new AtomicReference<>();
-
-            @Override
-            public boolean hasNext()
-            {
-                return currentPageIterator.get() == null
-                        || currentPageIterator.get().hasNext()
-                        || ((lastKeyEvaluated.get() != null && !lastKeyEvaluated.get().isEmpty()));
+        // with a limit the first page is usually enough, so pages are only requested once needed
+        int prefetchPages = limitPair.getLeft() ? 0 : Integer.parseInt(configOptions.getOrDefault(PREFETCH_PAGES_ENV, String.valueOf(DEFAULT_PREFETCH_PAGES)));
+        return new DDBPrefetchingIterator(lastKeyEvaluated -> {
+            if (isQueryRequest(split)) {
+                QueryRequest request = buildQueryRequest(split, tableName, schema,
+                        disableProjectionAndCasing, lastKeyEvaluated, requestOverrideConfiguration, limitPair);
+                logger.info("Invoking DDB with Query request: {}", request);
+                return invoker.invokeAsync(() -> ddbAsyncClient.query(request))
+                        .thenApply(response -> new DDBPrefetchingIterator.Page(response.items(), response.lastEvaluatedKey()));
             }
+            ScanRequest request = buildScanRequest(split, tableName, schema,
+                    disableProjectionAndCasing, lastKeyEvaluated, requestOverrideConfiguration, limitPair);
+            logger.info("Invoking DDB with Scan request: {}", request);
+            return invoker.invokeAsync(() -> ddbAsyncClient.scan(request))
+                    .thenApply(response -> new DDBPrefetchingIterator.Page(response.items(), response.lastEvaluatedKey()));
+        }, prefetchPages, queryStatusChecker);
+    }
 
-            @Override
-            public Map<String, AttributeValue> next()
-            {
-                if (currentPageIterator.get() != null && currentPageIterator.get().hasNext()) {
-                    return currentPageIterator.get().next();
-                }
-                // Variable to determine limit can be applied or not, If applicable what is the limit value.
-                Pair<Boolean, Integer> limitPair = getLimit(plan, constraints);
-                Iterator<Map<String, AttributeValue>> iterator;
-                try {
-                    if (isQueryRequest(split)) {
-                        QueryRequest request = buildQueryRequest(split, tableName, schema,
-                                disableProjectionAndCasing, lastKeyEvaluated.get(),  requestOverrideConfiguration, limitPair);
-                        logger.info("Invoking DDB with Query request: {}", request);
-                        QueryResponse response = invokerCache.get(tableName).invoke(() -> ddbClient.query(request));
-                        lastKeyEvaluated.set(response.lastEvaluatedKey());
-                        iterator = response.items().iterator();
-                    }
-                    else {
-                        ScanRequest request = buildScanRequest(split, tableName, schema,
-                                 disableProjectionAndCasing, lastKeyEvaluated.get(), requestOverrideConfiguration, limitPair);
-                        logger.info("Invoking DDB with Scan request: {}", request);
-                        ScanResponse response = invokerCache.get(tableName).invoke(() -> ddbClient.scan(request));
-                        lastKeyEvaluated.set(response.lastEvaluatedKey());
-                        iterator = response.items().iterator();
+    /*
+    Converts a batch of a point lookup split's keys into a BatchGetItem request
+     */
+    private BatchGetItemRequest buildBatchGetItemRequest(String tableName, Schema schema,
+                                                         boolean disableProjectionAndCasing,
+                                                         List<Map<String, AttributeValue>> keys,
+                                                         AwsRequestOverrideConfiguration overrideConfiguration)
+    {
+        KeysAndAttributes.Builder keysAndAttributesBuilder = KeysAndAttributes.builder().keys(keys);
+
+        // Only read columns that are needed in the query
+        if (!disableProjectionAndCasing && !schema.getFields().isEmpty()) {
+            Map<String, String> expressionAttributeNames = new HashMap<>();
+            String projectionExpression = schema.getFields()
+                    .stream()
+                    .map(field -> {
+                        String aliasedName = DDBPredicateUtils.aliasColumn(field.getName());
+                        expressionAttributeNames.put(aliasedName, field.getName());
+                        return aliasedName;
+                    })
+                    .collect(Collectors.joining(","));
+            keysAndAttributesBuilder.projectionExpression(projectionExpression)
+                    .expressionAttributeNames(expressionAttributeNames);
+        }
+
+        return BatchGetItemRequest.builder()
+                .requestItems(Collections.singletonMap(tableName, keysAndAttributesBuilder.build()))
+                .overrideConfiguration(overrideConfiguration)
+                .build();
+    }
+
+    /*
+    Creates an iterator that reads the keys of a point lookup split with BatchGetItems, retrying unprocessed keys
+     */
+    private Iterator<Map<String, AttributeValue>> getPointLookupIterator(Split split, String tableName, Schema schema,
+                                                                        boolean disableProjectionAndCasing,
+                                                                        AwsRequestOverrideConfiguration requestOverrideConfiguration,
+                                                                        ThrottlingInvoker invoker)
+    {
+        checkArgument(split.getProperty(POINT_LOOKUP_KEYS_PROPERTY) != null, "Split missing expected metadata [%s]", POINT_LOOKUP_KEYS_PROPERTY);
+        List<Map<String, AttributeValue>> keys = DDBTypeUtils.jsonToAttributeValue(split.getProperty(POINT_LOOKUP_KEYS_PROPERTY), POINT_LOOKUP_KEYS_PROPERTY)
+                .l()
+                .stream()
+                .map(AttributeValue::m)
+                .collect(Collectors.toList());
+        return new DDBBatchGetIterator(keys, batchKeys -> {
+            BatchGetItemRequest request = buildBatchGetItemRequest(tableName, schema, disableProjectionAndCasing, batchKeys, requestOverrideConfiguration);
+            logger.info("Invoking DDB with BatchGetItem request for {} keys", batchKeys.size());
+            BatchGetItemResponse response;
+            try {
+                response = invoker.invoke(() -> {
+                    BatchGetItemResponse batchResponse = ddbClient.batchGetItem(request);
+                    if (batchResponse.responses().getOrDefault(tableName, Collections.emptyList()).isEmpty()
+                            && batchResponse.unprocessedKeys().containsKey(tableName)) {
+                        // nothing was read, so back off before retrying as if the request itself had been throttled
+                        throw ProvisionedThroughputExceededException.builder()
+                                .message("BatchGetItem left all " + batchKeys.size() + " keys unprocessed")
+                                .build();
                     }
-                }
-                catch (TimeoutException | ExecutionException e) {
-                    throw new AthenaConnectorException(e.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.OPERATION_TIMEOUT_EXCEPTION.toString()).build());
-                }
-                catch (ResourceNotFoundException e) {
-                    throw new AthenaConnectorException(e.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.ENTITY_NOT_FOUND_EXCEPTION.toString()).build());
-                }
-                currentPageIterator.set(iterator);
-                if (iterator.hasNext()) {
-                    return iterator.next();
-                }
-                else {
-                    return null;
-                }
+                    return batchResponse;
+                });
+            }
+            catch (TimeoutException e) {
+                throw new AthenaConnectorException(e.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.OPERATION_TIMEOUT_EXCEPTION.toString()).build());
             }
-        };
+            KeysAndAttributes unprocessedKeys = response.unprocessedKeys().get(tableName);
+            return new DDBBatchGetIterator.Batch(response.responses().getOrDefault(tableName, Collections.emptyList()),
+                    (unprocessedKeys != null) ? unprocessedKeys.keys() : Collections.emptyList());
+        });
     }
 
     /*
@@ -568,13 +617,7 @@ public class DynamoDBRecordHandler
 
     private Pair<Boolean, Integer> getLimit(Plan  plan, Constraints constraints)
     {
-        SubstraitRelModel substraitRelModel = null;
-        boolean useQueryPlan = false;
-        if (plan != null) {
-            substraitRelModel = SubstraitRelModel.buildSubstraitRelModel(plan.getRelations(0).getRoot().getInput());
-            useQueryPlan = true;
-        }
-        Optional<Integer> optionalLimit = canApplyLimit(constraints, substraitRelModel, useQueryPlan);
+        Optional<Integer> optionalLimit = DDBPredicateUtils.getApplicableLimit(plan, constraints);
         if (optionalLimit.isPresent()) {
             return Pair.of(true, optionalLimit.get());
         }
@@ -27,8 +27,10 @@ public final class DynamoDBConstants
     public static final String PARTITION_TYPE_METADATA = "partitionType";
     public static final String QUERY_PARTITION_TYPE = "query";
     public static final String SCAN_PARTITION_TYPE = "scan";
+    public static final String POINT_LOOKUP_PARTITION_TYPE = "pointLookup";
     public static final String SEGMENT_COUNT_METADATA = "segmentCount";
     public static final String SEGMENT_ID_PROPERTY = "segmentId";
+    public static final String POINT_LOOKUP_KEYS_PROPERTY = "pointLookupKeys";
     public static final String TABLE_METADATA = "sourceTable";
     public static final String INDEX_METADATA = "index";
     public static final String HASH_KEY_NAME_METADATA = "hashKeyName";
@@ -43,6 +43,7 @@ public class DynamoDBTable
     private final long approxTableSizeInBytes;
     private final long approxItemCount;
     private final long provisionedReadCapacity;
+    private final long onDemandMaxReadCapacity;
 
     public DynamoDBTable(
             String name,
@@ -53,6 +54,24 @@ public class DynamoDBTable
             long approxTableSizeInBytes,
             long approxItemCount,
             long provisionedReadCapacity)
+    {
+        this(name, hashKey, rangeKey, knownAttributeDefinitions, indexes, approxTableSizeInBytes, approxItemCount, provisionedReadCapacity, 0);
+    }
+
+    /**
+     * @param onDemandMaxReadCapacity For tables in on-demand (PAY_PER_REQUEST) capacity mode, the read request units
+     * per second the table may consume; 0 for tables in provisioned capacity mode.
+     */
+    public DynamoDBTable(
+            String name,
+            String hashKey,
+            Optional<String> rangeKey,
+            List<AttributeDefinition> knownAttributeDefinitions,
+            List<DynamoDBIndex> indexes,
+            long approxTableSizeInBytes,
+            long approxItemCount,
+            long provisionedReadCapacity,
+            long onDemandMaxReadCapacity)
     {
         checkArgument(!isNullOrEmpty(name), "name is null or is empty");
         this.hashKey = requireNonNull(hashKey, "hashKey is null");
@@ -63,6 +82,7 @@ public class DynamoDBTable
         this.approxTableSizeInBytes = approxTableSizeInBytes;
         this.approxItemCount = approxItemCount;
         this.provisionedReadCapacity = provisionedReadCapacity;
+        this.onDemandMaxReadCapacity = onDemandMaxReadCapacity;
     }
 
     public String getName()
@@ -95,11 +115,26 @@ public class DynamoDBTable
         return approxTableSizeInBytes;
     }
 
+    public long getApproxItemCount()
+    {
+        return approxItemCount;
+    }
+
     public long getProvisionedReadCapacity()
     {
         return provisionedReadCapacity;
     }
 
+    public long getOnDemandMaxReadCapacity()
+    {
+        return onDemandMaxReadCapacity;
+    }
+
+    public boolean isOnDemand()
+    {
+        return onDemandMaxReadCapacity > 0;
+    }
+
     @Override
     public int hashCode()
     {
@@ -21,6 +21,7 @@ package com.amazonaws.athena.connectors.dynamodb.resolver;
 
 import com.amazonaws.athena.connector.lambda.ThrottlingInvoker;
 import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import com.amazonaws.athena.connector.lambda.metadata.MetadataCache;
 import com.amazonaws.athena.connectors.dynamodb.model.DynamoDBPaginatedTables;
 import com.amazonaws.athena.connectors.dynamodb.model.DynamoDBTable;
 import com.amazonaws.athena.connectors.dynamodb.util.DDBTableUtils;
@@ -39,9 +40,12 @@ import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeoutException;
 
 import static com.amazonaws.athena.connector.lambda.metadata.ListTablesRequest.UNLIMITED_PAGE_SIZE_VALUE;
@@ -52,8 +56,11 @@ import static com.amazonaws.athena.connector.lambda.metadata.ListTablesRequest.U
  * which may have captial letters in them without issue. It does so by fetching all table names and doing
  * a case insensitive search over them. It will first try to do a targeted get to reduce the penalty for
  * tables which don't have capitalization.
- *
- * TODO add caching
+ * <p>
+ * Table metadata, inferred schemas and the results of case insensitive searches can be cached across requests served
+ * by the same handler (see {@link MetadataCache#fromConfig(Map)}), so that the several DescribeTable calls made while
+ * planning a query and the sampling Scan for schema inference are not repeated. Requests made with the caller's own
+ * credentials always go to DynamoDB.
  */
 public class DynamoDBTableResolver
 {
@@ -63,10 +70,28 @@ public class DynamoDBTableResolver
     // used to handle Throttling events using an AIMD strategy for congestion control.
     private ThrottlingInvoker invoker;
 
+    // keyed by the table name as requested, which may differ in casing from the name of the table in DynamoDB
+    private final MetadataCache<String, DynamoDBTable> tableCache;
+    private final MetadataCache<String, Schema> schemaCache;
+    private final MetadataCache<String, Optional<String>> caseInsensitiveNameCache;
+
     public DynamoDBTableResolver(ThrottlingInvoker invoker, DynamoDbClient ddbClient)
+    {
+        this(invoker, ddbClient, Collections.emptyMap());
+    }
+
+    /**
+     * @param invoker Applies congestion control to the DynamoDB calls.
+     * @param ddbClient The client used to describe, list and sample tables.
+     * @param configOptions The connector's config options, which configure the metadata caches.
+     */
+    public DynamoDBTableResolver(ThrottlingInvoker invoker, DynamoDbClient ddbClient, Map<String, String> configOptions)
     {
         this.invoker = invoker;
         this.ddbClient = ddbClient;
+        this.tableCache = MetadataCache.fromConfig(configOptions);
+        this.schemaCache = MetadataCache.fromConfig(configOptions);
+        this.caseInsensitiveNameCache = MetadataCache.fromConfig(configOptions);
     }
 
     /**
@@ -116,6 +141,12 @@ public class DynamoDBTableResolver
      */
     public Schema getTableSchema(String tableName, AwsRequestOverrideConfiguration requestOverrideConfiguration)
             throws TimeoutException
+    {
+        return getCached(schemaCache, tableName, requestOverrideConfiguration, () -> loadTableSchema(tableName, requestOverrideConfiguration));
+    }
+
+    private Schema loadTableSchema(String tableName, AwsRequestOverrideConfiguration requestOverrideConfiguration)
+            throws TimeoutException
     {
         try {
             return DDBTableUtils.peekTableForSchema(tableName, invoker, ddbClient, requestOverrideConfiguration);
@@ -149,6 +180,13 @@ public class DynamoDBTableResolver
     public DynamoDBTable getTableMetadata(String tableName,
                                           AwsRequestOverrideConfiguration awsRequestOverrideConfiguration)
             throws TimeoutException
+    {
+        return getCached(tableCache, tableName, awsRequestOverrideConfiguration, () -> loadTableMetadata(tableName, awsRequestOverrideConfiguration));
+    }
+
+    private DynamoDBTable loadTableMetadata(String tableName,
+                                            AwsRequestOverrideConfiguration awsRequestOverrideConfiguration)
+            throws TimeoutException
     {
         try {
             return DDBTableUtils.getTable(tableName, invoker, ddbClient, awsRequestOverrideConfiguration);
@@ -171,6 +209,13 @@ public class DynamoDBTableResolver
      */
     private Optional<String> tryCaseInsensitiveSearch(String tableName, AwsRequestOverrideConfiguration awsRequestOverrideConfiguration)
             throws TimeoutException
+    {
+        return getCached(caseInsensitiveNameCache, tableName, awsRequestOverrideConfiguration,
+                () -> searchCaseInsensitive(tableName, awsRequestOverrideConfiguration));
+    }
+
+    private Optional<String> searchCaseInsensitive(String tableName, AwsRequestOverrideConfiguration awsRequestOverrideConfiguration)
+            throws TimeoutException
     {
         logger.info("Table {} not found.  Falling back to case insensitive search.", tableName);
         Multimap<String, String> lowerCaseNameMapping = ArrayListMultimap.create();
@@ -189,4 +234,26 @@ public class DynamoDBTableResolver
             return Optional.empty();
         }
     }
+
+    /*
+    Serves the value from the cache unless the request carries the caller's own credentials, in which case what it
+    may see is not shared with other callers.
+     */
+    private static <V> V getCached(MetadataCache<String, V> cache, String tableName,
+                                   AwsRequestOverrideConfiguration awsRequestOverrideConfiguration, Callable<V> loader)
+            throws TimeoutException
+    {
+        try {
+            if (awsRequestOverrideConfiguration != null) {
+                return loader.call();
+            }
+            return cache.get(tableName, loader);
+        }
+        catch (TimeoutException | RuntimeException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
 }
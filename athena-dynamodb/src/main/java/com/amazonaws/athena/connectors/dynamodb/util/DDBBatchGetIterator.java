@@ -0,0 +1,116 @@
+/*-
+ * #%L
+ * athena-dynamodb
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.dynamodb.util;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * Iterates over the items stored under a set of primary keys by reading them with BatchGetItem, at most
+ * {@value #MAX_KEYS_PER_BATCH} keys at a time. Keys which DynamoDB returns as unprocessed are read again by the
+ * following batch, ahead of the keys not yet requested.
+ * <p>
+ * Batches are only requested once the items of the previous batch have been consumed. Items are returned in the order
+ * DynamoDB returns them, which is not the order of the keys.
+ */
+public class DDBBatchGetIterator
+        implements Iterator<Map<String, AttributeValue>>
+{
+    // the max number of keys DynamoDB accepts in a single BatchGetItem request
+    public static final int MAX_KEYS_PER_BATCH = 100;
+
+    private final Function<List<Map<String, AttributeValue>>, Batch> batchFetcher;
+    private final Deque<Map<String, AttributeValue>> pendingKeys;
+    private Iterator<Map<String, AttributeValue>> currentBatch = Collections.emptyIterator();
+
+    /**
+     * @param keys The primary keys to read, without duplicates.
+     * @param batchFetcher Reads the items stored under up to {@value #MAX_KEYS_PER_BATCH} keys.
+     */
+    public DDBBatchGetIterator(List<Map<String, AttributeValue>> keys, Function<List<Map<String, AttributeValue>>, Batch> batchFetcher)
+    {
+        this.batchFetcher = batchFetcher;
+        this.pendingKeys = new ArrayDeque<>(keys);
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        while (!currentBatch.hasNext()) {
+            if (pendingKeys.isEmpty()) {
+                return false;
+            }
+            List<Map<String, AttributeValue>> keys = new ArrayList<>();
+            while (keys.size() < MAX_KEYS_PER_BATCH && !pendingKeys.isEmpty()) {
+                keys.add(pendingKeys.poll());
+            }
+            Batch batch = batchFetcher.apply(keys);
+            List<Map<String, AttributeValue>> unprocessedKeys = batch.getUnprocessedKeys();
+            for (int i = unprocessedKeys.size() - 1; i >= 0; i--) {
+                pendingKeys.addFirst(unprocessedKeys.get(i));
+            }
+            currentBatch = batch.getItems().iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public Map<String, AttributeValue> next()
+    {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return currentBatch.next();
+    }
+
+    /**
+     * The items read by one BatchGetItem and the keys it left unprocessed.
+     */
+    public static class Batch
+    {
+        private final List<Map<String, AttributeValue>> items;
+        private final List<Map<String, AttributeValue>> unprocessedKeys;
+
+        public Batch(List<Map<String, AttributeValue>> items, List<Map<String, AttributeValue>> unprocessedKeys)
+        {
+            this.items = items;
+            this.unprocessedKeys = unprocessedKeys;
+        }
+
+        public List<Map<String, AttributeValue>> getItems()
+        {
+            return items;
+        }
+
+        public List<Map<String, AttributeValue>> getUnprocessedKeys()
+        {
+            return unprocessedKeys;
+        }
+    }
+}
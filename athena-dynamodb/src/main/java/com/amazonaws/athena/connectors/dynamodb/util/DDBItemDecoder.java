@@ -0,0 +1,347 @@
+/*-
+ * #%L
+ * athena-dynamodb
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.dynamodb.util;
+
+import com.amazonaws.athena.connector.lambda.data.BlockUtils;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.BitExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.DecimalExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.Extractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.VarBinaryExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.fieldwriters.FieldWriter;
+import com.amazonaws.athena.connector.lambda.data.writers.fieldwriters.FieldWriterFactory;
+import com.amazonaws.athena.connector.lambda.data.writers.holders.NullableDecimalHolder;
+import com.amazonaws.athena.connector.lambda.data.writers.holders.NullableVarBinaryHolder;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintProjector;
+import com.amazonaws.athena.connectors.dynamodb.resolver.DynamoDBFieldResolver;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.holders.NullableBitHolder;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Field;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Decodes pages of DynamoDB items into the values written to each column of a schema.
+ * <p>
+ * The per column work is resolved once per schema: every field gets an accessor which knows where to find its
+ * attribute in an item and how to convert it, numbers are parsed as a long or double where the column type allows it
+ * and only fall back to {@link BigDecimal} when they have to, and case insensitive lookups remember the attribute name
+ * they last matched instead of copying every item into a case insensitive map. A page is decoded one column at a time,
+ * and rows are then written from the decoded values through the extractors and field writer factories of this decoder,
+ * with {@link #row(int)} as the row context.
+ * <p>
+ * The decoded values are the same the {@link DDBTypeUtils#makeExtractor(Field, DDBRecordMetadata, boolean)} and
+ * {@link DDBTypeUtils#makeFactory(Field, DDBRecordMetadata, DynamoDBFieldResolver, boolean)} writers produce for an item.
+ * Instances are not thread safe.
+ */
+public class DDBItemDecoder
+{
+    // the max number of digits a plain integer may have to be parsed as a long without overflowing
+    private static final int MAX_LONG_DIGITS = 18;
+
+    private final ColumnAccessor[] columns;
+    private final Map<String, Integer> columnIndexes = new HashMap<>();
+    private final Row row = new Row();
+    private Object[][] values;
+    private int rowCount;
+
+    /**
+     * @param fields The fields to decode, in the order of the schema being written.
+     * @param recordMetadata The metadata of the schema, used to coerce values to the field types.
+     * @param caseInsensitive Whether attribute names are matched to field names ignoring case.
+     */
+    public DDBItemDecoder(List<Field> fields, DDBRecordMetadata recordMetadata, boolean caseInsensitive)
+    {
+        this.columns = new ColumnAccessor[fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            columns[i] = new ColumnAccessor(fields.get(i), recordMetadata, caseInsensitive);
+            columnIndexes.put(fields.get(i).getName(), i);
+        }
+        this.values = new Object[columns.length][0];
+    }
+
+    /**
+     * Decodes a page of items, replacing the previously decoded page.
+     *
+     * @param items The items to decode, none of them null.
+     * @return The number of decoded rows.
+     */
+    public int decode(List<Map<String, AttributeValue>> items)
+    {
+        rowCount = items.size();
+        for (int column = 0; column < columns.length; column++) {
+            if (values[column].length < rowCount) {
+                values[column] = new Object[rowCount];
+            }
+            Object[] columnValues = values[column];
+            ColumnAccessor accessor = columns[column];
+            for (int i = 0; i < rowCount; i++) {
+                columnValues[i] = accessor.decode(accessor.lookup(items.get(i)));
+            }
+        }
+        return rowCount;
+    }
+
+    /**
+     * Returns the row context for the given row of the decoded page, to be passed to a row writer built from this
+     * decoder's extractors and field writer factories. The same context instance is repositioned on every call.
+     *
+     * @param rowNum The row of the decoded page.
+     * @return The row context.
+     */
+    public Object row(int rowNum)
+    {
+        if (rowNum < 0 || rowNum >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + rowNum + " is outside of the decoded page of " + rowCount + " rows");
+        }
+        row.rowNum = rowNum;
+        return row;
+    }
+
+    /**
+     * Creates the extractor writing the decoded values of the given field, for the field types which have one.
+     *
+     * @param field The field, which must be one of the fields this decoder was created with.
+     * @return The extractor, or empty when the field is written by {@link #makeFactory(Field, DynamoDBFieldResolver)}.
+     */
+    public Optional<Extractor> makeExtractor(Field field)
+    {
+        int column = getColumnIndex(field);
+        switch (columns[column].fieldType) {
+            case DECIMAL:
+                return Optional.of((DecimalExtractor) (Object context, NullableDecimalHolder dst) ->
+                {
+                    Object value = valueAt(context, column);
+                    dst.isSet = value != null ? 1 : 0;
+                    if (value != null) {
+                        dst.value = (BigDecimal) value;
+                    }
+                });
+            case VARBINARY:
+                return Optional.of((VarBinaryExtractor) (Object context, NullableVarBinaryHolder dst) ->
+                {
+                    Object value = valueAt(context, column);
+                    dst.isSet = value != null ? 1 : 0;
+                    if (value != null) {
+                        dst.value = (byte[]) value;
+                    }
+                });
+            case BIT:
+                return Optional.of((BitExtractor) (Object context, NullableBitHolder dst) ->
+                {
+                    Object value = valueAt(context, column);
+                    dst.isSet = value != null ? 1 : 0;
+                    if (value != null) {
+                        dst.value = (Boolean) value ? 1 : 0;
+                    }
+                });
+            default:
+                return Optional.empty();
+        }
+    }
+
+    /**
+     * Creates the field writer factory writing the decoded values of a field which has no extractor.
+     *
+     * @param field The field, which must be one of the fields this decoder was created with.
+     * @param resolver Resolves the nested values of complex fields.
+     * @return The field writer factory.
+     */
+    public FieldWriterFactory makeFactory(Field field, DynamoDBFieldResolver resolver)
+    {
+        int column = getColumnIndex(field);
+        switch (columns[column].fieldType) {
+            case LIST:
+            case STRUCT:
+            case MAP:
+                return (FieldVector vector, Extractor extractor, ConstraintProjector constraint) ->
+                        (FieldWriter) (Object context, int rowNum) ->
+                        {
+                            BlockUtils.setComplexValue(vector, rowNum, resolver, valueAt(context, column));
+                            return true;
+                        };
+            default:
+                return (FieldVector vector, Extractor extractor, ConstraintProjector constraint) ->
+                        (FieldWriter) (Object context, int rowNum) ->
+                        {
+                            BlockUtils.setValue(vector, rowNum, valueAt(context, column));
+                            return true;
+                        };
+        }
+    }
+
+    private int getColumnIndex(Field field)
+    {
+        Integer column = columnIndexes.get(field.getName());
+        if (column == null) {
+            throw new IllegalArgumentException("Field " + field.getName() + " is not decoded by this decoder");
+        }
+        return column;
+    }
+
+    private Object valueAt(Object context, int column)
+    {
+        return values[column][((Row) context).rowNum];
+    }
+
+    /*
+    Parses a DynamoDB number as a long if it is a plain integer which fits into one, returning null otherwise.
+     */
+    private static Long parsePlainLong(String number)
+    {
+        int length = number.length();
+        int start = length > 0 && number.charAt(0) == '-' ? 1 : 0;
+        if (length == start || length - start > MAX_LONG_DIGITS) {
+            return null;
+        }
+        long result = 0;
+        for (int i = start; i < length; i++) {
+            char c = number.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            result = result * 10 + (c - '0');
+        }
+        return start == 1 ? -result : result;
+    }
+
+    /**
+     * The row context handed to the extractors and field writers, pointing at a row of the decoded page.
+     */
+    private static class Row
+    {
+        private int rowNum;
+    }
+
+    /**
+     * Finds and converts the attribute of a single field.
+     */
+    private static class ColumnAccessor
+    {
+        private final Field field;
+        private final String name;
+        private final Types.MinorType fieldType;
+        private final DDBRecordMetadata recordMetadata;
+        private final boolean caseInsensitive;
+        // the attribute name of the last case insensitive match, items of a table tend to share their casing
+        private String matchedName;
+
+        ColumnAccessor(Field field, DDBRecordMetadata recordMetadata, boolean caseInsensitive)
+        {
+            this.field = field;
+            this.name = field.getName();
+            this.fieldType = Types.getMinorTypeForArrowType(field.getType());
+            this.recordMetadata = recordMetadata;
+            this.caseInsensitive = caseInsensitive;
+        }
+
+        AttributeValue lookup(Map<String, AttributeValue> item)
+        {
+            AttributeValue value = item.get(name);
+            if (value != null || !caseInsensitive) {
+                return value;
+            }
+            if (matchedName != null) {
+                value = item.get(matchedName);
+                if (value != null) {
+                    return value;
+                }
+            }
+            for (Map.Entry<String, AttributeValue> attribute : item.entrySet()) {
+                if (attribute.getKey().equalsIgnoreCase(name)) {
+                    matchedName = attribute.getKey();
+                    return attribute.getValue();
+                }
+            }
+            return null;
+        }
+
+        Object decode(AttributeValue value)
+        {
+            if (value == null) {
+                return null;
+            }
+            switch (fieldType) {
+                case DECIMAL:
+                    return value.n() != null ? new BigDecimal(value.n()) : DDBTypeUtils.toSimpleValue(value);
+                case BIT:
+                    return Boolean.valueOf(value.bool());
+                case VARCHAR:
+                    if (value.s() != null) {
+                        return value.s();
+                    }
+                    break;
+                case BIGINT:
+                case INT:
+                case SMALLINT:
+                case TINYINT:
+                case FLOAT8:
+                case FLOAT4:
+                    if (value.n() != null) {
+                        Object number = decodeNumber(value.n());
+                        if (number != null) {
+                            return number;
+                        }
+                    }
+                    break;
+                case LIST:
+                    Object list = DDBTypeUtils.toSimpleValue(value);
+                    return list != null ? DDBTypeUtils.coerceListToExpectedType(list, field, recordMetadata) : null;
+                default:
+                    break;
+            }
+            return DDBTypeUtils.coerceValueToExpectedType(DDBTypeUtils.toSimpleValue(value), field, fieldType, recordMetadata);
+        }
+
+        /*
+        Converts a number without going through BigDecimal, returning null when the number needs it.
+         */
+        private Object decodeNumber(String number)
+        {
+            switch (fieldType) {
+                case FLOAT8:
+                    return Double.parseDouble(number);
+                case FLOAT4:
+                    return Float.parseFloat(number);
+                default:
+                    Long parsed = parsePlainLong(number);
+                    if (parsed == null) {
+                        return null;
+                    }
+                    long longValue = parsed;
+                    switch (fieldType) {
+                        case INT:
+                            return (int) longValue;
+                        case SMALLINT:
+                            return (short) longValue;
+                        case TINYINT:
+                            return (byte) longValue;
+                        default:
+                            return longValue;
+                    }
+            }
+        }
+    }
+}
@@ -19,6 +19,7 @@
  */
 package com.amazonaws.athena.connectors.dynamodb.util;
 
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
 import com.amazonaws.athena.connector.lambda.domain.predicate.EquatableValueSet;
 import com.amazonaws.athena.connector.lambda.domain.predicate.Marker;
 import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
@@ -35,6 +36,7 @@ import com.amazonaws.athena.connectors.dynamodb.model.DynamoDBTable;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import io.substrait.proto.Plan;
+import io.substrait.proto.ReadRel;
 import io.substrait.proto.SimpleExtensionDeclaration;
 import org.apache.commons.lang3.tuple.Pair;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
@@ -47,6 +49,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -170,6 +173,51 @@ public class DDBPredicateUtils
             extensionDeclarations, substraitRelModel.getFilterRel().getCondition(), tableColumns);
     }
     
+    /**
+     * Returns the LIMIT each split can apply on its own, which is only the case when the query does not also sort the rows.
+     *
+     * @param plan the Substrait plan, null when the request carries none
+     * @param constraints the constraints of the request
+     * @return the limit if one can be applied
+     */
+    public static Optional<Integer> getApplicableLimit(Plan plan, Constraints constraints)
+    {
+        if (plan != null) {
+            SubstraitRelModel substraitRelModel = extractSubstraitRelModel(plan);
+            if (substraitRelModel.getSortRel() == null && substraitRelModel.getFetchRel() != null) {
+                return Optional.of((int) substraitRelModel.getFetchRel().getCount());
+            }
+            return Optional.empty();
+        }
+        if (constraints.hasLimit() && !constraints.hasNonEmptyOrderByClause()) {
+            return Optional.of((int) constraints.getLimit());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns the fraction of the table's top level columns the plan reads.
+     *
+     * @param plan the Substrait plan, null when the request carries none
+     * @return the projected fraction of the columns, 1 when it is unknown
+     */
+    public static double getProjectedColumnFraction(Plan plan)
+    {
+        if (plan == null || plan.getRelationsList().isEmpty()) {
+            return 1.0;
+        }
+        ReadRel readRel = extractSubstraitRelModel(plan).getReadRel();
+        if (readRel == null || !readRel.hasProjection()) {
+            return 1.0;
+        }
+        int columnCount = readRel.getBaseSchema().getStruct().getTypesCount();
+        int projectedCount = readRel.getProjection().getSelect().getStructItemsCount();
+        if (columnCount == 0 || projectedCount == 0) {
+            return 1.0;
+        }
+        return Math.min(1.0, (double) projectedCount / columnCount);
+    }
+
     /**
      * Extracts the Substrait relation model from the plan.
      */
@@ -0,0 +1,235 @@
+/*-
+ * #%L
+ * athena-dynamodb
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.dynamodb.util;
+
+import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.glue.model.ErrorDetails;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Iterates over the items of a paginated Query or Scan, requesting the next page as soon as the previous one arrives
+ * rather than once its items have been written. Up to {@code prefetchPages} pages are buffered ahead of the page being
+ * consumed, so the round trip for the next page overlaps with converting and spilling the current one.
+ * <p>
+ * Pages are still requested one at a time, each starting from the previous page's lastEvaluatedKey. Prefetching stops
+ * once the last page has arrived, the query is no longer running, or the iterator is closed.
+ */
+public class DDBPrefetchingIterator
+        implements Iterator<Map<String, AttributeValue>>, AutoCloseable
+{
+    private final Function<Map<String, AttributeValue>, CompletableFuture<Page>> pageFetcher;
+    private final int prefetchPages;
+    private final QueryStatusChecker queryStatusChecker;
+
+    // all of the below are guarded by this
+    private final Deque<Page> bufferedPages = new ArrayDeque<>();
+    private CompletableFuture<Page> inFlight;
+    private Map<String, AttributeValue> nextStartKey;
+    private boolean lastPageFetched;
+    private Throwable failure;
+    private boolean closed;
+
+    // only used by the consuming thread
+    private Iterator<Map<String, AttributeValue>> currentPage = Collections.emptyIterator();
+
+    /**
+     * @param pageFetcher Requests the page starting at the given key (null for the first page).
+     * @param prefetchPages The max number of pages to buffer ahead of the consumer, 0 requests each page only once the
+     * previous one has been consumed.
+     * @param queryStatusChecker Stops prefetching once the query is no longer running.
+     */
+    public DDBPrefetchingIterator(Function<Map<String, AttributeValue>, CompletableFuture<Page>> pageFetcher,
+            int prefetchPages, QueryStatusChecker queryStatusChecker)
+    {
+        this.pageFetcher = pageFetcher;
+        this.prefetchPages = Math.max(0, prefetchPages);
+        this.queryStatusChecker = queryStatusChecker;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        while (!currentPage.hasNext()) {
+            Page page = takePage();
+            if (page == null) {
+                return false;
+            }
+            currentPage = page.getItems().iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public Map<String, AttributeValue> next()
+    {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return currentPage.next();
+    }
+
+    /**
+     * Stops prefetching and cancels any page in flight.
+     */
+    @Override
+    public synchronized void close()
+    {
+        closed = true;
+        bufferedPages.clear();
+        CompletableFuture<Page> request = inFlight;
+        inFlight = null;
+        if (request != null) {
+            request.cancel(true);
+        }
+    }
+
+    private synchronized Page takePage()
+    {
+        while (true) {
+            if (failure != null) {
+                throw toConnectorException(failure);
+            }
+            if (!bufferedPages.isEmpty()) {
+                Page page = bufferedPages.poll();
+                fetchIfNeeded(false);
+                return page;
+            }
+            if (inFlight == null) {
+                fetchIfNeeded(true);
+                if (inFlight == null && bufferedPages.isEmpty() && failure == null) {
+                    return null;
+                }
+                continue;
+            }
+            try {
+                wait();
+            }
+            catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new AthenaConnectorException("Interrupted while waiting for page: " + ex.getMessage(),
+                        ErrorDetails.builder().errorCode(FederationSourceErrorCode.OPERATION_TIMEOUT_EXCEPTION.toString()).build());
+            }
+        }
+    }
+
+    /**
+     * Requests the next page if one remains and there is room for it.
+     *
+     * @param consumerWaiting True if the consumer has no page to read, in which case the next page is requested even
+     * when prefetching is disabled.
+     */
+    private synchronized void fetchIfNeeded(boolean consumerWaiting)
+    {
+        if (closed || lastPageFetched || inFlight != null || failure != null) {
+            return;
+        }
+        if (!consumerWaiting && bufferedPages.size() >= prefetchPages) {
+            return;
+        }
+        if (!queryStatusChecker.isQueryRunning()) {
+            return;
+        }
+
+        CompletableFuture<Page> request = requestPage(nextStartKey);
+        inFlight = request;
+        request.whenComplete((page, error) -> onPage(request, page, error));
+    }
+
+    private CompletableFuture<Page> requestPage(Map<String, AttributeValue> startKey)
+    {
+        try {
+            return pageFetcher.apply(startKey);
+        }
+        catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    private synchronized void onPage(CompletableFuture<Page> request, Page page, Throwable error)
+    {
+        if (request != inFlight) {
+            // closed while the page was in flight
+            return;
+        }
+        inFlight = null;
+        if (error != null) {
+            failure = error;
+        }
+        else {
+            bufferedPages.add(page);
+            nextStartKey = page.getLastEvaluatedKey();
+            lastPageFetched = nextStartKey == null || nextStartKey.isEmpty();
+            fetchIfNeeded(false);
+        }
+        notifyAll();
+    }
+
+    private static RuntimeException toConnectorException(Throwable failure)
+    {
+        Throwable cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+        if (cause instanceof ResourceNotFoundException) {
+            return new AthenaConnectorException(cause.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.ENTITY_NOT_FOUND_EXCEPTION.toString()).build());
+        }
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        return new AthenaConnectorException(cause.getMessage(), ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
+    }
+
+    /**
+     * The items of one Query or Scan page and the key to continue from.
+     */
+    public static class Page
+    {
+        private final List<Map<String, AttributeValue>> items;
+        private final Map<String, AttributeValue> lastEvaluatedKey;
+
+        public Page(List<Map<String, AttributeValue>> items, Map<String, AttributeValue> lastEvaluatedKey)
+        {
+            this.items = items;
+            this.lastEvaluatedKey = lastEvaluatedKey;
+        }
+
+        public List<Map<String, AttributeValue>> getItems()
+        {
+            return items;
+        }
+
+        public Map<String, AttributeValue> getLastEvaluatedKey()
+        {
+            return lastEvaluatedKey;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*-
+ * #%L
+ * athena-dynamodb
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.dynamodb.util;
+
+import com.amazonaws.athena.connectors.dynamodb.model.DynamoDBTable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.OptionalLong;
+
+import static com.amazonaws.athena.connectors.dynamodb.util.DDBTableUtils.MAX_BYTES_PER_SEGMENT;
+import static com.amazonaws.athena.connectors.dynamodb.util.DDBTableUtils.MAX_SCAN_SEGMENTS;
+import static com.amazonaws.athena.connectors.dynamodb.util.DDBTableUtils.MIN_IO_PER_SEGMENT;
+import static com.amazonaws.athena.connectors.dynamodb.util.DDBTableUtils.MIN_SCAN_SEGMENTS;
+
+/**
+ * Chooses the number of segments a Parallel Scan of a table is split into.
+ * <p>
+ * Like {@link DDBTableUtils#getNumSegments(long, long)}, the count is the larger of the segments needed to keep each
+ * segment under a target size and the segments the table's read throughput can serve at {@value DDBTableUtils#MIN_IO_PER_SEGMENT}
+ * read units each. On top of that it:
+ * <ul>
+ *   <li>budgets on-demand (PAY_PER_REQUEST) tables against their maximum read request units instead of their
+ *   provisioned read capacity, which DynamoDB reports as 0,</li>
+ *   <li>over-segments on-demand tables by a configurable factor, since their approximate size is only refreshed every
+ *   few hours and small tables would otherwise be read by a single Lambda,</li>
+ *   <li>lets narrow projections cover more of the table per segment, since less of every item is converted and spilled,</li>
+ *   <li>caps the segments of an unfiltered scan with a LIMIT to the ones needed to return that many rows, since every
+ *   segment reads up to the limit. A filtered scan may have to read the whole table to find that many rows, so it keeps
+ *   its segments.</li>
+ * </ul>
+ */
+public class DDBScanSegmentPlanner
+{
+    private static final Logger logger = LoggerFactory.getLogger(DDBScanSegmentPlanner.class);
+
+    // the approximate number of table bytes each scan segment should read
+    public static final String SCAN_SEGMENT_TARGET_BYTES = "scan_segment_target_bytes";
+    // how many more segments than needed for their size on-demand tables are split into, 1 disables over-segmentation
+    public static final String SCAN_OVER_SEGMENTATION_FACTOR = "scan_over_segmentation_factor";
+    // the fraction of the table's read throughput a single scan plans its segments against
+    public static final String SCAN_THROUGHPUT_FRACTION = "scan_throughput_fraction";
+
+    private static final int DEFAULT_OVER_SEGMENTATION_FACTOR = 4;
+    private static final double DEFAULT_THROUGHPUT_FRACTION = 1.0;
+    // the part of a segment's cost spent reading items, which projections do not reduce since DynamoDB reads whole items
+    private static final double READ_COST_WEIGHT = 0.5;
+
+    private final long targetBytesPerSegment;
+    private final int overSegmentationFactor;
+    private final double throughputFraction;
+
+    public DDBScanSegmentPlanner(Map<String, String> configOptions)
+    {
+        this(Long.parseLong(configOptions.getOrDefault(SCAN_SEGMENT_TARGET_BYTES, String.valueOf(MAX_BYTES_PER_SEGMENT)).trim()),
+                Integer.parseInt(configOptions.getOrDefault(SCAN_OVER_SEGMENTATION_FACTOR, String.valueOf(DEFAULT_OVER_SEGMENTATION_FACTOR)).trim()),
+                Double.parseDouble(configOptions.getOrDefault(SCAN_THROUGHPUT_FRACTION, String.valueOf(DEFAULT_THROUGHPUT_FRACTION)).trim()));
+    }
+
+    public DDBScanSegmentPlanner(long targetBytesPerSegment, int overSegmentationFactor, double throughputFraction)
+    {
+        if (targetBytesPerSegment <= 0) {
+            throw new IllegalArgumentException(SCAN_SEGMENT_TARGET_BYTES + " must be positive but was " + targetBytesPerSegment);
+        }
+        if (overSegmentationFactor < 1) {
+            throw new IllegalArgumentException(SCAN_OVER_SEGMENTATION_FACTOR + " must be at least 1 but was " + overSegmentationFactor);
+        }
+        if (throughputFraction <= 0 || throughputFraction > 1) {
+            throw new IllegalArgumentException(SCAN_THROUGHPUT_FRACTION + " must be in (0, 1] but was " + throughputFraction);
+        }
+        this.targetBytesPerSegment = targetBytesPerSegment;
+        this.overSegmentationFactor = overSegmentationFactor;
+        this.throughputFraction = throughputFraction;
+    }
+
+    /**
+     * Chooses the segment count for a scan of the given table.
+     *
+     * @param table the table (or index) metadata
+     * @param projectedColumnFraction the fraction of the table's columns the query reads, in (0, 1]
+     * @param limit the number of rows the query needs, if it has a LIMIT which can be applied to each segment
+     * @param filtered true if the scan filters the items it reads, i.e. the limit does not bound how much of the table is read
+     * @return the segment count
+     */
+    public int getNumSegments(DynamoDBTable table, double projectedColumnFraction, OptionalLong limit, boolean filtered)
+    {
+        double projection = Math.min(Math.max(projectedColumnFraction, 0.0), 1.0);
+        double costBytesPerTableByte = READ_COST_WEIGHT + (1 - READ_COST_WEIGHT) * projection;
+
+        double scanCostBytes = table.getApproxTableSizeInBytes() * costBytesPerTableByte;
+        long segmentsForSize = Math.max(MIN_SCAN_SEGMENTS, (long) Math.ceil(scanCostBytes / targetBytesPerSegment));
+
+        long readCapacity = table.isOnDemand() ? table.getOnDemandMaxReadCapacity() : table.getProvisionedReadCapacity();
+        long segmentsForThroughput = (long) (readCapacity * throughputFraction / MIN_IO_PER_SEGMENT);
+
+        long numSegments;
+        if (table.isOnDemand()) {
+            numSegments = Math.max(segmentsForSize, Math.min(segmentsForSize * overSegmentationFactor, segmentsForThroughput));
+        }
+        else {
+            numSegments = Math.max(segmentsForSize, segmentsForThroughput);
+        }
+        logger.debug("getNumSegments: {} segments for size, {} for throughput, on-demand {}", segmentsForSize, segmentsForThroughput, table.isOnDemand());
+
+        if (limit.isPresent() && !filtered && table.getApproxItemCount() > 0) {
+            double limitCostBytes = limit.getAsLong() * ((double) table.getApproxTableSizeInBytes() / table.getApproxItemCount()) * costBytesPerTableByte;
+            long segmentsForLimit = Math.max(MIN_SCAN_SEGMENTS, (long) Math.ceil(limitCostBytes / targetBytesPerSegment));
+            logger.debug("getNumSegments: {} segments for limit {}", segmentsForLimit, limit.getAsLong());
+            numSegments = Math.min(numSegments, segmentsForLimit);
+        }
+
+        numSegments = Math.min(numSegments, MAX_SCAN_SEGMENTS);
+        numSegments = Math.max(numSegments, MIN_SCAN_SEGMENTS);
+        logger.debug("getNumSegments: using {} segments for table {}", numSegments, table.getName());
+        return (int) numSegments;
+    }
+}
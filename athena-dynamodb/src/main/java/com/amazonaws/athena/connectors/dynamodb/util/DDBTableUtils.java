@@ -33,6 +33,8 @@ import software.amazon.awssdk.awscore.exception.AwsServiceException;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.BillingModeSummary;
 import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
 import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndexDescription;
 import software.amazon.awssdk.services.dynamodb.model.IndexStatus;
@@ -40,6 +42,7 @@ import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
 import software.amazon.awssdk.services.dynamodb.model.KeyType;
 import software.amazon.awssdk.services.dynamodb.model.LimitExceededException;
 import software.amazon.awssdk.services.dynamodb.model.LocalSecondaryIndexDescription;
+import software.amazon.awssdk.services.dynamodb.model.OnDemandThroughput;
 import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
 import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputDescription;
 import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
@@ -66,10 +69,10 @@ public final class DDBTableUtils
 
     // for scan segmentation calculation
     private static final long PSUEDO_CAPACITY_FOR_ON_DEMAND = 40_000;
-    private static final int MAX_SCAN_SEGMENTS = 1000000;
-    private static final int MIN_SCAN_SEGMENTS = 1;
-    private static final long MAX_BYTES_PER_SEGMENT = 1024L * 1024L * 1024L;
-    private static final double MIN_IO_PER_SEGMENT = 100.0;
+    static final int MAX_SCAN_SEGMENTS = 1000000;
+    static final int MIN_SCAN_SEGMENTS = 1;
+    static final long MAX_BYTES_PER_SEGMENT = 1024L * 1024L * 1024L;
+    static final double MIN_IO_PER_SEGMENT = 100.0;
     public static final int SCHEMA_INFERENCE_NUM_RECORDS = 4;
 
     private DDBTableUtils() {}
@@ -103,6 +106,7 @@ public final class DDBTableUtils
         ProvisionedThroughputDescription provisionedThroughputDescription = table.provisionedThroughput();
         // #todo: from the Documentation; this doesn't seem to be returning null from the looks of it; but test;
         final long provisionedReadCapacity =  provisionedThroughputDescription != null ? provisionedThroughputDescription.readCapacityUnits() : PSUEDO_CAPACITY_FOR_ON_DEMAND;
+        final long onDemandMaxReadCapacity = getOnDemandMaxReadCapacity(table);
 
         // get secondary indexes
         List<LocalSecondaryIndexDescription> localSecondaryIndexes = table.hasLocalSecondaryIndexes() ? table.localSecondaryIndexes() : ImmutableList.of();
@@ -122,7 +126,26 @@ public final class DDBTableUtils
                         i.projection().nonKeyAttributes() == null ? ImmutableList.of() : i.projection().nonKeyAttributes()));
               });
 
-        return new DynamoDBTable(tableName, keys.getHashKey(), keys.getRangeKey(), table.attributeDefinitions(), indices.build(), approxTableSizeInBytes, approxItemCount, provisionedReadCapacity);
+        return new DynamoDBTable(tableName, keys.getHashKey(), keys.getRangeKey(), table.attributeDefinitions(), indices.build(), approxTableSizeInBytes, approxItemCount, provisionedReadCapacity,
+                onDemandMaxReadCapacity);
+    }
+
+    /*
+    Returns the read request units per second an on-demand table may consume, or 0 for tables in provisioned mode.
+    On-demand tables without a configured maximum are only bound by the account's per-table quota, which the
+    connector cannot see, so they are given the same pseudo capacity used when no throughput description is returned.
+     */
+    private static long getOnDemandMaxReadCapacity(TableDescription table)
+    {
+        BillingModeSummary billingModeSummary = table.billingModeSummary();
+        if (billingModeSummary == null || billingModeSummary.billingMode() != BillingMode.PAY_PER_REQUEST) {
+            return 0;
+        }
+        OnDemandThroughput onDemandThroughput = table.onDemandThroughput();
+        if (onDemandThroughput != null && onDemandThroughput.maxReadRequestUnits() != null && onDemandThroughput.maxReadRequestUnits() > 0) {
+            return onDemandThroughput.maxReadRequestUnits();
+        }
+        return PSUEDO_CAPACITY_FOR_ON_DEMAND;
     }
 
     /*
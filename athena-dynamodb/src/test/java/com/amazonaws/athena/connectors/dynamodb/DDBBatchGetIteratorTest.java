@@ -0,0 +1,144 @@
+/*-
+ * #%L
+ * athena-dynamodb
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.dynamodb;
+
+import com.amazonaws.athena.connectors.dynamodb.util.DDBBatchGetIterator;
+import com.amazonaws.athena.connectors.dynamodb.util.DDBTypeUtils;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.POINT_LOOKUP_KEYS_PROPERTY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class DDBBatchGetIteratorTest
+{
+    private static final String KEY = "pk";
+
+    private final List<List<String>> requestedBatches = new ArrayList<>();
+
+    @Test
+    public void iterator_withManyKeys_readsBatchesOfMaxSize()
+    {
+        List<Map<String, AttributeValue>> keys = keys(250);
+
+        List<String> items = readAll(new DDBBatchGetIterator(keys, this::readAllKeys));
+
+        assertEquals(250, items.size());
+        assertEquals(Arrays.asList(100, 100, 50), requestedBatches.stream().map(List::size).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void iterator_withUnprocessedKeys_retriesThemInNextBatch()
+    {
+        List<Map<String, AttributeValue>> keys = keys(150);
+
+        List<String> items = readAll(new DDBBatchGetIterator(keys, batchKeys -> {
+            requestedBatches.add(values(batchKeys));
+            if (requestedBatches.size() == 1) {
+                // the last two keys of the first batch are left unprocessed
+                return new DDBBatchGetIterator.Batch(batchKeys.subList(0, 98), batchKeys.subList(98, 100));
+            }
+            return new DDBBatchGetIterator.Batch(batchKeys, Collections.emptyList());
+        }));
+
+        assertEquals(150, items.size());
+        assertEquals(150, items.stream().distinct().count());
+        assertEquals(Arrays.asList("98", "99", "100"), requestedBatches.get(1).subList(0, 3));
+        assertEquals(Arrays.asList(100, 52), requestedBatches.stream().map(List::size).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void hasNext_withMissingItems_skipsToNextBatch()
+    {
+        List<Map<String, AttributeValue>> keys = keys(150);
+
+        List<String> items = readAll(new DDBBatchGetIterator(keys, batchKeys -> {
+            requestedBatches.add(values(batchKeys));
+            if (requestedBatches.size() == 1) {
+                return new DDBBatchGetIterator.Batch(Collections.emptyList(), Collections.emptyList());
+            }
+            return new DDBBatchGetIterator.Batch(batchKeys, Collections.emptyList());
+        }));
+
+        assertEquals(50, items.size());
+        assertEquals(2, requestedBatches.size());
+    }
+
+    @Test
+    public void hasNext_withoutKeys_readsNothing()
+    {
+        assertFalse(new DDBBatchGetIterator(Collections.emptyList(), this::readAllKeys).hasNext());
+        assertEquals(0, requestedBatches.size());
+    }
+
+    @Test
+    public void pointLookupKeys_roundTripThroughSplitProperty()
+    {
+        Map<String, AttributeValue> key = ImmutableMap.of(KEY, AttributeValue.builder().s("a").build(),
+                "sk", AttributeValue.builder().n("5").build());
+        AttributeValue keys = AttributeValue.fromL(Collections.singletonList(AttributeValue.fromM(key)));
+
+        String json = DDBTypeUtils.attributeToJson(keys, POINT_LOOKUP_KEYS_PROPERTY);
+        List<Map<String, AttributeValue>> parsed = DDBTypeUtils.jsonToAttributeValue(json, POINT_LOOKUP_KEYS_PROPERTY).l()
+                .stream()
+                .map(AttributeValue::m)
+                .collect(Collectors.toList());
+
+        assertEquals(Collections.singletonList(key), parsed);
+    }
+
+    private DDBBatchGetIterator.Batch readAllKeys(List<Map<String, AttributeValue>> batchKeys)
+    {
+        requestedBatches.add(values(batchKeys));
+        return new DDBBatchGetIterator.Batch(batchKeys, Collections.emptyList());
+    }
+
+    private static List<Map<String, AttributeValue>> keys(int count)
+    {
+        List<Map<String, AttributeValue>> keys = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            keys.add(ImmutableMap.of(KEY, AttributeValue.builder().s(String.valueOf(i)).build()));
+        }
+        return keys;
+    }
+
+    private static List<String> values(List<Map<String, AttributeValue>> keys)
+    {
+        return keys.stream().map(key -> key.get(KEY).s()).collect(Collectors.toList());
+    }
+
+    private static List<String> readAll(DDBBatchGetIterator iterator)
+    {
+        List<String> values = new ArrayList<>();
+        while (iterator.hasNext()) {
+            values.add(iterator.next().get(KEY).s());
+        }
+        return values;
+    }
+}
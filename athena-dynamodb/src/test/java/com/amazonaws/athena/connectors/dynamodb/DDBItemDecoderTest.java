@@ -0,0 +1,238 @@
+/*-
+ * #%L
+ * athena-dynamodb
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.dynamodb;
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.data.writers.GeneratedRowWriter;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.Extractor;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connectors.dynamodb.resolver.DynamoDBFieldResolver;
+import com.amazonaws.athena.connectors.dynamodb.util.DDBItemDecoder;
+import com.amazonaws.athena.connectors.dynamodb.util.DDBRecordMetadata;
+import com.amazonaws.athena.connectors.dynamodb.util.DDBTypeUtils;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.arrow.vector.complex.reader.FieldReader;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DDBItemDecoderTest
+{
+    private static final Constraints NO_CONSTRAINTS = new Constraints(Collections.emptyMap(), Collections.emptyList(),
+            Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+
+    private final Schema schema = SchemaBuilder.newBuilder()
+            .addBigIntField("bigint_col")
+            .addIntField("int_col")
+            .addSmallIntField("smallint_col")
+            .addTinyIntField("tinyint_col")
+            .addFloat8Field("double_col")
+            .addFloat4Field("float_col")
+            .addDecimalField("decimal_col", 38, 9)
+            .addStringField("string_col")
+            .addBitField("bit_col")
+            .addField("binary_col", Types.MinorType.VARBINARY.getType())
+            .addListField("list_col", Types.MinorType.VARCHAR.getType())
+            .addField(new Field("struct_col", FieldType.nullable(ArrowType.Struct.INSTANCE),
+                    ImmutableList.of(new Field("nested", FieldType.nullable(Types.MinorType.BIGINT.getType()), null))))
+            .build();
+
+    private BlockAllocator allocator;
+
+    @Before
+    public void setUp()
+    {
+        allocator = new BlockAllocatorImpl();
+    }
+
+    @After
+    public void tearDown()
+    {
+        allocator.close();
+    }
+
+    @Test
+    public void decode_matchesPerItemExtractors()
+            throws Exception
+    {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        items.add(item("42", "-7", "12", "-3", "1.5", "2.25", "123.456"));
+        // numbers which are not plain longs fall back to BigDecimal
+        items.add(item("1E3", "2.9", "99999999999999999999", "300", "1e-2", "3.4028236e38", "-0.5"));
+        items.add(item("-999999999999999999", "2147483648", "-32769", "128", "123456789012345678901234567890", "-1", "1"));
+        items.add(ImmutableMap.of("bigint_col", AttributeValue.builder().nul(true).build()));
+        items.add(Collections.emptyMap());
+
+        assertBlocksEqual(writeWithExtractors(items, false), writeWithDecoder(items, false));
+    }
+
+    @Test
+    public void decode_withCaseInsensitiveNames_matchesPerItemExtractors()
+            throws Exception
+    {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        items.add(rename(item("1", "2", "3", "4", "5.5", "6.5", "7.5"), "Bigint_Col", "STRING_COL"));
+        items.add(rename(item("8", "9", "10", "11", "12.5", "13.5", "14.5"), "BIGINT_COL", "String_Col"));
+        items.add(item("15", "16", "17", "18", "19.5", "20.5", "21.5"));
+
+        assertBlocksEqual(writeWithExtractors(items, true), writeWithDecoder(items, true));
+    }
+
+    @Test
+    public void decode_withPlainIntegers_skipsBigDecimal()
+            throws Exception
+    {
+        DDBItemDecoder decoder = new DDBItemDecoder(schema.getFields(), new DDBRecordMetadata(schema), false);
+        List<Map<String, AttributeValue>> items = Collections.singletonList(item("42", "-7", "12", "-3", "1.5", "2.25", "123.456"));
+
+        assertEquals(1, decoder.decode(items));
+        Block block = allocator.createBlock(schema);
+        buildRowWriter(decoder).writeRow(block, 0, decoder.row(0));
+        block.setRowCount(1);
+
+        assertEquals(42L, block.getFieldReader("bigint_col").readLong().longValue());
+        assertEquals(-7, block.getFieldReader("int_col").readInteger().intValue());
+        assertEquals(new BigDecimal("123.456000000"), block.getFieldReader("decimal_col").readBigDecimal());
+    }
+
+    private Block writeWithDecoder(List<Map<String, AttributeValue>> items, boolean caseInsensitive)
+            throws Exception
+    {
+        DDBItemDecoder decoder = new DDBItemDecoder(schema.getFields(), new DDBRecordMetadata(schema), caseInsensitive);
+        GeneratedRowWriter rowWriter = buildRowWriter(decoder);
+        Block block = allocator.createBlock(schema);
+        // decode in pages of two items to exercise reusing the decoded columns
+        int rowNum = 0;
+        for (int start = 0; start < items.size(); start += 2) {
+            int rows = decoder.decode(items.subList(start, Math.min(start + 2, items.size())));
+            for (int row = 0; row < rows; row++) {
+                rowWriter.writeRow(block, rowNum++, decoder.row(row));
+            }
+        }
+        block.setRowCount(rowNum);
+        return block;
+    }
+
+    private GeneratedRowWriter buildRowWriter(DDBItemDecoder decoder)
+    {
+        DynamoDBFieldResolver resolver = new DynamoDBFieldResolver(new DDBRecordMetadata(schema));
+        GeneratedRowWriter.RowWriterBuilder builder = GeneratedRowWriter.newBuilder(NO_CONSTRAINTS);
+        for (Field field : schema.getFields()) {
+            Optional<Extractor> extractor = decoder.makeExtractor(field);
+            if (extractor.isPresent()) {
+                builder.withExtractor(field.getName(), extractor.get());
+            }
+            else {
+                builder.withFieldWriterFactory(field.getName(), decoder.makeFactory(field, resolver));
+            }
+        }
+        return builder.build();
+    }
+
+    private Block writeWithExtractors(List<Map<String, AttributeValue>> items, boolean caseInsensitive)
+            throws Exception
+    {
+        DDBRecordMetadata recordMetadata = new DDBRecordMetadata(schema);
+        DynamoDBFieldResolver resolver = new DynamoDBFieldResolver(recordMetadata);
+        GeneratedRowWriter.RowWriterBuilder builder = GeneratedRowWriter.newBuilder(NO_CONSTRAINTS);
+        for (Field field : schema.getFields()) {
+            Optional<Extractor> extractor = DDBTypeUtils.makeExtractor(field, recordMetadata, caseInsensitive);
+            if (extractor.isPresent()) {
+                builder.withExtractor(field.getName(), extractor.get());
+            }
+            else {
+                builder.withFieldWriterFactory(field.getName(), DDBTypeUtils.makeFactory(field, recordMetadata, resolver, caseInsensitive));
+            }
+        }
+        GeneratedRowWriter rowWriter = builder.build();
+        Block block = allocator.createBlock(schema);
+        for (int row = 0; row < items.size(); row++) {
+            rowWriter.writeRow(block, row, items.get(row));
+        }
+        block.setRowCount(items.size());
+        return block;
+    }
+
+    private static void assertBlocksEqual(Block expected, Block actual)
+    {
+        assertEquals(expected.getRowCount(), actual.getRowCount());
+        for (Field field : expected.getFields()) {
+            FieldReader expectedReader = expected.getFieldReader(field.getName());
+            FieldReader actualReader = actual.getFieldReader(field.getName());
+            for (int row = 0; row < expected.getRowCount(); row++) {
+                expectedReader.setPosition(row);
+                actualReader.setPosition(row);
+                assertTrue(field.getName() + " of row " + row, Objects.deepEquals(expectedReader.readObject(), actualReader.readObject()));
+            }
+        }
+    }
+
+    private static Map<String, AttributeValue> item(String bigint, String integer, String smallint, String tinyint,
+                                                    String doubleValue, String floatValue, String decimal)
+    {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("bigint_col", AttributeValue.builder().n(bigint).build());
+        item.put("int_col", AttributeValue.builder().n(integer).build());
+        item.put("smallint_col", AttributeValue.builder().n(smallint).build());
+        item.put("tinyint_col", AttributeValue.builder().n(tinyint).build());
+        item.put("double_col", AttributeValue.builder().n(doubleValue).build());
+        item.put("float_col", AttributeValue.builder().n(floatValue).build());
+        item.put("decimal_col", AttributeValue.builder().n(decimal).build());
+        item.put("string_col", AttributeValue.builder().s("value-" + bigint).build());
+        item.put("bit_col", AttributeValue.builder().bool(bigint.startsWith("-")).build());
+        item.put("binary_col", AttributeValue.builder().b(SdkBytes.fromUtf8String(bigint)).build());
+        item.put("list_col", AttributeValue.builder().ss("a", "b").build());
+        item.put("struct_col", AttributeValue.builder().m(ImmutableMap.of("nested", AttributeValue.builder().n(integer).build())).build());
+        return item;
+    }
+
+    private static Map<String, AttributeValue> rename(Map<String, AttributeValue> item, String... names)
+    {
+        Map<String, AttributeValue> renamed = new HashMap<>(item);
+        for (String name : names) {
+            renamed.put(name, renamed.remove(name.toLowerCase()));
+        }
+        return renamed;
+    }
+}
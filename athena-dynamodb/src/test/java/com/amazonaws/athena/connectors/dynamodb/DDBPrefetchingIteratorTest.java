@@ -0,0 +1,194 @@
+/*-
+ * #%L
+ * athena-dynamodb
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.dynamodb;
+
+import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import com.amazonaws.athena.connectors.dynamodb.util.DDBPrefetchingIterator;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@RunWith(MockitoJUnitRunner.class)
+public class DDBPrefetchingIteratorTest
+{
+    private static final String KEY = "pk";
+
+    @Mock
+    private QueryStatusChecker queryStatusChecker;
+
+    // pages keyed by the value of the start key they are requested with, the first page by null
+    private final List<List<Map<String, AttributeValue>>> pages = new ArrayList<>();
+    private final List<String> requestedStartKeys = new ArrayList<>();
+
+    @Before
+    public void setup()
+    {
+        lenient().when(queryStatusChecker.isQueryRunning()).thenReturn(true);
+    }
+
+    @Test
+    public void iterator_followsLastEvaluatedKey_readsAllPages()
+    {
+        pages.add(Arrays.asList(item("1"), item("2")));
+        pages.add(Collections.singletonList(item("3")));
+        pages.add(Collections.singletonList(item("4")));
+
+        List<String> items = readAll(new DDBPrefetchingIterator(this::fetch, 2, queryStatusChecker));
+
+        assertEquals(Arrays.asList("1", "2", "3", "4"), items);
+        assertEquals(Arrays.asList(null, "1", "2"), requestedStartKeys);
+    }
+
+    @Test
+    public void hasNext_withPrefetch_requestsPagesAheadOfConsumer()
+    {
+        for (int i = 0; i < 5; i++) {
+            pages.add(Collections.singletonList(item(String.valueOf(i))));
+        }
+        DDBPrefetchingIterator iterator = new DDBPrefetchingIterator(this::fetch, 2, queryStatusChecker);
+
+        assertTrue(iterator.hasNext());
+        // the page being consumed plus two buffered
+        assertEquals(3, requestedStartKeys.size());
+        iterator.next();
+        assertTrue(iterator.hasNext());
+        assertEquals(4, requestedStartKeys.size());
+    }
+
+    @Test
+    public void hasNext_withoutPrefetch_requestsPagesOnDemand()
+    {
+        pages.add(Collections.singletonList(item("1")));
+        pages.add(Collections.singletonList(item("2")));
+        DDBPrefetchingIterator iterator = new DDBPrefetchingIterator(this::fetch, 0, queryStatusChecker);
+
+        assertTrue(iterator.hasNext());
+        assertEquals(1, requestedStartKeys.size());
+        assertEquals("1", iterator.next().get(KEY).s());
+        assertTrue(iterator.hasNext());
+        assertEquals(2, requestedStartKeys.size());
+    }
+
+    @Test
+    public void hasNext_withEmptyPage_skipsToNextPage()
+    {
+        pages.add(Collections.emptyList());
+        pages.add(Collections.singletonList(item("1")));
+
+        List<String> items = readAll(new DDBPrefetchingIterator(this::fetch, 0, queryStatusChecker));
+
+        assertEquals(Collections.singletonList("1"), items);
+    }
+
+    @Test
+    public void hasNext_whenQueryFinished_stopsPrefetching()
+    {
+        pages.add(Collections.singletonList(item("1")));
+        pages.add(Collections.singletonList(item("2")));
+        when(queryStatusChecker.isQueryRunning()).thenReturn(true, false);
+
+        List<String> items = readAll(new DDBPrefetchingIterator(this::fetch, 2, queryStatusChecker));
+
+        assertEquals(Collections.singletonList("1"), items);
+        assertEquals(Collections.singletonList((String) null), requestedStartKeys);
+    }
+
+    @Test
+    public void hasNext_whenClosed_stopsPrefetching()
+    {
+        pages.add(Collections.singletonList(item("1")));
+        pages.add(Collections.singletonList(item("2")));
+        CompletableFuture<DDBPrefetchingIterator.Page> secondPage = new CompletableFuture<>();
+        DDBPrefetchingIterator iterator = new DDBPrefetchingIterator(startKey -> {
+            if (startKey == null) {
+                return fetch(null);
+            }
+            return secondPage;
+        }, 1, queryStatusChecker);
+
+        assertTrue(iterator.hasNext());
+        iterator.next();
+        iterator.close();
+
+        assertTrue(secondPage.isCancelled());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void hasNext_whenPageFails_throwsConnectorException()
+    {
+        DDBPrefetchingIterator iterator = new DDBPrefetchingIterator(startKey -> {
+            CompletableFuture<DDBPrefetchingIterator.Page> failed = new CompletableFuture<>();
+            failed.completeExceptionally(ResourceNotFoundException.builder().message("missing").build());
+            return failed;
+        }, 2, queryStatusChecker);
+
+        AthenaConnectorException ex = assertThrows(AthenaConnectorException.class, iterator::hasNext);
+        assertEquals(FederationSourceErrorCode.ENTITY_NOT_FOUND_EXCEPTION.toString(), ex.getErrorDetails().errorCode());
+    }
+
+    private CompletableFuture<DDBPrefetchingIterator.Page> fetch(Map<String, AttributeValue> startKey)
+    {
+        String startValue = startKey == null ? null : startKey.get(KEY).s();
+        requestedStartKeys.add(startValue);
+        int pageIndex = requestedStartKeys.size() - 1;
+        List<Map<String, AttributeValue>> items = pages.get(pageIndex);
+        // continue from the page's index, the last page has no key to continue from
+        Map<String, AttributeValue> lastEvaluatedKey = pageIndex + 1 < pages.size()
+                ? ImmutableMap.of(KEY, AttributeValue.builder().s(String.valueOf(pageIndex + 1)).build())
+                : Collections.emptyMap();
+        return CompletableFuture.completedFuture(new DDBPrefetchingIterator.Page(items, lastEvaluatedKey));
+    }
+
+    private static Map<String, AttributeValue> item(String value)
+    {
+        return ImmutableMap.of(KEY, AttributeValue.builder().s(value).build());
+    }
+
+    private static List<String> readAll(DDBPrefetchingIterator iterator)
+    {
+        List<String> values = new ArrayList<>();
+        while (iterator.hasNext()) {
+            values.add(iterator.next().get(KEY).s());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,118 @@
+/*-
+ * #%L
+ * athena-dynamodb
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.dynamodb;
+
+import com.amazonaws.athena.connectors.dynamodb.model.DynamoDBTable;
+import com.amazonaws.athena.connectors.dynamodb.util.DDBScanSegmentPlanner;
+import com.amazonaws.athena.connectors.dynamodb.util.DDBTableUtils;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static org.junit.Assert.assertEquals;
+
+public class DDBScanSegmentPlannerTest
+{
+    private static final long GB = 1024L * 1024L * 1024L;
+
+    private final DDBScanSegmentPlanner planner = new DDBScanSegmentPlanner(ImmutableMap.of());
+
+    @Test
+    public void getNumSegments_withProvisionedTable_matchesLegacyHeuristic()
+    {
+        DynamoDBTable table = table(50 * GB, 50_000_000, 1_000, 0);
+
+        assertEquals(DDBTableUtils.getNumSegments(1_000, 50 * GB), planner.getNumSegments(table, 1.0, OptionalLong.empty(), false));
+        assertEquals(50, planner.getNumSegments(table, 1.0, OptionalLong.empty(), false));
+    }
+
+    @Test
+    public void getNumSegments_withSmallOnDemandTable_overSegments()
+    {
+        DynamoDBTable table = table(100L * 1024 * 1024, 100_000, 0, 40_000);
+
+        assertEquals(4, planner.getNumSegments(table, 1.0, OptionalLong.empty(), false));
+        assertEquals(1, new DDBScanSegmentPlanner(ImmutableMap.of(DDBScanSegmentPlanner.SCAN_OVER_SEGMENTATION_FACTOR, "1"))
+                .getNumSegments(table, 1.0, OptionalLong.empty(), false));
+    }
+
+    @Test
+    public void getNumSegments_withOnDemandTable_staysWithinMaxReadRequestUnits()
+    {
+        DynamoDBTable table = table(20 * GB, 20_000_000, 0, 500);
+
+        // 20 segments are needed for size, over-segmenting is capped by the 500 RRU budget at 5 segments
+        assertEquals(20, planner.getNumSegments(table, 1.0, OptionalLong.empty(), false));
+
+        DynamoDBTable largerBudget = table(20 * GB, 20_000_000, 0, 4_000);
+        assertEquals(40, planner.getNumSegments(largerBudget, 1.0, OptionalLong.empty(), false));
+    }
+
+    @Test
+    public void getNumSegments_withNarrowProjection_usesFewerSegments()
+    {
+        DynamoDBTable table = table(40 * GB, 40_000_000, 0, 40_000);
+
+        assertEquals(160, planner.getNumSegments(table, 1.0, OptionalLong.empty(), false));
+        assertEquals(22 * 4, planner.getNumSegments(table, 0.1, OptionalLong.empty(), false));
+    }
+
+    @Test
+    public void getNumSegments_withLimit_capsSegments()
+    {
+        DynamoDBTable table = table(40 * GB, 40_000_000, 1_000, 0);
+
+        assertEquals(40, planner.getNumSegments(table, 1.0, OptionalLong.empty(), false));
+        assertEquals(1, planner.getNumSegments(table, 1.0, OptionalLong.of(10), false));
+        // without an item count the average item size, and so the limit's size, is unknown
+        assertEquals(40, planner.getNumSegments(table(40 * GB, 0, 1_000, 0), 1.0, OptionalLong.of(10), false));
+    }
+
+    @Test
+    public void getNumSegments_withLimitAndFilter_keepsSegments()
+    {
+        DynamoDBTable table = table(40 * GB, 40_000_000, 1_000, 0);
+
+        // a filtered scan may read the whole table before it finds the limit's rows
+        assertEquals(40, planner.getNumSegments(table, 1.0, OptionalLong.of(10), true));
+        assertEquals(40, planner.getNumSegments(table, 1.0, OptionalLong.empty(), true));
+    }
+
+    @Test
+    public void getNumSegments_withEmptyTable_usesOneSegment()
+    {
+        assertEquals(1, planner.getNumSegments(table(0, 0, 0, 0), 1.0, OptionalLong.empty(), false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_withInvalidThroughputFraction_throws()
+    {
+        new DDBScanSegmentPlanner(ImmutableMap.of(DDBScanSegmentPlanner.SCAN_THROUGHPUT_FRACTION, "2"));
+    }
+
+    private static DynamoDBTable table(long sizeBytes, long itemCount, long provisionedReadCapacity, long onDemandMaxReadCapacity)
+    {
+        return new DynamoDBTable("table", "pk", Optional.empty(), ImmutableList.of(), ImmutableList.of(), sizeBytes, itemCount,
+                provisionedReadCapacity, onDemandMaxReadCapacity);
+    }
+}
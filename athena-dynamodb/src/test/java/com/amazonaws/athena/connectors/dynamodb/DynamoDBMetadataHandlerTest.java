@@ -54,6 +54,7 @@ import com.amazonaws.athena.connectors.dynamodb.util.DDBTypeUtils;
 import com.amazonaws.util.json.Jackson;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import org.apache.arrow.vector.types.Types;
 import org.apache.arrow.vector.types.pojo.ArrowType;
@@ -112,6 +113,8 @@ import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstan
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.INDEX_METADATA;
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.NON_KEY_FILTER_METADATA;
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.PARTITION_TYPE_METADATA;
+import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.POINT_LOOKUP_KEYS_PROPERTY;
+import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.POINT_LOOKUP_PARTITION_TYPE;
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.QUERY_PARTITION_TYPE;
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.RANGE_KEY_FILTER_METADATA;
 import static com.amazonaws.athena.connectors.dynamodb.constants.DynamoDBConstants.RANGE_KEY_NAME_METADATA;
@@ -737,6 +740,77 @@ public class DynamoDBMetadataHandlerTest
         assertThat(response.getSplits().stream().map(split -> split.getProperty("col_0")).distinct().count(), equalTo((long) MAX_SPLITS_PER_REQUEST));
     }
 
+    @Test
+    public void doGetSplits_withFullPrimaryKeyEquality_createsPointLookupSplits()
+            throws Exception
+    {
+        Map<String, ValueSet> constraintsMap = new HashMap<>();
+        EquatableValueSet.Builder hashKeyValueSet = EquatableValueSet.newBuilder(allocator, Types.MinorType.VARCHAR.getType(), true, false);
+        for (int i = 0; i < 1200; i++) {
+            hashKeyValueSet.add("test_str_" + i);
+        }
+        EquatableValueSet.Builder rangeKeyValueSet = EquatableValueSet.newBuilder(allocator, Types.MinorType.BIGINT.getType(), true, false);
+        rangeKeyValueSet.add(1L);
+        rangeKeyValueSet.add(2L);
+        constraintsMap.put("col_0", hashKeyValueSet.build());
+        constraintsMap.put("col_1", rangeKeyValueSet.build());
+        GetTableLayoutResponse layoutResponse = handler.doGetTableLayout(allocator, new GetTableLayoutRequest(TEST_IDENTITY,
+                TEST_QUERY_ID,
+                TEST_CATALOG_NAME,
+                TEST_TABLE_NAME,
+                getConstraints(constraintsMap, Collections.emptyMap(), null),
+                SchemaBuilder.newBuilder().build(),
+                Collections.EMPTY_SET));
+
+        Map<String, String> partitionMetadata = layoutResponse.getPartitions().getSchema().getCustomMetadata();
+        assertThat(partitionMetadata.get(PARTITION_TYPE_METADATA), equalTo(POINT_LOOKUP_PARTITION_TYPE));
+        assertThat(partitionMetadata.get(HASH_KEY_NAME_METADATA), equalTo("col_0"));
+        assertThat(partitionMetadata.get(RANGE_KEY_NAME_METADATA), equalTo("col_1"));
+        assertThat(partitionMetadata.containsKey(NON_KEY_FILTER_METADATA), is(false));
+        assertThat(layoutResponse.getPartitions().getRowCount(), equalTo(2400));
+
+        GetSplitsRequest req = getSplitsRequest(
+                layoutResponse.getPartitions(),
+                ImmutableList.of("col_0", "col_1"),
+                getConstraints(constraintsMap, Collections.emptyMap(), null));
+        GetSplitsResponse response = handler.doGetSplits(allocator, req);
+
+        // the default of 500 keys per split
+        assertThat(response.getContinuationToken(), equalTo(null));
+        assertThat(response.getSplits().size(), equalTo(5));
+        int keyCount = 0;
+        for (Split split : response.getSplits()) {
+            List<AttributeValue> keys = DDBTypeUtils.jsonToAttributeValue(split.getProperty(POINT_LOOKUP_KEYS_PROPERTY), POINT_LOOKUP_KEYS_PROPERTY).l();
+            assertThat(keys.get(0).m().keySet(), equalTo(ImmutableSet.of("col_0", "col_1")));
+            keyCount += keys.size();
+        }
+        assertThat(keyCount, equalTo(2400));
+    }
+
+    @Test
+    public void doGetTableLayout_withNonKeyConstraint_createsQueryPartitionType()
+            throws Exception
+    {
+        Map<String, ValueSet> constraintsMap = new HashMap<>();
+        constraintsMap.put("col_0", EquatableValueSet.newBuilder(allocator, Types.MinorType.VARCHAR.getType(), true, false)
+                .add("test_str_0").add("test_str_1").build());
+        constraintsMap.put("col_1", EquatableValueSet.newBuilder(allocator, Types.MinorType.BIGINT.getType(), true, false)
+                .add(1L).build());
+        constraintsMap.put("col_3", EquatableValueSet.newBuilder(allocator, new ArrowType.Bool(), true, false)
+                .add(true).build());
+        GetTableLayoutResponse res = handler.doGetTableLayout(allocator, new GetTableLayoutRequest(TEST_IDENTITY,
+                TEST_QUERY_ID,
+                TEST_CATALOG_NAME,
+                TEST_TABLE_NAME,
+                getConstraints(constraintsMap, Collections.emptyMap(), null),
+                SchemaBuilder.newBuilder().build(),
+                Collections.EMPTY_SET));
+
+        // BatchGetItem can't filter on col_3, so the hash keys are queried instead
+        assertThat(res.getPartitions().getSchema().getCustomMetadata().get(PARTITION_TYPE_METADATA), equalTo(QUERY_PARTITION_TYPE));
+        assertThat(res.getPartitions().getRowCount(), equalTo(2));
+    }
+
     @Test
     public void doGetTable_withGlueTable_propagatesSourceTableName()
             throws Exception
@@ -0,0 +1,194 @@
+/*-
+ * #%L
+ * athena-dynamodb
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.dynamodb;
+
+import com.amazonaws.athena.connector.lambda.ThrottlingInvoker;
+import com.amazonaws.athena.connectors.dynamodb.model.DynamoDBTable;
+import com.amazonaws.athena.connectors.dynamodb.util.DDBScanSegmentPlanner;
+import com.amazonaws.athena.connectors.dynamodb.util.DDBTableUtils;
+import com.amazonaws.services.dynamodbv2.local.main.ServerRunner;
+import com.amazonaws.services.dynamodbv2.local.server.DynamoDBProxyServer;
+import com.google.common.collect.ImmutableMap;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScalarAttributeType;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static com.amazonaws.athena.connectors.dynamodb.throttling.DynamoDBExceptionFilter.EXCEPTION_FILTER;
+
+/**
+ * Benchmark harness comparing Parallel Scan wall time across segment counts, including the count chosen by
+ * {@link DDBScanSegmentPlanner}, against an in-process DynamoDB Local. Each segment is read by its own thread, like
+ * each scan split is read by its own Lambda invocation.
+ * <p>
+ * This is not run as part of the test suite. Run it from the test classpath with optional arguments
+ * {@code <itemCount> <itemBytes> <threads>}. DynamoDB Local does not enforce throughput limits, so the results show the
+ * parallelism each segment count achieves, not the throttling a real table's read budget would add.
+ */
+public class DynamoDBScanSegmentationBenchmark
+{
+    private static final String PORT = "8001";
+    private static final String TABLE_NAME = "scan_segmentation_benchmark";
+    private static final int[] SEGMENT_COUNTS = {1, 2, 4, 8, 16, 32};
+    private static final int RUNS = 3;
+
+    private DynamoDBScanSegmentationBenchmark() {}
+
+    public static void main(String[] args)
+            throws Exception
+    {
+        int itemCount = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int itemBytes = args.length > 1 ? Integer.parseInt(args[1]) : 1_024;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : 32;
+
+        DynamoDBProxyServer server = ServerRunner.createServerFromCommandLineArgs(new String[] {"-inMemory", "-port", PORT});
+        server.start();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try (DynamoDbClient ddbClient = DynamoDbClient.builder()
+                .endpointOverride(URI.create("http://localhost:" + PORT))
+                .httpClient(UrlConnectionHttpClient.builder().build())
+                .region(Region.US_WEST_2)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("dummyKey", "dummySecret")))
+                .build()) {
+            createTable(ddbClient);
+            loadItems(ddbClient, itemCount, itemBytes);
+
+            ThrottlingInvoker invoker = ThrottlingInvoker.newDefaultBuilder(EXCEPTION_FILTER, ImmutableMap.of()).build();
+            DynamoDBTable table = DDBTableUtils.getTable(TABLE_NAME, invoker, ddbClient, null);
+            DDBScanSegmentPlanner planner = new DDBScanSegmentPlanner(ImmutableMap.of(
+                    DDBScanSegmentPlanner.SCAN_SEGMENT_TARGET_BYTES, String.valueOf(Math.max(1, (long) itemCount * itemBytes / 8))));
+            int plannedSegments = planner.getNumSegments(table, 1.0, OptionalLong.empty(), false);
+
+            TreeSet<Integer> segmentCounts = new TreeSet<>();
+            for (int segmentCount : SEGMENT_COUNTS) {
+                segmentCounts.add(segmentCount);
+            }
+            segmentCounts.add(plannedSegments);
+
+            System.out.printf("items=%d itemBytes=%d tableSizeBytes=%d itemCount=%d onDemand=%s plannedSegments=%d%n",
+                    itemCount, itemBytes, table.getApproxTableSizeInBytes(), table.getApproxItemCount(), table.isOnDemand(), plannedSegments);
+            for (int segmentCount : segmentCounts) {
+                long bestMillis = Long.MAX_VALUE;
+                long rows = 0;
+                for (int run = 0; run < RUNS; run++) {
+                    long start = System.nanoTime();
+                    rows = scan(ddbClient, executor, segmentCount);
+                    bestMillis = Math.min(bestMillis, (System.nanoTime() - start) / 1_000_000);
+                }
+                System.out.printf("segments=%d%s rows=%d bestMillis=%d%n", segmentCount,
+                        segmentCount == plannedSegments ? " (planned)" : "", rows, bestMillis);
+            }
+        }
+        finally {
+            executor.shutdownNow();
+            server.stop();
+        }
+    }
+
+    private static void createTable(DynamoDbClient ddbClient)
+    {
+        ddbClient.createTable(CreateTableRequest.builder()
+                .tableName(TABLE_NAME)
+                .keySchema(KeySchemaElement.builder().attributeName("pk").keyType(KeyType.HASH).build())
+                .attributeDefinitions(AttributeDefinition.builder().attributeName("pk").attributeType(ScalarAttributeType.S).build())
+                .billingMode(BillingMode.PAY_PER_REQUEST)
+                .build());
+        ddbClient.waiter().waitUntilTableExists(DescribeTableRequest.builder().tableName(TABLE_NAME).build());
+    }
+
+    private static void loadItems(DynamoDbClient ddbClient, int itemCount, int itemBytes)
+    {
+        StringBuilder payload = new StringBuilder();
+        while (payload.length() < itemBytes) {
+            payload.append('x');
+        }
+        List<WriteRequest> batch = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            Map<String, AttributeValue> item = new HashMap<>();
+            item.put("pk", AttributeValue.builder().s("item-" + i).build());
+            item.put("num", AttributeValue.builder().n(String.valueOf(i)).build());
+            item.put("payload", AttributeValue.builder().s(payload.toString()).build());
+            batch.add(WriteRequest.builder().putRequest(PutRequest.builder().item(item).build()).build());
+            // BatchWriteItem accepts at most 25 items
+            if (batch.size() == 25 || i == itemCount - 1) {
+                Map<String, List<WriteRequest>> unprocessed = ImmutableMap.of(TABLE_NAME, batch);
+                while (!unprocessed.isEmpty()) {
+                    unprocessed = ddbClient.batchWriteItem(BatchWriteItemRequest.builder().requestItems(unprocessed).build()).unprocessedItems();
+                }
+                batch = new ArrayList<>();
+            }
+        }
+    }
+
+    private static long scan(DynamoDbClient ddbClient, ExecutorService executor, int segmentCount)
+            throws Exception
+    {
+        List<Future<Long>> segments = new ArrayList<>();
+        for (int segment = 0; segment < segmentCount; segment++) {
+            int currentSegment = segment;
+            segments.add(executor.submit(() -> {
+                long rows = 0;
+                Map<String, AttributeValue> exclusiveStartKey = null;
+                do {
+                    ScanResponse response = ddbClient.scan(ScanRequest.builder()
+                            .tableName(TABLE_NAME)
+                            .segment(currentSegment)
+                            .totalSegments(segmentCount)
+                            .exclusiveStartKey(exclusiveStartKey)
+                            .build());
+                    rows += response.count();
+                    exclusiveStartKey = response.hasLastEvaluatedKey() && !response.lastEvaluatedKey().isEmpty() ? response.lastEvaluatedKey() : null;
+                }
+                while (exclusiveStartKey != null);
+                return rows;
+            }));
+        }
+        long rows = 0;
+        for (Future<Long> segment : segments) {
+            rows += segment.get();
+        }
+        return rows;
+    }
+}
@@ -21,23 +21,39 @@ package com.amazonaws.athena.connectors.dynamodb;
 
 import com.amazonaws.athena.connector.lambda.ThrottlingInvoker;
 import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import com.amazonaws.athena.connector.lambda.metadata.MetadataCache;
+import com.amazonaws.athena.connectors.dynamodb.model.DynamoDBTable;
 import com.amazonaws.athena.connectors.dynamodb.resolver.DynamoDBTableResolver;
 import com.amazonaws.athena.connectors.dynamodb.util.DDBTableUtils;
+import com.google.common.collect.ImmutableMap;
+import org.apache.arrow.vector.types.pojo.Schema;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
+import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
 import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BillingMode;
+import software.amazon.awssdk.services.dynamodb.model.BillingModeSummary;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableRequest;
+import software.amazon.awssdk.services.dynamodb.model.DescribeTableResponse;
 import software.amazon.awssdk.services.dynamodb.model.DynamoDbException;
+import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
+import software.amazon.awssdk.services.dynamodb.model.KeyType;
 import software.amazon.awssdk.services.dynamodb.model.LimitExceededException;
 import software.amazon.awssdk.services.dynamodb.model.ListTablesRequest;
 import software.amazon.awssdk.services.dynamodb.model.ListTablesResponse;
+import software.amazon.awssdk.services.dynamodb.model.OnDemandThroughput;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputDescription;
 import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
 import software.amazon.awssdk.services.dynamodb.model.RequestLimitExceededException;
 import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
 import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+import software.amazon.awssdk.services.dynamodb.model.TableDescription;
 import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
 
 import java.util.Arrays;
@@ -45,10 +61,14 @@ import java.util.Collections;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -59,15 +79,112 @@ public class DynamoDBTableResolverTest
     @Mock
     private DynamoDbClient ddbClient;
 
+    private ThrottlingInvoker invoker;
     private DynamoDBTableResolver tableResolver;
 
     @Before
     public void setUp()
     {
-        ThrottlingInvoker invoker = ThrottlingInvoker.newDefaultBuilder(NO_OP_FILTER, Collections.emptyMap()).build();
+        invoker = ThrottlingInvoker.newDefaultBuilder(NO_OP_FILTER, Collections.emptyMap()).build();
         tableResolver = new DynamoDBTableResolver(invoker, ddbClient);
     }
 
+    @Test
+    public void getTableMetadata_withCacheDisabled_describesTableEveryTime()
+            throws Exception
+    {
+        when(ddbClient.describeTable(any(DescribeTableRequest.class))).thenReturn(describeTableResponse("test_table"));
+
+        tableResolver.getTableMetadata("test_table", null);
+        tableResolver.getTableMetadata("test_table", null);
+
+        verify(ddbClient, times(2)).describeTable(any(DescribeTableRequest.class));
+    }
+
+    @Test
+    public void getTableMetadata_withCacheEnabled_describesTableOnce()
+            throws Exception
+    {
+        DynamoDBTableResolver cachingResolver = newCachingResolver();
+        when(ddbClient.describeTable(any(DescribeTableRequest.class))).thenReturn(describeTableResponse("test_table"));
+
+        DynamoDBTable first = cachingResolver.getTableMetadata("test_table", null);
+        DynamoDBTable second = cachingResolver.getTableMetadata("test_table", null);
+
+        assertEquals(first, second);
+        assertEquals("pk", second.getHashKey());
+        verify(ddbClient, times(1)).describeTable(any(DescribeTableRequest.class));
+    }
+
+    @Test
+    public void getTableMetadata_withOverrideConfig_bypassesCache()
+            throws Exception
+    {
+        DynamoDBTableResolver cachingResolver = newCachingResolver();
+        AwsRequestOverrideConfiguration overrideConfig = AwsRequestOverrideConfiguration.builder().build();
+        when(ddbClient.describeTable(any(DescribeTableRequest.class))).thenReturn(describeTableResponse("test_table"));
+
+        cachingResolver.getTableMetadata("test_table", overrideConfig);
+        cachingResolver.getTableMetadata("test_table", overrideConfig);
+
+        verify(ddbClient, times(2)).describeTable(any(DescribeTableRequest.class));
+    }
+
+    @Test
+    public void getTableMetadata_withOnDemandTable_readsMaxReadRequestUnits()
+            throws Exception
+    {
+        TableDescription onDemandTable = describeTableResponse("test_table").table().toBuilder()
+                .billingModeSummary(BillingModeSummary.builder().billingMode(BillingMode.PAY_PER_REQUEST).build())
+                .provisionedThroughput(ProvisionedThroughputDescription.builder().readCapacityUnits(0L).build())
+                .build();
+        when(ddbClient.describeTable(any(DescribeTableRequest.class)))
+                .thenReturn(DescribeTableResponse.builder().table(onDemandTable).build())
+                .thenReturn(DescribeTableResponse.builder().table(onDemandTable.toBuilder()
+                        .onDemandThroughput(OnDemandThroughput.builder().maxReadRequestUnits(800L).build())
+                        .build()).build())
+                .thenReturn(describeTableResponse("test_table"));
+
+        DynamoDBTable uncapped = tableResolver.getTableMetadata("test_table", null);
+        DynamoDBTable capped = tableResolver.getTableMetadata("test_table", null);
+        DynamoDBTable provisioned = tableResolver.getTableMetadata("test_table", null);
+
+        assertTrue(uncapped.isOnDemand());
+        assertEquals(40_000, uncapped.getOnDemandMaxReadCapacity());
+        assertEquals(800, capped.getOnDemandMaxReadCapacity());
+        assertFalse(provisioned.isOnDemand());
+    }
+
+    @Test
+    public void getTableSchema_withCacheEnabled_cachesSchemaAndCaseInsensitiveMatch()
+            throws Exception
+    {
+        DynamoDBTableResolver cachingResolver = newCachingResolver();
+        ResourceNotFoundException notFound = (ResourceNotFoundException) ResourceNotFoundException.builder()
+                .message("Table: test_table not found")
+                .statusCode(400)
+                .build();
+        when(ddbClient.scan(argThat((ScanRequest request) -> request != null && "test_table".equals(request.tableName())))).thenThrow(notFound);
+        when(ddbClient.scan(argThat((ScanRequest request) -> request != null && "Test_Table".equals(request.tableName()))))
+                .thenReturn(ScanResponse.builder().items(ImmutableMap.of("col", AttributeValue.builder().s("value").build())).build());
+        when(ddbClient.listTables(any(ListTablesRequest.class)))
+                .thenReturn(ListTablesResponse.builder().tableNames(Collections.singletonList("Test_Table")).build());
+        when(ddbClient.describeTable(argThat((DescribeTableRequest request) -> request != null && "test_table".equals(request.tableName())))).thenThrow(notFound);
+        when(ddbClient.describeTable(argThat((DescribeTableRequest request) -> request != null && "Test_Table".equals(request.tableName()))))
+                .thenReturn(describeTableResponse("Test_Table"));
+
+        Schema first = cachingResolver.getTableSchema("test_table", null);
+        Schema second = cachingResolver.getTableSchema("test_table", null);
+        DynamoDBTable table = cachingResolver.getTableMetadata("test_table", null);
+
+        assertEquals(first, second);
+        assertEquals("col", second.getFields().get(0).getName());
+        assertEquals("Test_Table", table.getName());
+        // the name resolved for the schema is reused for the table metadata
+        verify(ddbClient, times(1)).listTables(any(ListTablesRequest.class));
+        verify(ddbClient, times(2)).scan(any(ScanRequest.class));
+    }
+
     @Test
     public void testGetTableSchema_ExceptionMapping()
     {
@@ -222,4 +339,21 @@ public class DynamoDBTableResolverTest
                     ((AthenaConnectorException) e).getErrorDetails().errorCode());
         }
     }
+
+    private DynamoDBTableResolver newCachingResolver()
+    {
+        return new DynamoDBTableResolver(invoker, ddbClient, ImmutableMap.of(MetadataCache.METADATA_CACHE_TTL_SECONDS, "60"));
+    }
+
+    private static DescribeTableResponse describeTableResponse(String tableName)
+    {
+        return DescribeTableResponse.builder()
+                .table(TableDescription.builder()
+                        .tableName(tableName)
+                        .keySchema(KeySchemaElement.builder().attributeName("pk").keyType(KeyType.HASH).build())
+                        .tableSizeBytes(0L)
+                        .itemCount(0L)
+                        .build())
+                .build();
+    }
 }
@@ -45,6 +45,7 @@ import software.amazon.awssdk.core.SdkBytes;
 import software.amazon.awssdk.core.waiters.WaiterResponse;
 import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
@@ -107,6 +108,7 @@ public class TestBase
     protected static final String TEST_FIELD = "col1";
 
     protected static DynamoDbClient ddbClient;
+    protected static DynamoDbAsyncClient ddbAsyncClient;
     protected static Schema schema;
     protected static DynamoDBProxyServer server;
 
@@ -114,12 +116,18 @@ public class TestBase
     public static void setupOnce() throws Exception
     {
         ddbClient = setupLocalDDB();
+        ddbAsyncClient = DynamoDbAsyncClient.builder()
+                .endpointOverride(URI.create("http://localhost:8000"))
+                .region(Region.US_WEST_2)
+                .credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create("dummyKey", "dummySecret")))
+                .build();
         ThrottlingInvoker invoker = ThrottlingInvoker.newDefaultBuilder(EXCEPTION_FILTER, com.google.common.collect.ImmutableMap.of()).build();
         schema = DDBTableUtils.peekTableForSchema(TEST_TABLE, invoker, ddbClient, null);
     }
 
     @AfterClass
     public static void tearDownOnce() throws Exception {
+        ddbAsyncClient.close();
         server.stop();
     }
 
@@ -19,48 +19,42 @@
  */
 package com.amazonaws.athena.connector.lambda;
 
-import com.google.common.collect.ImmutableSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.services.athena.AthenaClient;
-import software.amazon.awssdk.services.athena.model.GetQueryExecutionRequest;
-import software.amazon.awssdk.services.athena.model.GetQueryExecutionResponse;
-import software.amazon.awssdk.services.athena.model.InvalidRequestException;
-
-import java.util.Set;
-import java.util.concurrent.atomic.AtomicBoolean;
-
-import static java.lang.String.format;
 
 /**
  * This class provides a mechanism for callers to terminate in-progress work if the upstream Athena query waiting for that work has
  * already terminated.  Callers using the SDK as-is should only need to call #isQueryRunning, as #startQueryStatusChecker
  * should have already been called by {@link com.amazonaws.athena.connector.lambda.handlers.MetadataHandler} or
  * {@link com.amazonaws.athena.connector.lambda.handlers.RecordHandler}.
+ * <p>
+ * Polling itself is delegated to the process wide {@link QueryStatusService} so that all checkers for the same query share
+ * one poll schedule instead of each starting their own thread and making redundant calls to Athena.
  */
 public class QueryStatusChecker
         implements AutoCloseable
 {
     private static final Logger logger = LoggerFactory.getLogger(QueryStatusChecker.class);
 
-    // progressively longer delays at which to poll
-    private static final int[] FIBONACCI = new int[] { 1, 1, 2, 3, 5, 8, 13, 21, 34, 55};
-    // Athena terminal states
-    private static final Set<String> TERMINAL_STATES = ImmutableSet.of("SUCCEEDED", "FAILED", "CANCELLED");
-
-    private boolean wasStarted = false;
-    private final AtomicBoolean isRunning = new AtomicBoolean(true);
+    private volatile boolean wasStarted = false;
+    private volatile boolean isRunning = true;
     private final AthenaClient athena;
     private final ThrottlingInvoker athenaInvoker;
     private final String queryId;
-    private final Thread checkerThread;
+    private final QueryStatusService statusService;
 
     public QueryStatusChecker(AthenaClient athena, ThrottlingInvoker athenaInvoker, String queryId)
+    {
+        this(athena, athenaInvoker, queryId, QueryStatusService.getInstance());
+    }
+
+    QueryStatusChecker(AthenaClient athena, ThrottlingInvoker athenaInvoker, String queryId, QueryStatusService statusService)
     {
         this.athena = athena;
         this.athenaInvoker = athenaInvoker;
         this.queryId = queryId;
-        this.checkerThread = new Thread(() -> runQueryStatusChecker(queryId), "QueryStatusCheckerThread-" + queryId);
+        this.statusService = statusService;
     }
 
     /**
@@ -68,66 +62,38 @@ public class QueryStatusChecker
      */
     public boolean isQueryRunning()
     {
-        // start the checker thread if it hasn't started already
+        // subscribe to status updates if we haven't already
         if (!wasStarted) {
             synchronized (this) {
                 if (!wasStarted) {
-                    checkerThread.start();
+                    statusService.subscribe(athena, athenaInvoker, queryId, this);
                     wasStarted = true;
                 }
             }
         }
-        return isRunning.get();
+        return isRunning;
     }
 
     /**
-     * Stops the status checker thread
+     * Stops receiving status updates for the query, polling ceases once no checker for the query remains open.
      */
     @Override
     public void close()
     {
-        // fine if the thread isn't running
-        checkerThread.interrupt();
-        logger.debug("Interrupt signal sent to status checker thread");
-    }
-
-    private void runQueryStatusChecker(String queryId)
-    {
-        int attempt = 0;
-        while (isRunning.get()) {
-            int delay = FIBONACCI[Math.min(attempt, FIBONACCI.length - 1)];
-            try {
-                Thread.sleep(delay * 1000);
-                checkStatus(queryId, attempt);
-            }
-            catch (InterruptedException e) {
-                logger.debug("Checker thread interrupted. Ceasing status polling");
-                return;
+        // fine if we never subscribed
+        synchronized (this) {
+            if (wasStarted) {
+                statusService.unsubscribe(queryId, this);
             }
-            attempt++;
         }
-        logger.debug("Query terminated. Ceasing status polling");
+        logger.debug("Status checker for query {} closed", queryId);
     }
 
-    private void checkStatus(String queryId, int attempt)
-            throws InterruptedException
+    /**
+     * Invoked by the {@link QueryStatusService} once Athena reports the query in a terminal state.
+     */
+    void markTerminated()
     {
-        logger.debug(format("Background thread checking status of Athena query %s, attempt %d", queryId, attempt));
-        try {
-            GetQueryExecutionResponse queryExecution = athenaInvoker.invoke(() -> athena.getQueryExecution(GetQueryExecutionRequest.builder().queryExecutionId(queryId).build()));
-            String state = queryExecution.queryExecution().status().state().toString();
-            if (TERMINAL_STATES.contains(state)) {
-                logger.debug("Query {} has terminated with state {}", queryId, state);
-                isRunning.set(false);
-            }
-        }
-        catch (Exception e) {
-            logger.warn("Exception {} thrown when calling Athena for query status: {}", e.getClass().getSimpleName(), e.getMessage());
-            if (e instanceof InvalidRequestException) {
-                // query does not exist, so no need to keep calling Athena
-                logger.debug("Athena reports query {} not found. Interrupting checker thread", queryId);
-                throw new InterruptedException();
-            }
-        }
+        isRunning = false;
     }
 }
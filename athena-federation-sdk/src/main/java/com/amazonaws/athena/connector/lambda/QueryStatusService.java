@@ -0,0 +1,196 @@
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connector.lambda;
+
+import com.google.common.collect.ImmutableSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.athena.AthenaClient;
+import software.amazon.awssdk.services.athena.model.GetQueryExecutionRequest;
+import software.amazon.awssdk.services.athena.model.GetQueryExecutionResponse;
+import software.amazon.awssdk.services.athena.model.InvalidRequestException;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Process wide service which polls Athena for the status of in-flight queries on behalf of {@link QueryStatusChecker}.
+ * Polling is de-duplicated by query id so that many concurrent splits of the same query, as seen in long-lived hosting
+ * modes or multiplexing handlers, share a single poll schedule and a single stream of GetQueryExecution calls. All polls
+ * run on one small pool of daemon threads rather than a dedicated thread per request, and their results are fanned out
+ * to every subscribed checker.
+ */
+final class QueryStatusService
+{
+    private static final Logger logger = LoggerFactory.getLogger(QueryStatusService.class);
+
+    // progressively longer delays at which to poll
+    private static final int[] FIBONACCI = new int[] { 1, 1, 2, 3, 5, 8, 13, 21, 34, 55};
+    // Athena terminal states
+    private static final Set<String> TERMINAL_STATES = ImmutableSet.of("SUCCEEDED", "FAILED", "CANCELLED");
+    // polls spend most of their life waiting, a couple of threads is enough even with throttled Athena calls
+    private static final int POLLER_THREADS = 2;
+
+    private static final QueryStatusService INSTANCE = new QueryStatusService(POLLER_THREADS);
+
+    private final ScheduledExecutorService scheduler;
+    private final Map<String, QueryPoll> polls = new ConcurrentHashMap<>();
+
+    QueryStatusService(int threads)
+    {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "QueryStatusCheckerThread-" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    static QueryStatusService getInstance()
+    {
+        return INSTANCE;
+    }
+
+    /**
+     * Registers the checker for status updates of its query, starting a poll for the query id if none is active.
+     *
+     * @param athena The Athena client used if this subscription starts a new poll.
+     * @param athenaInvoker The invoker used to call Athena if this subscription starts a new poll.
+     * @param queryId The id of the query to watch.
+     * @param checker The checker to notify once the query has terminated.
+     */
+    void subscribe(AthenaClient athena, ThrottlingInvoker athenaInvoker, String queryId, QueryStatusChecker checker)
+    {
+        polls.compute(queryId, (key, poll) -> {
+            if (poll == null) {
+                poll = new QueryPoll(athena, athenaInvoker, queryId);
+                poll.schedule();
+            }
+            poll.subscribers.add(checker);
+            return poll;
+        });
+    }
+
+    /**
+     * Removes the checker from its query's poll, cancelling the poll once it has no remaining subscribers.
+     *
+     * @param queryId The id of the query the checker was watching.
+     * @param checker The checker to remove.
+     */
+    void unsubscribe(String queryId, QueryStatusChecker checker)
+    {
+        polls.computeIfPresent(queryId, (key, poll) -> {
+            if (poll.subscribers.remove(checker) && poll.subscribers.isEmpty()) {
+                poll.cancel();
+                logger.debug("No remaining subscribers for query {}. Ceasing status polling", queryId);
+                return null;
+            }
+            return poll;
+        });
+    }
+
+    /**
+     * @return The number of distinct queries currently being polled.
+     */
+    int getActivePolls()
+    {
+        return polls.size();
+    }
+
+    private final class QueryPoll
+            implements Runnable
+    {
+        private final AthenaClient athena;
+        private final ThrottlingInvoker athenaInvoker;
+        private final String queryId;
+        private final Set<QueryStatusChecker> subscribers = ConcurrentHashMap.newKeySet();
+        private int attempt = 0;
+        private volatile boolean cancelled = false;
+        private volatile ScheduledFuture<?> future;
+
+        private QueryPoll(AthenaClient athena, ThrottlingInvoker athenaInvoker, String queryId)
+        {
+            this.athena = athena;
+            this.athenaInvoker = athenaInvoker;
+            this.queryId = queryId;
+        }
+
+        private void schedule()
+        {
+            int delay = FIBONACCI[Math.min(attempt, FIBONACCI.length - 1)];
+            future = scheduler.schedule(this, delay, TimeUnit.SECONDS);
+        }
+
+        private synchronized void cancel()
+        {
+            cancelled = true;
+            ScheduledFuture<?> current = future;
+            if (current != null) {
+                current.cancel(false);
+            }
+        }
+
+        @Override
+        public void run()
+        {
+            if (cancelled) {
+                return;
+            }
+            logger.debug("Checking status of Athena query {}, attempt {}", queryId, attempt);
+            try {
+                GetQueryExecutionResponse queryExecution = athenaInvoker.invoke(() -> athena.getQueryExecution(GetQueryExecutionRequest.builder().queryExecutionId(queryId).build()));
+                String state = queryExecution.queryExecution().status().state().toString();
+                if (TERMINAL_STATES.contains(state)) {
+                    logger.debug("Query {} has terminated with state {}", queryId, state);
+                    stop();
+                    subscribers.forEach(QueryStatusChecker::markTerminated);
+                    return;
+                }
+            }
+            catch (Exception e) {
+                logger.warn("Exception {} thrown when calling Athena for query status: {}", e.getClass().getSimpleName(), e.getMessage());
+                if (e instanceof InvalidRequestException) {
+                    // query does not exist, so no need to keep calling Athena
+                    logger.debug("Athena reports query {} not found. Ceasing status polling", queryId);
+                    stop();
+                    return;
+                }
+            }
+            attempt++;
+            synchronized (this) {
+                if (!cancelled) {
+                    schedule();
+                }
+            }
+        }
+
+        private void stop()
+        {
+            cancelled = true;
+            polls.remove(queryId, this);
+        }
+    }
+}
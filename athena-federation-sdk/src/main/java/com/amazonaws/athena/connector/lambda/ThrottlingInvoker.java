@@ -24,15 +24,19 @@ import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
 import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
 import com.google.common.base.MoreObjects;
 import org.apache.arrow.util.VisibleForTesting;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.services.glue.model.ErrorDetails;
 import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /**
  * Utility that implements a basic form of Additive Increase, Multiplicative Decrease for handling
@@ -42,11 +46,13 @@ import java.util.concurrent.atomic.AtomicReference;
  * to detect the congestion and converge. This utility works best when all callers use it, otherwise callers
  * that do not use this logic will get a larger % of the available call capacity because the other callers
  * will back off when they see congestion and get starved out by the greedy caller
+ * <p>
+ * The congestion state lives in a {@link ThrottlingRateController}. Invokers built with
+ * {@link Builder#withSharedRateController(String)} share that state process wide with every other invoker for the same
+ * endpoint, while each invoker keeps its own BlockSpiller so it can be used safely by a single request.
  */
 public class ThrottlingInvoker
 {
-    private static final Logger logger = LoggerFactory.getLogger(ThrottlingInvoker.class);
-
     //Controls the delay applied between calls at the initial occurrence of Congestion.
     public static final String THROTTLE_INITIAL_DELAY_MS = "throttle_initial_delay_ms";
     //The max milliseconds to wait between calls in periods of high congestion.
@@ -65,14 +71,16 @@ public class ThrottlingInvoker
     //We reduce our delay by 10ms every time we appear free of congestion.
     private static final long DEFAULT_INCREASE_MS = 10;
 
-    private final long initialDelayMs;
-    private final long maxDelayMs;
-    private final double decrease;
-    private final long increase;
+    //Schedules delayed async attempts, the attempts themselves run on the caller's async client threads.
+    private static final ScheduledExecutorService ASYNC_SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ThrottlingInvokerAsyncScheduler");
+        thread.setDaemon(true);
+        return thread;
+    });
+
     private final ExceptionFilter filter;
     private final AtomicReference<BlockSpiller> spillerRef;
-    private final AtomicLong delay = new AtomicLong(0);
-    private volatile State state = State.FAST_START;
+    private final ThrottlingRateController rateController;
 
     public enum State
     {FAST_START, CONGESTED, AVOIDANCE}
@@ -89,7 +97,9 @@ public class ThrottlingInvoker
                 builder.decrease,
                 builder.increase,
                 builder.filter,
-                builder.spiller);
+                builder.spiller,
+                builder.rateController,
+                builder.sharedEndpoint);
     }
 
     @VisibleForTesting
@@ -99,6 +109,18 @@ public class ThrottlingInvoker
             long increase,
             ExceptionFilter filter,
             BlockSpiller spiller)
+    {
+        this(initialDelayMs, maxDelayMs, decrease, increase, filter, spiller, null, null);
+    }
+
+    private ThrottlingInvoker(long initialDelayMs,
+            long maxDelayMs,
+            double decrease,
+            long increase,
+            ExceptionFilter filter,
+            BlockSpiller spiller,
+            ThrottlingRateController rateController,
+            String sharedEndpoint)
     {
         if (decrease > 1 || decrease < .001) {
             throw new AthenaConnectorException("decrease was " + decrease + " but should be between .001 and 1", ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
@@ -112,12 +134,17 @@ public class ThrottlingInvoker
             throw new AthenaConnectorException("increase was " + increase + " but must be >= 1", ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
         }
 
-        this.initialDelayMs = initialDelayMs;
-        this.maxDelayMs = maxDelayMs;
-        this.decrease = decrease;
-        this.increase = increase;
         this.filter = filter;
         this.spillerRef = new AtomicReference<>(spiller);
+        if (rateController != null) {
+            this.rateController = rateController;
+        }
+        else if (sharedEndpoint != null) {
+            this.rateController = ThrottlingRateController.shared(sharedEndpoint, initialDelayMs, maxDelayMs, decrease, increase);
+        }
+        else {
+            this.rateController = new ThrottlingRateController(initialDelayMs, maxDelayMs, decrease, increase);
+        }
     }
 
     /**
@@ -200,7 +227,100 @@ public class ThrottlingInvoker
         }
         while (!isTimedOut(startTime, timeoutMillis));
 
-        throw new AthenaConnectorException("Timed out before call succeeded after " + (System.currentTimeMillis() - startTime) + " ms", ErrorDetails.builder().errorCode(FederationSourceErrorCode.OPERATION_TIMEOUT_EXCEPTION.toString()).build());
+        throw newTimeoutException(startTime);
+    }
+
+    /**
+     * Asynchronous variant of {@link #invoke(Callable)} for use with async clients. Rather than sleeping on the caller's
+     * thread, waits imposed by congestion control and retries of congested calls are scheduled on a shared scheduler,
+     * allowing many calls (e.g. multiple pages) to be in flight at once under the same rate controller.
+     *
+     * @param supplier Starts the call, it should not block.
+     * @param <T> The type produced by the call.
+     * @return A future completed with the call's result, or exceptionally with the first exception which does not
+     * indicate congestion.
+     */
+    public <T> CompletableFuture<T> invokeAsync(Supplier<CompletableFuture<T>> supplier)
+    {
+        return invokeAsync(supplier, 0);
+    }
+
+    /**
+     * Asynchronous variant of {@link #invoke(Callable, long)}, see {@link #invokeAsync(Supplier)}.
+     *
+     * @param supplier Starts the call, it should not block.
+     * @param timeoutMillis The max number of milliseconds we should spend retrying if congestion prevents us from making
+     * a successful call.
+     * @param <T> The type produced by the call.
+     * @return A future completed with the call's result, or exceptionally if the call failed or timed out.
+     */
+    public <T> CompletableFuture<T> invokeAsync(Supplier<CompletableFuture<T>> supplier, long timeoutMillis)
+    {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attemptAsync(supplier, result, System.currentTimeMillis(), timeoutMillis);
+        return result;
+    }
+
+    private <T> void attemptAsync(Supplier<CompletableFuture<T>> supplier, CompletableFuture<T> result, long startTime, long timeoutMillis)
+    {
+        long waitMs = rateController.reserve();
+        if (waitMs > 0) {
+            ASYNC_SCHEDULER.schedule(() -> callAsync(supplier, result, startTime, timeoutMillis), waitMs, TimeUnit.MILLISECONDS);
+        }
+        else {
+            callAsync(supplier, result, startTime, timeoutMillis);
+        }
+    }
+
+    private <T> void callAsync(Supplier<CompletableFuture<T>> supplier, CompletableFuture<T> result, long startTime, long timeoutMillis)
+    {
+        if (result.isDone()) {
+            //the caller cancelled while we were waiting
+            return;
+        }
+
+        CompletableFuture<T> call;
+        try {
+            call = supplier.get();
+        }
+        catch (RuntimeException ex) {
+            call = CompletableFuture.failedFuture(ex);
+        }
+
+        call.whenComplete((value, error) -> {
+            if (error == null) {
+                handleAvoidance();
+                result.complete(value);
+                return;
+            }
+
+            Throwable cause = (error instanceof CompletionException || error instanceof ExecutionException) && error.getCause() != null
+                    ? error.getCause() : error;
+            if (!(cause instanceof Exception) || !filter.isMatch((Exception) cause)) {
+                //The exception did not match our filter for congestion, fail
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            try {
+                handleThrottle((Exception) cause);
+            }
+            catch (RuntimeException ex) {
+                result.completeExceptionally(ex);
+                return;
+            }
+
+            if (isTimedOut(startTime, timeoutMillis)) {
+                result.completeExceptionally(newTimeoutException(startTime));
+                return;
+            }
+            attemptAsync(supplier, result, startTime, timeoutMillis);
+        });
+    }
+
+    private AthenaConnectorException newTimeoutException(long startTime)
+    {
+        return new AthenaConnectorException("Timed out before call succeeded after " + (System.currentTimeMillis() - startTime) + " ms", ErrorDetails.builder().errorCode(FederationSourceErrorCode.OPERATION_TIMEOUT_EXCEPTION.toString()).build());
     }
 
     /**
@@ -218,61 +338,54 @@ public class ThrottlingInvoker
     
     public State getState()
     {
-        return state;
+        return rateController.getState();
     }
 
     @VisibleForTesting
     long getDelay()
     {
-        return delay.get();
+        return rateController.getDelay();
+    }
+
+    /**
+     * @return The controller holding the congestion state (current rate, throttle counts) used by this invoker.
+     */
+    public ThrottlingRateController getRateController()
+    {
+        return rateController;
     }
 
     public double getDecrease()
     {
-        return decrease;
+        return rateController.getDecrease();
     }
 
     public long getDefaultInitialDelayMs()
     {
-        return initialDelayMs;
+        return rateController.getInitialDelayMs();
     }
 
     public long getMaxDelayMs()
     {
-        return maxDelayMs;
+        return rateController.getMaxDelayMs();
     }
 
     public long getIncrease()
     {
-        return increase;
+        return rateController.getIncrease();
     }
 
     @Override
     public String toString()
     {
         return MoreObjects.toStringHelper(this)
-                .add("initialDelayMs", initialDelayMs)
-                .add("maxDelayMs", maxDelayMs)
-                .add("decrease", decrease)
-                .add("increase", increase)
-                .add("delay", delay)
-                .add("state", state)
+                .add("rateController", rateController)
                 .toString();
     }
 
-    private synchronized void handleThrottle(Exception ex)
+    private void handleThrottle(Exception ex)
     {
-        long newDelay = (long) Math.ceil(delay.get() / decrease);
-        if (newDelay == 0) {
-            newDelay = initialDelayMs;
-        }
-        else if (newDelay > maxDelayMs) {
-            newDelay = maxDelayMs;
-        }
-        logger.info("handleThrottle: Encountered a Throttling event[{}] adjusting delay to {} ms @ {} TPS",
-                ex, newDelay, 1000D / newDelay);
-        state = State.CONGESTED;
-        delay.set(newDelay);
+        rateController.onThrottle(ex);
 
         if (spillerRef.get() != null && !spillerRef.get().spilled()) {
             //If no blocks have spilled, it is better to signal the Throttle to Athena by propagating.
@@ -280,26 +393,17 @@ public class ThrottlingInvoker
         }
     }
 
-    private synchronized void handleAvoidance()
+    private void handleAvoidance()
     {
-        long newDelay = delay.get() - increase;
-        if (newDelay <= 0) {
-            newDelay = 0;
-        }
-
-        if (delay.get() > 0) {
-            state = State.AVOIDANCE;
-            logger.info("handleAvoidance: Congestion AVOIDANCE active, decreasing delay to {} ms @ {} TPS",
-                    newDelay, (newDelay > 0) ? 1000 / newDelay : "unlimited");
-            delay.set(newDelay);
-        }
+        rateController.onSuccess();
     }
 
     private void applySleep()
     {
-        if (delay.get() > 0) {
+        long waitMs = rateController.reserve();
+        if (waitMs > 0) {
             try {
-                Thread.sleep(delay.get());
+                Thread.sleep(waitMs);
             }
             catch (InterruptedException ex) {
                 Thread.currentThread().interrupt();
@@ -321,6 +425,8 @@ public class ThrottlingInvoker
         private long increase;
         private ExceptionFilter filter;
         private BlockSpiller spiller;
+        private ThrottlingRateController rateController;
+        private String sharedEndpoint;
 
         public Builder withInitialDelayMs(long initialDelayMs)
         {
@@ -358,6 +464,28 @@ public class ThrottlingInvoker
             return this;
         }
 
+        /**
+         * Uses the supplied controller for congestion state instead of creating one for this invoker.
+         */
+        public Builder withRateController(ThrottlingRateController rateController)
+        {
+            this.rateController = rateController;
+            return this;
+        }
+
+        /**
+         * Shares congestion state with every other invoker in this process built for the same endpoint. The first
+         * invoker built for an endpoint decides the controller's settings, the differing settings of later invokers are
+         * ignored with a warning.
+         *
+         * @param endpoint Identifies the downstream resource, for example "dynamodb/my_table".
+         */
+        public Builder withSharedRateController(String endpoint)
+        {
+            this.sharedEndpoint = endpoint;
+            return this;
+        }
+
         public ThrottlingInvoker build()
         {
             return new ThrottlingInvoker(this);
@@ -0,0 +1,283 @@
+package com.amazonaws.athena.connector.lambda;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.base.MoreObjects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.apache.arrow.util.VisibleForTesting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds the congestion state used by {@link ThrottlingInvoker}. The allowed call rate is adjusted using Additive Increase,
+ * Multiplicative Decrease and enforced with a token bucket that holds a single token which is refilled once every
+ * 'delay' milliseconds. Callers reserve the next token rather than each sleeping for the full delay, which means many
+ * threads sharing one controller collectively respect the rate instead of each applying it independently. A small
+ * random jitter is applied to each wait so that callers which saw the same congestion event do not retry in lock step.
+ * <p>
+ * Controllers can be shared process wide per downstream endpoint (see {@link #shared(String, long, long, double, long)})
+ * so that all invokers calling the same table, API or cluster converge on one rate. Reservation via {@link #reserve()}
+ * and {@link #tryAcquire()} never sleeps, allowing pipelined or asynchronous callers to schedule their own wait.
+ */
+public class ThrottlingRateController
+{
+    private static final Logger logger = LoggerFactory.getLogger(ThrottlingRateController.class);
+
+    //Each wait is spread by up to +/- this fraction of the delay.
+    private static final double JITTER_FACTOR = 0.1D;
+
+    //Bounds the shared controllers retained for endpoints, an evicted endpoint gets a new controller on its next use.
+    private static final long MAX_SHARED_CONTROLLERS = 1_000;
+    private static final long SHARED_CONTROLLER_IDLE_MINUTES = 60;
+
+    private static final Cache<String, ThrottlingRateController> SHARED_CONTROLLERS = CacheBuilder.newBuilder()
+            .maximumSize(MAX_SHARED_CONTROLLERS)
+            .expireAfterAccess(SHARED_CONTROLLER_IDLE_MINUTES, TimeUnit.MINUTES)
+            .build();
+
+    private final long initialDelayMs;
+    private final long maxDelayMs;
+    private final double decrease;
+    private final long increase;
+    private final AtomicLong delay = new AtomicLong(0);
+    //The earliest time, in nanos, at which the next token becomes available.
+    private final AtomicLong nextTokenNanos = new AtomicLong(System.nanoTime());
+    private final AtomicLong throttleCount = new AtomicLong(0);
+    private final AtomicLong callCount = new AtomicLong(0);
+    private volatile ThrottlingInvoker.State state = ThrottlingInvoker.State.FAST_START;
+
+    public ThrottlingRateController(long initialDelayMs, long maxDelayMs, double decrease, long increase)
+    {
+        this.initialDelayMs = initialDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.decrease = decrease;
+        this.increase = increase;
+    }
+
+    /**
+     * Returns the controller shared by all callers of the given endpoint, creating it with the supplied settings if this
+     * is the first request for the endpoint. Later requests get the existing controller, a warning is logged if their
+     * settings differ from the ones it was created with. At most 1,000 endpoints are retained, those unused for an hour
+     * or least recently used beyond that are dropped and start over from an unlimited rate.
+     *
+     * @param endpoint Identifies the downstream resource (e.g. a table name or service endpoint).
+     * @return The process wide controller for the endpoint.
+     */
+    public static ThrottlingRateController shared(String endpoint, long initialDelayMs, long maxDelayMs, double decrease, long increase)
+    {
+        ThrottlingRateController controller;
+        try {
+            controller = SHARED_CONTROLLERS.get(endpoint, () -> new ThrottlingRateController(initialDelayMs, maxDelayMs, decrease, increase));
+        }
+        catch (ExecutionException ex) {
+            throw new RuntimeException(ex.getCause());
+        }
+
+        if (!controller.hasSettings(initialDelayMs, maxDelayMs, decrease, increase)) {
+            logger.warn("shared: Controller for {} was created with initialDelayMs={}, maxDelayMs={}, decrease={}, increase={}, " +
+                    "ignoring initialDelayMs={}, maxDelayMs={}, decrease={}, increase={}", endpoint, controller.initialDelayMs,
+                    controller.maxDelayMs, controller.decrease, controller.increase, initialDelayMs, maxDelayMs, decrease, increase);
+        }
+        return controller;
+    }
+
+    @VisibleForTesting
+    boolean hasSettings(long initialDelayMs, long maxDelayMs, double decrease, long increase)
+    {
+        return this.initialDelayMs == initialDelayMs && this.maxDelayMs == maxDelayMs
+                && Double.compare(this.decrease, decrease) == 0 && this.increase == increase;
+    }
+
+    /**
+     * Reserves the next token without blocking.
+     *
+     * @return The number of milliseconds the caller must wait before making its call, 0 if it may call immediately.
+     */
+    public long reserve()
+    {
+        callCount.incrementAndGet();
+        long delayMs = delay.get();
+        if (delayMs <= 0) {
+            return 0;
+        }
+
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(delayMs);
+        long now = System.nanoTime();
+        //The slot reserved by this caller is the one just before the next token the accumulation leaves behind.
+        long reserved = nextTokenNanos.accumulateAndGet(now, (next, current) -> Math.max(next, current) + intervalNanos) - intervalNanos;
+        long waitNanos = reserved - now;
+        if (waitNanos <= 0) {
+            return 0;
+        }
+        long jitterNanos = (long) (waitNanos * JITTER_FACTOR * (ThreadLocalRandom.current().nextDouble() * 2 - 1));
+        return Math.max(TimeUnit.NANOSECONDS.toMillis(waitNanos + jitterNanos), 0);
+    }
+
+    /**
+     * Takes a token only if one is available right now.
+     *
+     * @return True if the caller may call immediately, false if it should back off and try again later.
+     */
+    public boolean tryAcquire()
+    {
+        long delayMs = delay.get();
+        if (delayMs <= 0) {
+            callCount.incrementAndGet();
+            return true;
+        }
+
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(delayMs);
+        long now = System.nanoTime();
+        long next = nextTokenNanos.get();
+        if (next <= now && nextTokenNanos.compareAndSet(next, now + intervalNanos)) {
+            callCount.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records a successful call, additively increasing the allowed rate if we are recovering from congestion.
+     */
+    public synchronized void onSuccess()
+    {
+        long newDelay = delay.get() - increase;
+        if (newDelay <= 0) {
+            newDelay = 0;
+        }
+
+        if (delay.get() > 0) {
+            state = ThrottlingInvoker.State.AVOIDANCE;
+            logger.info("handleAvoidance: Congestion AVOIDANCE active, decreasing delay to {} ms @ {} TPS",
+                    newDelay, (newDelay > 0) ? 1000 / newDelay : "unlimited");
+            delay.set(newDelay);
+        }
+    }
+
+    /**
+     * Records a congestion event, multiplicatively decreasing the allowed rate.
+     *
+     * @param ex The exception which signaled congestion.
+     */
+    public synchronized void onThrottle(Exception ex)
+    {
+        throttleCount.incrementAndGet();
+        long newDelay = (long) Math.ceil(delay.get() / decrease);
+        if (newDelay == 0) {
+            newDelay = initialDelayMs;
+        }
+        else if (newDelay > maxDelayMs) {
+            newDelay = maxDelayMs;
+        }
+        logger.info("handleThrottle: Encountered a Throttling event[{}] adjusting delay to {} ms @ {} TPS",
+                ex, newDelay, 1000D / newDelay);
+        state = ThrottlingInvoker.State.CONGESTED;
+        delay.set(newDelay);
+        //Callers back off for at least one full delay after congestion rather than retrying immediately.
+        long nextToken = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(newDelay);
+        nextTokenNanos.accumulateAndGet(nextToken, Math::max);
+    }
+
+    public ThrottlingInvoker.State getState()
+    {
+        return state;
+    }
+
+    /**
+     * @return The current delay between calls in milliseconds, 0 when the rate is unlimited.
+     */
+    public long getDelay()
+    {
+        return delay.get();
+    }
+
+    /**
+     * @return The current allowed calls per second, or positive infinity when the rate is unlimited.
+     */
+    public double getCurrentRate()
+    {
+        long delayMs = delay.get();
+        return (delayMs > 0) ? 1000D / delayMs : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * @return The number of congestion events observed by this controller.
+     */
+    public long getThrottleCount()
+    {
+        return throttleCount.get();
+    }
+
+    /**
+     * @return The number of calls admitted by this controller.
+     */
+    public long getCallCount()
+    {
+        return callCount.get();
+    }
+
+    public double getDecrease()
+    {
+        return decrease;
+    }
+
+    public long getInitialDelayMs()
+    {
+        return initialDelayMs;
+    }
+
+    public long getMaxDelayMs()
+    {
+        return maxDelayMs;
+    }
+
+    public long getIncrease()
+    {
+        return increase;
+    }
+
+    @VisibleForTesting
+    static void clearSharedControllers()
+    {
+        SHARED_CONTROLLERS.invalidateAll();
+    }
+
+    @Override
+    public String toString()
+    {
+        return MoreObjects.toStringHelper(this)
+                .add("initialDelayMs", initialDelayMs)
+                .add("maxDelayMs", maxDelayMs)
+                .add("decrease", decrease)
+                .add("increase", increase)
+                .add("delay", delay)
+                .add("state", state)
+                .add("throttleCount", throttleCount)
+                .add("callCount", callCount)
+                .toString();
+    }
+}
@@ -30,6 +30,7 @@ import com.amazonaws.athena.connector.lambda.data.BlockWriter;
 import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
 import com.amazonaws.athena.connector.lambda.data.SimpleBlockWriter;
 import com.amazonaws.athena.connector.lambda.data.SupportedTypes;
+import com.amazonaws.athena.connector.lambda.domain.TableName;
 import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
 import com.amazonaws.athena.connector.lambda.domain.spill.S3SpillLocation;
 import com.amazonaws.athena.connector.lambda.domain.spill.SpillLocation;
@@ -47,6 +48,7 @@ import com.amazonaws.athena.connector.lambda.metadata.ListSchemasRequest;
 import com.amazonaws.athena.connector.lambda.metadata.ListSchemasResponse;
 import com.amazonaws.athena.connector.lambda.metadata.ListTablesRequest;
 import com.amazonaws.athena.connector.lambda.metadata.ListTablesResponse;
+import com.amazonaws.athena.connector.lambda.metadata.MetadataCache;
 import com.amazonaws.athena.connector.lambda.metadata.MetadataRequest;
 import com.amazonaws.athena.connector.lambda.metadata.MetadataRequestType;
 import com.amazonaws.athena.connector.lambda.request.FederationRequest;
@@ -81,8 +83,10 @@ import software.amazon.awssdk.utils.CollectionUtils;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.UUID;
@@ -137,6 +141,9 @@ public abstract class MetadataHandler
     private final String sourceType;
     private SpillLocationVerifier verifier;
     private final KmsEncryptionProvider kmsEncryptionProvider;
+    //Caches GetTable and ListTables responses across invocations of a warm handler, keyed by catalog, identity and request
+    private final MetadataCache<List<Object>, GetTableResponse> tableCache;
+    private final MetadataCache<List<Object>, ListTablesResponse> tableListCache;
 
     /**
      * When MetadataHandler is used as a Lambda, the "Main" class will pass in System.getenv() as the configOptions.
@@ -168,6 +175,8 @@ public abstract class MetadataHandler
         this.verifier = new SpillLocationVerifier(s3Client);
         this.athenaInvoker = ThrottlingInvoker.newDefaultBuilder(ATHENA_EXCEPTION_FILTER, configOptions).build();
         this.kmsEncryptionProvider = new KmsEncryptionProvider(KmsClient.create());
+        this.tableCache = MetadataCache.fromConfig(configOptions);
+        this.tableListCache = MetadataCache.fromConfig(configOptions);
     }
 
     /**
@@ -193,6 +202,8 @@ public abstract class MetadataHandler
         this.verifier = new SpillLocationVerifier(s3Client);
         this.athenaInvoker = ThrottlingInvoker.newDefaultBuilder(ATHENA_EXCEPTION_FILTER, configOptions).build();
         this.kmsEncryptionProvider = new KmsEncryptionProvider(KmsClient.create());
+        this.tableCache = MetadataCache.fromConfig(configOptions);
+        this.tableListCache = MetadataCache.fromConfig(configOptions);
     }
 
     /**
@@ -205,6 +216,36 @@ public abstract class MetadataHandler
         return secretsManager;
     }
 
+    /**
+     * Gets the cache of GetTable responses used by this handler, for example to report its hit and miss counts.
+     * @return The table metadata cache
+     */
+    public MetadataCache<List<Object>, GetTableResponse> getTableMetadataCache()
+    {
+        return tableCache;
+    }
+
+    /**
+     * Drops any cached metadata for the given table so the next GetTable request is served from the source. Connectors
+     * which learn that a table has changed (e.g. a failed read due to a missing column) should call this.
+     * @param catalogName The Athena catalog the table was requested through.
+     * @param tableName The table to invalidate.
+     */
+    protected void invalidateTableMetadata(String catalogName, TableName tableName)
+    {
+        tableCache.invalidateIf(key -> Objects.equals(key.get(0), catalogName) && Objects.equals(key.get(2), tableName));
+        tableListCache.invalidateIf(key -> Objects.equals(key.get(0), catalogName) && Objects.equals(key.get(2), tableName.getSchemaName()));
+    }
+
+    /**
+     * Drops all cached table and table listing metadata held by this handler.
+     */
+    protected void invalidateMetadataCache()
+    {
+        tableCache.invalidateAll();
+        tableListCache.invalidateAll();
+    }
+
     /**
      * Gets the KmsEncryptionProvider instance used by this handler.
      * @return The KmsEncryptionProvider instance
@@ -298,7 +339,7 @@ public abstract class MetadataHandler
                 }
                 return;
             case LIST_TABLES:
-                try (ListTablesResponse response = doListTables(allocator, (ListTablesRequest) req)) {
+                try (ListTablesResponse response = resolveDoListTables(allocator, (ListTablesRequest) req)) {
                     logger.info("doHandleRequest: response[{}]", response);
                     assertNotNull(response);
                     objectMapper.writeValue(outputStream, response);
@@ -374,7 +415,25 @@ public abstract class MetadataHandler
         if (request.isQueryPassthrough()) {
             return doGetQueryPassthroughSchema(allocator, request);
         }
-        return doGetTable(allocator, request);
+        List<Object> key = Arrays.asList(request.getCatalogName(), getIdentityArn(request), request.getTableName());
+        GetTableResponse response = tableCache.get(key, () -> doGetTable(allocator, request));
+        if (tableCache.isEnabled()) {
+            logger.debug("resolveDoGetTableImplementation: table cache hits[{}] misses[{}]", tableCache.getHitCount(), tableCache.getMissCount());
+        }
+        return response;
+    }
+
+    private ListTablesResponse resolveDoListTables(final BlockAllocator allocator, final ListTablesRequest request)
+            throws Exception
+    {
+        List<Object> key = Arrays.asList(request.getCatalogName(), getIdentityArn(request), request.getSchemaName(),
+                request.getNextToken(), request.getPageSize());
+        return tableListCache.get(key, () -> doListTables(allocator, request));
+    }
+
+    private static String getIdentityArn(MetadataRequest request)
+    {
+        return request.getIdentity() != null ? request.getIdentity().getArn() : null;
     }
 
     /**
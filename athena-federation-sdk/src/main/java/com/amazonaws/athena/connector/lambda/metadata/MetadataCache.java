@@ -0,0 +1,183 @@
+package com.amazonaws.athena.connector.lambda.metadata;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * Size bounded, time expiring cache for metadata (e.g. table schemas, partition schemas, casing resolution) which is
+ * expensive to fetch from the source but rarely changes. Handlers are long lived in a warm Lambda so a single instance
+ * of this cache serves many requests, allowing repeated GetTable calls for the same table to skip the round trip to the
+ * source entirely. Entries are evicted in least-recently-used order once the cache is full.
+ * <p>
+ * The cache is disabled unless a positive TTL is configured, in which case every lookup goes straight to the loader.
+ *
+ * @param <K> The type of the cache key.
+ * @param <V> The type of the cached metadata.
+ */
+public class MetadataCache<K, V>
+{
+    private static final Logger logger = LoggerFactory.getLogger(MetadataCache.class);
+
+    //The number of seconds a metadata entry may be served from the cache, 0 disables caching.
+    public static final String METADATA_CACHE_TTL_SECONDS = "metadata_cache_ttl_seconds";
+    //The max number of metadata entries retained by each cache.
+    public static final String METADATA_CACHE_MAX_ENTRIES = "metadata_cache_max_entries";
+
+    private static final long DEFAULT_TTL_SECONDS = 0;
+    private static final long DEFAULT_MAX_ENTRIES = 1_000;
+
+    private final Cache<K, V> cache;
+    private final boolean enabled;
+
+    /**
+     * @param ttlSeconds The number of seconds an entry may be served after it was loaded, 0 disables the cache.
+     * @param maxEntries The max number of entries to retain.
+     */
+    public MetadataCache(long ttlSeconds, long maxEntries)
+    {
+        this.enabled = ttlSeconds > 0 && maxEntries > 0;
+        this.cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(Math.max(ttlSeconds, 0), TimeUnit.SECONDS)
+                .maximumSize(Math.max(maxEntries, 0))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Creates a cache configured from the supplied config options.
+     *
+     * @param configOptions The connector's config options (usually the Lambda environment).
+     * @return A MetadataCache, which is disabled unless metadata_cache_ttl_seconds is set to a positive value.
+     */
+    public static <K, V> MetadataCache<K, V> fromConfig(Map<String, String> configOptions)
+    {
+        if (configOptions == null) {
+            return new MetadataCache<>(DEFAULT_TTL_SECONDS, DEFAULT_MAX_ENTRIES);
+        }
+        long ttlSeconds = Long.parseLong(configOptions.getOrDefault(METADATA_CACHE_TTL_SECONDS, String.valueOf(DEFAULT_TTL_SECONDS)));
+        long maxEntries = Long.parseLong(configOptions.getOrDefault(METADATA_CACHE_MAX_ENTRIES, String.valueOf(DEFAULT_MAX_ENTRIES)));
+        return new MetadataCache<>(ttlSeconds, maxEntries);
+    }
+
+    /**
+     * @return True if entries are retained by this cache.
+     */
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    /**
+     * Returns the cached value for the key, invoking the loader and caching its result on a miss. Concurrent callers
+     * for the same key wait for a single load. Failed loads are not cached.
+     *
+     * @param key The key to look up.
+     * @param loader Produces the value on a cache miss.
+     * @return The cached or freshly loaded value.
+     * @throws Exception Any exception thrown by the loader.
+     */
+    public V get(K key, Callable<V> loader)
+            throws Exception
+    {
+        if (!enabled) {
+            return loader.call();
+        }
+
+        try {
+            return cache.get(key, loader);
+        }
+        catch (ExecutionException | UncheckedExecutionException | ExecutionError ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Removes the entry for the key, if present.
+     *
+     * @param key The key to invalidate.
+     */
+    public void invalidate(K key)
+    {
+        cache.invalidate(key);
+    }
+
+    /**
+     * Removes every entry whose key matches the predicate.
+     *
+     * @param predicate Selects the keys to invalidate.
+     */
+    public void invalidateIf(Predicate<K> predicate)
+    {
+        cache.asMap().keySet().removeIf(predicate);
+    }
+
+    /**
+     * Removes all entries.
+     */
+    public void invalidateAll()
+    {
+        logger.info("invalidateAll: dropping {} metadata cache entries", cache.size());
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return The number of lookups served from the cache.
+     */
+    public long getHitCount()
+    {
+        return cache.stats().hitCount();
+    }
+
+    /**
+     * @return The number of lookups which required a load.
+     */
+    public long getMissCount()
+    {
+        return cache.stats().missCount();
+    }
+
+    /**
+     * @return The approximate number of entries currently cached.
+     */
+    public long size()
+    {
+        return cache.size();
+    }
+}
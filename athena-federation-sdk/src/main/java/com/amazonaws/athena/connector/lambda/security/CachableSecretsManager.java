@@ -30,9 +30,15 @@ import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
 import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueResponse;
 
-import java.util.Iterator;
-import java.util.LinkedHashMap;
+import java.util.Comparator;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -41,12 +47,22 @@ import java.util.regex.Pattern;
  * cache in front of SecretsManager to avoid bottlenecking on SecretsManager. This class offers such a cache. This class
  * also has utilities for idetifying and replacing secrets in scripts. For example: MyString${WithSecret} would have
  * ${WithSecret} replaced by the corresponding value of the secret in AWS Secrets Manager with that name.
+ * <p>
+ * The cache is safe for concurrent use. Concurrent callers missing on the same secret share a single fetch, entries
+ * nearing expiry are refreshed in the background while callers continue to receive the cached value, and if
+ * SecretsManager fails while refreshing an expired entry the last known value continues to be served for a bounded
+ * period. Credential providers (and therefore JDBC connection factories) resolve their secrets through this class, so
+ * steady traffic never blocks on a SecretsManager call.
  */
 public class CachableSecretsManager
 {
     private static final Logger logger = LoggerFactory.getLogger(CachableSecretsManager.class);
 
     private static final long MAX_CACHE_AGE_MS = 60_000;
+    //Entries older than this are refreshed in the background while the cached value is still served.
+    private static final long REFRESH_AHEAD_AGE_MS = 45_000;
+    //Entries may be served this long after they were fetched if SecretsManager is failing.
+    private static final long MAX_STALE_AGE_MS = 900_000;
     protected static final int MAX_CACHE_SIZE = 10;
 
     private static final String SECRET_PATTERN = "(\\$\\{[a-zA-Z0-9-\\/_\\-\\.\\+=@]+\\})";
@@ -54,7 +70,16 @@ public class CachableSecretsManager
     private static final Pattern PATTERN = Pattern.compile(SECRET_PATTERN);
     private static final Pattern NAME_PATTERN = Pattern.compile(SECRET_NAME_PATTERN);
 
-    private final LinkedHashMap<String, CacheEntry> cache = new LinkedHashMap<>();
+    //Shared by all instances, refreshes are short lived and infrequent.
+    private static final ExecutorService REFRESH_EXECUTOR = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "SecretsRefreshThread");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<CacheEntry>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
     private final SecretsManagerClient secretsManager;
 
     public CachableSecretsManager(SecretsManagerClient secretsManager)
@@ -149,39 +174,105 @@ public class CachableSecretsManager
     {
         CacheEntry cacheEntry = cache.get(secretName);
 
-        if (cacheEntry == null || cacheEntry.getAge() > MAX_CACHE_AGE_MS) {
+        if (cacheEntry != null && cacheEntry.getAge() <= MAX_CACHE_AGE_MS) {
+            if (cacheEntry.getAge() > REFRESH_AHEAD_AGE_MS) {
+                refreshAsync(secretName, overrideConfiguration);
+            }
+            return cacheEntry.getValue();
+        }
+
+        try {
+            return load(secretName, overrideConfiguration).getValue();
+        }
+        catch (RuntimeException ex) {
+            if (cacheEntry != null && cacheEntry.getAge() <= MAX_STALE_AGE_MS) {
+                logger.warn("getSecret: Unable to refresh secret[{}], serving value cached {}ms ago.", secretName, cacheEntry.getAge(), ex);
+                return cacheEntry.getValue();
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Fetches the secret from SecretsManager and caches it. If a fetch for the same secret is already in progress the
+     * caller waits for and shares its result rather than issuing another request.
+     */
+    private CacheEntry load(String secretName, AwsRequestOverrideConfiguration overrideConfiguration)
+    {
+        CompletableFuture<CacheEntry> future = new CompletableFuture<>();
+        CompletableFuture<CacheEntry> existing = inFlight.putIfAbsent(secretName, future);
+        if (existing != null) {
+            try {
+                return existing.join();
+            }
+            catch (CompletionException ex) {
+                throw (ex.getCause() instanceof RuntimeException) ? (RuntimeException) ex.getCause() : ex;
+            }
+        }
+        return fetch(secretName, overrideConfiguration, future);
+    }
+
+    /**
+     * Fetches the secret on behalf of the fetch registered in inFlight with the supplied future, completing and then
+     * deregistering the future.
+     */
+    private CacheEntry fetch(String secretName, AwsRequestOverrideConfiguration overrideConfiguration, CompletableFuture<CacheEntry> future)
+    {
+        try {
             logger.info("getSecret: Resolving secret[{}].", secretName);
             GetSecretValueResponse secretValueResult = secretsManager.getSecretValue(GetSecretValueRequest.builder()
                     .secretId(secretName)
                     .overrideConfiguration(overrideConfiguration)
                     .build());
-            cacheEntry = new CacheEntry(secretName, secretValueResult.secretString());
-            evictCache(cache.size() >= MAX_CACHE_SIZE);
+            CacheEntry cacheEntry = new CacheEntry(secretName, secretValueResult.secretString());
+            evictCache(!cache.containsKey(secretName) && cache.size() >= MAX_CACHE_SIZE);
             cache.put(secretName, cacheEntry);
+            future.complete(cacheEntry);
+            return cacheEntry;
         }
+        catch (RuntimeException ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        }
+        finally {
+            inFlight.remove(secretName, future);
+        }
+    }
 
-        return cacheEntry.getValue();
+    private void refreshAsync(String secretName, AwsRequestOverrideConfiguration overrideConfiguration)
+    {
+        //Register the refresh on the calling thread so that callers arriving before it runs do not schedule another.
+        CompletableFuture<CacheEntry> future = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(secretName, future) != null) {
+            return;
+        }
+        try {
+            REFRESH_EXECUTOR.execute(() -> {
+                try {
+                    fetch(secretName, overrideConfiguration, future);
+                }
+                catch (RuntimeException ex) {
+                    logger.warn("refreshAsync: Unable to refresh secret[{}], will retry on next access.", secretName, ex);
+                }
+            });
+        }
+        catch (RejectedExecutionException ex) {
+            logger.warn("refreshAsync: Unable to schedule refresh of secret[{}].", secretName, ex);
+            future.completeExceptionally(ex);
+            inFlight.remove(secretName, future);
+        }
     }
 
     private void evictCache(boolean force)
     {
-        Iterator<Map.Entry<String, CacheEntry>> itr = cache.entrySet().iterator();
-        int removed = 0;
-        while (itr.hasNext()) {
-            CacheEntry entry = itr.next().getValue();
-            if (entry.getAge() > MAX_CACHE_AGE_MS) {
-                itr.remove();
-                removed++;
-            }
-        }
+        int sizeBefore = cache.size();
+        cache.values().removeIf(entry -> entry.getAge() > MAX_STALE_AGE_MS);
 
-        if (removed == 0 && force) {
+        if (cache.size() == sizeBefore && force) {
             //Remove the oldest since we found no expired entries
-            itr = cache.entrySet().iterator();
-            if (itr.hasNext()) {
-                itr.next();
-                itr.remove();
-            }
+            cache.values().stream()
+                    .min(Comparator.comparingLong(CacheEntry::getCreateTime).thenComparingLong(CacheEntry::getSequence))
+                    .ifPresent(oldest -> cache.remove(oldest.getName(), oldest));
         }
     }
 
@@ -196,12 +287,12 @@ public class CachableSecretsManager
         private final String name;
         private final String value;
         private final long createTime;
+        //Orders entries created within the same millisecond for eviction
+        private final long sequence;
 
         public CacheEntry(String name, String value)
         {
-            this.value = value;
-            this.name = name;
-            this.createTime = System.currentTimeMillis();
+            this(name, value, System.currentTimeMillis());
         }
 
         public CacheEntry(String name, String value, long createTime)
@@ -209,6 +300,12 @@ public class CachableSecretsManager
             this.value = value;
             this.name = name;
             this.createTime = createTime;
+            this.sequence = CachableSecretsManager.this.sequence.getAndIncrement();
+        }
+
+        public String getName()
+        {
+            return name;
         }
 
         public String getValue()
@@ -216,6 +313,16 @@ public class CachableSecretsManager
             return value;
         }
 
+        public long getCreateTime()
+        {
+            return createTime;
+        }
+
+        public long getSequence()
+        {
+            return sequence;
+        }
+
         public long getAge()
         {
             return System.currentTimeMillis() - createTime;
@@ -119,4 +119,43 @@ public class QueryStatusCheckerTest
             verify(athena, times(2)).getQueryExecution(any(GetQueryExecutionRequest.class));
         }
     }
+
+    @Test
+    public void testSharedPollAcrossCheckers()
+            throws InterruptedException
+    {
+        String queryId = "query4";
+        QueryStatusService statusService = new QueryStatusService(1);
+        GetQueryExecutionRequest request = GetQueryExecutionRequest.builder().queryExecutionId(queryId).build();
+        when(athena.getQueryExecution(request)).thenReturn(GetQueryExecutionResponse.builder().queryExecution(QueryExecution.builder().status(QueryExecutionStatus.builder().state("SUCCEEDED").build()).build()).build());
+        try (QueryStatusChecker checker1 = new QueryStatusChecker(athena, athenaInvoker, queryId, statusService);
+                QueryStatusChecker checker2 = new QueryStatusChecker(athena, athenaInvoker, queryId, statusService)) {
+            assertTrue(checker1.isQueryRunning());
+            assertTrue(checker2.isQueryRunning());
+            assertEquals(1, statusService.getActivePolls());
+            Thread.sleep(2000);
+            assertFalse(checker1.isQueryRunning());
+            assertFalse(checker2.isQueryRunning());
+            assertEquals(0, statusService.getActivePolls());
+            verify(athena, times(1)).getQueryExecution(any(GetQueryExecutionRequest.class));
+        }
+    }
+
+    @Test
+    public void testPollCancelledWhenLastCheckerCloses()
+            throws InterruptedException
+    {
+        String queryId = "query5";
+        QueryStatusService statusService = new QueryStatusService(1);
+        QueryStatusChecker checker1 = new QueryStatusChecker(athena, athenaInvoker, queryId, statusService);
+        QueryStatusChecker checker2 = new QueryStatusChecker(athena, athenaInvoker, queryId, statusService);
+        assertTrue(checker1.isQueryRunning());
+        assertTrue(checker2.isQueryRunning());
+        checker1.close();
+        assertEquals(1, statusService.getActivePolls());
+        checker2.close();
+        assertEquals(0, statusService.getActivePolls());
+        Thread.sleep(1500);
+        verify(athena, times(0)).getQueryExecution(any(GetQueryExecutionRequest.class));
+    }
 }
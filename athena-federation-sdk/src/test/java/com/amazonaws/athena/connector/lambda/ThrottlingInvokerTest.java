@@ -26,7 +26,12 @@ import org.junit.Test;
 import software.amazon.awssdk.services.glue.model.ErrorDetails;
 import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -35,7 +40,10 @@ import static com.amazonaws.athena.connector.lambda.ThrottlingInvoker.THROTTLE_I
 import static com.amazonaws.athena.connector.lambda.ThrottlingInvoker.THROTTLE_INITIAL_DELAY_MS;
 import static com.amazonaws.athena.connector.lambda.ThrottlingInvoker.THROTTLE_MAX_DELAY_MS;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -144,4 +152,153 @@ public class ThrottlingInvokerTest
         assertEquals(invoker.getDefaultInitialDelayMs(), 100);
         assertEquals(invoker.getMaxDelayMs(), 10000);
     }
+
+    @Test
+    public void sharedRateController()
+            throws TimeoutException
+    {
+        ThrottlingInvoker.Builder builder = ThrottlingInvoker.newBuilder()
+                .withDecrease(0.5)
+                .withIncrease(10)
+                .withInitialDelayMs(10)
+                .withMaxDelayMs(500)
+                .withFilter((Exception ex) -> ex instanceof FederationThrottleException)
+                .withSharedRateController("sharedRateController");
+        ThrottlingInvoker invoker1 = builder.build();
+        ThrottlingInvoker invoker2 = builder.build();
+        assertSame(invoker1.getRateController(), invoker2.getRateController());
+
+        final AtomicLong count = new AtomicLong(0);
+        invoker1.invoke(() -> {
+            if (count.incrementAndGet() < 3) {
+                throw new FederationThrottleException();
+            }
+            return count.get();
+        }, 10_000);
+
+        //congestion seen by one invoker is visible to the other
+        assertEquals(ThrottlingInvoker.State.AVOIDANCE, invoker2.getState());
+        assertEquals(10, invoker2.getDelay());
+        assertEquals(2, invoker2.getRateController().getThrottleCount());
+        assertEquals(3, invoker2.getRateController().getCallCount());
+        assertEquals(100D, invoker2.getRateController().getCurrentRate(), 0.001);
+    }
+
+    @Test
+    public void sharedRateControllerKeepsFirstSettings()
+    {
+        ThrottlingInvoker.Builder builder = ThrottlingInvoker.newBuilder()
+                .withDecrease(0.5)
+                .withIncrease(10)
+                .withInitialDelayMs(10)
+                .withMaxDelayMs(500)
+                .withFilter((Exception ex) -> ex instanceof FederationThrottleException)
+                .withSharedRateController("sharedRateControllerKeepsFirstSettings");
+        ThrottlingInvoker first = builder.build();
+        ThrottlingInvoker second = builder.withInitialDelayMs(20).withMaxDelayMs(1_000).build();
+
+        //the second invoker's settings are logged and ignored
+        assertSame(first.getRateController(), second.getRateController());
+        assertEquals(10, second.getRateController().getInitialDelayMs());
+        assertEquals(500, second.getRateController().getMaxDelayMs());
+        assertTrue(first.getRateController().hasSettings(10, 500, 0.5, 10));
+        assertFalse(first.getRateController().hasSettings(20, 1_000, 0.5, 10));
+    }
+
+    @Test
+    public void nonBlockingAcquire()
+    {
+        ThrottlingRateController controller = new ThrottlingRateController(1_000, 2_000, 0.5, 10);
+        assertTrue(controller.tryAcquire());
+        assertEquals(0, controller.reserve());
+        assertEquals(Double.POSITIVE_INFINITY, controller.getCurrentRate(), 0);
+
+        controller.onThrottle(new FederationThrottleException());
+        assertEquals(1_000, controller.getDelay());
+        //after congestion the first retry waits roughly one delay and each following caller one delay more
+        assertFalse(controller.tryAcquire());
+        long waitMs = controller.reserve();
+        assertTrue("wait was " + waitMs, waitMs >= 800 && waitMs <= 1_100);
+        waitMs = controller.reserve();
+        assertTrue("wait was " + waitMs, waitMs >= 1_700 && waitMs <= 2_200);
+    }
+
+    @Test
+    public void invokeAsyncWithThrottle()
+            throws Exception
+    {
+        ThrottlingInvoker invoker = ThrottlingInvoker.newBuilder()
+                .withDecrease(0.8)
+                .withIncrease(1)
+                .withInitialDelayMs(10)
+                .withMaxDelayMs(200)
+                .withFilter((Exception ex) -> ex instanceof FederationThrottleException)
+                .build();
+
+        final AtomicLong count = new AtomicLong(0);
+        CompletableFuture<Long> result = invoker.invokeAsync(() -> {
+            if (count.incrementAndGet() < 4) {
+                return CompletableFuture.failedFuture(new FederationThrottleException());
+            }
+            return CompletableFuture.completedFuture(count.get());
+        }, 10_000);
+
+        assertEquals(4L, (long) result.get(5, TimeUnit.SECONDS));
+        assertEquals(ThrottlingInvoker.State.AVOIDANCE, invoker.getState());
+        assertEquals(16, invoker.getDelay());
+    }
+
+    @Test
+    public void invokeAsyncNonCongestionFailure()
+            throws Exception
+    {
+        ThrottlingInvoker invoker = ThrottlingInvoker.newBuilder()
+                .withDecrease(0.5)
+                .withIncrease(10)
+                .withInitialDelayMs(10)
+                .withMaxDelayMs(500)
+                .withFilter((Exception ex) -> ex instanceof FederationThrottleException)
+                .build();
+
+        CompletableFuture<Integer> result = invoker.invokeAsync(() -> CompletableFuture.failedFuture(new IllegalStateException("boom")));
+        try {
+            result.get(5, TimeUnit.SECONDS);
+            fail("Expected failure");
+        }
+        catch (ExecutionException ex) {
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+        assertEquals(ThrottlingInvoker.State.FAST_START, invoker.getState());
+    }
+
+    @Test
+    public void invokeAsyncConcurrentCalls()
+            throws Exception
+    {
+        ThrottlingInvoker invoker = ThrottlingInvoker.newBuilder()
+                .withDecrease(0.5)
+                .withIncrease(10)
+                .withInitialDelayMs(10)
+                .withMaxDelayMs(500)
+                .withFilter((Exception ex) -> ex instanceof FederationThrottleException)
+                .build();
+
+        final AtomicLong attempts = new AtomicLong(0);
+        List<CompletableFuture<Long>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            final long page = i;
+            results.add(invoker.invokeAsync(() -> {
+                //every other attempt is throttled
+                if (attempts.incrementAndGet() % 2 == 0) {
+                    return CompletableFuture.failedFuture(new FederationThrottleException());
+                }
+                return CompletableFuture.supplyAsync(() -> page);
+            }, 10_000));
+        }
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, (long) results.get(i).get(5, TimeUnit.SECONDS));
+        }
+        assertTrue(invoker.getRateController().getThrottleCount() > 0);
+    }
 }
@@ -0,0 +1,108 @@
+package com.amazonaws.athena.connector.lambda.metadata;
+
+/*-
+ * #%L
+ * Amazon Athena Query Federation SDK
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MetadataCacheTest
+{
+    @Test
+    public void disabledByDefault()
+            throws Exception
+    {
+        MetadataCache<String, String> cache = MetadataCache.fromConfig(ImmutableMap.of());
+        AtomicInteger loads = new AtomicInteger();
+        assertFalse(cache.isEnabled());
+        cache.get("table", () -> "schema" + loads.incrementAndGet());
+        assertEquals("schema2", cache.get("table", () -> "schema" + loads.incrementAndGet()));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void hitsAndMisses()
+            throws Exception
+    {
+        MetadataCache<String, String> cache = MetadataCache.fromConfig(
+                ImmutableMap.of(MetadataCache.METADATA_CACHE_TTL_SECONDS, "60"));
+        AtomicInteger loads = new AtomicInteger();
+        assertTrue(cache.isEnabled());
+        assertEquals("schema1", cache.get("table", () -> "schema" + loads.incrementAndGet()));
+        assertEquals("schema1", cache.get("table", () -> "schema" + loads.incrementAndGet()));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+
+        cache.invalidate("table");
+        assertEquals("schema2", cache.get("table", () -> "schema" + loads.incrementAndGet()));
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void sizeBounded()
+            throws Exception
+    {
+        MetadataCache<String, String> cache = new MetadataCache<>(60, 2);
+        cache.get("table1", () -> "schema1");
+        cache.get("table2", () -> "schema2");
+        cache.get("table3", () -> "schema3");
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void invalidateIf()
+            throws Exception
+    {
+        MetadataCache<String, String> cache = new MetadataCache<>(60, 10);
+        cache.get("schema1.table1", () -> "schema1");
+        cache.get("schema1.table2", () -> "schema2");
+        cache.get("schema2.table1", () -> "schema3");
+        cache.invalidateIf(key -> key.startsWith("schema1."));
+        assertEquals(1, cache.size());
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void failedLoadsAreNotCached()
+            throws Exception
+    {
+        MetadataCache<String, String> cache = new MetadataCache<>(60, 10);
+        try {
+            cache.get("table", () -> {
+                throw new IOException("unavailable");
+            });
+            fail("Expected IOException");
+        }
+        catch (IOException ex) {
+            assertEquals("unavailable", ex.getMessage());
+        }
+        assertEquals(0, cache.size());
+        assertEquals("schema", cache.get("table", () -> "schema"));
+    }
+}
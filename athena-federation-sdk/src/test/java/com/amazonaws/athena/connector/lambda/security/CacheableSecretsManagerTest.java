@@ -29,6 +29,13 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import static org.junit.Assert.*;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.mock;
@@ -96,6 +103,79 @@ public class CacheableSecretsManagerTest
         verify(mockSecretsManager, times(2)).getSecretValue(nullable(GetSecretValueRequest.class));
     }
 
+    @Test
+    public void refreshAheadTest()
+            throws InterruptedException
+    {
+        when(mockSecretsManager.getSecretValue(nullable(GetSecretValueRequest.class)))
+                .thenReturn(GetSecretValueResponse.builder().secretString("value2").build());
+
+        //nearing expiry, the cached value is served while a refresh happens in the background
+        cachableSecretsManager.addCacheEntry("test", "value", System.currentTimeMillis() - 50_000);
+        assertEquals("value", cachableSecretsManager.getSecret("test"));
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!"value2".equals(cachableSecretsManager.getSecret("test")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("value2", cachableSecretsManager.getSecret("test"));
+        verify(mockSecretsManager, times(1)).getSecretValue(nullable(GetSecretValueRequest.class));
+    }
+
+    @Test
+    public void staleWhileRevalidateTest()
+    {
+        when(mockSecretsManager.getSecretValue(nullable(GetSecretValueRequest.class)))
+                .thenThrow(new RuntimeException("SecretsManager unavailable"));
+
+        //expired but recent enough to be served while SecretsManager is failing
+        cachableSecretsManager.addCacheEntry("test", "value", System.currentTimeMillis() - 120_000);
+        assertEquals("value", cachableSecretsManager.getSecret("test"));
+
+        //too old to be served
+        cachableSecretsManager.addCacheEntry("test", "value", 0);
+        try {
+            cachableSecretsManager.getSecret("test");
+            fail("Should not see this!");
+        }
+        catch (RuntimeException ex) {
+            assertEquals("SecretsManager unavailable", ex.getMessage());
+        }
+    }
+
+    @Test
+    public void singleFlightTest()
+            throws Exception
+    {
+        CountDownLatch fetchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFetch = new CountDownLatch(1);
+        when(mockSecretsManager.getSecretValue(nullable(GetSecretValueRequest.class)))
+                .thenAnswer((InvocationOnMock invocation) -> {
+                    fetchStarted.countDown();
+                    releaseFetch.await();
+                    return GetSecretValueResponse.builder().secretString("value").build();
+                });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(executor.submit(() -> cachableSecretsManager.getSecret("test")));
+            fetchStarted.await();
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() -> cachableSecretsManager.getSecret("test")));
+            }
+            Thread.sleep(100);
+            releaseFetch.countDown();
+            for (Future<String> result : results) {
+                assertEquals("value", result.get());
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+        verify(mockSecretsManager, times(1)).getSecretValue(nullable(GetSecretValueRequest.class));
+    }
+
     @Test
     public void resolveSecrets()
     {
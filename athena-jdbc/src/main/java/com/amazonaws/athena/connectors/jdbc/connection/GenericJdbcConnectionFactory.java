@@ -22,8 +22,6 @@ package com.amazonaws.athena.connectors.jdbc.connection;
 import com.amazonaws.athena.connector.credentials.CredentialsProvider;
 import com.amazonaws.athena.connector.lambda.connection.EnvironmentConstants;
 import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
-import com.zaxxer.hikari.HikariConfig;
-import com.zaxxer.hikari.HikariDataSource;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.slf4j.Logger;
@@ -58,8 +56,8 @@ public class GenericJdbcConnectionFactory
     private final DatabaseConnectionInfo databaseConnectionInfo;
     private final DatabaseConnectionConfig databaseConnectionConfig;
     private final Properties jdbcProperties;
+    private final Map<String, String> configOptions;
     private final boolean useDirectConnection;
-    private volatile HikariDataSource ds;
 
     /**
      * Existing constructor — uses HikariCP.
@@ -84,6 +82,7 @@ public class GenericJdbcConnectionFactory
             this.jdbcProperties.putAll(properties);
         }
 
+        this.configOptions = configOptions;
         this.useDirectConnection = configOptions != null && configOptions.containsKey(EnvironmentConstants.FAS_TOKEN);
         if (this.useDirectConnection) {
             LOGGER.info("Glue managed connection detected, using direct JDBC connections");
@@ -102,31 +101,32 @@ public class GenericJdbcConnectionFactory
             throws Exception
     {
         final String derivedJdbcString;
+        // credentials are applied per call so that rotated secrets are not mixed with the factory's shared properties
+        Properties connectionProps = new Properties();
+        connectionProps.putAll(jdbcProperties);
         if (credentialsProvider != null) {
             Matcher secretMatcher = SECRET_NAME_PATTERN.matcher(databaseConnectionConfig.getJdbcConnectionString());
             derivedJdbcString = secretMatcher.replaceAll(Matcher.quoteReplacement(""));
 
-            jdbcProperties.putAll(credentialsProvider.getCredentialMap());
+            connectionProps.putAll(credentialsProvider.getCredentialMap());
         }
         else {
             derivedJdbcString = databaseConnectionConfig.getJdbcConnectionString();
         }
 
         if (useDirectConnection) {
-            return getDirectConnection(derivedJdbcString);
+            return getDirectConnection(derivedJdbcString, connectionProps);
         }
 
-        return getPooledConnection(derivedJdbcString);
+        return getPooledConnection(derivedJdbcString, connectionProps);
     }
 
     /**
      * Creates a direct JDBC connection using {@link DriverManager}, bypassing connection pooling.
      * Used for Glue managed connections.
      */
-    private Connection getDirectConnection(String jdbcUrl) throws SQLException
+    private Connection getDirectConnection(String jdbcUrl, Properties connectionProps) throws SQLException
     {
-        Properties connectionProps = new Properties();
-        connectionProps.putAll(jdbcProperties);
         try {
             return DriverManager.getConnection(jdbcUrl, connectionProps);
         }
@@ -137,26 +137,13 @@ public class GenericJdbcConnectionFactory
     }
 
     /**
-     * Returns a connection from the HikariCP connection pool, initializing the pool on first call.
+     * Returns a connection from the HikariCP pool for this URL and credential, see {@link JdbcConnectionPoolRegistry}.
      */
-    private Connection getPooledConnection(String jdbcUrl) throws SQLException
+    private Connection getPooledConnection(String jdbcUrl, Properties connectionProps) throws SQLException
     {
-        if (ds == null) {
-            synchronized (GenericJdbcConnectionFactory.class) {
-                if (ds == null) {
-                    HikariConfig config2 = new HikariConfig();
-                    config2.setDriverClassName(databaseConnectionInfo.getDriverClassName());
-                    config2.setDataSourceProperties(jdbcProperties);
-                    config2.setJdbcUrl(jdbcUrl);
-                    config2.setMinimumIdle(1);
-                    ds = new HikariDataSource(config2);
-                    LOGGER.debug("Create data source");
-                }
-            }
-        }
-
         try {
-            return ds.getConnection();
+            return JdbcConnectionPoolRegistry.getInstance(configOptions)
+                    .getConnection(databaseConnectionInfo.getDriverClassName(), jdbcUrl, connectionProps, configOptions);
         }
         catch (SQLException e) {
             handleSQLException(e);
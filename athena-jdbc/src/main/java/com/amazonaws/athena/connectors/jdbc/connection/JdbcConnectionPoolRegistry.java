@@ -0,0 +1,424 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.connection;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process wide registry of HikariCP pools keyed by driver, JDBC URL and credential identity. Pools live in static state
+ * so connections stay warm across invocations of a warm Lambda, and each catalog served by a multiplexing handler, as
+ * well as each generation of a rotated secret, gets its own pool instead of sharing whichever pool was created first.
+ * <p>
+ * The registry is bounded: once it holds jdbc_pool_max_pools pools (default 20) the least recently used pool is evicted,
+ * as is any pool which has not been used for jdbc_pool_expiry_seconds (default 15 minutes). An evicted pool closes its
+ * idle connections right away but is only closed once the connections borrowed from it have been returned. These bounds
+ * are read from the config of the first caller, as the registry is shared by every handler in the process. The size of
+ * each pool is read from the config of the caller creating it, and is part of the pool's key so callers configured
+ * differently do not share a pool.
+ */
+public final class JdbcConnectionPoolRegistry
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(JdbcConnectionPoolRegistry.class);
+
+    //The max number of connections in each pool.
+    public static final String JDBC_POOL_MAX_SIZE = "jdbc_pool_max_size";
+    //The number of idle connections each pool tries to keep open.
+    public static final String JDBC_POOL_MIN_IDLE = "jdbc_pool_min_idle";
+    //The max number of milliseconds to wait for a connection from a pool.
+    public static final String JDBC_POOL_CONNECTION_TIMEOUT_MS = "jdbc_pool_connection_timeout_ms";
+    //The max number of pools retained, the least recently used pool is closed beyond this.
+    public static final String JDBC_POOL_MAX_POOLS = "jdbc_pool_max_pools";
+    //The number of seconds a pool may go unused before it is closed.
+    public static final String JDBC_POOL_EXPIRY_SECONDS = "jdbc_pool_expiry_seconds";
+
+    private static final int DEFAULT_MAX_SIZE = 10;
+    private static final int DEFAULT_MIN_IDLE = 1;
+    private static final long DEFAULT_CONNECTION_TIMEOUT_MS = 30_000;
+    private static final long DEFAULT_MAX_POOLS = 20;
+    private static final long DEFAULT_EXPIRY_SECONDS = 900;
+
+    private static volatile JdbcConnectionPoolRegistry instance;
+
+    private final Cache<PoolKey, Pool> pools;
+    //Evicted pools which still have borrowed connections, closed once those are returned.
+    private final Set<Pool> retiredPools = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger poolCount = new AtomicInteger();
+
+    @VisibleForTesting
+    JdbcConnectionPoolRegistry(long maxPools, long expirySeconds)
+    {
+        this.pools = CacheBuilder.newBuilder()
+                .maximumSize(maxPools)
+                .expireAfterAccess(expirySeconds, TimeUnit.SECONDS)
+                .removalListener((RemovalListener<PoolKey, Pool>) notification -> {
+                    LOGGER.info("Evicting connection pool {}, cause: {}", notification.getValue().getName(), notification.getCause());
+                    retire(notification.getValue());
+                })
+                .build();
+    }
+
+    /**
+     * Closes the pool if none of its connections are borrowed, otherwise closes its idle connections and defers closing
+     * the pool until the borrowed ones are returned rather than aborting them mid query.
+     */
+    private void retire(Pool pool)
+    {
+        HikariPoolMXBean poolBean = pool.dataSource.getHikariPoolMXBean();
+        if (poolBean == null || poolBean.getActiveConnections() == 0) {
+            pool.dataSource.close();
+            return;
+        }
+        LOGGER.info("Deferring close of connection pool {} until its {} borrowed connections are returned",
+                pool.getName(), poolBean.getActiveConnections());
+        poolBean.softEvictConnections();
+        retiredPools.add(pool);
+    }
+
+    private void closeDrainedPools()
+    {
+        retiredPools.removeIf(pool -> {
+            HikariPoolMXBean poolBean = pool.dataSource.getHikariPoolMXBean();
+            if (poolBean != null && poolBean.getActiveConnections() > 0) {
+                return false;
+            }
+            LOGGER.info("Closing drained connection pool {}", pool.getName());
+            pool.dataSource.close();
+            return true;
+        });
+    }
+
+    /**
+     * Returns the process wide registry, creating it on first use. The bounds of the registry are taken from the config
+     * options of the first caller, as pools are shared by every handler in the process.
+     *
+     * @param configOptions The connector's config options, may be null.
+     * @return The shared registry.
+     */
+    public static JdbcConnectionPoolRegistry getInstance(Map<String, String> configOptions)
+    {
+        if (instance == null) {
+            synchronized (JdbcConnectionPoolRegistry.class) {
+                if (instance == null) {
+                    Map<String, String> options = configOptions != null ? configOptions : Collections.emptyMap();
+                    instance = new JdbcConnectionPoolRegistry(getLong(options, JDBC_POOL_MAX_POOLS, DEFAULT_MAX_POOLS),
+                            getLong(options, JDBC_POOL_EXPIRY_SECONDS, DEFAULT_EXPIRY_SECONDS));
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Borrows a connection from the pool for the given driver, URL and connection properties, creating the pool on
+     * first use.
+     *
+     * @param driverClassName JDBC driver class.
+     * @param jdbcUrl JDBC URL, without embedded secrets.
+     * @param connectionProperties JDBC connection properties, including any credentials.
+     * @param configOptions The connector's config options used to size a new pool, may be null.
+     * @return A pooled connection, which is returned to the pool when closed.
+     * @throws SQLException If no connection could be obtained.
+     */
+    public Connection getConnection(String driverClassName, String jdbcUrl, Properties connectionProperties, Map<String, String> configOptions)
+            throws SQLException
+    {
+        closeDrainedPools();
+        Map<String, String> options = configOptions != null ? configOptions : Collections.<String, String>emptyMap();
+        PoolKey key = new PoolKey(driverClassName, jdbcUrl, fingerprint(connectionProperties), poolSettings(options));
+        Pool pool;
+        try {
+            pool = pools.get(key, () -> createPool(driverClassName, jdbcUrl, connectionProperties, options));
+        }
+        catch (ExecutionException | UncheckedExecutionException ex) {
+            // surface the same exceptions as creating the pool directly, e.g. Hikari's PoolInitializationException
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new SQLException("Unable to create connection pool: " + ex.getCause().getMessage(), ex.getCause());
+        }
+        return pool.getConnection();
+    }
+
+    private Pool createPool(String driverClassName, String jdbcUrl, Properties connectionProperties, Map<String, String> options)
+    {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName("athena-jdbc-pool-" + poolCount.incrementAndGet());
+        config.setDriverClassName(driverClassName);
+        config.setDataSourceProperties(connectionProperties);
+        config.setJdbcUrl(jdbcUrl);
+        config.setMaximumPoolSize((int) getLong(options, JDBC_POOL_MAX_SIZE, DEFAULT_MAX_SIZE));
+        config.setMinimumIdle((int) Math.min(getLong(options, JDBC_POOL_MIN_IDLE, DEFAULT_MIN_IDLE), config.getMaximumPoolSize()));
+        config.setConnectionTimeout(getLong(options, JDBC_POOL_CONNECTION_TIMEOUT_MS, DEFAULT_CONNECTION_TIMEOUT_MS));
+        LOGGER.info("Creating connection pool {} with max size {}", config.getPoolName(), config.getMaximumPoolSize());
+        return new Pool(new HikariDataSource(config));
+    }
+
+    /**
+     * @return Metrics of every open pool, keyed by pool name.
+     */
+    public Map<String, PoolMetrics> getPoolMetrics()
+    {
+        Map<String, PoolMetrics> metrics = new TreeMap<>();
+        pools.asMap().values().forEach(pool -> metrics.put(pool.getName(), pool.getMetrics()));
+        return metrics;
+    }
+
+    /**
+     * @return The number of open pools, excluding evicted pools waiting for their borrowed connections.
+     */
+    public long getPoolCount()
+    {
+        return pools.size();
+    }
+
+    /**
+     * @return The number of evicted pools waiting for their borrowed connections to be returned.
+     */
+    @VisibleForTesting
+    int getRetiredPoolCount()
+    {
+        return retiredPools.size();
+    }
+
+    /**
+     * Closes every pool, including those with borrowed connections, e.g. when the connector is shutting down.
+     */
+    public void closeAll()
+    {
+        pools.invalidateAll();
+        pools.cleanUp();
+        retiredPools.removeIf(pool -> {
+            pool.dataSource.close();
+            return true;
+        });
+    }
+
+    /**
+     * Credentials are only retained in hashed form in the key, so pool keys can be logged and compared safely.
+     */
+    private static String fingerprint(Properties connectionProperties)
+    {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            new TreeMap<>(connectionProperties).forEach((key, value) ->
+                    digest.update((key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8)));
+            return Base64.getEncoder().encodeToString(digest.digest());
+        }
+        catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * The config options a pool is sized from, pools are only shared by callers which agree on them.
+     */
+    private static String poolSettings(Map<String, String> options)
+    {
+        return getLong(options, JDBC_POOL_MAX_SIZE, DEFAULT_MAX_SIZE) + "/" +
+                getLong(options, JDBC_POOL_MIN_IDLE, DEFAULT_MIN_IDLE) + "/" +
+                getLong(options, JDBC_POOL_CONNECTION_TIMEOUT_MS, DEFAULT_CONNECTION_TIMEOUT_MS);
+    }
+
+    private static long getLong(Map<String, String> configOptions, String key, long defaultValue)
+    {
+        String value = configOptions.get(key);
+        return value != null ? Long.parseLong(value.trim()) : defaultValue;
+    }
+
+    /**
+     * Point in time metrics of a single pool.
+     */
+    public static final class PoolMetrics
+    {
+        private final int activeConnections;
+        private final int idleConnections;
+        private final int threadsAwaitingConnection;
+        private final long connectionsAcquired;
+        private final long totalWaitMillis;
+        private final long maxWaitMillis;
+
+        private PoolMetrics(int activeConnections, int idleConnections, int threadsAwaitingConnection,
+                long connectionsAcquired, long totalWaitMillis, long maxWaitMillis)
+        {
+            this.activeConnections = activeConnections;
+            this.idleConnections = idleConnections;
+            this.threadsAwaitingConnection = threadsAwaitingConnection;
+            this.connectionsAcquired = connectionsAcquired;
+            this.totalWaitMillis = totalWaitMillis;
+            this.maxWaitMillis = maxWaitMillis;
+        }
+
+        public int getActiveConnections()
+        {
+            return activeConnections;
+        }
+
+        public int getIdleConnections()
+        {
+            return idleConnections;
+        }
+
+        public int getThreadsAwaitingConnection()
+        {
+            return threadsAwaitingConnection;
+        }
+
+        public long getConnectionsAcquired()
+        {
+            return connectionsAcquired;
+        }
+
+        /**
+         * @return The total time callers spent waiting for a connection from the pool.
+         */
+        public long getTotalWaitMillis()
+        {
+            return totalWaitMillis;
+        }
+
+        /**
+         * @return The longest time a caller spent waiting for a connection from the pool.
+         */
+        public long getMaxWaitMillis()
+        {
+            return maxWaitMillis;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "PoolMetrics{" +
+                    "activeConnections=" + activeConnections +
+                    ", idleConnections=" + idleConnections +
+                    ", threadsAwaitingConnection=" + threadsAwaitingConnection +
+                    ", connectionsAcquired=" + connectionsAcquired +
+                    ", totalWaitMillis=" + totalWaitMillis +
+                    ", maxWaitMillis=" + maxWaitMillis +
+                    '}';
+        }
+    }
+
+    private static final class Pool
+    {
+        private final HikariDataSource dataSource;
+        private final AtomicLong connectionsAcquired = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        private Pool(HikariDataSource dataSource)
+        {
+            this.dataSource = dataSource;
+        }
+
+        private String getName()
+        {
+            return dataSource.getPoolName();
+        }
+
+        private Connection getConnection()
+                throws SQLException
+        {
+            long start = System.nanoTime();
+            Connection connection = dataSource.getConnection();
+            long waitNanos = System.nanoTime() - start;
+            connectionsAcquired.incrementAndGet();
+            totalWaitNanos.addAndGet(waitNanos);
+            maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+            return connection;
+        }
+
+        private PoolMetrics getMetrics()
+        {
+            HikariPoolMXBean poolBean = dataSource.getHikariPoolMXBean();
+            return new PoolMetrics(
+                    poolBean != null ? poolBean.getActiveConnections() : 0,
+                    poolBean != null ? poolBean.getIdleConnections() : 0,
+                    poolBean != null ? poolBean.getThreadsAwaitingConnection() : 0,
+                    connectionsAcquired.get(),
+                    TimeUnit.NANOSECONDS.toMillis(totalWaitNanos.get()),
+                    TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+        }
+    }
+
+    private static final class PoolKey
+    {
+        private final String driverClassName;
+        private final String jdbcUrl;
+        private final String credentialFingerprint;
+        private final String poolSettings;
+
+        private PoolKey(String driverClassName, String jdbcUrl, String credentialFingerprint, String poolSettings)
+        {
+            this.driverClassName = driverClassName;
+            this.jdbcUrl = jdbcUrl;
+            this.credentialFingerprint = credentialFingerprint;
+            this.poolSettings = poolSettings;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PoolKey poolKey = (PoolKey) o;
+            return Objects.equals(driverClassName, poolKey.driverClassName) &&
+                    Objects.equals(jdbcUrl, poolKey.jdbcUrl) &&
+                    Objects.equals(credentialFingerprint, poolKey.credentialFingerprint) &&
+                    Objects.equals(poolSettings, poolKey.poolSettings);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(driverClassName, jdbcUrl, credentialFingerprint, poolSettings);
+        }
+    }
+}
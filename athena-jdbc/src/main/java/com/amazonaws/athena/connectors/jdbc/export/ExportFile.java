@@ -0,0 +1,110 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.export;
+
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+
+/**
+ * A single file written to S3 by a source's export statement (e.g. Snowflake COPY INTO, Redshift UNLOAD, Vertica EXPORT).
+ */
+public class ExportFile
+{
+    private final String bucket;
+    private final String key;
+    private final long size;
+
+    /**
+     * @param bucket The bucket holding the file.
+     * @param key The object key of the file.
+     * @param size The size of the file in bytes, 0 if unknown.
+     */
+    public ExportFile(String bucket, String key, long size)
+    {
+        this.bucket = bucket;
+        this.key = key;
+        this.size = size;
+    }
+
+    public static ExportFile of(String bucket, S3Object object)
+    {
+        return new ExportFile(bucket, object.key(), object.size() == null ? 0L : object.size());
+    }
+
+    public String getBucket()
+    {
+        return bucket;
+    }
+
+    public String getKey()
+    {
+        return key;
+    }
+
+    public long getSize()
+    {
+        return size;
+    }
+
+    /**
+     * @return The s3:// URI of the file, as expected by the Arrow Dataset file system.
+     */
+    public String toUri()
+    {
+        return toUri(bucket, key);
+    }
+
+    public static String toUri(String bucket, String key)
+    {
+        return "s3://" + bucket + "/" + key;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ExportFile that = (ExportFile) o;
+        return size == that.size && Objects.equals(bucket, that.bucket) && Objects.equals(key, that.key);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(bucket, key, size);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("bucket", bucket)
+                .add("key", key)
+                .add("size", size)
+                .toString();
+    }
+}
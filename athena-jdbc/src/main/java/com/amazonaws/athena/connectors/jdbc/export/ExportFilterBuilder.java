@@ -0,0 +1,314 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.export;
+
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Marker;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import com.google.common.base.Joiner;
+import io.substrait.isthmus.SqlExpressionToSubstrait;
+import org.apache.arrow.util.VisibleForTesting;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.glue.model.ErrorDetails;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Translates a query's constraints into a Substrait filter which the Arrow Dataset scanner evaluates against the exported
+ * files, letting it skip row groups (using the Parquet statistics) and rows before they are copied into Athena's blocks.
+ * <p>
+ * The filter is built as a standard SQL predicate over the files' own schema and converted to Substrait with isthmus.
+ * Pushdown is best effort: the export statement already applied the constraints at the source and Athena re-applies them
+ * to whatever is returned, so a column whose constraint can't be expressed against the file's column type is simply left
+ * out, which only widens the filter.
+ */
+public final class ExportFilterBuilder
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExportFilterBuilder.class);
+
+    //Name of the table the predicate is written against, it is only used to resolve column references.
+    static final String TABLE_NAME = "export_source";
+
+    private static final DateTimeFormatter TIMESTAMP_LITERAL_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSSSSS");
+
+    private enum Family
+    {
+        NUMERIC, STRING, DATE, BOOLEAN
+    }
+
+    private ExportFilterBuilder() {}
+
+    /**
+     * @param fileSchema The schema of the exported files (see DatasetFactory#inspect()).
+     * @param constraints The constraints of the read request.
+     * @return The serialized Substrait ExtendedExpression in a direct buffer, as required by the dataset scanner, or empty
+     * if no constraint could be pushed down.
+     */
+    public static Optional<ByteBuffer> build(Schema fileSchema, Constraints constraints)
+    {
+        if (fileSchema == null || constraints == null || constraints.getSummary() == null || constraints.getSummary().isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<String> predicate = toPredicate(fileSchema, constraints.getSummary());
+        Optional<String> createTable = toCreateTable(fileSchema);
+        if (!predicate.isPresent() || !createTable.isPresent()) {
+            return Optional.empty();
+        }
+        try {
+            byte[] expression = new SqlExpressionToSubstrait()
+                    .convert(new String[] {predicate.get()}, Collections.singletonList(createTable.get()))
+                    .toByteArray();
+            ByteBuffer filter = ByteBuffer.allocateDirect(expression.length);
+            filter.put(expression);
+            LOGGER.info("build: Pushing down export filter {}", predicate.get());
+            return Optional.of(filter);
+        }
+        catch (Exception ex) {
+            LOGGER.warn("build: Unable to convert export filter {} to Substrait, reading without it", predicate.get(), ex);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * @return The conjunction of the predicates of every constraint which can be evaluated against the file's columns.
+     */
+    @VisibleForTesting
+    static Optional<String> toPredicate(Schema fileSchema, Map<String, ValueSet> summary)
+    {
+        Map<String, Field> fileFields = fileSchema.getFields().stream()
+                .collect(Collectors.toMap(Field::getName, field -> field, (first, second) -> first));
+        List<String> conjuncts = new ArrayList<>();
+        for (Map.Entry<String, ValueSet> next : summary.entrySet()) {
+            Field field = fileFields.get(next.getKey());
+            if (field == null || !(next.getValue() instanceof SortedRangeSet)) {
+                continue;
+            }
+            Family family = getFamily(field.getType());
+            if (family == null || family != getFamily(next.getValue().getType())) {
+                continue;
+            }
+            try {
+                toPredicate(field.getName(), (SortedRangeSet) next.getValue()).ifPresent(conjuncts::add);
+            }
+            catch (RuntimeException ex) {
+                LOGGER.debug("toPredicate: Skipping constraint on {}", field.getName(), ex);
+            }
+        }
+        return conjuncts.isEmpty() ? Optional.empty() : Optional.of(Joiner.on(" AND ").join(conjuncts));
+    }
+
+    private static Optional<String> toPredicate(String columnName, SortedRangeSet valueSet)
+    {
+        String column = quoteIdentifier(columnName);
+        ArrowType type = valueSet.getType();
+        if (valueSet.isNone()) {
+            return Optional.of(valueSet.isNullAllowed() ? "(" + column + " IS NULL)" : "(FALSE)");
+        }
+        if (valueSet.isAll() && valueSet.isNullAllowed()) {
+            return Optional.empty();
+        }
+
+        List<Range> ranges = valueSet.getOrderedRanges();
+        if (ranges.size() == 1 && !valueSet.isNullAllowed() && ranges.get(0).getLow().isLowerUnbounded() && ranges.get(0).getHigh().isUpperUnbounded()) {
+            return Optional.of("(" + column + " IS NOT NULL)");
+        }
+
+        List<String> disjuncts = new ArrayList<>();
+        if (valueSet.isNullAllowed()) {
+            disjuncts.add("(" + column + " IS NULL)");
+        }
+        List<String> singleValues = new ArrayList<>();
+        for (Range range : ranges) {
+            if (range.isSingleValue()) {
+                singleValues.add(toSqlLiteral(type, range.getLow().getValue()));
+                continue;
+            }
+            List<String> rangeConjuncts = new ArrayList<>();
+            if (!range.getLow().isLowerUnbounded()) {
+                String operator = range.getLow().getBound() == Marker.Bound.ABOVE ? ">" : ">=";
+                rangeConjuncts.add(column + " " + operator + " " + toSqlLiteral(type, range.getLow().getValue()));
+            }
+            if (!range.getHigh().isUpperUnbounded()) {
+                String operator = range.getHigh().getBound() == Marker.Bound.BELOW ? "<" : "<=";
+                rangeConjuncts.add(column + " " + operator + " " + toSqlLiteral(type, range.getHigh().getValue()));
+            }
+            if (!rangeConjuncts.isEmpty()) {
+                disjuncts.add("(" + Joiner.on(" AND ").join(rangeConjuncts) + ")");
+            }
+        }
+        if (singleValues.size() == 1) {
+            disjuncts.add(column + " = " + singleValues.get(0));
+        }
+        else if (singleValues.size() > 1) {
+            disjuncts.add(column + " IN (" + Joiner.on(", ").join(singleValues) + ")");
+        }
+        return disjuncts.isEmpty() ? Optional.empty() : Optional.of("(" + Joiner.on(" OR ").join(disjuncts) + ")");
+    }
+
+    /**
+     * @return The table definition isthmus resolves the predicate's columns against, empty if a file column has no SQL
+     * equivalent. Every file column is declared, in file order, so that the filter's field references line up with the
+     * dataset's schema.
+     */
+    @VisibleForTesting
+    static Optional<String> toCreateTable(Schema fileSchema)
+    {
+        List<String> columns = new ArrayList<>();
+        for (Field field : fileSchema.getFields()) {
+            String sqlType = toSqlType(field.getType());
+            if (sqlType == null) {
+                LOGGER.debug("toCreateTable: No SQL type for column {} of type {}", field.getName(), field.getType());
+                return Optional.empty();
+            }
+            columns.add(quoteIdentifier(field.getName()) + " " + sqlType);
+        }
+        return Optional.of("CREATE TABLE " + TABLE_NAME + " (" + Joiner.on(", ").join(columns) + ")");
+    }
+
+    /**
+     * Renders a constraint value as a standard SQL literal, for sources whose export statement can't be parameterized.
+     *
+     * @param type The Arrow type of the constraint.
+     * @param value The constraint value, as held by the constraint's markers.
+     * @return The SQL literal.
+     */
+    public static String toSqlLiteral(ArrowType type, Object value)
+    {
+        if (value == null) {
+            return "NULL";
+        }
+
+        Types.MinorType minorType = Types.getMinorTypeForArrowType(type);
+        switch (minorType) {
+            case BIGINT:
+            case INT:
+            case SMALLINT:
+            case TINYINT:
+            case FLOAT8:
+            case FLOAT4:
+                return value.toString();
+            case DECIMAL:
+                return ((BigDecimal) value).toPlainString();
+            case BIT:
+                return String.valueOf(value);
+            case DATEDAY:
+                return "DATE " + quoteLiteral(LocalDate.ofEpochDay(((Number) value).longValue()).toString());
+            case DATEMILLI:
+                return "TIMESTAMP " + quoteLiteral(((LocalDateTime) value).format(TIMESTAMP_LITERAL_FORMAT));
+            case VARCHAR:
+                return quoteLiteral(String.valueOf(value));
+            default:
+                throw new AthenaConnectorException(String.format("Can't inline a literal of type: %s, %s", type, minorType),
+                        ErrorDetails.builder().errorCode(FederationSourceErrorCode.OPERATION_NOT_SUPPORTED_EXCEPTION.toString()).build());
+        }
+    }
+
+    public static String quoteLiteral(String value)
+    {
+        return "'" + value.replace("'", "''") + "'";
+    }
+
+    static String quoteIdentifier(String name)
+    {
+        return "\"" + name.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * Timestamps are deliberately not comparable: the time zone and unit the source wrote them with can't be told from
+     * Athena's DATEMILLI constraint.
+     */
+    private static Family getFamily(ArrowType type)
+    {
+        switch (type.getTypeID()) {
+            case Int:
+            case FloatingPoint:
+            case Decimal:
+                return Family.NUMERIC;
+            case Utf8:
+            case LargeUtf8:
+                return Family.STRING;
+            case Date:
+                return Family.DATE;
+            case Bool:
+                return Family.BOOLEAN;
+            default:
+                return null;
+        }
+    }
+
+    private static String toSqlType(ArrowType type)
+    {
+        switch (type.getTypeID()) {
+            case Int:
+                switch (((ArrowType.Int) type).getBitWidth()) {
+                    case 8:
+                        return "TINYINT";
+                    case 16:
+                        return "SMALLINT";
+                    case 32:
+                        return "INTEGER";
+                    default:
+                        return "BIGINT";
+                }
+            case FloatingPoint:
+                return ((ArrowType.FloatingPoint) type).getPrecision() == FloatingPointPrecision.DOUBLE ? "DOUBLE" : "REAL";
+            case Decimal:
+                ArrowType.Decimal decimal = (ArrowType.Decimal) type;
+                return String.format("DECIMAL(%d, %d)", decimal.getPrecision(), decimal.getScale());
+            case Bool:
+                return "BOOLEAN";
+            case Utf8:
+            case LargeUtf8:
+                return "VARCHAR";
+            case Binary:
+            case LargeBinary:
+            case FixedSizeBinary:
+                return "VARBINARY";
+            case Date:
+                return "DATE";
+            case Time:
+                return "TIME";
+            case Timestamp:
+                return "TIMESTAMP";
+            default:
+                return null;
+        }
+    }
+}
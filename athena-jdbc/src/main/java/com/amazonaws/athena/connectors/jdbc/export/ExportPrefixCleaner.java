@@ -0,0 +1,200 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.export;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Removes the files a source exported to S3 once the queries which read them are over. Athena does not notify a
+ * connector when a query finishes, so instead each export sweeps the export root for query prefixes (the first path
+ * segment under the root, which every export connector names after the query id) whose files are all older than the
+ * configured retention, and deletes them. Listing the export root is not cheap, so each root is swept at most once per
+ * sweep interval (the retention, capped at 10 minutes) by a warm Lambda rather than on every export.
+ * <p>
+ * Cleanup is opt-in through {@link #EXPORT_PREFIX_RETENTION_MINUTES} because every prefix under the export root is
+ * treated as disposable. Failures are logged rather than thrown, a failed sweep never fails the query that ran it.
+ */
+public class ExportPrefixCleaner
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExportPrefixCleaner.class);
+
+    //Minutes an export prefix is kept after its newest file was written, cleanup is disabled when unset.
+    public static final String EXPORT_PREFIX_RETENTION_MINUTES = "export_prefix_retention_minutes";
+
+    //The maximum number of keys accepted by a single DeleteObjects call.
+    static final int MAX_DELETE_BATCH = 1000;
+    //The longest time between two sweeps of the same export root.
+    static final Duration MAX_SWEEP_INTERVAL = Duration.ofMinutes(10);
+
+    //When each export root (bucket and root prefix) was last swept, shared by the cleaners created for each request.
+    private static final Map<String, Instant> LAST_SWEEPS = new ConcurrentHashMap<>();
+
+    private final S3Client amazonS3;
+    private final Duration retention;
+    private final Clock clock;
+    private final Map<String, Instant> lastSweeps;
+
+    public ExportPrefixCleaner(S3Client amazonS3, Duration retention)
+    {
+        this(amazonS3, retention, Clock.systemUTC(), LAST_SWEEPS);
+    }
+
+    ExportPrefixCleaner(S3Client amazonS3, Duration retention, Clock clock, Map<String, Instant> lastSweeps)
+    {
+        this.amazonS3 = amazonS3;
+        this.retention = retention;
+        this.clock = clock;
+        this.lastSweeps = lastSweeps;
+    }
+
+    /**
+     * Creates a cleaner configured from the supplied config options.
+     *
+     * @param amazonS3 The client used to list and delete the exported files.
+     * @param configOptions The connector's config options (usually the Lambda environment).
+     * @return The cleaner, or empty if no (valid) retention is configured.
+     */
+    public static Optional<ExportPrefixCleaner> fromConfig(S3Client amazonS3, Map<String, String> configOptions)
+    {
+        String retentionMinutes = configOptions.get(EXPORT_PREFIX_RETENTION_MINUTES);
+        if (retentionMinutes == null || retentionMinutes.trim().isEmpty()) {
+            return Optional.empty();
+        }
+        try {
+            long minutes = Long.parseLong(retentionMinutes.trim());
+            if (minutes < 0) {
+                throw new NumberFormatException("negative retention");
+            }
+            return Optional.of(new ExportPrefixCleaner(amazonS3, Duration.ofMinutes(minutes)));
+        }
+        catch (NumberFormatException ex) {
+            LOGGER.warn("fromConfig: Ignoring invalid {} value: {}", EXPORT_PREFIX_RETENTION_MINUTES, retentionMinutes);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Deletes every query prefix directly under the export root whose files are all older than the retention, unless
+     * the root was already swept within the sweep interval.
+     *
+     * @param bucket The bucket the source exports to.
+     * @param rootPrefix The export root, under which each query writes to its own prefix. Empty for the bucket root.
+     * @return The number of objects deleted.
+     */
+    public int deleteExpiredPrefixes(String bucket, String rootPrefix)
+    {
+        String root = rootPrefix.isEmpty() || rootPrefix.endsWith("/") ? rootPrefix : rootPrefix + "/";
+        Instant now = clock.instant();
+        if (!claimSweep(bucket + "/" + root, now)) {
+            LOGGER.debug("deleteExpiredPrefixes: s3://{}/{} was swept recently, skipping", bucket, root);
+            return 0;
+        }
+        Instant cutoff = now.minus(retention);
+        try {
+            Map<String, List<S3Object>> prefixes = new LinkedHashMap<>();
+            for (S3Object next : ExportSplitPlanner.listObjects(amazonS3, bucket, root)) {
+                int end = next.key().indexOf('/', root.length());
+                if (end < 0) {
+                    //Not written under a query prefix, leave it alone.
+                    continue;
+                }
+                prefixes.computeIfAbsent(next.key().substring(0, end + 1), key -> new ArrayList<>()).add(next);
+            }
+
+            int deleted = 0;
+            for (Map.Entry<String, List<S3Object>> next : prefixes.entrySet()) {
+                boolean expired = next.getValue().stream()
+                        .allMatch(object -> object.lastModified() != null && object.lastModified().isBefore(cutoff));
+                if (expired) {
+                    LOGGER.info("deleteExpiredPrefixes: Deleting expired export prefix s3://{}/{}", bucket, next.getKey());
+                    deleted += delete(bucket, next.getValue());
+                }
+            }
+            return deleted;
+        }
+        catch (RuntimeException ex) {
+            LOGGER.warn("deleteExpiredPrefixes: Unable to clean up exports under s3://{}/{}", bucket, root, ex);
+            return 0;
+        }
+    }
+
+    /**
+     * Records a sweep of the root starting now, unless it was swept within the sweep interval or another caller claimed
+     * the sweep first. A failed sweep also counts so a broken root is not listed on every export.
+     */
+    private boolean claimSweep(String root, Instant now)
+    {
+        Duration interval = retention.compareTo(MAX_SWEEP_INTERVAL) < 0 ? retention : MAX_SWEEP_INTERVAL;
+        Instant previous = lastSweeps.get(root);
+        if (previous == null) {
+            return lastSweeps.putIfAbsent(root, now) == null;
+        }
+        return !now.isBefore(previous.plus(interval)) && lastSweeps.replace(root, previous, now);
+    }
+
+    /**
+     * Deletes every object under the prefix, e.g. the export of a query which is known to be over.
+     *
+     * @param bucket The bucket the source exported to.
+     * @param prefix The key prefix of the export.
+     * @return The number of objects deleted.
+     */
+    public int deletePrefix(String bucket, String prefix)
+    {
+        try {
+            return delete(bucket, ExportSplitPlanner.listObjects(amazonS3, bucket, prefix));
+        }
+        catch (RuntimeException ex) {
+            LOGGER.warn("deletePrefix: Unable to clean up export s3://{}/{}", bucket, prefix, ex);
+            return 0;
+        }
+    }
+
+    private int delete(String bucket, List<S3Object> objects)
+    {
+        for (int start = 0; start < objects.size(); start += MAX_DELETE_BATCH) {
+            List<ObjectIdentifier> batch = objects.subList(start, Math.min(start + MAX_DELETE_BATCH, objects.size())).stream()
+                    .map(next -> ObjectIdentifier.builder().key(next.key()).build())
+                    .collect(Collectors.toList());
+            amazonS3.deleteObjects(DeleteObjectsRequest.builder()
+                    .bucket(bucket)
+                    .delete(Delete.builder().objects(batch).quiet(true).build())
+                    .build());
+        }
+        return objects.size();
+    }
+}
@@ -0,0 +1,373 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.export;
+
+import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.BlockUtils;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import org.apache.arrow.dataset.file.FileFormat;
+import org.apache.arrow.dataset.file.FileSystemDatasetFactory;
+import org.apache.arrow.dataset.jni.NativeMemoryPool;
+import org.apache.arrow.dataset.scanner.ScanOptions;
+import org.apache.arrow.dataset.scanner.Scanner;
+import org.apache.arrow.dataset.source.Dataset;
+import org.apache.arrow.dataset.source.DatasetFactory;
+import org.apache.arrow.memory.ArrowBuf;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.util.AutoCloseables;
+import org.apache.arrow.vector.BitVectorHelper;
+import org.apache.arrow.vector.DateMilliVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.TimeStampVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowReader;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.arrow.vector.util.TransferPair;
+import org.apache.arrow.vector.util.VectorAppender;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Reads the Parquet files a source exported to S3 with Arrow Dataset and copies them into Athena's blocks a column at a
+ * time. The scan only materializes the requested columns and, where the constraints can be expressed against the files'
+ * schema, evaluates them as a Substrait filter (see {@link ExportFilterBuilder}) so that row groups which can't match are
+ * never read.
+ */
+public class ExportReader
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExportReader.class);
+
+    public static final long DEFAULT_BATCH_SIZE = 32768;
+    //Rows copied into the spiller per write, the spiller only checks the size of its block between writes.
+    static final int ROWS_PER_WRITE = 100;
+
+    private final long batchSize;
+
+    public ExportReader()
+    {
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param batchSize The maximum number of rows in each batch returned by the scan.
+     */
+    public ExportReader(long batchSize)
+    {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Opens a scan over the exported files. Requested columns which aren't in the files (e.g. a connector's partition
+     * column) are not projected.
+     *
+     * @param uris The s3:// URIs of the files to read, which must share one schema.
+     * @param schema The schema of the read request.
+     * @param constraints The constraints of the read request, used for filter pushdown.
+     * @return A reader over the scan's batches which releases the dataset's native resources when closed.
+     */
+    public ArrowReader open(List<String> uris, Schema schema, Constraints constraints)
+    {
+        LOGGER.debug("open: Reading {}", uris);
+        BufferAllocator allocator = new RootAllocator();
+        DatasetFactory datasetFactory = null;
+        Dataset dataset = null;
+        Scanner scanner = null;
+        try {
+            datasetFactory = new FileSystemDatasetFactory(allocator, NativeMemoryPool.getDefault(), FileFormat.PARQUET,
+                    uris.toArray(new String[0]));
+            Schema fileSchema = datasetFactory.inspect();
+            Set<String> fileColumns = fileSchema.getFields().stream().map(Field::getName).collect(Collectors.toSet());
+            String[] columns = schema.getFields().stream()
+                    .map(Field::getName)
+                    .filter(fileColumns::contains)
+                    .toArray(String[]::new);
+
+            ScanOptions.Builder options = new ScanOptions.Builder(batchSize).columns(Optional.of(columns));
+            Optional<ByteBuffer> filter = ExportFilterBuilder.build(fileSchema, constraints);
+            filter.ifPresent(options::substraitFilter);
+
+            dataset = datasetFactory.finish();
+            scanner = dataset.newScan(options.build());
+            return new ScanReader(allocator, scanner.scanBatches(), scanner, dataset, datasetFactory, filter.orElse(null));
+        }
+        catch (RuntimeException ex) {
+            try {
+                AutoCloseables.close(scanner, dataset, datasetFactory, allocator);
+            }
+            catch (Exception suppressed) {
+                ex.addSuppressed(suppressed);
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Copies every batch of the reader into the spiller's blocks, stopping early once the query is no longer running.
+     * Only the reader's columns which are part of the request's schema are copied, a batch at most ROWS_PER_WRITE rows
+     * per write so that the spiller can start a new block between them.
+     *
+     * @param reader The reader, usually obtained from {@link #open(List, Schema, Constraints)}.
+     * @param schema The schema of the read request.
+     * @param spiller The spiller the rows are written to.
+     * @param queryStatusChecker Used to stop reading for a query that has already terminated.
+     * @return The number of rows copied.
+     */
+    public static long writeBatches(ArrowReader reader, Schema schema, BlockSpiller spiller, QueryStatusChecker queryStatusChecker)
+            throws IOException
+    {
+        Set<String> columns = schema.getFields().stream().map(Field::getName).collect(Collectors.toSet());
+        long rows = 0;
+        VectorSchemaRoot root = reader.getVectorSchemaRoot();
+        while (queryStatusChecker.isQueryRunning() && reader.loadNextBatch()) {
+            int rowCount = root.getRowCount();
+            for (int firstRow = 0; firstRow < rowCount; firstRow += ROWS_PER_WRITE) {
+                int first = firstRow;
+                int length = Math.min(ROWS_PER_WRITE, rowCount - firstRow);
+                spiller.writeRows((Block block, int startRowNum) -> {
+                    for (FieldVector source : root.getFieldVectors()) {
+                        if (columns.contains(source.getName())) {
+                            appendRows(block.getFieldVector(source.getName()), source, first, length);
+                        }
+                    }
+                    return length;
+                });
+            }
+            rows += rowCount;
+        }
+        return rows;
+    }
+
+    /**
+     * Appends a range of a column's rows to the block's column, see {@link #appendVector(FieldVector, FieldVector)}.
+     */
+    private static void appendRows(FieldVector target, FieldVector source, int first, int length)
+    {
+        if (first == 0 && length == source.getValueCount()) {
+            appendVector(target, source);
+            return;
+        }
+        TransferPair transferPair = source.getTransferPair(source.getAllocator());
+        transferPair.splitAndTransfer(first, length);
+        try (FieldVector rows = (FieldVector) transferPair.getTo()) {
+            appendVector(target, rows);
+        }
+    }
+
+    /**
+     * Appends a column of the exported files to the block's column. Columns of the same type are copied buffer by buffer.
+     * Timestamps, which sources export with their own unit and time zone, become the UTC millisecond dates Athena uses
+     * for them, and any other type difference (e.g. an INT column exported as a 64 bit integer) is converted value by
+     * value.
+     *
+     * @param target The block's column.
+     * @param source The column read from the exported files.
+     */
+    public static void appendVector(FieldVector target, FieldVector source)
+    {
+        if (source instanceof TimeStampVector && target instanceof DateMilliVector) {
+            try (DateMilliVector converted = toDateMilliVector((TimeStampVector) source, source.getAllocator())) {
+                converted.accept(new VectorAppender(target), null);
+            }
+        }
+        else if (source.getField().getType().equals(target.getField().getType())) {
+            source.accept(new VectorAppender(target), null);
+        }
+        else {
+            int offset = target.getValueCount();
+            int valueCount = source.getValueCount();
+            Types.MinorType targetType = target.getMinorType();
+            for (int i = 0; i < valueCount; i++) {
+                BlockUtils.setValue(target, offset + i, coerce(targetType, source.getObject(i)));
+            }
+            target.setValueCount(offset + valueCount);
+        }
+    }
+
+    /**
+     * Converts a timestamp column to a UTC millisecond date column, only the unit needs converting and millisecond
+     * timestamps are copied as is. Exports are expected to write zoned timestamps in UTC.
+     *
+     * @param source The timestamp column.
+     * @param allocator The allocator for the new column.
+     * @return The date column, owned by the caller.
+     * @throws IllegalArgumentException If the column is zoned to a time zone other than UTC.
+     */
+    public static DateMilliVector toDateMilliVector(TimeStampVector source, BufferAllocator allocator)
+    {
+        ArrowType.Timestamp type = (ArrowType.Timestamp) source.getField().getType();
+        if (type.getTimezone() != null && !isUtc(type.getTimezone())) {
+            throw new IllegalArgumentException("Athena S3 Export only support Timezone with UTC");
+        }
+        TimeUnit unit = type.getUnit();
+        int valueCount = source.getValueCount();
+        DateMilliVector converted = new DateMilliVector(source.getName(), allocator);
+        converted.allocateNew(valueCount);
+        if (unit == TimeUnit.MILLISECOND) {
+            // Both vectors store 8 byte longs, the data and validity buffers can be copied directly.
+            converted.getDataBuffer().setBytes(0, source.getDataBuffer(), 0, (long) valueCount * Long.BYTES);
+            ArrowBuf validity = source.getValidityBuffer();
+            converted.getValidityBuffer().setBytes(0, validity, 0, BitVectorHelper.getValidityBufferSize(valueCount));
+        }
+        else {
+            for (int i = 0; i < valueCount; i++) {
+                if (!source.isNull(i)) {
+                    converted.set(i, toEpochMilli(source.get(i), unit));
+                }
+            }
+        }
+        converted.setValueCount(valueCount);
+        return converted;
+    }
+
+    private static boolean isUtc(String timezone)
+    {
+        try {
+            return ZoneId.of(timezone).normalized().equals(ZoneOffset.UTC);
+        }
+        catch (DateTimeException ex) {
+            return false;
+        }
+    }
+
+    private static long toEpochMilli(long value, TimeUnit unit)
+    {
+        switch (unit) {
+            case SECOND:
+                return value * 1000L;
+            case MICROSECOND:
+                return Math.floorDiv(value, 1000L);
+            case NANOSECOND:
+                return Math.floorDiv(value, 1000_000L);
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * Widens or narrows numbers to the Java type BlockUtils expects for the target column.
+     */
+    private static Object coerce(Types.MinorType targetType, Object value)
+    {
+        if (!(value instanceof Number)) {
+            return value;
+        }
+        Number number = (Number) value;
+        switch (targetType) {
+            case BIGINT:
+                return number.longValue();
+            case INT:
+                return number.intValue();
+            case SMALLINT:
+                return number.shortValue();
+            case TINYINT:
+                return number.byteValue();
+            case FLOAT8:
+                return number.doubleValue();
+            case FLOAT4:
+                return number.floatValue();
+            case DECIMAL:
+                return number instanceof BigDecimal ? number : new BigDecimal(number.toString());
+            default:
+                return value;
+        }
+    }
+
+    /**
+     * Exposes the scan's batches while owning the native dataset objects (and the Substrait filter buffer, which must
+     * outlive the scan) that produced them.
+     */
+    private static class ScanReader
+            extends ArrowReader
+    {
+        private final ArrowReader delegate;
+        private final AutoCloseable[] resources;
+        private final ByteBuffer filter;
+
+        ScanReader(BufferAllocator allocator, ArrowReader delegate, Scanner scanner, Dataset dataset,
+                DatasetFactory datasetFactory, ByteBuffer filter)
+        {
+            super(allocator);
+            this.delegate = delegate;
+            this.resources = new AutoCloseable[] {delegate, scanner, dataset, datasetFactory, allocator};
+            this.filter = filter;
+        }
+
+        @Override
+        public VectorSchemaRoot getVectorSchemaRoot()
+                throws IOException
+        {
+            return delegate.getVectorSchemaRoot();
+        }
+
+        @Override
+        public boolean loadNextBatch()
+                throws IOException
+        {
+            return delegate.loadNextBatch();
+        }
+
+        @Override
+        public long bytesRead()
+        {
+            return delegate.bytesRead();
+        }
+
+        @Override
+        protected void closeReadSource()
+                throws IOException
+        {
+            LOGGER.debug("closeReadSource: Closing scan, filter pushed down: {}", filter != null);
+            try {
+                AutoCloseables.close(resources);
+            }
+            catch (IOException | RuntimeException ex) {
+                throw ex;
+            }
+            catch (Exception ex) {
+                throw new IOException(ex);
+            }
+        }
+
+        @Override
+        protected Schema readSchema()
+                throws IOException
+        {
+            return delegate.getVectorSchemaRoot().getSchema();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.export;
+
+import com.amazonaws.athena.connector.lambda.domain.Split;
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.services.glue.model.ErrorDetails;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.ListObjectsRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Plans the splits of a query whose result was exported to S3 by the source. Each split reads one or more of the
+ * exported files: files of at least the target split size get a split of their own, while smaller files are packed
+ * together (in listing order) until the target size is reached. This keeps the number of Lambda invocations, and the
+ * fixed cost of opening a dataset in each, in proportion to the volume of data rather than the number of files the
+ * source chose to write.
+ * <p>
+ * The target size defaults to 0, which plans exactly one split per file.
+ */
+public class ExportSplitPlanner
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExportSplitPlanner.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    //Target number of exported megabytes read by each split, 0 (default) to read one file per split.
+    public static final String EXPORT_SPLIT_TARGET_SIZE_MB = "export_split_target_size_mb";
+    //Split property holding the JSON array of keys read by a split which covers more than one file.
+    public static final String EXPORT_OBJECT_KEYS = "export_object_keys";
+
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+
+    private final S3Client amazonS3;
+    private final long targetSplitBytes;
+
+    /**
+     * @param amazonS3 The client used to list the exported files.
+     * @param targetSplitBytes The number of bytes each split should read, 0 to read one file per split.
+     */
+    public ExportSplitPlanner(S3Client amazonS3, long targetSplitBytes)
+    {
+        this.amazonS3 = amazonS3;
+        this.targetSplitBytes = Math.max(targetSplitBytes, 0L);
+    }
+
+    /**
+     * Creates a planner configured from the supplied config options.
+     *
+     * @param amazonS3 The client used to list the exported files.
+     * @param configOptions The connector's config options (usually the Lambda environment).
+     * @return An ExportSplitPlanner, planning one split per file unless a target split size is configured.
+     */
+    public static ExportSplitPlanner fromConfig(S3Client amazonS3, Map<String, String> configOptions)
+    {
+        String targetSizeMb = configOptions.get(EXPORT_SPLIT_TARGET_SIZE_MB);
+        long targetSplitBytes = 0L;
+        if (targetSizeMb != null && !targetSizeMb.trim().isEmpty()) {
+            try {
+                targetSplitBytes = Long.parseLong(targetSizeMb.trim()) * BYTES_PER_MB;
+            }
+            catch (NumberFormatException ex) {
+                LOGGER.warn("fromConfig: Ignoring invalid {} value: {}", EXPORT_SPLIT_TARGET_SIZE_MB, targetSizeMb);
+            }
+        }
+        return new ExportSplitPlanner(amazonS3, targetSplitBytes);
+    }
+
+    public long getTargetSplitBytes()
+    {
+        return targetSplitBytes;
+    }
+
+    /**
+     * Lists every object under the prefix, following the listing's pagination. Folder placeholder keys (ending in '/')
+     * are skipped since they hold no data.
+     *
+     * @param bucket The bucket the source exported to.
+     * @param prefix The key prefix of the export.
+     * @return The exported objects in listing (key) order.
+     */
+    public List<S3Object> listObjects(String bucket, String prefix)
+    {
+        return listObjects(amazonS3, bucket, prefix);
+    }
+
+    /**
+     * @param bucket The bucket the source exported to.
+     * @param prefix The key prefix of the export.
+     * @return The exported files in listing (key) order.
+     */
+    public List<ExportFile> listExportedFiles(String bucket, String prefix)
+    {
+        return listObjects(bucket, prefix).stream()
+                .map(next -> ExportFile.of(bucket, next))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Groups the exported files into the file sets read by each split.
+     *
+     * @param files The exported files, in the order they should be read.
+     * @return One list of files per split, empty if there were no files.
+     */
+    public List<List<ExportFile>> plan(List<ExportFile> files)
+    {
+        List<List<ExportFile>> splits = new ArrayList<>();
+        List<ExportFile> current = new ArrayList<>();
+        long currentBytes = 0L;
+        for (ExportFile file : files) {
+            if (targetSplitBytes <= 0 || file.getSize() >= targetSplitBytes) {
+                splits.add(Collections.singletonList(file));
+                continue;
+            }
+            if (!current.isEmpty() && currentBytes + file.getSize() > targetSplitBytes) {
+                splits.add(current);
+                current = new ArrayList<>();
+                currentBytes = 0L;
+            }
+            current.add(file);
+            currentBytes += file.getSize();
+        }
+        if (!current.isEmpty()) {
+            splits.add(current);
+        }
+        LOGGER.info("plan: {} exported files planned as {} splits with target size {} bytes", files.size(), splits.size(), targetSplitBytes);
+        return splits;
+    }
+
+    /**
+     * Records the files a split should read. The first key is always written to the connector's own key property so
+     * that single file splits look exactly as they did before coalescing was introduced.
+     *
+     * @param builder The split being built.
+     * @param keyProperty The connector's split property for the object key.
+     * @param files The files read by the split, must not be empty.
+     * @return The builder, for chaining.
+     */
+    public static Split.Builder addFiles(Split.Builder builder, String keyProperty, List<ExportFile> files)
+    {
+        builder.add(keyProperty, files.get(0).getKey());
+        if (files.size() > 1) {
+            List<String> keys = files.stream().map(ExportFile::getKey).collect(Collectors.toList());
+            try {
+                builder.add(EXPORT_OBJECT_KEYS, OBJECT_MAPPER.writeValueAsString(keys));
+            }
+            catch (JsonProcessingException ex) {
+                throw new AthenaConnectorException("Unable to serialize the exported object keys: " + ex.getMessage(), ex,
+                        ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
+            }
+        }
+        return builder;
+    }
+
+    /**
+     * @param split The split to read.
+     * @param keyProperty The connector's split property for the object key.
+     * @return The keys of the files read by the split, empty if the export produced no files.
+     */
+    public static List<String> getObjectKeys(Split split, String keyProperty)
+    {
+        String keys = split.getProperty(EXPORT_OBJECT_KEYS);
+        if (keys != null) {
+            try {
+                return OBJECT_MAPPER.readValue(keys, new TypeReference<List<String>>() {});
+            }
+            catch (JsonProcessingException ex) {
+                throw new AthenaConnectorException("Unable to deserialize the exported object keys: " + ex.getMessage(), ex,
+                        ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
+            }
+        }
+        String key = split.getProperty(keyProperty);
+        return (key == null || key.isEmpty()) ? Collections.emptyList() : Collections.singletonList(key);
+    }
+
+    static List<S3Object> listObjects(S3Client amazonS3, String bucket, String prefix)
+    {
+        List<S3Object> objects = new ArrayList<>();
+        String marker = null;
+        try {
+            while (true) {
+                ListObjectsResponse response = amazonS3.listObjects(ListObjectsRequest.builder()
+                        .bucket(bucket)
+                        .prefix(prefix)
+                        .marker(marker)
+                        .build());
+                List<S3Object> page = response.contents();
+                for (S3Object next : page) {
+                    if (!next.key().endsWith("/")) {
+                        objects.add(next);
+                    }
+                }
+                if (!Boolean.TRUE.equals(response.isTruncated()) || page.isEmpty()) {
+                    break;
+                }
+                marker = response.nextMarker() != null ? response.nextMarker() : page.get(page.size() - 1).key();
+            }
+        }
+        catch (SdkClientException | S3Exception ex) {
+            String message = String.format("Failed to list objects in bucket %s with prefix %s", bucket, prefix);
+            LOGGER.error("{}: {}", message, ex.getMessage());
+            throw new AthenaConnectorException(message + ": " + ex.getMessage(), ex,
+                    ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
+        }
+        return objects;
+    }
+}
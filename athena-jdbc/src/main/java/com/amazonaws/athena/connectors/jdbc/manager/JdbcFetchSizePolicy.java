@@ -0,0 +1,234 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.manager;
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.google.common.collect.ImmutableSet;
+import org.apache.arrow.util.VisibleForTesting;
+import org.apache.arrow.vector.FieldVector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Chooses the JDBC fetch size used to stream a split's result set. Without a fetch size several drivers (e.g. PostgreSQL,
+ * Redshift) buffer the entire result set in memory, while others fall back to very small fetches which cost a round trip
+ * every few rows.
+ * <p>
+ * Each statement starts with a streaming compatible fetch size for its driver, unless the connector already set one. Once
+ * {@link #SAMPLE_ROWS} rows have been read, the average width of the rows written to the current block is used to resize
+ * the fetch so that each round trip returns roughly one block worth of rows.
+ */
+public class JdbcFetchSizePolicy
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(JdbcFetchSizePolicy.class);
+
+    //Fixed fetch size to use for every statement, disables adaptive sizing.
+    public static final String FETCH_SIZE = "jdbc_fetch_size";
+    //Set to false to keep the initial fetch size for the whole result set.
+    public static final String ADAPTIVE_FETCH_SIZE_ENABLED = "jdbc_adaptive_fetch_size_enabled";
+
+    static final int DEFAULT_FETCH_SIZE = 1_000;
+    static final int MIN_FETCH_SIZE = 100;
+    static final int MAX_FETCH_SIZE = 50_000;
+    //The number of rows read at the initial fetch size before the observed row width is used to resize the fetch.
+    static final int SAMPLE_ROWS = 1_000;
+
+    //Drivers which only stream rows when the fetch size is Integer.MIN_VALUE and buffer the whole result set otherwise.
+    private static final Set<String> ROW_STREAMING_DRIVERS = ImmutableSet.of("mysql", "mariadb");
+
+    private final Integer fixedFetchSize;
+    private final boolean adaptive;
+
+    /**
+     * @param fixedFetchSize Fetch size to use for every statement, null to choose one per driver.
+     * @param adaptive True if the fetch size should be resized from the observed row width.
+     */
+    public JdbcFetchSizePolicy(Integer fixedFetchSize, boolean adaptive)
+    {
+        this.fixedFetchSize = fixedFetchSize;
+        this.adaptive = adaptive && fixedFetchSize == null;
+    }
+
+    /**
+     * Creates a policy configured from the supplied config options.
+     *
+     * @param configOptions The connector's config options (usually the Lambda environment).
+     * @return A JdbcFetchSizePolicy, which is adaptive unless a fixed fetch size is configured or adaptation is disabled.
+     */
+    public static JdbcFetchSizePolicy fromConfig(Map<String, String> configOptions)
+    {
+        if (configOptions == null) {
+            return new JdbcFetchSizePolicy(null, true);
+        }
+        String fixedFetchSize = configOptions.get(FETCH_SIZE);
+        return new JdbcFetchSizePolicy(fixedFetchSize != null ? Integer.valueOf(fixedFetchSize) : null,
+                Boolean.parseBoolean(configOptions.getOrDefault(ADAPTIVE_FETCH_SIZE_ENABLED, "true")));
+    }
+
+    /**
+     * Sets the initial fetch size on the statement. A fetch size already chosen by the connector is kept unless a fixed
+     * fetch size is configured.
+     *
+     * @param statement The statement about to be executed.
+     * @param databaseProductName The database product name reported by the driver.
+     * @return The fetch size in effect for the statement.
+     * @throws SQLException If the driver rejects the fetch size.
+     */
+    public int applyInitialFetchSize(Statement statement, String databaseProductName)
+            throws SQLException
+    {
+        if (fixedFetchSize != null) {
+            statement.setFetchSize(fixedFetchSize);
+            return fixedFetchSize;
+        }
+
+        int fetchSize = statement.getFetchSize();
+        if (fetchSize != 0) {
+            return fetchSize;
+        }
+
+        fetchSize = isRowStreamingDriver(databaseProductName) ? Integer.MIN_VALUE : DEFAULT_FETCH_SIZE;
+        statement.setFetchSize(fetchSize);
+        return fetchSize;
+    }
+
+    /**
+     * @param resultSet The result set being read.
+     * @param fetchSize The fetch size the result set was opened with.
+     * @param maxBlockBytes The max size of the blocks the rows are written to.
+     * @return An adapter which resizes the result set's fetch once enough rows have been observed.
+     */
+    public FetchSizeAdapter newAdapter(ResultSet resultSet, int fetchSize, long maxBlockBytes)
+    {
+        return new FetchSizeAdapter(resultSet, fetchSize, maxBlockBytes, adaptive && fetchSize > 0);
+    }
+
+    /**
+     * @param sampledBytes The bytes used by the sampled rows.
+     * @param sampledRows The number of sampled rows.
+     * @param maxBlockBytes The max size of the blocks the rows are written to.
+     * @return The number of rows of the observed width which fill about one block, bounded to a sensible range.
+     */
+    @VisibleForTesting
+    static int getAdaptedFetchSize(long sampledBytes, long sampledRows, long maxBlockBytes)
+    {
+        if (sampledBytes <= 0 || sampledRows <= 0 || maxBlockBytes <= 0) {
+            return DEFAULT_FETCH_SIZE;
+        }
+        long avgRowBytes = Math.max(1, sampledBytes / sampledRows);
+        return (int) Math.max(MIN_FETCH_SIZE, Math.min(MAX_FETCH_SIZE, maxBlockBytes / avgRowBytes));
+    }
+
+    /**
+     * Block.getSize() can't be used while rows are being written, the vectors' value counts are only updated once the
+     * write completes.
+     *
+     * @param block The block the rows are written to.
+     * @param rows The number of rows written to the block.
+     * @return The bytes the block's vectors use to hold the rows.
+     */
+    @VisibleForTesting
+    static long getUsedBytes(Block block, int rows)
+    {
+        long bytes = 0;
+        for (FieldVector vector : block.getFieldVectors()) {
+            bytes += vector.getBufferSizeFor(rows);
+        }
+        return bytes;
+    }
+
+    private static boolean isRowStreamingDriver(String databaseProductName)
+    {
+        return databaseProductName != null && ROW_STREAMING_DRIVERS.contains(databaseProductName.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Tracks the rows written from a single result set and resizes its fetch once.
+     */
+    public static final class FetchSizeAdapter
+    {
+        private final ResultSet resultSet;
+        private final long maxBlockBytes;
+        private boolean adapting;
+        private int fetchSize;
+        private long rowsRead;
+        private long avgRowBytes;
+
+        private FetchSizeAdapter(ResultSet resultSet, int fetchSize, long maxBlockBytes, boolean adapting)
+        {
+            this.resultSet = resultSet;
+            this.fetchSize = fetchSize;
+            this.maxBlockBytes = maxBlockBytes;
+            this.adapting = adapting;
+        }
+
+        /**
+         * Records a row read from the result set, resizing the fetch once {@link #SAMPLE_ROWS} rows have been read.
+         *
+         * @param block The block the row was written to.
+         * @param blockRows The number of rows in the block, including the row just written.
+         */
+        public void onRow(Block block, int blockRows)
+        {
+            if (!adapting || ++rowsRead < SAMPLE_ROWS) {
+                return;
+            }
+            adapting = false;
+
+            long blockBytes = getUsedBytes(block, blockRows);
+            int adapted = getAdaptedFetchSize(blockBytes, blockRows, maxBlockBytes);
+            avgRowBytes = blockRows > 0 ? blockBytes / blockRows : 0;
+            if (adapted == fetchSize) {
+                return;
+            }
+            try {
+                resultSet.setFetchSize(adapted);
+                LOGGER.info("onRow: Resized fetch from {} to {} rows for an average row width of {} bytes", fetchSize, adapted, avgRowBytes);
+                fetchSize = adapted;
+            }
+            catch (SQLException ex) {
+                LOGGER.warn("onRow: Driver rejected fetch size {}, keeping {}", adapted, fetchSize, ex);
+            }
+        }
+
+        /**
+         * @return The fetch size currently in effect.
+         */
+        public int getFetchSize()
+        {
+            return fetchSize;
+        }
+
+        /**
+         * @return The average row width observed when the fetch was resized, 0 if no sample was taken.
+         */
+        public long getAvgRowBytes()
+        {
+            return avgRowBytes;
+        }
+    }
+}
@@ -45,6 +45,8 @@ import com.amazonaws.athena.connectors.jdbc.connection.JdbcConnectionFactory;
 import com.amazonaws.athena.connectors.jdbc.qpt.JdbcQueryPassthrough;
 import com.amazonaws.athena.connectors.jdbc.resolver.DefaultJDBCCaseResolver;
 import com.amazonaws.athena.connectors.jdbc.resolver.JDBCCaseResolver;
+import com.amazonaws.athena.connectors.jdbc.splits.KeyRangeConstraint;
+import com.amazonaws.athena.connectors.jdbc.splits.SplitRange;
 import com.amazonaws.athena.connectors.jdbc.splits.Splitter;
 import com.amazonaws.athena.connectors.jdbc.splits.SplitterFactory;
 import com.google.common.annotations.VisibleForTesting;
@@ -89,7 +91,13 @@ public abstract class JdbcMetadataHandler
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(JdbcMetadataHandler.class);
     private static final String SQL_SPLITS_STRING = "select min(%s), max(%s) from %s.%s;";
+    private static final String SQL_QUANTILES_STRING = "select min(%s), max(%s) from (select %s, ntile(%d) over (order by %s) as split_bucket from %s.%s) t " +
+            "group by split_bucket order by split_bucket";
     private static final int DEFAULT_NUM_SPLITS = 20;
+    private static final int MAX_NUM_SPLITS = 200;
+    private static final long TARGET_ROWS_PER_SPLIT = 500_000;
+    //Computes split bounds from NTILE quantiles when the engine provides no statistics, this requires a full sort of the split column.
+    public static final String QUANTILE_SPLITS_ENABLED = "quantile_splits_enabled";
     public static final String TABLES_AND_VIEWS = "Tables and Views";
     private final JdbcConnectionFactory jdbcConnectionFactory;
     private final DatabaseConnectionConfig databaseConnectionConfig;
@@ -493,27 +501,34 @@ public abstract class JdbcMetadataHandler
                 primaryKeyColumns.add(resultSet.getString("COLUMN_NAME"));
             }
             if (!primaryKeyColumns.isEmpty()) {
-                try (Statement statement = jdbcConnection.createStatement();
-                        ResultSet minMaxResultSet = statement.executeQuery(String.format(SQL_SPLITS_STRING, primaryKeyColumns.get(0), primaryKeyColumns.get(0),
-                                wrapNameWithEscapedCharacter(tableName.getSchemaName()), wrapNameWithEscapedCharacter(tableName.getTableName())))) {
-                    minMaxResultSet.next(); // expecting one result row
-                    long min = minMaxResultSet.getLong(1);
-                    long max = minMaxResultSet.getLong(2);
-                    Optional<Splitter> optionalSplitter = splitterFactory.getSplitter(primaryKeyColumns.get(0), minMaxResultSet, DEFAULT_NUM_SPLITS);
-
-                    if (optionalSplitter.isPresent()) {
-                        if (max - min < DEFAULT_NUM_SPLITS) {
-                            LOGGER.info("Range too small for splitting (min={}, max={}), skipping", min, max);
-                            return splitClauses;
-                        }
-
-                        Splitter splitter = optionalSplitter.get();
-                        while (splitter.hasNext()) {
-                            String splitClause = splitter.nextRangeClause();
-                            LOGGER.debug("Split generated {}", splitClause);
-                            splitClauses.add(splitClause);
-                        }
-                    }
+                String splitColumn = primaryKeyColumns.get(0);
+                int numSplits = getNumSplits(getEstimatedRowCount(jdbcConnection, tableName));
+                boolean useHistogram = numSplits > 1;
+                if (!useHistogram) {
+                    // a histogram is not worth reading for a small table, keep the default min/max splits
+                    LOGGER.info("Table {} is estimated below {} rows, using the default splits", tableName, TARGET_ROWS_PER_SPLIT);
+                    numSplits = DEFAULT_NUM_SPLITS;
+                }
+
+                Optional<KeyRangeConstraint> keyRangeConstraint = getKeyRangeConstraint(getSplitsRequest, splitColumn);
+                if (keyRangeConstraint.isPresent() && keyRangeConstraint.get().isEmpty()) {
+                    LOGGER.info("Constraint on {} allows no keys, skipping", splitColumn);
+                    return splitClauses;
+                }
+
+                Optional<Splitter> optionalSplitter = useHistogram
+                        ? getHistogramSplitter(jdbcConnection, tableName, splitColumn, numSplits)
+                        : Optional.empty();
+                if (!optionalSplitter.isPresent() && keyRangeConstraint.isPresent() && keyRangeConstraint.get().getBoundedSpan().isPresent()) {
+                    // the constraint already bounds the key space, no need to scan for the min and max
+                    optionalSplitter = getKeyRangeSplitter(splitColumn, keyRangeConstraint.get().getColumnType(), keyRangeConstraint.get().getBoundedSpan().get(), numSplits);
+                }
+                else if (!optionalSplitter.isPresent()) {
+                    optionalSplitter = getMinMaxSplitter(jdbcConnection, tableName, splitColumn, keyRangeConstraint, numSplits);
+                }
+
+                if (optionalSplitter.isPresent()) {
+                    splitClauses.addAll(generateSplitClauses(optionalSplitter.get(), keyRangeConstraint, tableName));
                 }
             }
         }
@@ -524,6 +539,162 @@ public abstract class JdbcMetadataHandler
         return splitClauses;
     }
 
+    private <T> List<String> generateSplitClauses(final Splitter<T> splitter, final Optional<KeyRangeConstraint> keyRangeConstraint, final TableName tableName)
+    {
+        List<String> splitClauses = new ArrayList<>();
+        int prunedSplits = 0;
+        while (splitter.hasNext()) {
+            SplitRange<T> splitRange = splitter.next();
+            if (keyRangeConstraint.isPresent() && !keyRangeConstraint.get().overlaps(splitRange, splitter.isHighInclusive())) {
+                prunedSplits++;
+                continue;
+            }
+            String splitClause = splitter.getRangeClause(splitRange);
+            LOGGER.debug("Split generated {}", splitClause);
+            splitClauses.add(splitClause);
+        }
+        if (prunedSplits > 0) {
+            LOGGER.info("Pruned {} splits of {} which fall outside of the query's constraint", prunedSplits, tableName);
+        }
+        return splitClauses;
+    }
+
+    private Optional<Splitter> getHistogramSplitter(final Connection jdbcConnection, final TableName tableName, final String splitColumn, final int numSplits)
+            throws SQLException
+    {
+        List<String> bounds = getSplitBoundaries(jdbcConnection, tableName, splitColumn, numSplits);
+        if (bounds.isEmpty()) {
+            return Optional.empty();
+        }
+        try (ResultSet columns = jdbcConnection.getMetaData().getColumns(null, tableName.getSchemaName(), tableName.getTableName(), splitColumn)) {
+            if (!columns.next()) {
+                return Optional.empty();
+            }
+            Optional<Splitter> splitter = splitterFactory.getSplitter(splitColumn, columns.getInt("DATA_TYPE"), bounds, numSplits);
+            splitter.ifPresent(value -> LOGGER.info("Using {} histogram bounds to split {} on {}", bounds.size(), tableName, splitColumn));
+            return splitter;
+        }
+    }
+
+    private Optional<Splitter> getMinMaxSplitter(final Connection jdbcConnection, final TableName tableName, final String splitColumn,
+            final Optional<KeyRangeConstraint> keyRangeConstraint, final int numSplits)
+            throws SQLException
+    {
+        try (Statement statement = jdbcConnection.createStatement();
+                ResultSet minMaxResultSet = statement.executeQuery(String.format(SQL_SPLITS_STRING, splitColumn, splitColumn,
+                        wrapNameWithEscapedCharacter(tableName.getSchemaName()), wrapNameWithEscapedCharacter(tableName.getTableName())))) {
+            minMaxResultSet.next(); // expecting one result row
+            long min = minMaxResultSet.getLong(1);
+            long max = minMaxResultSet.getLong(2);
+            if (keyRangeConstraint.isPresent()) {
+                // only split the part of the key space the constraint allows
+                SplitRange<Long> span = keyRangeConstraint.get().getSpan();
+                min = span.getLow() != null ? Math.max(min, span.getLow()) : min;
+                max = span.getHigh() != null ? Math.min(max, span.getHigh()) : max;
+                if (min > max) {
+                    LOGGER.info("Constraint on {} is outside of its range (min={}, max={}), skipping", splitColumn, min, max);
+                    return Optional.empty();
+                }
+                return getKeyRangeSplitter(splitColumn, keyRangeConstraint.get().getColumnType(), new SplitRange<>(min, max), numSplits);
+            }
+            Optional<Splitter> optionalSplitter = splitterFactory.getSplitter(splitColumn, minMaxResultSet, numSplits);
+            if (optionalSplitter.isPresent() && max - min < numSplits) {
+                LOGGER.info("Range too small for splitting (min={}, max={}), skipping", min, max);
+                return Optional.empty();
+            }
+            return optionalSplitter;
+        }
+    }
+
+    private Optional<Splitter> getKeyRangeSplitter(final String splitColumn, final int columnType, final SplitRange<Long> range, final int numSplits)
+    {
+        if (range.getHigh() - range.getLow() < numSplits) {
+            LOGGER.info("Range too small for splitting (min={}, max={}), skipping", range.getLow(), range.getHigh());
+            return Optional.empty();
+        }
+        return splitterFactory.getSplitter(splitColumn, columnType, range, numSplits);
+    }
+
+    private Optional<KeyRangeConstraint> getKeyRangeConstraint(final GetSplitsRequest getSplitsRequest, final String splitColumn)
+    {
+        if (getSplitsRequest == null || getSplitsRequest.getConstraints() == null) {
+            return Optional.empty();
+        }
+        // Athena lower cases column names, the primary key column is reported with the database's casing
+        return getSplitsRequest.getConstraints().getSummary().entrySet().stream()
+                .filter(entry -> entry.getKey().equalsIgnoreCase(splitColumn))
+                .findFirst()
+                .flatMap(entry -> KeyRangeConstraint.fromValueSet(entry.getValue()));
+    }
+
+    /**
+     * Sizes the number of splits from the estimated row count of the table, so that small tables are not fanned out and
+     * large tables get more parallelism than the default.
+     *
+     * @param estimatedRowCount estimated number of rows, negative if unknown.
+     * @return the number of splits to generate.
+     */
+    @VisibleForTesting
+    static int getNumSplits(final long estimatedRowCount)
+    {
+        if (estimatedRowCount < 0) {
+            return DEFAULT_NUM_SPLITS;
+        }
+        long numSplits = (estimatedRowCount + TARGET_ROWS_PER_SPLIT - 1) / TARGET_ROWS_PER_SPLIT;
+        return (int) Math.max(1, Math.min(numSplits, MAX_NUM_SPLITS));
+    }
+
+    /**
+     * Estimates the number of rows in the table, e.g. from the database's statistics. Engines which keep a cheap row
+     * estimate should override this so splits can be sized to the table.
+     *
+     * @param jdbcConnection connection to the database.
+     * @param tableName table to estimate.
+     * @return estimated number of rows, negative if unknown.
+     */
+    protected long getEstimatedRowCount(final Connection jdbcConnection, final TableName tableName)
+    {
+        return -1;
+    }
+
+    /**
+     * Provides ordered equi-depth histogram bounds for the split column, including its min and max value, which are used
+     * in preference to equal width min/max splits. Engines should override this to read their optimizer statistics
+     * (e.g. `pg_stats`, MySQL `information_schema.column_statistics`, Oracle `ALL_TAB_HISTOGRAMS`). By default quantiles
+     * are only computed with NTILE when {@value #QUANTILE_SPLITS_ENABLED} is set, as this sorts the whole table.
+     *
+     * @param jdbcConnection connection to the database.
+     * @param tableName table to split.
+     * @param splitColumn column to split on.
+     * @param numSplits expected number of splits.
+     * @return ordered bounds rendered as text, empty if unavailable.
+     */
+    protected List<String> getSplitBoundaries(final Connection jdbcConnection, final TableName tableName, final String splitColumn, final int numSplits)
+    {
+        if (configOptions == null || !Boolean.parseBoolean(configOptions.getOrDefault(QUANTILE_SPLITS_ENABLED, "false"))) {
+            return Collections.emptyList();
+        }
+        String quantileQuery = String.format(SQL_QUANTILES_STRING, splitColumn, splitColumn, splitColumn, numSplits, splitColumn,
+                wrapNameWithEscapedCharacter(tableName.getSchemaName()), wrapNameWithEscapedCharacter(tableName.getTableName()));
+        List<String> bounds = new ArrayList<>();
+        try (Statement statement = jdbcConnection.createStatement();
+                ResultSet resultSet = statement.executeQuery(quantileQuery)) {
+            String max = null;
+            while (resultSet.next()) {
+                bounds.add(resultSet.getString(1));
+                max = resultSet.getString(2);
+            }
+            if (max != null) {
+                bounds.add(max);
+            }
+        }
+        catch (SQLException ex) {
+            LOGGER.warn("Unable to compute quantiles for {}, falling back to min/max splits", tableName, ex);
+            return Collections.emptyList();
+        }
+        return bounds;
+    }
+
     /**
      * Converts an ARRAY column's TYPE_NAME (provided by the jdbc metadata) to an ArrowType.
      * @param typeName The column's TYPE_NAME (e.g. _int4, _text, _float8, etc...)
@@ -19,10 +19,12 @@
  */
 package com.amazonaws.athena.connectors.jdbc.manager;
 
+import com.amazonaws.athena.connector.credentials.CredentialsProvider;
 import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
 import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
 import com.amazonaws.athena.connector.lambda.data.BlockUtils;
+import com.amazonaws.athena.connector.lambda.data.BlockWriter;
 import com.amazonaws.athena.connector.lambda.data.FieldResolver;
 import com.amazonaws.athena.connector.lambda.data.writers.GeneratedRowWriter;
 import com.amazonaws.athena.connector.lambda.data.writers.extractors.BigIntExtractor;
@@ -54,6 +56,9 @@ import com.amazonaws.athena.connector.substrait.SubstraitSqlUtils;
 import com.amazonaws.athena.connectors.jdbc.connection.DatabaseConnectionConfig;
 import com.amazonaws.athena.connectors.jdbc.connection.JdbcConnectionFactory;
 import com.amazonaws.athena.connectors.jdbc.qpt.JdbcQueryPassthrough;
+import com.amazonaws.athena.connectors.jdbc.splits.SplitRange;
+import com.amazonaws.athena.connectors.jdbc.splits.Splitter;
+import com.amazonaws.athena.connectors.jdbc.splits.SplitterFactory;
 import org.apache.arrow.util.VisibleForTesting;
 import org.apache.arrow.vector.FieldVector;
 import org.apache.arrow.vector.holders.NullableBigIntHolder;
@@ -82,15 +87,20 @@ import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 
 import java.sql.Array;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 
 /**
  * Abstracts JDBC record handler and provides common reusable split records handling.
@@ -101,6 +111,9 @@ public abstract class JdbcRecordHandler
     private static final Logger LOGGER = LoggerFactory.getLogger(JdbcRecordHandler.class);
     private final JdbcConnectionFactory jdbcConnectionFactory;
     private final DatabaseConnectionConfig databaseConnectionConfig;
+    private final JdbcFetchSizePolicy fetchSizePolicy;
+    private final JdbcSubSplitReader subSplitReader;
+    private final SplitterFactory splitterFactory = new SplitterFactory();
     private static final String CLICKHOUSE_DB = "clickhouse";
 
     protected final JdbcQueryPassthrough queryPassthrough = new JdbcQueryPassthrough();
@@ -113,6 +126,8 @@ public abstract class JdbcRecordHandler
         super(sourceType, configOptions);
         this.jdbcConnectionFactory = null;
         this.databaseConnectionConfig = null;
+        this.fetchSizePolicy = JdbcFetchSizePolicy.fromConfig(configOptions);
+        this.subSplitReader = JdbcSubSplitReader.fromConfig(configOptions);
     }
 
     protected JdbcRecordHandler(
@@ -126,6 +141,8 @@ public abstract class JdbcRecordHandler
         super(amazonS3, secretsManager, athena, databaseConnectionConfig.getEngine(), configOptions);
         this.jdbcConnectionFactory = Validate.notNull(jdbcConnectionFactory, "jdbcConnectionFactory must not be null");
         this.databaseConnectionConfig = Validate.notNull(databaseConnectionConfig, "databaseConnectionConfig must not be null");
+        this.fetchSizePolicy = JdbcFetchSizePolicy.fromConfig(configOptions);
+        this.subSplitReader = JdbcSubSplitReader.fromConfig(configOptions);
     }
 
     protected JdbcConnectionFactory getJdbcConnectionFactory()
@@ -138,6 +155,21 @@ public abstract class JdbcRecordHandler
         return databaseConnectionConfig;
     }
 
+    protected JdbcFetchSizePolicy getFetchSizePolicy()
+    {
+        return fetchSizePolicy;
+    }
+
+    /**
+     * @return True if splits are read as several concurrent sub-splits, see {@link JdbcSubSplitReader}. Only
+     * {@link #readWithConstraint} divides splits, handlers which override it without delegating to it (e.g. Synapse
+     * and Azure Data Lake Gen2) read each split on a single connection.
+     */
+    protected boolean isSubSplitReadEnabled()
+    {
+        return subSplitReader.isEnabled();
+    }
+
     @Override
     public String getDatabaseConnectionSecret()
     {
@@ -154,19 +186,69 @@ public abstract class JdbcRecordHandler
     {
         LOGGER.info("{}: Catalog: {}, table {}, splits {}", readRecordsRequest.getQueryId(), readRecordsRequest.getCatalogName(), readRecordsRequest.getTableName(),
                 readRecordsRequest.getSplit().getProperties());
+        if (subSplitReader.isEnabled() && readSubSplits(blockSpiller, readRecordsRequest, queryStatusChecker)) {
+            return;
+        }
         try (Connection connection = this.jdbcConnectionFactory.getConnection(getCredentialProvider(getRequestOverrideConfig(readRecordsRequest)))) {
-            String databaseProductName = connection.getMetaData().getDatabaseProductName();
+            readSplit(connection, blockSpiller, readRecordsRequest, readRecordsRequest.getSplit(), queryStatusChecker);
+        }
+    }
 
-            // clickhouse does not support disabling auto-commit
-            if (!CLICKHOUSE_DB.equalsIgnoreCase(databaseProductName)) {
-                connection.setAutoCommit(false); // For consistency. This is needed to be false to enable streaming for some database types.
-            }
+    /**
+     * Reads the request's split as several sub-splits over concurrent connections, see {@link JdbcSubSplitReader}.
+     *
+     * @return false if the split can't be divided and should be read as a whole.
+     */
+    private boolean readSubSplits(BlockSpiller blockSpiller, ReadRecordsRequest readRecordsRequest, QueryStatusChecker queryStatusChecker)
+            throws Exception
+    {
+        Constraints constraints = readRecordsRequest.getConstraints();
+        // a LIMIT is cheaper to satisfy from one result set, rows read concurrently lose their ORDER BY, and complex
+        // values can't be copied between blocks
+        if (constraints.isQueryPassThrough() || constraints.getLimit() > 0
+                || (constraints.getOrderByClause() != null && !constraints.getOrderByClause().isEmpty())
+                || readRecordsRequest.getSchema().getFields().stream().anyMatch(field -> field.getType() instanceof ArrowType.List)) {
+            return false;
+        }
+        CredentialsProvider credentialsProvider = getCredentialProvider(getRequestOverrideConfig(readRecordsRequest));
+        List<Map<String, String>> subSplits;
+        try (Connection connection = this.jdbcConnectionFactory.getConnection(credentialsProvider)) {
+            subSplits = getSubSplits(connection, readRecordsRequest, subSplitReader.getParallelism());
+        }
+        if (subSplits.size() <= 1) {
+            return false;
+        }
+
+        LOGGER.info("{}: Reading split as {} sub-splits", readRecordsRequest.getQueryId(), subSplits.size());
+        Split split = readRecordsRequest.getSplit();
+        subSplitReader.read(databaseConnectionConfig.getEngine() + ":" + databaseConnectionConfig.getCatalog(), subSplits,
+                readRecordsRequest.getSchema(), blockSpiller, (Map<String, String> subSplitProperties, BlockWriter blockWriter) -> {
+                    Map<String, String> properties = new HashMap<>(split.getProperties());
+                    properties.putAll(subSplitProperties);
+                    Split subSplit = new Split(split.getSpillLocation(), split.getEncryptionKey(), properties);
+                    try (Connection connection = this.jdbcConnectionFactory.getConnection(credentialsProvider)) {
+                        readSplit(connection, blockWriter, readRecordsRequest, subSplit, queryStatusChecker);
+                    }
+                });
+        return true;
+    }
+
+    private void readSplit(Connection connection, BlockWriter blockWriter, ReadRecordsRequest readRecordsRequest, Split split, QueryStatusChecker queryStatusChecker)
+            throws Exception
+    {
+        String databaseProductName = connection.getMetaData().getDatabaseProductName();
+
+        // clickhouse does not support disabling auto-commit
+        if (!CLICKHOUSE_DB.equalsIgnoreCase(databaseProductName)) {
+            connection.setAutoCommit(false); // For consistency. This is needed to be false to enable streaming for some database types.
+        }
 
-            enableCaseSensitivelyLookUpSession(connection); // For certain connectors, we require to apply session config first to enable case
+        enableCaseSensitivelyLookUpSession(connection); // For certain connectors, we require to apply session config first to enable case
 
-            try (PreparedStatement preparedStatement = buildSplitSql(connection, readRecordsRequest.getCatalogName(), readRecordsRequest.getTableName(),
-                    readRecordsRequest.getSchema(), readRecordsRequest.getConstraints(), readRecordsRequest.getSplit());
-                    ResultSet resultSet = preparedStatement.executeQuery()) {
+        try (PreparedStatement preparedStatement = buildSplitSql(connection, readRecordsRequest.getCatalogName(), readRecordsRequest.getTableName(),
+                readRecordsRequest.getSchema(), readRecordsRequest.getConstraints(), split)) {
+            int fetchSize = fetchSizePolicy.applyInitialFetchSize(preparedStatement, databaseProductName);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
                 Map<String, String> partitionValues = readRecordsRequest.getSplit().getProperties();
                 Map<String, String> colNameRemapping = getColumnNameRemapping(readRecordsRequest);
 
@@ -181,15 +263,21 @@ public abstract class JdbcRecordHandler
                 }
 
                 GeneratedRowWriter rowWriter = rowWriterBuilder.build();
+                JdbcFetchSizePolicy.FetchSizeAdapter fetchSizeAdapter = fetchSizePolicy.newAdapter(resultSet, fetchSize, readRecordsRequest.getMaxBlockSize());
                 int rowsReturnedFromDatabase = 0;
                 while (resultSet.next()) {
                     if (!queryStatusChecker.isQueryRunning()) {
                         return;
                     }
-                    blockSpiller.writeRows((Block block, int rowNum) -> rowWriter.writeRow(block, rowNum, resultSet) ? 1 : 0);
+                    blockWriter.writeRows((Block block, int rowNum) -> {
+                        int rows = rowWriter.writeRow(block, rowNum, resultSet) ? 1 : 0;
+                        fetchSizeAdapter.onRow(block, rowNum + rows);
+                        return rows;
+                    });
                     rowsReturnedFromDatabase++;
                 }
-                LOGGER.info("{} rows returned by database.", rowsReturnedFromDatabase);
+                LOGGER.info("{} rows returned by database, fetch size {}, average row width {} bytes.", rowsReturnedFromDatabase,
+                        fetchSizeAdapter.getFetchSize(), fetchSizeAdapter.getAvgRowBytes());
 
                 // clickhouse does not support commit/rollback, so skip commit() for clickhouse
                 if (!CLICKHOUSE_DB.equalsIgnoreCase(databaseProductName)) {
@@ -200,6 +288,74 @@ public abstract class JdbcRecordHandler
         }
     }
 
+    /**
+     * Divides the request's split into sub-splits which are read concurrently when jdbc_sub_split_parallelism is set.
+     * The default divides the range of the table's first primary key column with the same splitters used to generate
+     * splits. The range is the MIN and MAX of the column over the rows the split reads, queried through
+     * {@link #buildSplitSql} with {@link JdbcSplitQueryBuilder#SUB_SPLIT_BOUNDS_COLUMN} set, so it stays within the
+     * split's partition and pushed down filters.
+     *
+     * @param connection connection to the database.
+     * @param readRecordsRequest the request whose split is read.
+     * @param parallelism the number of sub-splits to aim for.
+     * @return the split properties of each sub-split, see {@link JdbcSplitQueryBuilder#SUB_SPLIT_COLUMN}, empty to read
+     * the split as a whole.
+     */
+    protected List<Map<String, String>> getSubSplits(Connection connection, ReadRecordsRequest readRecordsRequest, int parallelism)
+    {
+        TableName tableName = readRecordsRequest.getTableName();
+        try {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String splitColumn;
+            try (ResultSet primaryKeys = metaData.getPrimaryKeys(null, tableName.getSchemaName(), tableName.getTableName())) {
+                if (!primaryKeys.next()) {
+                    return Collections.emptyList();
+                }
+                splitColumn = primaryKeys.getString("COLUMN_NAME");
+            }
+
+            Split split = readRecordsRequest.getSplit();
+            Map<String, String> properties = new HashMap<>(split.getProperties());
+            properties.put(JdbcSplitQueryBuilder.SUB_SPLIT_BOUNDS_COLUMN, splitColumn);
+            Split boundsSplit = new Split(split.getSpillLocation(), split.getEncryptionKey(), properties);
+            try (PreparedStatement preparedStatement = buildSplitSql(connection, readRecordsRequest.getCatalogName(), tableName,
+                    readRecordsRequest.getSchema(), readRecordsRequest.getConstraints(), boundsSplit);
+                    ResultSet minMaxResultSet = preparedStatement.executeQuery()) {
+                // a query builder which doesn't know the bounds column returns the split's rows instead
+                if (!isSubSplitBounds(minMaxResultSet.getMetaData()) || !minMaxResultSet.next()) {
+                    return Collections.emptyList();
+                }
+                // the range clauses are rendered by the query builder, so the splitter only produces the integer ranges
+                Optional<Splitter> splitter = splitterFactory.getSplitter(splitColumn, minMaxResultSet, parallelism);
+                List<Map<String, String>> subSplits = new ArrayList<>();
+                while (splitter.isPresent() && splitter.get().hasNext()) {
+                    SplitRange<?> range = (SplitRange<?>) splitter.get().next();
+                    Map<String, String> subSplit = new HashMap<>();
+                    subSplit.put(JdbcSplitQueryBuilder.SUB_SPLIT_COLUMN, splitColumn);
+                    subSplit.put(JdbcSplitQueryBuilder.SUB_SPLIT_LOW, String.valueOf(range.getLow()));
+                    subSplit.put(JdbcSplitQueryBuilder.SUB_SPLIT_HIGH, String.valueOf(range.getHigh()));
+                    subSplits.add(subSplit);
+                }
+                return subSplits;
+            }
+        }
+        catch (SQLException | RuntimeException ex) {
+            LOGGER.warn("Unable to divide split of {}, reading it on a single connection: {}", tableName, ex.getMessage());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * @return true if the result set holds the MIN and MAX labelled by the query builder, not the rows of a split.
+     */
+    private static boolean isSubSplitBounds(ResultSetMetaData metaData)
+            throws SQLException
+    {
+        return metaData.getColumnCount() == 2
+                && JdbcSplitQueryBuilder.SUB_SPLIT_MIN_LABEL.equalsIgnoreCase(metaData.getColumnLabel(1))
+                && JdbcSplitQueryBuilder.SUB_SPLIT_MAX_LABEL.equalsIgnoreCase(metaData.getColumnLabel(2));
+    }
+
     /**
      * Create a field extractor for complex List type.
      * @param field Field's metadata information.
@@ -33,7 +33,10 @@ import com.amazonaws.athena.connector.substrait.SubstraitTypeAndValue;
 import com.google.common.base.Joiner;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.apache.arrow.vector.types.Types;
 import org.apache.arrow.vector.types.pojo.ArrowType;
@@ -44,6 +47,7 @@ import org.apache.calcite.sql.SqlDialect;
 import org.apache.calcite.sql.SqlNode;
 import org.apache.calcite.sql.SqlSelect;
 import org.apache.calcite.sql.dialect.AnsiSqlDialect;
+import org.apache.calcite.sql.type.SqlTypeName;
 import org.apache.calcite.util.BitString;
 import org.apache.calcite.util.DateString;
 import org.apache.calcite.util.TimestampString;
@@ -62,10 +66,12 @@ import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -84,6 +90,51 @@ public abstract class JdbcSplitQueryBuilder
 
     private static final int MILLIS_SHIFT = 12;
 
+    private static final String DIALECT_PROBE_IDENTIFIER = "Probe";
+
+    /**
+     * Split property naming the key column a sub-split's range is on, added by {@link JdbcRecordHandler} to each
+     * sub-split when a split is read as several concurrent sub-splits. The range is closed, from
+     * {@link #SUB_SPLIT_LOW} to {@link #SUB_SPLIT_HIGH}, and its bounds are bound as parameters so all sub-splits of a
+     * split share the same statement text.
+     */
+    public static final String SUB_SPLIT_COLUMN = "jdbc_sub_split_column";
+
+    /**
+     * Split property holding the inclusive low bound of a sub-split's range, see {@link #SUB_SPLIT_COLUMN}.
+     */
+    public static final String SUB_SPLIT_LOW = "jdbc_sub_split_low";
+
+    /**
+     * Split property holding the inclusive high bound of a sub-split's range, see {@link #SUB_SPLIT_COLUMN}.
+     */
+    public static final String SUB_SPLIT_HIGH = "jdbc_sub_split_high";
+
+    /**
+     * Split property naming the key column a split's bounds are queried for, added by {@link JdbcRecordHandler} before
+     * dividing the split into sub-splits. The split's query then selects the column's MIN and MAX over the rows the
+     * split would read, instead of the rows themselves, labelled {@link #SUB_SPLIT_MIN_LABEL} and
+     * {@link #SUB_SPLIT_MAX_LABEL}.
+     */
+    public static final String SUB_SPLIT_BOUNDS_COLUMN = "jdbc_sub_split_bounds_column";
+
+    /**
+     * Label of the MIN of the {@link #SUB_SPLIT_BOUNDS_COLUMN}. {@link JdbcRecordHandler} checks the labels to tell bounds
+     * from the rows of a query builder which doesn't know the property. Unquoted, so databases may change its case.
+     */
+    public static final String SUB_SPLIT_MIN_LABEL = "jdbc_sub_split_min";
+
+    /**
+     * Label of the MAX of the {@link #SUB_SPLIT_BOUNDS_COLUMN}, see {@link #SUB_SPLIT_MIN_LABEL}.
+     */
+    public static final String SUB_SPLIT_MAX_LABEL = "jdbc_sub_split_max";
+
+    // Parameterized SQL generated from a query plan, shared by all splits of a query handled by a warm Lambda.
+    private static final Cache<List<Object>, ParameterizedSql> PARAMETERIZED_SQL_CACHE = CacheBuilder.newBuilder()
+            .maximumSize(256)
+            .expireAfterAccess(15, TimeUnit.MINUTES)
+            .build();
+
     private final String quoteCharacters;
     protected final String emptyString = "";
 
@@ -149,16 +200,18 @@ public abstract class JdbcSplitQueryBuilder
             List<TypeAndValue> accumulator)
     {
         StringBuilder sql = new StringBuilder();
+        String selectList = getSelectList(split, columnNames);
         sql.append("SELECT ");
-        sql.append(columnNames);
+        sql.append(selectList);
 
-        if (columnNames.isEmpty()) {
+        if (selectList.isEmpty()) {
             sql.append("null");
         }
         sql.append(getFromClauseWithSplit(catalog, schema, table, split));
 
         List<String> clauses = toConjuncts(tableSchema.getFields(), constraints, accumulator, split.getProperties());
         addPartitionWhereClauses(split, clauses, accumulator);
+        addSubSplitWhereClauses(split, clauses, accumulator);
         if (!clauses.isEmpty()) {
             sql.append(" WHERE ")
                     .append(Joiner.on(" AND ").join(clauses));
@@ -298,6 +351,39 @@ public abstract class JdbcSplitQueryBuilder
 
     protected abstract List<String> getPartitionWhereClauses(final Split split);
 
+    /**
+     * @return the MIN and MAX of the split's {@link #SUB_SPLIT_BOUNDS_COLUMN} if its bounds are queried, otherwise the
+     * columns to select.
+     */
+    protected String getSelectList(final Split split, final String columnNames)
+    {
+        String boundsColumn = split.getProperty(SUB_SPLIT_BOUNDS_COLUMN);
+        if (boundsColumn == null) {
+            return columnNames;
+        }
+        return getBoundsSelectList(boundsColumn);
+    }
+
+    private String getBoundsSelectList(String boundsColumn)
+    {
+        return String.format("MIN(%s) AS %s, MAX(%s) AS %s", quote(boundsColumn), SUB_SPLIT_MIN_LABEL, quote(boundsColumn), SUB_SPLIT_MAX_LABEL);
+    }
+
+    /**
+     * Appends the sub-split's range clause, see {@link #SUB_SPLIT_COLUMN}, with {@code ?} placeholders for its bounds
+     * and pushes the bounds into {@code accumulator}. Nothing is appended if the split is read as a whole.
+     */
+    protected void addSubSplitWhereClauses(final Split split, List<String> clauses, List<TypeAndValue> accumulator)
+    {
+        String column = split.getProperty(SUB_SPLIT_COLUMN);
+        if (column == null) {
+            return;
+        }
+        clauses.add(String.format("(%s >= ? AND %s <= ?)", quote(column), quote(column)));
+        accumulator.add(new TypeAndValue(Types.MinorType.BIGINT.getType(), Long.parseLong(split.getProperty(SUB_SPLIT_LOW))));
+        accumulator.add(new TypeAndValue(Types.MinorType.BIGINT.getType(), Long.parseLong(split.getProperty(SUB_SPLIT_HIGH))));
+    }
+
     private List<String> toConjuncts(List<Field> columns, Constraints constraints, List<TypeAndValue> accumulator, Map<String, String> partitionSplit)
     {
         List<String> conjuncts = new ArrayList<>();
@@ -454,39 +540,37 @@ public abstract class JdbcSplitQueryBuilder
             final Split split)
     {
         try {
-            SqlSelect root;
-            List<SubstraitTypeAndValue> accumulator = new ArrayList<>();
-
             String base64EncodedPlan = constraints.getQueryPlan().getSubstraitPlan();
-            LOGGER.debug("CalciteSql substrait plan: {}", base64EncodedPlan);
-
-            SqlNode sqlNode = SubstraitSqlUtils.getSqlNodeFromSubstraitPlan(base64EncodedPlan, sqlDialect);
-            if (!(sqlNode instanceof SqlSelect)) {
-                throw new RuntimeException("Unsupported Query Type. Only SELECT Query is supported.");
+            // dialects are often created per call, so they are identified by type and identifier rendering (which reflects casing options)
+            List<Object> cacheKey = Arrays.asList(base64EncodedPlan, sqlDialect.getClass(), sqlDialect.quoteIdentifier(DIALECT_PROBE_IDENTIFIER));
+            ParameterizedSql parameterizedSql;
+            try {
+                parameterizedSql = PARAMETERIZED_SQL_CACHE.get(cacheKey, () -> toParameterizedSql(base64EncodedPlan, sqlDialect));
             }
+            catch (ExecutionException | UncheckedExecutionException ex) {
+                throw ex.getCause() instanceof Exception ? (Exception) ex.getCause() : ex;
+            }
+            List<SubstraitTypeAndValue> accumulator = new ArrayList<>(parameterizedSql.parameters);
 
-            root = (SqlSelect) sqlNode;
-
-            RelDataType tableSchema = SubstraitSqlUtils.getTableSchemaFromSubstraitPlan(base64EncodedPlan, sqlDialect);
-            SubstraitAccumulatorVisitor visitor = new SubstraitAccumulatorVisitor(accumulator, tableSchema);
-            SqlNode parameterizedNode = visitor.visit(root);
-
-            LOGGER.debug("CalciteSql parameterized sql with dialect {}: {}", sqlDialect.toString(), parameterizedNode.toSqlString(sqlDialect).getSql());
-            LOGGER.debug("CalciteSql parameters: {}", accumulator.toString());
-
-            String sql = parameterizedNode.toSqlString(sqlDialect).getSql();
-            List<String> splitClauses = getPartitionWhereClauses(split);
+            String sql = parameterizedSql.sql;
+            List<String> splitClauses = new ArrayList<>(getPartitionWhereClauses(split));
+            List<TypeAndValue> splitParameters = new ArrayList<>();
+            addSubSplitWhereClauses(split, splitClauses, splitParameters);
             if (!splitClauses.isEmpty()) {
                 String splitWhere = String.join(" AND ", splitClauses);
                 String conjunction = WHERE_PATTERN.matcher(sql).find() ? " AND " : " WHERE ";
                 java.util.regex.Matcher trailingMatcher = TRAILING_CLAUSES_PATTERN.matcher(sql);
-                if (trailingMatcher.find()) {
-                    int insertPos = trailingMatcher.start();
-                    sql = sql.substring(0, insertPos) + conjunction + splitWhere + sql.substring(insertPos);
-                }
-                else {
-                    sql = sql + conjunction + splitWhere;
-                }
+                int insertPos = trailingMatcher.find() ? trailingMatcher.start() : sql.length();
+                // literals are parameterized, so the placeholders ahead of the insert position are the query's own
+                int parameterPos = (int) sql.substring(0, insertPos).chars().filter(c -> c == '?').count();
+                sql = sql.substring(0, insertPos) + conjunction + splitWhere + sql.substring(insertPos);
+                accumulator.addAll(parameterPos, splitParameters.stream()
+                        .map(parameter -> new SubstraitTypeAndValue(SqlTypeName.BIGINT, parameter.getValue(), split.getProperty(SUB_SPLIT_COLUMN)))
+                        .collect(Collectors.toList()));
+            }
+            String boundsColumn = split.getProperty(SUB_SPLIT_BOUNDS_COLUMN);
+            if (boundsColumn != null) {
+                sql = String.format("SELECT %s FROM (%s) sub_split_bounds", getBoundsSelectList(boundsColumn), sql);
             }
             PreparedStatement statement = jdbcConnection.prepareStatement(sql);
             ParameterMetaData metaData = statement.getParameterMetaData();
@@ -508,6 +592,42 @@ public abstract class JdbcSplitQueryBuilder
         }
     }
 
+    /**
+     * Runs the Calcite pipeline to turn the query plan into SQL with its literals replaced by parameters. This is the same
+     * for every split of a query, only the split's where clauses differ, so the result is memoized across splits. The plan
+     * fully determines the SQL, so it is keyed by the plan rather than the query id and reused by queries with the same plan.
+     */
+    private static ParameterizedSql toParameterizedSql(String base64EncodedPlan, SqlDialect sqlDialect)
+    {
+        LOGGER.debug("CalciteSql substrait plan: {}", base64EncodedPlan);
+        List<SubstraitTypeAndValue> accumulator = new ArrayList<>();
+        SqlNode sqlNode = SubstraitSqlUtils.getSqlNodeFromSubstraitPlan(base64EncodedPlan, sqlDialect);
+        if (!(sqlNode instanceof SqlSelect)) {
+            throw new RuntimeException("Unsupported Query Type. Only SELECT Query is supported.");
+        }
+
+        RelDataType tableSchema = SubstraitSqlUtils.getTableSchemaFromSubstraitPlan(base64EncodedPlan, sqlDialect);
+        SubstraitAccumulatorVisitor visitor = new SubstraitAccumulatorVisitor(accumulator, tableSchema);
+        SqlNode parameterizedNode = visitor.visit((SqlSelect) sqlNode);
+        String sql = parameterizedNode.toSqlString(sqlDialect).getSql();
+
+        LOGGER.debug("CalciteSql parameterized sql with dialect {}: {}", sqlDialect.toString(), sql);
+        LOGGER.debug("CalciteSql parameters: {}", accumulator.toString());
+        return new ParameterizedSql(sql, Collections.unmodifiableList(accumulator));
+    }
+
+    private static final class ParameterizedSql
+    {
+        private final String sql;
+        private final List<SubstraitTypeAndValue> parameters;
+
+        private ParameterizedSql(String sql, List<SubstraitTypeAndValue> parameters)
+        {
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+    }
+
     private PreparedStatement handleDataTypesForPreparedStatement(PreparedStatement statement,
             List<SubstraitTypeAndValue> accumulator) throws SQLException
     {
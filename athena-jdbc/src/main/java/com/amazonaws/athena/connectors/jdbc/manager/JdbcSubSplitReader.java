@@ -0,0 +1,288 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.manager;
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.BlockUtils;
+import com.amazonaws.athena.connector.lambda.data.BlockWriter;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
+import org.apache.arrow.util.VisibleForTesting;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Reads a single split as several sub-splits over concurrent connections. A split which covers a whole partition is
+ * otherwise read on one connection, which caps the read at that connection's throughput however large the partition.
+ * <p>
+ * Each sub-split is written to a staging block of its own, which is copied into the request's {@link BlockSpiller}
+ * every {@link #STAGING_ROWS} rows, so the spiller is only written by one thread at a time. The number of sub-splits
+ * read at the same time against one source is bounded across all requests served by the process which share the
+ * same max concurrency, and should be kept below the connection pool's max size.
+ * <p>
+ * Splits are divided by {@link JdbcRecordHandler#readWithConstraint}, handlers which override it without delegating to
+ * it read each split on a single connection. Synapse and Azure Data Lake Gen2 do so to skip the commit serverless pools
+ * reject, and PostgreSQL's binary COPY read is only used when sub-splits are disabled.
+ */
+public class JdbcSubSplitReader
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(JdbcSubSplitReader.class);
+
+    //The number of sub-splits each split is read as, 1 (the default) reads each split on a single connection.
+    public static final String SUB_SPLIT_PARALLELISM = "jdbc_sub_split_parallelism";
+    //The max number of sub-splits read at the same time against one source, across all requests in the process.
+    public static final String SUB_SPLIT_MAX_CONCURRENCY = "jdbc_sub_split_max_concurrency";
+
+    static final int DEFAULT_MAX_CONCURRENCY = 4;
+    static final int STAGING_ROWS = 1_000;
+    //Rows copied into the spiller per write, the spiller only checks the size of its block between writes.
+    private static final int ROWS_PER_WRITE = 100;
+
+    //Keyed by source and max concurrency, so a reader is never bounded by the limit another reader was configured with.
+    private static final ConcurrentMap<String, Semaphore> SOURCE_PERMITS = new ConcurrentHashMap<>();
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "jdbc-sub-split-reader-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final int parallelism;
+    private final int maxConcurrency;
+
+    /**
+     * @param parallelism The number of sub-splits each split is read as.
+     * @param maxConcurrency The max number of sub-splits read at the same time against one source.
+     */
+    public JdbcSubSplitReader(int parallelism, int maxConcurrency)
+    {
+        this.parallelism = Math.max(1, parallelism);
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+    }
+
+    /**
+     * Creates a reader configured from the supplied config options.
+     *
+     * @param configOptions The connector's config options (usually the Lambda environment).
+     * @return A JdbcSubSplitReader, which is disabled unless a parallelism above 1 is configured.
+     */
+    public static JdbcSubSplitReader fromConfig(Map<String, String> configOptions)
+    {
+        if (configOptions == null) {
+            return new JdbcSubSplitReader(1, DEFAULT_MAX_CONCURRENCY);
+        }
+        return new JdbcSubSplitReader(Integer.parseInt(configOptions.getOrDefault(SUB_SPLIT_PARALLELISM, "1").trim()),
+                Integer.parseInt(configOptions.getOrDefault(SUB_SPLIT_MAX_CONCURRENCY, String.valueOf(DEFAULT_MAX_CONCURRENCY)).trim()));
+    }
+
+    /**
+     * @return True if splits should be read as several sub-splits.
+     */
+    public boolean isEnabled()
+    {
+        return parallelism > 1;
+    }
+
+    public int getParallelism()
+    {
+        return parallelism;
+    }
+
+    /**
+     * Reads every sub-split, returning once all of them have been written to the spiller. If a sub-split fails the
+     * remaining ones stop at their next row, and the failure is rethrown once none of them can write to the spiller.
+     *
+     * @param source Identifies the database, sub-splits of the same source share its concurrency limit.
+     * @param subSplits The sub-splits to read, e.g. ranges of the table's key.
+     * @param schema The schema of the rows written to the spiller.
+     * @param blockSpiller The request's spiller.
+     * @param reader Reads one sub-split into the BlockWriter it is given.
+     * @param <T> The type describing a sub-split.
+     * @throws Exception The first failure of a sub-split.
+     */
+    public <T> void read(String source, List<T> subSplits, Schema schema, BlockSpiller blockSpiller, SubSplitReader<T> reader)
+            throws Exception
+    {
+        Semaphore permits = SOURCE_PERMITS.computeIfAbsent(getPermitsKey(source), key -> new Semaphore(maxConcurrency));
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        List<Future<?>> futures = new ArrayList<>();
+        for (T subSplit : subSplits) {
+            futures.add(EXECUTOR.submit(() -> {
+                if (failure.get() != null) {
+                    return null;
+                }
+                permits.acquire();
+                try (BlockAllocator allocator = new BlockAllocatorImpl()) {
+                    StagingBlockWriter stagingWriter = new StagingBlockWriter(allocator, schema, blockSpiller, failure);
+                    reader.read(subSplit, stagingWriter);
+                    stagingWriter.flush();
+                }
+                catch (Exception ex) {
+                    failure.compareAndSet(null, ex);
+                    throw ex;
+                }
+                finally {
+                    permits.release();
+                }
+                return null;
+            }));
+        }
+
+        try {
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                }
+                catch (ExecutionException ex) {
+                    failure.compareAndSet(null, ex.getCause() instanceof Exception ? (Exception) ex.getCause() : ex);
+                }
+            }
+        }
+        catch (InterruptedException ex) {
+            failure.compareAndSet(null, ex);
+            throw ex;
+        }
+        if (failure.get() != null) {
+            LOGGER.warn("Reading sub-split of {} failed, stopped the remaining sub-splits", source, failure.get());
+            throw failure.get();
+        }
+    }
+
+    private String getPermitsKey(String source)
+    {
+        return source + "#" + maxConcurrency;
+    }
+
+    @VisibleForTesting
+    int getAvailablePermits(String source)
+    {
+        Semaphore permits = SOURCE_PERMITS.get(getPermitsKey(source));
+        return permits != null ? permits.availablePermits() : -1;
+    }
+
+    /**
+     * Reads a single sub-split.
+     *
+     * @param <T> The type describing a sub-split.
+     */
+    @FunctionalInterface
+    public interface SubSplitReader<T>
+    {
+        /**
+         * @param subSplit The sub-split to read.
+         * @param blockWriter The writer to write the sub-split's rows to, owned by the calling thread.
+         * @throws Exception If the sub-split could not be read.
+         */
+        void read(T subSplit, BlockWriter blockWriter) throws Exception;
+    }
+
+    /**
+     * Buffers the rows of one sub-split in a block of its own and copies them into the shared spiller in batches.
+     */
+    private static class StagingBlockWriter
+            implements BlockWriter
+    {
+        private final BlockAllocator allocator;
+        private final Schema schema;
+        private final BlockSpiller blockSpiller;
+        private final AtomicReference<Exception> failure;
+        private Block stagingBlock;
+
+        private StagingBlockWriter(BlockAllocator allocator, Schema schema, BlockSpiller blockSpiller, AtomicReference<Exception> failure)
+        {
+            this.allocator = allocator;
+            this.schema = schema;
+            this.blockSpiller = blockSpiller;
+            this.failure = failure;
+        }
+
+        @Override
+        public void writeRows(RowWriter rowWriter)
+        {
+            if (failure.get() != null) {
+                throw new CancellationException("Another sub-split failed");
+            }
+            if (stagingBlock == null) {
+                stagingBlock = allocator.createBlock(schema);
+            }
+            int rowCount = stagingBlock.getRowCount();
+            int rows;
+            try {
+                rows = rowWriter.writeRows(stagingBlock, rowCount);
+            }
+            catch (Exception ex) {
+                throw (ex instanceof RuntimeException) ? (RuntimeException) ex : new RuntimeException(ex);
+            }
+            if (rows > 0) {
+                stagingBlock.setRowCount(rowCount + rows);
+            }
+            if (stagingBlock.getRowCount() >= STAGING_ROWS) {
+                flush();
+            }
+        }
+
+        @Override
+        public ConstraintEvaluator getConstraintEvaluator()
+        {
+            return blockSpiller.getConstraintEvaluator();
+        }
+
+        private void flush()
+        {
+            if (stagingBlock == null) {
+                return;
+            }
+            int rowCount = stagingBlock.getRowCount();
+            if (rowCount > 0) {
+                synchronized (blockSpiller) {
+                    for (int firstRow = 0; firstRow < rowCount; firstRow += ROWS_PER_WRITE) {
+                        int first = firstRow;
+                        int last = Math.min(firstRow + ROWS_PER_WRITE, rowCount) - 1;
+                        blockSpiller.writeRows((Block block, int rowNum) -> BlockUtils.copyRows(stagingBlock, block, first, last));
+                    }
+                }
+            }
+            try {
+                stagingBlock.close();
+            }
+            catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+            stagingBlock = null;
+        }
+    }
+}
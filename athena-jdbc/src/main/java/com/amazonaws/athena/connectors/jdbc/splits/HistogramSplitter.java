@@ -0,0 +1,162 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.splits;
+
+import org.apache.commons.lang3.Validate;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Splits iterator driven by an ordered list of bounds taken from an equi-depth histogram, e.g. database statistics
+ * (`pg_stats.histogram_bounds`) or sampled quantiles (`NTILE`). Because each bucket of such a histogram holds roughly the
+ * same number of rows, the splits stay balanced even when the key is heavily skewed, and since no arithmetic is done on
+ * the values this works for any orderable key (BIGINT, DECIMAL, DATE/TIMESTAMP, UUID, VARCHAR...).
+ *
+ * The first and last bound are treated as the observed min and max, `numSplits - 1` cut points are picked evenly from
+ * the bounds and duplicate cut points (heavy hitters) are collapsed. The outermost splits are left open ended so rows
+ * outside of a stale histogram are never dropped.
+ *
+ * Example: bounds [a, c, f, k, p] and 4 expected splits
+ *  Splits = (col < 'c'), (col >= 'c' AND col < 'f'), (col >= 'f' AND col < 'k'), (col >= 'k')
+ */
+public class HistogramSplitter
+        implements Splitter<String>
+{
+    private final String columnName;
+    private final int columnType;
+    private final List<String> cutPoints;
+    private int currentSplit;
+
+    /**
+     * @param columnName database column name.
+     * @param columnType database column type, see {@link Types}. Used to render bounds as SQL literals.
+     * @param bounds ordered histogram bounds, including the min and max value.
+     * @param numSplits expected number of splits.
+     */
+    public HistogramSplitter(final String columnName, final int columnType, final List<String> bounds, final int numSplits)
+    {
+        this.columnName = Validate.notBlank(columnName, "columnName must not be blank");
+        this.columnType = columnType;
+        Validate.notNull(bounds, "bounds must not be null");
+        this.cutPoints = pickCutPoints(bounds, numSplits < 1 ? 1 : numSplits);
+        if (isNumeric(columnType)) {
+            // fail fast rather than generating invalid SQL from an unexpected statistics format
+            cutPoints.forEach(BigDecimal::new);
+        }
+        this.currentSplit = 0;
+    }
+
+    private static List<String> pickCutPoints(List<String> bounds, int numSplits)
+    {
+        List<String> cutPoints = new ArrayList<>();
+        if (bounds.size() < 3) {
+            return cutPoints;
+        }
+        int lastIndex = bounds.size() - 1;
+        for (int split = 1; split < numSplits; split++) {
+            int index = (int) Math.round((double) split * lastIndex / numSplits);
+            if (index <= 0 || index >= lastIndex) {
+                continue;
+            }
+            String cutPoint = bounds.get(index);
+            if (cutPoint != null && (cutPoints.isEmpty() || !cutPoints.get(cutPoints.size() - 1).equals(cutPoint))) {
+                cutPoints.add(cutPoint);
+            }
+        }
+        return cutPoints;
+    }
+
+    /**
+     * @return the number of splits this splitter generates, 1 when the bounds do not allow splitting.
+     */
+    public int getNumSplits()
+    {
+        return cutPoints.size() + 1;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        return currentSplit <= cutPoints.size();
+    }
+
+    /**
+     * @return the next range, a null low or high denotes an open ended range.
+     */
+    @Override
+    public SplitRange<String> next()
+    {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String low = currentSplit == 0 ? null : cutPoints.get(currentSplit - 1);
+        String high = currentSplit == cutPoints.size() ? null : cutPoints.get(currentSplit);
+        currentSplit++;
+        return new SplitRange<>(low, high);
+    }
+
+    @Override
+    public String getRangeClause(SplitRange<String> splitRange)
+    {
+        if (splitRange.getLow() == null && splitRange.getHigh() == null) {
+            return "(1 = 1)";
+        }
+        if (splitRange.getLow() == null) {
+            return String.format("(%s < %s)", columnName, toLiteral(splitRange.getHigh()));
+        }
+        if (splitRange.getHigh() == null) {
+            return String.format("(%s >= %s)", columnName, toLiteral(splitRange.getLow()));
+        }
+        return String.format("(%s >= %s AND %s < %s)", columnName, toLiteral(splitRange.getLow()), columnName, toLiteral(splitRange.getHigh()));
+    }
+
+    @Override
+    public boolean isHighInclusive()
+    {
+        return false;
+    }
+
+    private String toLiteral(String value)
+    {
+        if (isNumeric(columnType)) {
+            return value;
+        }
+        return "'" + value.replace("'", "''") + "'";
+    }
+
+    private static boolean isNumeric(int columnType)
+    {
+        switch (columnType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
@@ -93,9 +93,8 @@ public class IntegerSplitter
     }
 
     @Override
-    public String nextRangeClause()
+    public String getRangeClause(SplitRange<Integer> splitRange)
     {
-        SplitRange<Integer> splitRange = next();
         return String.format("(%s >= %s AND %s <= %s)", this.splitInfo.getColumnName(), splitRange.getLow(), splitInfo.getColumnName(), splitRange.getHigh());
     }
 }
@@ -0,0 +1,156 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.splits;
+
+import com.amazonaws.athena.connector.lambda.domain.predicate.Marker;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Integer key ranges a query's pushed down constraint allows on the split column, e.g. `id BETWEEN 1000 AND 2000`.
+ * Used to narrow the key space before splitting, so the min/max query can be skipped when the constraint is bounded on
+ * both sides, and to drop split ranges which cannot contain matching rows.
+ */
+public class KeyRangeConstraint
+{
+    private final int columnType;
+    // ordered, inclusive [low, high] intervals, a null endpoint is unbounded
+    private final List<SplitRange<Long>> ranges;
+
+    private KeyRangeConstraint(int columnType, List<SplitRange<Long>> ranges)
+    {
+        this.columnType = columnType;
+        this.ranges = ranges;
+    }
+
+    /**
+     * @param valueSet constraint on the split column.
+     * @return the constraint as integer key ranges, empty if the column is not an integer column or the constraint is
+     * not a {@link SortedRangeSet}.
+     */
+    public static Optional<KeyRangeConstraint> fromValueSet(ValueSet valueSet)
+    {
+        if (!(valueSet instanceof SortedRangeSet) || !(valueSet.getType() instanceof ArrowType.Int)) {
+            return Optional.empty();
+        }
+        int columnType = ((ArrowType.Int) valueSet.getType()).getBitWidth() == 64 ? Types.BIGINT : Types.INTEGER;
+        List<SplitRange<Long>> ranges = new ArrayList<>();
+        for (Range range : ((SortedRangeSet) valueSet).getOrderedRanges()) {
+            Long low = toLong(range.getLow(), Marker.Bound.ABOVE, 1);
+            Long high = toLong(range.getHigh(), Marker.Bound.BELOW, -1);
+            if (low == null || high == null || low <= high) {
+                ranges.add(new SplitRange<>(low, high));
+            }
+        }
+        return Optional.of(new KeyRangeConstraint(columnType, ranges));
+    }
+
+    private static Long toLong(Marker marker, Marker.Bound exclusiveBound, int adjustment)
+    {
+        if (marker.isLowerUnbounded() || marker.isUpperUnbounded()) {
+            return null;
+        }
+        long value = ((Number) marker.getValue()).longValue();
+        return marker.getBound() == exclusiveBound ? value + adjustment : value;
+    }
+
+    /**
+     * @return the split column type, see {@link Types}.
+     */
+    public int getColumnType()
+    {
+        return columnType;
+    }
+
+    /**
+     * @return true if no key satisfies the constraint.
+     */
+    public boolean isEmpty()
+    {
+        return ranges.isEmpty();
+    }
+
+    /**
+     * @return the inclusive range spanning all allowed keys, null endpoints are unbounded.
+     */
+    public SplitRange<Long> getSpan()
+    {
+        if (ranges.isEmpty()) {
+            return new SplitRange<>(null, null);
+        }
+        return new SplitRange<>(ranges.get(0).getLow(), ranges.get(ranges.size() - 1).getHigh());
+    }
+
+    /**
+     * @return the span if it is bounded on both sides, in which case there is no need to query the column's min and max.
+     */
+    public Optional<SplitRange<Long>> getBoundedSpan()
+    {
+        SplitRange<Long> span = getSpan();
+        return (span.getLow() != null && span.getHigh() != null) ? Optional.of(span) : Optional.empty();
+    }
+
+    /**
+     * @param splitRange range produced by a {@link Splitter}, null endpoints are unbounded.
+     * @param highInclusive true if the high endpoint of the range is inclusive.
+     * @return true if the range may contain keys allowed by the constraint. Ranges with non integer endpoints are kept.
+     */
+    public boolean overlaps(SplitRange<?> splitRange, boolean highInclusive)
+    {
+        Long low;
+        Long high;
+        try {
+            low = toLong(splitRange.getLow());
+            high = toLong(splitRange.getHigh());
+        }
+        catch (NumberFormatException ex) {
+            return true;
+        }
+        if (high != null && !highInclusive) {
+            high--;
+        }
+        for (SplitRange<Long> range : ranges) {
+            boolean startsBeforeHigh = high == null || range.getLow() == null || range.getLow() <= high;
+            boolean endsAfterLow = low == null || range.getHigh() == null || range.getHigh() >= low;
+            if (startsBeforeHigh && endsAfterLow) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Long toLong(Object value)
+    {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        return Long.parseLong(value.toString());
+    }
+}
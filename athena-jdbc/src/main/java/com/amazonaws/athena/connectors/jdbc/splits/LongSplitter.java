@@ -0,0 +1,94 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.splits;
+
+import org.apache.commons.lang3.Validate;
+
+/**
+ * Long splits iterator used for BIGINT keys, following the same equal width scheme as {@link IntegerSplitter}: the range
+ * is divided into `numSplits` closed intervals and any remainder is spread over the first splits.
+ */
+public class LongSplitter
+        implements Splitter<Long>
+{
+    private final SplitInfo<Long> splitInfo;
+    private final long high;
+    private long current;
+    private long step;
+    private long remainder;
+    private int currentSplit;
+    private boolean exhausted;
+
+    /**
+     * @param splitInfo split information. E.g. split range, expected splits, column name.
+     */
+    public LongSplitter(SplitInfo<Long> splitInfo)
+    {
+        this.splitInfo = Validate.notNull(splitInfo);
+        this.current = splitInfo.getSplitRange().getLow();
+        this.high = splitInfo.getSplitRange().getHigh();
+        Validate.isTrue(high >= current, "high is lower than low");
+        // exact arithmetic, a range spanning the whole long domain is not worth splitting evenly
+        long diff = Math.addExact(Math.subtractExact(high, current), 1L);
+        int numSplits = splitInfo.getNumSplits();
+
+        this.remainder = diff % numSplits;
+        this.step = diff / numSplits;
+        this.currentSplit = 1;
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        return !exhausted && this.current <= high;
+    }
+
+    @Override
+    public SplitRange<Long> next()
+    {
+        long low = this.current;
+        long splitHigh;
+        if (step == 0) {
+            // fewer values than splits, one value per split
+            splitHigh = low;
+        }
+        else {
+            // subtraction due to closed interval and inclusive endpoints.
+            splitHigh = low + step - 1;
+            splitHigh += this.remainder >= this.currentSplit ? 1 : 0;
+        }
+        if (splitHigh >= high) {
+            splitHigh = high;
+            exhausted = true;
+        }
+        else {
+            this.current = splitHigh + 1;
+        }
+        this.currentSplit++;
+
+        return new SplitRange<>(low, splitHigh);
+    }
+
+    @Override
+    public String getRangeClause(SplitRange<Long> splitRange)
+    {
+        return String.format("(%s >= %s AND %s <= %s)", this.splitInfo.getColumnName(), splitRange.getLow(), splitInfo.getColumnName(), splitRange.getHigh());
+    }
+}
@@ -0,0 +1,341 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.splits;
+
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Marker;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+
+import java.math.BigDecimal;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Decides which partitions of a range or list partitioned table can hold rows matching the query's constraint on the
+ * partition key, e.g. `sale_date = DATE '2024-01-01'` only needs the partition bounded by 2024-01-01 and 2024-02-01.
+ * Partition bounds are taken as the literals the database reports in its catalog (Oracle HIGH_VALUE, PostgreSQL
+ * partition bound expressions, MySQL PARTITION_DESCRIPTION, SQL Server partition range values).
+ * <p>
+ * Pruning is conservative: numeric, date and timestamp keys only (string ordering depends on the database collation),
+ * no pruning when the constraint allows nulls, and any bound that cannot be parsed keeps its partition.
+ */
+public class PartitionPruner
+{
+    private static final String MINVALUE = "MINVALUE";
+    private static final String MAXVALUE = "MAXVALUE";
+    private static final String NULL = "NULL";
+
+    private final ArrowType type;
+    // ordered intervals allowed by the constraint, a null endpoint is unbounded
+    private final List<Interval> intervals;
+
+    private PartitionPruner(ArrowType type, List<Interval> intervals)
+    {
+        this.type = type;
+        this.intervals = intervals;
+    }
+
+    /**
+     * @param constraints the query's constraints.
+     * @param columnName partition key column, matched ignoring case since catalogs often report keys upper cased.
+     * @return a pruner for the constraint on the column, empty if the column is not constrained or can't be pruned on.
+     */
+    public static Optional<PartitionPruner> forColumn(Constraints constraints, String columnName)
+    {
+        if (constraints == null || constraints.getSummary() == null || columnName == null) {
+            return Optional.empty();
+        }
+        for (Map.Entry<String, ValueSet> entry : constraints.getSummary().entrySet()) {
+            if (entry.getKey().equalsIgnoreCase(columnName)) {
+                return fromValueSet(entry.getValue());
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @param valueSet constraint on the partition key.
+     * @return a pruner for the constraint, empty if it is not a {@link SortedRangeSet} over a supported type, allows
+     * nulls (which may be stored in any partition) or allows every value.
+     */
+    public static Optional<PartitionPruner> fromValueSet(ValueSet valueSet)
+    {
+        if (!(valueSet instanceof SortedRangeSet) || valueSet.isNullAllowed() || !isSupported(valueSet.getType())) {
+            return Optional.empty();
+        }
+        ArrowType type = valueSet.getType();
+        List<Interval> intervals = new ArrayList<>();
+        try {
+            for (Range range : ((SortedRangeSet) valueSet).getOrderedRanges()) {
+                Marker low = range.getLow();
+                Marker high = range.getHigh();
+                intervals.add(new Interval(
+                        low.isLowerUnbounded() ? null : toComparable(type, low.getValue()),
+                        low.getBound() == Marker.Bound.EXACTLY,
+                        high.isUpperUnbounded() ? null : toComparable(type, high.getValue()),
+                        high.getBound() == Marker.Bound.EXACTLY));
+            }
+        }
+        catch (IllegalArgumentException | DateTimeParseException ex) {
+            // e.g. NaN, which has no place in a range partition
+            return Optional.empty();
+        }
+        if (intervals.size() == 1 && intervals.get(0).low == null && intervals.get(0).high == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new PartitionPruner(type, intervals));
+    }
+
+    private static boolean isSupported(ArrowType type)
+    {
+        switch (type.getTypeID()) {
+            case Int:
+            case FloatingPoint:
+            case Decimal:
+            case Date:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @param low lower bound literal of a range partition, null or MINVALUE if unbounded.
+     * @param lowInclusive true if the partition holds the lower bound.
+     * @param high upper bound literal of a range partition, null or MAXVALUE if unbounded.
+     * @param highInclusive true if the partition holds the upper bound.
+     * @return true if the partition may hold rows matching the constraint.
+     */
+    public boolean overlapsRange(String low, boolean lowInclusive, String high, boolean highInclusive)
+    {
+        Comparable<Object> partitionLow;
+        Comparable<Object> partitionHigh;
+        try {
+            partitionLow = parseBound(low);
+            partitionHigh = parseBound(high);
+        }
+        catch (IllegalArgumentException | DateTimeParseException ex) {
+            return true;
+        }
+        for (Interval interval : intervals) {
+            if (before(interval.low, interval.lowInclusive, partitionHigh, highInclusive)
+                    && before(partitionLow, lowInclusive, interval.high, interval.highInclusive)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param values literals of a list partition.
+     * @return true if the partition may hold rows matching the constraint.
+     */
+    public boolean overlapsValues(Collection<String> values)
+    {
+        for (String value : values) {
+            String literal = toBoundLiteral(value);
+            if (literal == null || NULL.equalsIgnoreCase(literal)) {
+                // MINVALUE / MAXVALUE have no meaning in a list and NULL can't match a constraint which excludes nulls
+                continue;
+            }
+            Comparable<Object> parsed;
+            try {
+                parsed = parse(literal);
+            }
+            catch (IllegalArgumentException | DateTimeParseException ex) {
+                return true;
+            }
+            for (Interval interval : intervals) {
+                if (before(interval.low, interval.lowInclusive, parsed, true) && before(parsed, true, interval.high, interval.highInclusive)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reduces a bound expression from a catalog to its literal, e.g. `TO_DATE(' 2024-01-01 00:00:00', 'SYYYY-MM-DD
+     * HH24:MI:SS', 'NLS_CALENDAR=GREGORIAN')` becomes `2024-01-01 00:00:00`, `'2024-01-01'::date` becomes `2024-01-01`
+     * and `100` stays `100`.
+     *
+     * @param expression bound expression.
+     * @return the literal, null if the bound is unbounded (null, MINVALUE or MAXVALUE).
+     */
+    public static String toBoundLiteral(String expression)
+    {
+        if (expression == null) {
+            return null;
+        }
+        String trimmed = expression.trim();
+        if (trimmed.isEmpty() || MINVALUE.equalsIgnoreCase(trimmed) || MAXVALUE.equalsIgnoreCase(trimmed)) {
+            return null;
+        }
+        int quote = trimmed.indexOf('\'');
+        if (quote < 0) {
+            return trimmed;
+        }
+        int end = trimmed.indexOf('\'', quote + 1);
+        return end < 0 ? trimmed : trimmed.substring(quote + 1, end).trim();
+    }
+
+    /**
+     * Splits a comma separated list of bound literals, keeping commas inside quoted literals, e.g. the values of a
+     * list partition `'a,b', 'c'` or the columns of a multi column range bound.
+     *
+     * @param list comma separated literals.
+     * @return the literals, trimmed.
+     */
+    public static List<String> splitValues(String list)
+    {
+        List<String> values = new ArrayList<>();
+        if (list == null || list.trim().isEmpty()) {
+            return values;
+        }
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        int depth = 0;
+        for (char c : list.toCharArray()) {
+            if (c == '\'') {
+                quoted = !quoted;
+            }
+            else if (!quoted && c == '(') {
+                depth++;
+            }
+            else if (!quoted && c == ')') {
+                depth--;
+            }
+            else if (!quoted && depth == 0 && c == ',') {
+                values.add(current.toString().trim());
+                current.setLength(0);
+                continue;
+            }
+            current.append(c);
+        }
+        values.add(current.toString().trim());
+        return values;
+    }
+
+    private Comparable<Object> parseBound(String bound)
+    {
+        String literal = toBoundLiteral(bound);
+        return literal == null ? null : parse(literal);
+    }
+
+    private Comparable<Object> parse(String literal)
+    {
+        if (NULL.equalsIgnoreCase(literal)) {
+            throw new IllegalArgumentException("NULL is not a partition bound");
+        }
+        switch (type.getTypeID()) {
+            case Date:
+                return cast(parseTimestamp(literal));
+            default:
+                return cast(new BigDecimal(literal));
+        }
+    }
+
+    private static LocalDateTime parseTimestamp(String literal)
+    {
+        String value = literal.trim().replace(' ', 'T');
+        if (value.length() <= 10) {
+            return LocalDate.parse(value).atStartOfDay();
+        }
+        // bounds of timestamp with time zone keys carry the session's offset, e.g. "2024-01-01 00:00:00-05", and are
+        // moved to UTC which constraint values are in
+        for (int i = 11; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '+' || c == '-' || c == 'Z' || c == 'z') {
+                ZoneOffset offset;
+                try {
+                    offset = ZoneOffset.of(value.substring(i).toUpperCase(Locale.ROOT));
+                }
+                catch (DateTimeException ex) {
+                    throw new IllegalArgumentException("Unsupported zone offset in " + literal, ex);
+                }
+                return LocalDateTime.parse(value.substring(0, i)).atOffset(offset)
+                        .withOffsetSameInstant(ZoneOffset.UTC).toLocalDateTime();
+            }
+        }
+        return LocalDateTime.parse(value);
+    }
+
+    private static Comparable<Object> toComparable(ArrowType type, Object value)
+    {
+        if (type instanceof ArrowType.Date) {
+            if (value instanceof LocalDateTime) {
+                return cast(value);
+            }
+            if (((ArrowType.Date) type).getUnit() == DateUnit.DAY) {
+                return cast(LocalDate.ofEpochDay(((Number) value).longValue()).atStartOfDay());
+            }
+            return cast(parseTimestamp(value.toString()));
+        }
+        return cast(value instanceof BigDecimal ? value : new BigDecimal(value.toString()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Comparable<Object> cast(Object value)
+    {
+        return (Comparable<Object>) value;
+    }
+
+    /**
+     * @return true if a lower end at `low` comes before (or meets, when both ends are inclusive) an upper end at
+     * `high`, null ends are unbounded.
+     */
+    private static boolean before(Comparable<Object> low, boolean lowInclusive, Comparable<Object> high, boolean highInclusive)
+    {
+        if (low == null || high == null) {
+            return true;
+        }
+        int compare = low.compareTo(high);
+        return compare < 0 || (compare == 0 && lowInclusive && highInclusive);
+    }
+
+    private static class Interval
+    {
+        private final Comparable<Object> low;
+        private final boolean lowInclusive;
+        private final Comparable<Object> high;
+        private final boolean highInclusive;
+
+        private Interval(Comparable<Object> low, boolean lowInclusive, Comparable<Object> high, boolean highInclusive)
+        {
+            this.low = low;
+            this.lowInclusive = lowInclusive;
+            this.high = high;
+            this.highInclusive = highInclusive;
+        }
+    }
+}
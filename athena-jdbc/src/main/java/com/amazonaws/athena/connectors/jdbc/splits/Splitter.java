@@ -31,7 +31,25 @@ public interface Splitter<T>
 {
     /**
      * Provides the next split clause to be used in SQL queries.
-     * @return SQL clause for the range, both endpoints inclusive.
+     * @return SQL clause for the next range.
      */
-    String nextRangeClause();
+    default String nextRangeClause()
+    {
+        return getRangeClause(next());
+    }
+
+    /**
+     * Renders a range produced by this splitter as a SQL clause, allowing callers to inspect or drop ranges before use.
+     * @param splitRange range returned by {@link #next()}.
+     * @return SQL clause for the range.
+     */
+    String getRangeClause(SplitRange<T> splitRange);
+
+    /**
+     * @return true if the high endpoint of the ranges produced by this splitter is inclusive, false if it is exclusive.
+     */
+    default boolean isHighInclusive()
+    {
+        return true;
+    }
 }
@@ -22,6 +22,7 @@ package com.amazonaws.athena.connectors.jdbc.splits;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -41,10 +42,76 @@ public class SplitterFactory
     {
         int type = resultSet.getMetaData().getColumnType(1);
         switch (type) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
             case Types.INTEGER:
                 return Optional.of(new IntegerSplitter(new SplitInfo<>(new SplitRange<>(resultSet.getInt(1), resultSet.getInt(2)), columnName, type, maxSplits)));
+            case Types.BIGINT:
+                return Optional.of(new LongSplitter(new SplitInfo<>(new SplitRange<>(resultSet.getLong(1), resultSet.getLong(2)), columnName, type, maxSplits)));
             default:
                return Optional.empty();
         }
     }
+
+    /**
+     * @param columnName split column name.
+     * @param columnType split column type, see {@link Types}.
+     * @param range inclusive key range to split, e.g. taken from the query's constraint rather than the table's min and max.
+     * @param maxSplits number of splits.
+     * @return {@link Splitter} optional, empty if the column is not an integer column.
+     */
+    public Optional<Splitter> getSplitter(final String columnName, final int columnType, final SplitRange<Long> range, final int maxSplits)
+    {
+        switch (columnType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+                int low = (int) Math.max(range.getLow(), Integer.MIN_VALUE);
+                int high = (int) Math.min(range.getHigh(), Integer.MAX_VALUE);
+                return Optional.of(new IntegerSplitter(new SplitInfo<>(new SplitRange<>(low, high), columnName, columnType, maxSplits)));
+            case Types.BIGINT:
+                return Optional.of(new LongSplitter(new SplitInfo<>(range, columnName, columnType, maxSplits)));
+            default:
+                return Optional.empty();
+        }
+    }
+
+    /**
+     * @param columnName split column name.
+     * @param columnType split column type, see {@link Types}.
+     * @param bounds ordered equi-depth histogram bounds of the split column, including its min and max.
+     * @param maxSplits number of splits.
+     * @return {@link Splitter} optional, empty if the column type is not orderable in SQL, a numeric column has
+     * non-numeric bounds or the bounds allow no split.
+     */
+    public Optional<Splitter> getSplitter(final String columnName, final int columnType, final List<String> bounds, final int maxSplits)
+    {
+        switch (columnType) {
+            case Types.TINYINT:
+            case Types.SMALLINT:
+            case Types.INTEGER:
+            case Types.BIGINT:
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+            case Types.DATE:
+            case Types.TIMESTAMP:
+            case Types.TIMESTAMP_WITH_TIMEZONE:
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.NCHAR:
+            case Types.NVARCHAR:
+            case Types.OTHER: // e.g. uuid
+                HistogramSplitter splitter;
+                try {
+                    splitter = new HistogramSplitter(columnName, columnType, bounds, maxSplits);
+                }
+                catch (NumberFormatException ex) {
+                    // unexpected statistics format, leave it to the other splitters
+                    return Optional.empty();
+                }
+                return splitter.getNumSplits() > 1 ? Optional.of(splitter) : Optional.empty();
+            default:
+                return Optional.empty();
+        }
+    }
 }
@@ -0,0 +1,129 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.connection;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.util.Map;
+import java.util.Properties;
+
+public class JdbcConnectionPoolRegistryTest
+{
+    private static final String DRIVER = "org.h2.Driver";
+    private static final Map<String, String> CONFIG = ImmutableMap.of(JdbcConnectionPoolRegistry.JDBC_POOL_MAX_SIZE, "2");
+
+    private JdbcConnectionPoolRegistry registry;
+
+    @Before
+    public void setup()
+    {
+        registry = new JdbcConnectionPoolRegistry(2, 60);
+    }
+
+    @After
+    public void tearDown()
+    {
+        registry.closeAll();
+    }
+
+    @Test
+    public void reusesPoolPerUrlAndCredential()
+            throws Exception
+    {
+        try (Connection connection = registry.getConnection(DRIVER, "jdbc:h2:mem:catalog1", credentials("user1"), CONFIG)) {
+            Assert.assertTrue(connection.isValid(1));
+        }
+        try (Connection connection = registry.getConnection(DRIVER, "jdbc:h2:mem:catalog1", credentials("user1"), CONFIG)) {
+            Assert.assertTrue(connection.isValid(1));
+        }
+        Assert.assertEquals(1, registry.getPoolCount());
+
+        // a different credential gets its own pool rather than reusing the first one (h2 user names are case insensitive)
+        try (Connection connection = registry.getConnection(DRIVER, "jdbc:h2:mem:catalog1", credentials("USER1"), CONFIG)) {
+            Assert.assertTrue(connection.isValid(1));
+        }
+        Assert.assertEquals(2, registry.getPoolCount());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedPool()
+            throws Exception
+    {
+        registry.getConnection(DRIVER, "jdbc:h2:mem:catalog1", credentials("user"), CONFIG).close();
+        registry.getConnection(DRIVER, "jdbc:h2:mem:catalog2", credentials("user"), CONFIG).close();
+        registry.getConnection(DRIVER, "jdbc:h2:mem:catalog3", credentials("user"), CONFIG).close();
+        Assert.assertEquals(2, registry.getPoolCount());
+    }
+
+    @Test
+    public void evictedPoolKeepsBorrowedConnections()
+            throws Exception
+    {
+        Connection borrowed = registry.getConnection(DRIVER, "jdbc:h2:mem:catalog1", credentials("user"), CONFIG);
+        registry.getConnection(DRIVER, "jdbc:h2:mem:catalog2", credentials("user"), CONFIG).close();
+        registry.getConnection(DRIVER, "jdbc:h2:mem:catalog3", credentials("user"), CONFIG).close();
+        Assert.assertEquals(2, registry.getPoolCount());
+        Assert.assertEquals(1, registry.getRetiredPoolCount());
+
+        // the evicted pool is only closed once its borrowed connection is returned
+        Assert.assertTrue(borrowed.isValid(1));
+        borrowed.close();
+        registry.getConnection(DRIVER, "jdbc:h2:mem:catalog3", credentials("user"), CONFIG).close();
+        Assert.assertEquals(0, registry.getRetiredPoolCount());
+    }
+
+    @Test
+    public void poolPerSizeConfig()
+            throws Exception
+    {
+        registry.getConnection(DRIVER, "jdbc:h2:mem:catalog1", credentials("user"), CONFIG).close();
+        registry.getConnection(DRIVER, "jdbc:h2:mem:catalog1", credentials("user"),
+                ImmutableMap.of(JdbcConnectionPoolRegistry.JDBC_POOL_MAX_SIZE, "4")).close();
+        Assert.assertEquals(2, registry.getPoolCount());
+    }
+
+    @Test
+    public void poolMetrics()
+            throws Exception
+    {
+        try (Connection connection = registry.getConnection(DRIVER, "jdbc:h2:mem:catalog1", credentials("user"), CONFIG)) {
+            JdbcConnectionPoolRegistry.PoolMetrics metrics = registry.getPoolMetrics().values().iterator().next();
+            Assert.assertEquals(1, metrics.getActiveConnections());
+            Assert.assertEquals(1, metrics.getConnectionsAcquired());
+            Assert.assertTrue(metrics.getMaxWaitMillis() >= 0);
+        }
+        JdbcConnectionPoolRegistry.PoolMetrics metrics = registry.getPoolMetrics().values().iterator().next();
+        Assert.assertEquals(0, metrics.getActiveConnections());
+        Assert.assertTrue(metrics.getIdleConnections() >= 1);
+    }
+
+    private static Properties credentials(String user)
+    {
+        Properties properties = new Properties();
+        properties.setProperty("user", user);
+        properties.setProperty("password", "");
+        return properties;
+    }
+}
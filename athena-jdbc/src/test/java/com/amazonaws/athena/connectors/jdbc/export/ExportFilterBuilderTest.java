@@ -0,0 +1,164 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.export;
+
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.FieldBuilder;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExportFilterBuilderTest
+{
+    private static final ArrowType BIGINT = Types.MinorType.BIGINT.getType();
+    private static final ArrowType VARCHAR = Types.MinorType.VARCHAR.getType();
+    private static final ArrowType DATEDAY = Types.MinorType.DATEDAY.getType();
+    private static final ArrowType DATEMILLI = Types.MinorType.DATEMILLI.getType();
+    private static final ArrowType DECIMAL = new ArrowType.Decimal(10, 2, 128);
+
+    private BlockAllocatorImpl allocator;
+    private Schema fileSchema;
+
+    @Before
+    public void setUp()
+    {
+        allocator = new BlockAllocatorImpl();
+        fileSchema = SchemaBuilder.newBuilder()
+                .addField("id", new ArrowType.Int(32, true))
+                .addStringField("Name")
+                .addField("created", new ArrowType.Date(DateUnit.DAY))
+                .addField("updated", new ArrowType.Timestamp(TimeUnit.MICROSECOND, null))
+                .addField("amount", DECIMAL)
+                .addField("payload", new ArrowType.Binary())
+                .build();
+    }
+
+    @After
+    public void tearDown()
+    {
+        allocator.close();
+    }
+
+    @Test
+    public void toPredicate()
+    {
+        Map<String, ValueSet> summary = ImmutableMap.<String, ValueSet>builder()
+                .put("id", SortedRangeSet.copyOf(BIGINT, ImmutableList.of(
+                        Range.range(allocator, BIGINT, 10L, true, 20L, false),
+                        Range.greaterThan(allocator, BIGINT, 100L)), false))
+                .put("Name", SortedRangeSet.copyOf(VARCHAR, ImmutableList.of(
+                        Range.equal(allocator, VARCHAR, "O'Brien"),
+                        Range.equal(allocator, VARCHAR, "Smith")), true))
+                .put("created", SortedRangeSet.copyOf(DATEDAY, ImmutableList.of(
+                        Range.equal(allocator, DATEDAY, (int) LocalDate.of(2024, 1, 8).toEpochDay())), false))
+                .put("amount", SortedRangeSet.notNull(allocator, DECIMAL))
+                .build();
+
+        assertEquals(Optional.of("((\"id\" >= 10 AND \"id\" < 20) OR (\"id\" > 100))"
+                        + " AND ((\"Name\" IS NULL) OR \"Name\" IN ('O''Brien', 'Smith'))"
+                        + " AND (\"created\" = DATE '2024-01-08')"
+                        + " AND (\"amount\" IS NOT NULL)"),
+                ExportFilterBuilder.toPredicate(fileSchema, summary));
+    }
+
+    @Test
+    public void toPredicateSkipsUnsupportedConstraints()
+    {
+        Map<String, ValueSet> summary = ImmutableMap.of(
+                // Timestamps are never pushed down.
+                "updated", SortedRangeSet.copyOf(DATEMILLI, ImmutableList.of(Range.greaterThan(allocator, DATEMILLI, 0L)), false),
+                // Neither are constraints whose type doesn't match the file's column.
+                "id", SortedRangeSet.copyOf(VARCHAR, ImmutableList.of(Range.equal(allocator, VARCHAR, "1")), false),
+                // Or columns which aren't in the file.
+                "missing", SortedRangeSet.copyOf(BIGINT, ImmutableList.of(Range.equal(allocator, BIGINT, 1L)), false));
+
+        assertEquals(Optional.empty(), ExportFilterBuilder.toPredicate(fileSchema, summary));
+    }
+
+    @Test
+    public void toCreateTable()
+    {
+        assertEquals(Optional.of("CREATE TABLE export_source (\"id\" INTEGER, \"Name\" VARCHAR, \"created\" DATE, "
+                        + "\"updated\" TIMESTAMP, \"amount\" DECIMAL(10, 2), \"payload\" VARBINARY)"),
+                ExportFilterBuilder.toCreateTable(fileSchema));
+
+        Schema nested = SchemaBuilder.newBuilder()
+                .addField(FieldBuilder.newBuilder("tags", Types.MinorType.LIST.getType()).addStringField("tag").build())
+                .build();
+        assertEquals(Optional.empty(), ExportFilterBuilder.toCreateTable(nested));
+    }
+
+    @Test
+    public void buildSubstraitFilter()
+    {
+        Constraints constraints = newConstraints(ImmutableMap.of(
+                "id", SortedRangeSet.copyOf(BIGINT, ImmutableList.of(Range.lessThanOrEqual(allocator, BIGINT, 5L)), false),
+                "amount", SortedRangeSet.copyOf(DECIMAL,
+                        ImmutableList.of(Range.equal(allocator, DECIMAL, new BigDecimal("1.50"))), false)));
+
+        Optional<ByteBuffer> filter = ExportFilterBuilder.build(fileSchema, constraints);
+        assertTrue(filter.isPresent());
+        assertTrue(filter.get().isDirect());
+        assertTrue(filter.get().capacity() > 0);
+
+        assertFalse(ExportFilterBuilder.build(fileSchema, newConstraints(Collections.emptyMap())).isPresent());
+    }
+
+    @Test
+    public void toSqlLiteral()
+    {
+        assertEquals("42", ExportFilterBuilder.toSqlLiteral(BIGINT, 42L));
+        assertEquals("'it''s'", ExportFilterBuilder.toSqlLiteral(VARCHAR, "it's"));
+        assertEquals("DATE '1970-01-02'", ExportFilterBuilder.toSqlLiteral(DATEDAY, 1));
+        assertEquals("TIMESTAMP '2024-01-08 10:11:12.123000'",
+                ExportFilterBuilder.toSqlLiteral(DATEMILLI, LocalDateTime.of(2024, 1, 8, 10, 11, 12, 123_000_000)));
+        assertEquals("NULL", ExportFilterBuilder.toSqlLiteral(BIGINT, null));
+    }
+
+    private static Constraints newConstraints(Map<String, ValueSet> summary)
+    {
+        return new Constraints(summary, Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+    }
+}
@@ -0,0 +1,119 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.export;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExportPrefixCleanerTest
+{
+    private static final String BUCKET = "export-bucket";
+    private static final Instant NOW = Instant.parse("2024-06-01T12:00:00Z");
+
+    private LocalS3Client amazonS3;
+    private Map<String, Instant> lastSweeps;
+    private ExportPrefixCleaner cleaner;
+
+    @Before
+    public void setUp()
+    {
+        amazonS3 = new LocalS3Client(1000);
+        lastSweeps = new HashMap<>();
+        cleaner = new ExportPrefixCleaner(amazonS3, Duration.ofMinutes(60), Clock.fixed(NOW, ZoneOffset.UTC), lastSweeps);
+    }
+
+    @Test
+    public void deleteExpiredPrefixes()
+    {
+        amazonS3.putObject(BUCKET, "exports/old/uuid/part_0.parquet", 10, NOW.minus(Duration.ofHours(3)));
+        amazonS3.putObject(BUCKET, "exports/old/uuid/part_1.parquet", 10, NOW.minus(Duration.ofHours(2)));
+        // A prefix is only expired once its newest file is.
+        amazonS3.putObject(BUCKET, "exports/running/uuid/part_0.parquet", 10, NOW.minus(Duration.ofHours(3)));
+        amazonS3.putObject(BUCKET, "exports/running/uuid/part_1.parquet", 10, NOW.minus(Duration.ofMinutes(5)));
+        // Objects which aren't under a query prefix are never touched.
+        amazonS3.putObject(BUCKET, "exports/readme.txt", 10, NOW.minus(Duration.ofDays(30)));
+        amazonS3.putObject(BUCKET, "other/old/part_0.parquet", 10, NOW.minus(Duration.ofDays(30)));
+
+        assertEquals(2, cleaner.deleteExpiredPrefixes(BUCKET, "exports"));
+        assertEquals(ImmutableList.of("exports/readme.txt", "exports/running/uuid/part_0.parquet",
+                "exports/running/uuid/part_1.parquet", "other/old/part_0.parquet"), amazonS3.keys(BUCKET));
+    }
+
+    @Test
+    public void sweepsEachRootOncePerInterval()
+    {
+        amazonS3.putObject(BUCKET, "exports/old/part_0.parquet", 10, NOW.minus(Duration.ofHours(3)));
+
+        assertEquals(1, cleaner.deleteExpiredPrefixes(BUCKET, "exports/"));
+        assertEquals(0, cleaner.deleteExpiredPrefixes(BUCKET, "exports/"));
+        assertEquals(1, amazonS3.getListCalls());
+
+        // another root is swept independently, the same root again once the interval has passed
+        cleaner.deleteExpiredPrefixes(BUCKET, "other/");
+        assertEquals(2, amazonS3.getListCalls());
+        ExportPrefixCleaner later = new ExportPrefixCleaner(amazonS3, Duration.ofMinutes(60),
+                Clock.fixed(NOW.plus(ExportPrefixCleaner.MAX_SWEEP_INTERVAL), ZoneOffset.UTC), lastSweeps);
+        later.deleteExpiredPrefixes(BUCKET, "exports/");
+        assertEquals(3, amazonS3.getListCalls());
+    }
+
+    @Test
+    public void deletePrefixInBatches()
+    {
+        int objects = ExportPrefixCleaner.MAX_DELETE_BATCH + 5;
+        for (int i = 0; i < objects; i++) {
+            amazonS3.putObject(BUCKET, String.format("exports/query1/part_%05d.parquet", i), 10, NOW);
+        }
+        amazonS3.putObject(BUCKET, "exports/query2/part_0.parquet", 10, NOW);
+
+        assertEquals(objects, cleaner.deletePrefix(BUCKET, "exports/query1/"));
+        assertEquals(2, amazonS3.getDeleteCalls());
+        assertEquals(ImmutableList.of("exports/query2/part_0.parquet"), amazonS3.keys(BUCKET));
+    }
+
+    @Test
+    public void failuresAreNotThrown()
+    {
+        assertEquals(0, cleaner.deleteExpiredPrefixes("missing-bucket", "exports/"));
+        assertEquals(0, cleaner.deletePrefix("missing-bucket", "exports/query1/"));
+    }
+
+    @Test
+    public void fromConfig()
+    {
+        assertFalse(ExportPrefixCleaner.fromConfig(amazonS3, Collections.emptyMap()).isPresent());
+        assertFalse(ExportPrefixCleaner.fromConfig(amazonS3, ImmutableMap.of(ExportPrefixCleaner.EXPORT_PREFIX_RETENTION_MINUTES, "-1")).isPresent());
+        assertTrue(ExportPrefixCleaner.fromConfig(amazonS3, ImmutableMap.of(ExportPrefixCleaner.EXPORT_PREFIX_RETENTION_MINUTES, "1440")).isPresent());
+    }
+}
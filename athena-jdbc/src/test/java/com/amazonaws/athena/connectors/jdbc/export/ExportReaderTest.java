@@ -0,0 +1,317 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.export;
+
+import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.BlockWriter;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.arrow.dataset.file.DatasetFileWriter;
+import org.apache.arrow.dataset.file.FileFormat;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.DateMilliVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMicroVector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.ipc.ArrowReader;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.arrow.vector.util.Text;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+public class ExportReaderTest
+{
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private BufferAllocator allocator;
+    private BlockAllocatorImpl blockAllocator;
+
+    @Before
+    public void setUp()
+    {
+        allocator = new RootAllocator();
+        blockAllocator = new BlockAllocatorImpl();
+    }
+
+    @After
+    public void tearDown()
+    {
+        blockAllocator.close();
+        allocator.close();
+    }
+
+    @Test
+    public void writeBatches()
+            throws Exception
+    {
+        // The exported file holds a column the request didn't ask for, and an INT column exported as 64 bit integers.
+        Schema fileSchema = SchemaBuilder.newBuilder()
+                .addBigIntField("id")
+                .addStringField("name")
+                .addStringField("unused")
+                .build();
+        byte[] file;
+        try (VectorSchemaRoot root = VectorSchemaRoot.create(fileSchema, allocator);
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                ArrowStreamWriter writer = new ArrowStreamWriter(root, null, out)) {
+            writer.start();
+            for (int batch = 0; batch < 2; batch++) {
+                BigIntVector id = (BigIntVector) root.getVector("id");
+                VarCharVector name = (VarCharVector) root.getVector("name");
+                VarCharVector unused = (VarCharVector) root.getVector("unused");
+                id.allocateNew(2);
+                name.allocateNew(2);
+                unused.allocateNew(2);
+                for (int row = 0; row < 2; row++) {
+                    id.set(row, batch * 2 + row);
+                    name.setSafe(row, new Text("name" + (batch * 2 + row)));
+                    unused.setSafe(row, new Text("x"));
+                }
+                root.setRowCount(2);
+                writer.writeBatch();
+            }
+            writer.end();
+            file = out.toByteArray();
+        }
+
+        Schema requestSchema = SchemaBuilder.newBuilder()
+                .addIntField("id")
+                .addStringField("name")
+                .build();
+        try (Block block = blockAllocator.createBlock(requestSchema);
+                ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(file), allocator)) {
+            BlockSpiller spiller = Mockito.mock(BlockSpiller.class);
+            doAnswer(invocation -> {
+                BlockWriter.RowWriter rowWriter = invocation.getArgument(0);
+                int rows = rowWriter.writeRows(block, block.getRowCount());
+                block.setRowCount(block.getRowCount() + rows);
+                return null;
+            }).when(spiller).writeRows(any());
+            QueryStatusChecker queryStatusChecker = Mockito.mock(QueryStatusChecker.class);
+            Mockito.when(queryStatusChecker.isQueryRunning()).thenReturn(true);
+
+            assertEquals(4, ExportReader.writeBatches(reader, requestSchema, spiller, queryStatusChecker));
+            assertEquals(4, block.getRowCount());
+            IntVector id = (IntVector) block.getFieldVector("id");
+            VarCharVector name = (VarCharVector) block.getFieldVector("name");
+            for (int row = 0; row < 4; row++) {
+                assertEquals(row, id.get(row));
+                assertEquals("name" + row, name.getObject(row).toString());
+            }
+        }
+    }
+
+    @Test
+    public void openParquet()
+            throws Exception
+    {
+        // 250 rows in one row group, filtered down to the 149 rows with an id above 100 by the scan.
+        Schema fileSchema = SchemaBuilder.newBuilder()
+                .addBigIntField("id")
+                .addStringField("name")
+                .addStringField("unused")
+                .build();
+        String uri = writeParquet(fileSchema, 250);
+        Schema requestSchema = SchemaBuilder.newBuilder()
+                .addIntField("id")
+                .addStringField("name")
+                .addStringField("partition_name")
+                .build();
+        Map<String, ValueSet> summary = ImmutableMap.of("id", SortedRangeSet.copyOf(Types.MinorType.BIGINT.getType(),
+                ImmutableList.of(Range.greaterThan(blockAllocator, Types.MinorType.BIGINT.getType(), 100L)), false));
+        Constraints constraints = new Constraints(summary, Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT,
+                Collections.emptyMap(), null);
+
+        try (Block block = blockAllocator.createBlock(requestSchema);
+                ArrowReader reader = new ExportReader().open(ImmutableList.of(uri), requestSchema, constraints)) {
+            List<Integer> writes = new ArrayList<>();
+            BlockSpiller spiller = Mockito.mock(BlockSpiller.class);
+            doAnswer(invocation -> {
+                BlockWriter.RowWriter rowWriter = invocation.getArgument(0);
+                int rows = rowWriter.writeRows(block, block.getRowCount());
+                block.setRowCount(block.getRowCount() + rows);
+                writes.add(rows);
+                return null;
+            }).when(spiller).writeRows(any());
+            QueryStatusChecker queryStatusChecker = Mockito.mock(QueryStatusChecker.class);
+            Mockito.when(queryStatusChecker.isQueryRunning()).thenReturn(true);
+
+            assertEquals(149, ExportReader.writeBatches(reader, requestSchema, spiller, queryStatusChecker));
+            assertEquals(ImmutableList.of(100, 49), writes);
+            assertEquals(149, block.getRowCount());
+            IntVector id = (IntVector) block.getFieldVector("id");
+            VarCharVector name = (VarCharVector) block.getFieldVector("name");
+            for (int row = 0; row < 149; row++) {
+                assertEquals(row + 101, id.get(row));
+                assertEquals("name" + (row + 101), name.getObject(row).toString());
+            }
+            assertTrue(block.getFieldVector("partition_name").isNull(0));
+        }
+    }
+
+    @Test
+    public void appendVectorConvertsTimestamps()
+    {
+        try (TimeStampMicroVector micros = new TimeStampMicroVector("ts", allocator);
+                TimeStampMilliTZVector millis = new TimeStampMilliTZVector("ts", allocator, "UTC");
+                DateMilliVector target = new DateMilliVector("ts", allocator)) {
+            micros.allocateNew(2);
+            micros.set(0, 1_609_459_200_123_456L);
+            micros.setNull(1);
+            micros.setValueCount(2);
+            millis.allocateNew(2);
+            millis.setNull(0);
+            millis.set(1, 1_609_545_600_000L);
+            millis.setValueCount(2);
+
+            ExportReader.appendVector(target, micros);
+            ExportReader.appendVector(target, millis);
+
+            assertEquals(4, target.getValueCount());
+            assertEquals(1_609_459_200_123L, target.get(0));
+            assertTrue(target.isNull(1));
+            assertTrue(target.isNull(2));
+            assertEquals(1_609_545_600_000L, target.get(3));
+        }
+    }
+
+    @Test
+    public void appendVectorConvertsMismatchedTypes()
+    {
+        try (DecimalVector source = new DecimalVector("amount", allocator, 10, 2);
+                DecimalVector target = new DecimalVector("amount", allocator, 38, 4)) {
+            source.allocateNew(2);
+            source.set(0, new BigDecimal("12.34"));
+            source.setNull(1);
+            source.setValueCount(2);
+
+            ExportReader.appendVector(target, source);
+
+            assertEquals(2, target.getValueCount());
+            assertEquals(new BigDecimal("12.3400"), target.getObject(0));
+            assertNull(target.getObject(1));
+        }
+    }
+
+    @Test
+    public void writeBatchesStopsOnceQueryEnds()
+            throws Exception
+    {
+        Schema schema = SchemaBuilder.newBuilder().addIntField("id").build();
+        ArrowStreamReader reader = Mockito.mock(ArrowStreamReader.class);
+        BlockSpiller spiller = Mockito.mock(BlockSpiller.class);
+        QueryStatusChecker queryStatusChecker = Mockito.mock(QueryStatusChecker.class);
+        Mockito.when(queryStatusChecker.isQueryRunning()).thenReturn(false);
+
+        assertEquals(0, ExportReader.writeBatches(reader, schema, spiller, queryStatusChecker));
+        Mockito.verify(reader, Mockito.never()).loadNextBatch();
+        Mockito.verify(spiller, Mockito.never()).writeRows(any());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void toDateMilliVectorRejectsNonUtc()
+    {
+        try (TimeStampMilliTZVector source = new TimeStampMilliTZVector("ts", allocator, "America/New_York")) {
+            source.allocateNew(1);
+            source.set(0, 1L);
+            source.setValueCount(1);
+            ExportReader.toDateMilliVector(source, allocator).close();
+        }
+    }
+
+    @Test
+    public void toDateMilliVector()
+    {
+        try (TimeStampMicroVector source = new TimeStampMicroVector("ts", allocator)) {
+            source.allocateNew(1);
+            source.set(0, -1L);
+            source.setValueCount(1);
+            try (DateMilliVector converted = ExportReader.toDateMilliVector(source, allocator)) {
+                // Rounds towards the earlier instant rather than towards the epoch.
+                assertEquals(-1L, converted.get(0));
+            }
+        }
+    }
+
+    private String writeParquet(Schema schema, int rowCount)
+            throws Exception
+    {
+        File directory = temporaryFolder.newFolder();
+        try (VectorSchemaRoot root = VectorSchemaRoot.create(schema, allocator);
+                ByteArrayOutputStream out = new ByteArrayOutputStream()) {
+            BigIntVector id = (BigIntVector) root.getVector("id");
+            VarCharVector name = (VarCharVector) root.getVector("name");
+            VarCharVector unused = (VarCharVector) root.getVector("unused");
+            for (int row = 0; row < rowCount; row++) {
+                id.setSafe(row, row);
+                name.setSafe(row, new Text("name" + row));
+                unused.setSafe(row, new Text("x"));
+            }
+            root.setRowCount(rowCount);
+            try (ArrowStreamWriter writer = new ArrowStreamWriter(root, null, out)) {
+                writer.writeBatch();
+                writer.end();
+            }
+            try (ArrowStreamReader reader = new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator)) {
+                DatasetFileWriter.write(allocator, reader, FileFormat.PARQUET, directory.toURI().toString());
+            }
+        }
+        File[] files = directory.listFiles();
+        assertEquals(1, files.length);
+        return files[0].toURI().toString();
+    }
+}
@@ -0,0 +1,143 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.export;
+
+import com.amazonaws.athena.connector.lambda.domain.Split;
+import com.amazonaws.athena.connector.lambda.domain.spill.S3SpillLocation;
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ExportSplitPlannerTest
+{
+    private static final String BUCKET = "export-bucket";
+    private static final String KEY_PROPERTY = "s3ObjectKey";
+    private static final long MB = 1024L * 1024L;
+
+    private LocalS3Client amazonS3;
+
+    @Before
+    public void setUp()
+    {
+        amazonS3 = new LocalS3Client(2);
+        amazonS3.putObject(BUCKET, "exports/query1/", 0, Instant.now());
+        amazonS3.putObject(BUCKET, "exports/query1/part_0.parquet", 40 * MB, Instant.now());
+        amazonS3.putObject(BUCKET, "exports/query1/part_1.parquet", 3 * MB, Instant.now());
+        amazonS3.putObject(BUCKET, "exports/query1/part_2.parquet", 4 * MB, Instant.now());
+        amazonS3.putObject(BUCKET, "exports/query1/part_3.parquet", 5 * MB, Instant.now());
+        amazonS3.putObject(BUCKET, "exports/query1/part_4.parquet", 1 * MB, Instant.now());
+        amazonS3.putObject(BUCKET, "exports/query2/part_0.parquet", 1 * MB, Instant.now());
+    }
+
+    @Test
+    public void listExportedFilesFollowsPagination()
+    {
+        ExportSplitPlanner planner = new ExportSplitPlanner(amazonS3, 0);
+        List<ExportFile> files = planner.listExportedFiles(BUCKET, "exports/query1/");
+
+        assertEquals(ImmutableList.of("exports/query1/part_0.parquet", "exports/query1/part_1.parquet", "exports/query1/part_2.parquet",
+                        "exports/query1/part_3.parquet", "exports/query1/part_4.parquet"),
+                files.stream().map(ExportFile::getKey).collect(Collectors.toList()));
+        assertEquals(40 * MB, files.get(0).getSize());
+        assertEquals("s3://export-bucket/exports/query1/part_0.parquet", files.get(0).toUri());
+        assertEquals(3, amazonS3.getListCalls());
+    }
+
+    @Test(expected = AthenaConnectorException.class)
+    public void listExportedFilesMissingBucket()
+    {
+        new ExportSplitPlanner(amazonS3, 0).listExportedFiles("missing-bucket", "exports/");
+    }
+
+    @Test
+    public void planOneSplitPerFileByDefault()
+    {
+        ExportSplitPlanner planner = ExportSplitPlanner.fromConfig(amazonS3, Collections.emptyMap());
+        List<List<ExportFile>> splits = planner.plan(planner.listExportedFiles(BUCKET, "exports/query1/"));
+
+        assertEquals(5, splits.size());
+        splits.forEach(next -> assertEquals(1, next.size()));
+    }
+
+    @Test
+    public void planCoalescesSmallFiles()
+    {
+        ExportSplitPlanner planner = ExportSplitPlanner.fromConfig(amazonS3, ImmutableMap.of(ExportSplitPlanner.EXPORT_SPLIT_TARGET_SIZE_MB, "8"));
+        assertEquals(8 * MB, planner.getTargetSplitBytes());
+
+        List<List<ExportFile>> splits = planner.plan(planner.listExportedFiles(BUCKET, "exports/query1/"));
+
+        assertEquals(ImmutableList.of(
+                        ImmutableList.of("exports/query1/part_0.parquet"),
+                        ImmutableList.of("exports/query1/part_1.parquet", "exports/query1/part_2.parquet"),
+                        ImmutableList.of("exports/query1/part_3.parquet", "exports/query1/part_4.parquet")),
+                splits.stream()
+                        .map(next -> next.stream().map(ExportFile::getKey).collect(Collectors.toList()))
+                        .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void planIgnoresInvalidTargetSize()
+    {
+        ExportSplitPlanner planner = ExportSplitPlanner.fromConfig(amazonS3, ImmutableMap.of(ExportSplitPlanner.EXPORT_SPLIT_TARGET_SIZE_MB, "lots"));
+        assertEquals(0, planner.getTargetSplitBytes());
+        assertEquals(Collections.emptyList(), planner.plan(Collections.emptyList()));
+    }
+
+    @Test
+    public void addAndGetObjectKeys()
+    {
+        ExportFile first = new ExportFile(BUCKET, "exports/query1/part_1.parquet", 3 * MB);
+        ExportFile second = new ExportFile(BUCKET, "exports/query1/part_2.parquet", 4 * MB);
+
+        Split single = ExportSplitPlanner.addFiles(newSplit(), KEY_PROPERTY, ImmutableList.of(first)).build();
+        assertEquals(first.getKey(), single.getProperty(KEY_PROPERTY));
+        assertNull(single.getProperty(ExportSplitPlanner.EXPORT_OBJECT_KEYS));
+        assertEquals(ImmutableList.of(first.getKey()), ExportSplitPlanner.getObjectKeys(single, KEY_PROPERTY));
+
+        Split multiple = ExportSplitPlanner.addFiles(newSplit(), KEY_PROPERTY, ImmutableList.of(first, second)).build();
+        assertEquals(first.getKey(), multiple.getProperty(KEY_PROPERTY));
+        assertEquals(ImmutableList.of(first.getKey(), second.getKey()), ExportSplitPlanner.getObjectKeys(multiple, KEY_PROPERTY));
+
+        Split empty = newSplit().add(KEY_PROPERTY, "").build();
+        assertEquals(Collections.emptyList(), ExportSplitPlanner.getObjectKeys(empty, KEY_PROPERTY));
+    }
+
+    private static Split.Builder newSplit()
+    {
+        return Split.newBuilder(S3SpillLocation.newBuilder()
+                .withBucket("spill-bucket")
+                .withPrefix("spill")
+                .withQueryId("query1")
+                .withSplitId("split1")
+                .withIsDirectory(true)
+                .build(), null);
+    }
+}
@@ -0,0 +1,137 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.export;
+
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.DeletedObject;
+import software.amazon.awssdk.services.s3.model.ListObjectsRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchBucketException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In memory stand-in for the S3 operations used by the export subsystem. Listings are returned in key order and are
+ * paginated at {@link #maxKeys} objects, like S3's own ListObjects.
+ */
+class LocalS3Client
+        implements S3Client
+{
+    private final Map<String, NavigableMap<String, S3Object>> buckets = new ConcurrentHashMap<>();
+    private final int maxKeys;
+    private int listCalls;
+    private int deleteCalls;
+
+    LocalS3Client(int maxKeys)
+    {
+        this.maxKeys = maxKeys;
+    }
+
+    void putObject(String bucket, String key, long size, Instant lastModified)
+    {
+        buckets.computeIfAbsent(bucket, name -> new TreeMap<>())
+                .put(key, S3Object.builder().key(key).size(size).lastModified(lastModified).build());
+    }
+
+    List<String> keys(String bucket)
+    {
+        return new ArrayList<>(buckets.getOrDefault(bucket, new TreeMap<>()).keySet());
+    }
+
+    int getListCalls()
+    {
+        return listCalls;
+    }
+
+    int getDeleteCalls()
+    {
+        return deleteCalls;
+    }
+
+    @Override
+    public ListObjectsResponse listObjects(ListObjectsRequest request)
+    {
+        listCalls++;
+        NavigableMap<String, S3Object> objects = getBucket(request.bucket());
+        NavigableMap<String, S3Object> remaining = request.marker() == null ? objects : objects.tailMap(request.marker(), false);
+        String prefix = request.prefix() == null ? "" : request.prefix();
+
+        List<S3Object> page = new ArrayList<>();
+        boolean truncated = false;
+        for (S3Object next : remaining.values()) {
+            if (!next.key().startsWith(prefix)) {
+                continue;
+            }
+            if (page.size() == maxKeys) {
+                truncated = true;
+                break;
+            }
+            page.add(next);
+        }
+        return ListObjectsResponse.builder()
+                .contents(page)
+                .isTruncated(truncated)
+                .build();
+    }
+
+    @Override
+    public DeleteObjectsResponse deleteObjects(DeleteObjectsRequest request)
+    {
+        deleteCalls++;
+        NavigableMap<String, S3Object> objects = getBucket(request.bucket());
+        List<DeletedObject> deleted = new ArrayList<>();
+        for (ObjectIdentifier next : request.delete().objects()) {
+            if (objects.remove(next.key()) != null) {
+                deleted.add(DeletedObject.builder().key(next.key()).build());
+            }
+        }
+        return DeleteObjectsResponse.builder().deleted(deleted).build();
+    }
+
+    @Override
+    public String serviceName()
+    {
+        return "s3";
+    }
+
+    @Override
+    public void close()
+    {
+    }
+
+    private NavigableMap<String, S3Object> getBucket(String bucket)
+    {
+        NavigableMap<String, S3Object> objects = buckets.get(bucket);
+        if (objects == null) {
+            throw NoSuchBucketException.builder().message("The specified bucket does not exist: " + bucket).build();
+        }
+        return objects;
+    }
+}
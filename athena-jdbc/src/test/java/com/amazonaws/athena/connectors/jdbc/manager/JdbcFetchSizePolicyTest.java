@@ -0,0 +1,178 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 - 2024 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.manager;
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.BlockUtils;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.Collections;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class JdbcFetchSizePolicyTest
+{
+    @Test
+    public void applyInitialFetchSize()
+            throws Exception
+    {
+        JdbcFetchSizePolicy policy = JdbcFetchSizePolicy.fromConfig(ImmutableMap.of());
+
+        PreparedStatement postgres = Mockito.mock(PreparedStatement.class);
+        Assert.assertEquals(JdbcFetchSizePolicy.DEFAULT_FETCH_SIZE, policy.applyInitialFetchSize(postgres, "PostgreSQL"));
+        verify(postgres).setFetchSize(JdbcFetchSizePolicy.DEFAULT_FETCH_SIZE);
+
+        PreparedStatement mysql = Mockito.mock(PreparedStatement.class);
+        Assert.assertEquals(Integer.MIN_VALUE, policy.applyInitialFetchSize(mysql, "MySQL"));
+        verify(mysql).setFetchSize(Integer.MIN_VALUE);
+
+        PreparedStatement oracle = Mockito.mock(PreparedStatement.class);
+        when(oracle.getFetchSize()).thenReturn(500);
+        Assert.assertEquals(500, policy.applyInitialFetchSize(oracle, "Oracle"));
+        verify(oracle, never()).setFetchSize(anyInt());
+    }
+
+    @Test
+    public void applyFixedFetchSize()
+            throws Exception
+    {
+        JdbcFetchSizePolicy policy = JdbcFetchSizePolicy.fromConfig(ImmutableMap.of(JdbcFetchSizePolicy.FETCH_SIZE, "250"));
+        PreparedStatement statement = Mockito.mock(PreparedStatement.class);
+        when(statement.getFetchSize()).thenReturn(1000);
+        Assert.assertEquals(250, policy.applyInitialFetchSize(statement, "Oracle"));
+        verify(statement).setFetchSize(250);
+
+        ResultSet resultSet = Mockito.mock(ResultSet.class);
+        JdbcFetchSizePolicy.FetchSizeAdapter adapter = policy.newAdapter(resultSet, 250, 1_000_000);
+        Block block = mockBlock(100, 100);
+        for (int i = 0; i < JdbcFetchSizePolicy.SAMPLE_ROWS; i++) {
+            adapter.onRow(block, 100);
+        }
+        verify(resultSet, never()).setFetchSize(anyInt());
+        Assert.assertEquals(250, adapter.getFetchSize());
+    }
+
+    @Test
+    public void getAdaptedFetchSize()
+    {
+        Assert.assertEquals(5_000, JdbcFetchSizePolicy.getAdaptedFetchSize(20_000, 100, 1_000_000));
+        Assert.assertEquals(JdbcFetchSizePolicy.MIN_FETCH_SIZE, JdbcFetchSizePolicy.getAdaptedFetchSize(1_000_000, 10, 1_000_000));
+        Assert.assertEquals(JdbcFetchSizePolicy.MAX_FETCH_SIZE, JdbcFetchSizePolicy.getAdaptedFetchSize(100, 100, 1_000_000_000));
+        Assert.assertEquals(JdbcFetchSizePolicy.DEFAULT_FETCH_SIZE, JdbcFetchSizePolicy.getAdaptedFetchSize(0, 0, 1_000_000));
+    }
+
+    @Test
+    public void adapterResizesOnceAfterSample()
+            throws Exception
+    {
+        JdbcFetchSizePolicy policy = JdbcFetchSizePolicy.fromConfig(ImmutableMap.of());
+        ResultSet resultSet = Mockito.mock(ResultSet.class);
+        JdbcFetchSizePolicy.FetchSizeAdapter adapter = policy.newAdapter(resultSet, JdbcFetchSizePolicy.DEFAULT_FETCH_SIZE, 1_000_000);
+        Block block = mockBlock(100, 200);
+
+        for (int i = 1; i < JdbcFetchSizePolicy.SAMPLE_ROWS; i++) {
+            adapter.onRow(block, 100);
+        }
+        verify(resultSet, never()).setFetchSize(anyInt());
+
+        for (int i = 0; i < JdbcFetchSizePolicy.SAMPLE_ROWS; i++) {
+            adapter.onRow(block, 100);
+        }
+        verify(resultSet, times(1)).setFetchSize(5_000);
+        Assert.assertEquals(5_000, adapter.getFetchSize());
+        Assert.assertEquals(200, adapter.getAvgRowBytes());
+    }
+
+    @Test
+    public void adapterSkipsStreamingFetch()
+            throws Exception
+    {
+        JdbcFetchSizePolicy policy = JdbcFetchSizePolicy.fromConfig(ImmutableMap.of());
+        ResultSet resultSet = Mockito.mock(ResultSet.class);
+        JdbcFetchSizePolicy.FetchSizeAdapter adapter = policy.newAdapter(resultSet, Integer.MIN_VALUE, 1_000_000);
+        Block block = mockBlock(100, 200);
+        for (int i = 0; i < JdbcFetchSizePolicy.SAMPLE_ROWS; i++) {
+            adapter.onRow(block, 100);
+        }
+        verify(resultSet, never()).setFetchSize(anyInt());
+        Assert.assertEquals(Integer.MIN_VALUE, adapter.getFetchSize());
+    }
+
+    @Test
+    public void adapterUsesWrittenRowWidth()
+            throws Exception
+    {
+        Schema schema = SchemaBuilder.newBuilder()
+                .addIntField("narrow")
+                .addStringField("wide")
+                .build();
+        String wideValue = Strings.repeat("x", 1_000);
+        JdbcFetchSizePolicy policy = JdbcFetchSizePolicy.fromConfig(ImmutableMap.of());
+        try (BlockAllocatorImpl allocator = new BlockAllocatorImpl();
+                Block narrow = allocator.createBlock(SchemaBuilder.newBuilder().addIntField("narrow").build());
+                Block wide = allocator.createBlock(schema)) {
+            // value counts are only set once the spiller's write completes, as while the adapter is sampling
+            for (int row = 0; row < 100; row++) {
+                BlockUtils.setValue(narrow.getFieldVector("narrow"), row, row);
+                BlockUtils.setValue(wide.getFieldVector("narrow"), row, row);
+                BlockUtils.setValue(wide.getFieldVector("wide"), row, wideValue);
+            }
+
+            ResultSet narrowResultSet = Mockito.mock(ResultSet.class);
+            JdbcFetchSizePolicy.FetchSizeAdapter narrowAdapter = policy.newAdapter(narrowResultSet, JdbcFetchSizePolicy.DEFAULT_FETCH_SIZE, 1_000_000);
+            ResultSet wideResultSet = Mockito.mock(ResultSet.class);
+            JdbcFetchSizePolicy.FetchSizeAdapter wideAdapter = policy.newAdapter(wideResultSet, JdbcFetchSizePolicy.DEFAULT_FETCH_SIZE, 1_000_000);
+            for (int i = 0; i < JdbcFetchSizePolicy.SAMPLE_ROWS; i++) {
+                narrowAdapter.onRow(narrow, 100);
+                wideAdapter.onRow(wide, 100);
+            }
+
+            // 4 bytes and a validity bit per row
+            Assert.assertEquals(4, narrowAdapter.getAvgRowBytes());
+            verify(narrowResultSet).setFetchSize(JdbcFetchSizePolicy.MAX_FETCH_SIZE);
+            // the value, its offset, the int and the validity bits
+            Assert.assertEquals(1_008, wideAdapter.getAvgRowBytes());
+            verify(wideResultSet).setFetchSize(992);
+        }
+    }
+
+    private static Block mockBlock(int rows, int rowBytes)
+    {
+        FieldVector vector = Mockito.mock(FieldVector.class);
+        when(vector.getBufferSizeFor(rows)).thenReturn(rows * rowBytes);
+        Block block = Mockito.mock(Block.class);
+        when(block.getFieldVectors()).thenReturn(Collections.singletonList(vector));
+        return block;
+    }
+}
@@ -21,10 +21,14 @@ package com.amazonaws.athena.connectors.jdbc.manager;
 
 import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
 import com.amazonaws.athena.connector.lambda.data.BlockWriter;
 import com.amazonaws.athena.connector.lambda.data.FieldBuilder;
 import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
 import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
 import com.amazonaws.athena.connector.lambda.metadata.GetSplitsRequest;
 import com.amazonaws.athena.connector.lambda.metadata.GetSplitsResponse;
@@ -40,6 +44,7 @@ import com.amazonaws.athena.connectors.jdbc.TestBase;
 import com.amazonaws.athena.connectors.jdbc.connection.DatabaseConnectionConfig;
 import com.amazonaws.athena.connectors.jdbc.connection.JdbcConnectionFactory;
 import com.amazonaws.athena.connector.credentials.CredentialsProvider;
+import org.apache.arrow.vector.types.pojo.ArrowType;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.junit.Assert;
 import org.junit.Before;
@@ -56,7 +61,9 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -73,6 +80,7 @@ import static org.mockito.Mockito.mock;
 public class JdbcMetadataHandlerTest
         extends TestBase
 {
+    private static final ArrowType INT_TYPE = org.apache.arrow.vector.types.Types.MinorType.INT.getType();
     private static final Schema PARTITION_SCHEMA = SchemaBuilder.newBuilder().addField("testPartitionCol", org.apache.arrow.vector.types.Types.MinorType.VARCHAR.getType()).build();
 
     private JdbcMetadataHandler jdbcMetadataHandler;
@@ -436,4 +444,106 @@ public class JdbcMetadataHandlerTest
                         "testTable", null))
                 .thenReturn(resultSet);
     }
+
+    @Test
+    public void getSplitClausesWithBoundedConstraint()
+            throws Exception
+    {
+        try (BlockAllocatorImpl allocator = new BlockAllocatorImpl()) {
+            ResultSet primaryKeys = mockResultSet(new String[] {"COLUMN_NAME"}, new Object[][] {{"id"}}, new AtomicInteger(-1));
+            Mockito.when(connection.getMetaData().getPrimaryKeys(null, "testSchema", "testTable")).thenReturn(primaryKeys);
+            GetSplitsRequest getSplitsRequest = mockSplitsRequest(SortedRangeSet.of(
+                    Range.range(allocator, INT_TYPE, 1000, true, 2999, true)));
+
+            List<String> splitClauses = jdbcMetadataHandler.getSplitClauses(new TableName("testSchema", "testTable"), getSplitsRequest);
+
+            Assert.assertEquals(20, splitClauses.size());
+            Assert.assertEquals("(id >= 1000 AND id <= 1099)", splitClauses.get(0));
+            Assert.assertEquals("(id >= 2900 AND id <= 2999)", splitClauses.get(19));
+            // the constraint bounds the key space, so the min/max query is skipped
+            Mockito.verify(connection, Mockito.never()).createStatement();
+        }
+    }
+
+    @Test
+    public void getSplitClausesPrunesRanges()
+            throws Exception
+    {
+        try (BlockAllocatorImpl allocator = new BlockAllocatorImpl()) {
+            ResultSet primaryKeys = mockResultSet(new String[] {"COLUMN_NAME"}, new Object[][] {{"id"}}, new AtomicInteger(-1));
+            Mockito.when(connection.getMetaData().getPrimaryKeys(null, "testSchema", "testTable")).thenReturn(primaryKeys);
+            ResultSet minMaxResultSet = Mockito.mock(ResultSet.class, Mockito.RETURNS_DEEP_STUBS);
+            Mockito.when(minMaxResultSet.getLong(1)).thenReturn(1L);
+            Mockito.when(minMaxResultSet.getLong(2)).thenReturn(1000L);
+            Mockito.when(connection.createStatement().executeQuery(Mockito.anyString())).thenReturn(minMaxResultSet);
+            GetSplitsRequest getSplitsRequest = mockSplitsRequest(SortedRangeSet.of(false,
+                    Range.lessThanOrEqual(allocator, INT_TYPE, 50),
+                    Collections.singletonList(Range.greaterThanOrEqual(allocator, INT_TYPE, 950))));
+
+            List<String> splitClauses = jdbcMetadataHandler.getSplitClauses(new TableName("testSchema", "testTable"), getSplitsRequest);
+
+            Assert.assertEquals(Arrays.asList("(id >= 1 AND id <= 50)", "(id >= 901 AND id <= 950)", "(id >= 951 AND id <= 1000)"), splitClauses);
+        }
+    }
+
+    @Test
+    public void getSplitClausesSmallTableUsesDefaultSplits()
+            throws Exception
+    {
+        DatabaseConnectionConfig databaseConnectionConfig = new DatabaseConnectionConfig("testCatalog", "fakedatabase",
+                "fakedatabase://jdbc:fakedatabase://hostname/${testSecret}", "testSecret");
+        JdbcMetadataHandler smallTableHandler = new JdbcMetadataHandler(databaseConnectionConfig, this.secretsManager, this.athena, jdbcConnectionFactory, com.google.common.collect.ImmutableMap.of())
+        {
+            @Override
+            public Schema getPartitionSchema(final String catalogName)
+            {
+                return PARTITION_SCHEMA;
+            }
+
+            @Override
+            public void getPartitions(final BlockWriter blockWriter, final GetTableLayoutRequest getTableLayoutRequest, QueryStatusChecker queryStatusChecker)
+            {
+            }
+
+            @Override
+            public GetSplitsResponse doGetSplits(BlockAllocator blockAllocator, GetSplitsRequest getSplitsRequest)
+            {
+                return null;
+            }
+
+            @Override
+            protected long getEstimatedRowCount(final Connection jdbcConnection, final TableName tableName)
+            {
+                return 1_000;
+            }
+
+            @Override
+            protected List<String> getSplitBoundaries(final Connection jdbcConnection, final TableName tableName, final String splitColumn, final int numSplits)
+            {
+                throw new AssertionError("histogram should not be read for a small table");
+            }
+        };
+        ResultSet primaryKeys = mockResultSet(new String[] {"COLUMN_NAME"}, new Object[][] {{"id"}}, new AtomicInteger(-1));
+        Mockito.when(connection.getMetaData().getPrimaryKeys(null, "testSchema", "testTable")).thenReturn(primaryKeys);
+        ResultSet minMaxResultSet = Mockito.mock(ResultSet.class, Mockito.RETURNS_DEEP_STUBS);
+        Mockito.when(minMaxResultSet.getMetaData().getColumnType(1)).thenReturn(Types.INTEGER);
+        Mockito.when(minMaxResultSet.getInt(1)).thenReturn(1);
+        Mockito.when(minMaxResultSet.getInt(2)).thenReturn(2000);
+        Mockito.when(minMaxResultSet.getLong(1)).thenReturn(1L);
+        Mockito.when(minMaxResultSet.getLong(2)).thenReturn(2000L);
+        Mockito.when(connection.createStatement().executeQuery(Mockito.anyString())).thenReturn(minMaxResultSet);
+
+        List<String> splitClauses = smallTableHandler.getSplitClauses(new TableName("testSchema", "testTable"));
+
+        Assert.assertEquals(20, splitClauses.size());
+        Assert.assertEquals("(id >= 1 AND id <= 100)", splitClauses.get(0));
+    }
+
+    private GetSplitsRequest mockSplitsRequest(ValueSet idConstraint)
+    {
+        GetSplitsRequest getSplitsRequest = Mockito.mock(GetSplitsRequest.class, Mockito.RETURNS_DEEP_STUBS);
+        Mockito.when(getSplitsRequest.getConstraints().getSummary()).thenReturn(Collections.singletonMap("id", idConstraint));
+        Mockito.when(getSplitsRequest.getIdentity().getConfigOptions()).thenReturn(Collections.emptyMap());
+        return getSplitsRequest;
+    }
 }
@@ -20,9 +20,11 @@
 package com.amazonaws.athena.connectors.jdbc.manager;
 
 import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
+import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.BlockWriter;
 import com.amazonaws.athena.connector.lambda.data.FieldBuilder;
 import com.amazonaws.athena.connector.lambda.data.S3BlockSpiller;
 import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
@@ -93,7 +95,9 @@ import java.sql.Timestamp;
 import java.sql.Types;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -211,6 +215,171 @@ public class JdbcRecordHandlerTest
 
         this.jdbcRecordHandler.readWithConstraint(s3Spiller, readRecordsRequest, queryStatusChecker);
     }
+    @Test
+    public void readWithConstraintReadsSubSplits()
+            throws Exception
+    {
+        TableName inputTableName = new TableName(TEST_SCHEMA, TEST_TABLE);
+        Schema fieldSchema = SchemaBuilder.newBuilder()
+                .addField(FieldBuilder.newBuilder(TEST_COL1, org.apache.arrow.vector.types.Types.MinorType.INT.getType()).build())
+                .addField(FieldBuilder.newBuilder(TEST_COL2, org.apache.arrow.vector.types.Types.MinorType.VARCHAR.getType()).build())
+                .build();
+        String[] columns = {TEST_COL1, TEST_COL2};
+        int[] columnTypes = {Types.INTEGER, Types.VARCHAR};
+        Map<String, PreparedStatement> statements = new HashMap<>();
+        statements.put("1", Mockito.mock(PreparedStatement.class));
+        statements.put("10", Mockito.mock(PreparedStatement.class));
+        ResultSet lowResultSet = mockResultSet(columns, columnTypes, new Object[][] {{1, TEST_VAL1}}, new AtomicInteger(-1));
+        ResultSet highResultSet = mockResultSet(columns, columnTypes, new Object[][] {{10, TEST_VAL2}}, new AtomicInteger(-1));
+        when(statements.get("1").executeQuery()).thenReturn(lowResultSet);
+        when(statements.get("10").executeQuery()).thenReturn(highResultSet);
+        DatabaseMetaData metaData = Mockito.mock(DatabaseMetaData.class);
+        when(metaData.getDatabaseProductName()).thenReturn("MySQL");
+        when(this.connection.getMetaData()).thenReturn(metaData);
+
+        DatabaseConnectionConfig databaseConnectionConfig = new DatabaseConnectionConfig(TEST_CATALOG, "fakedatabase",
+                CONNECTION_STRING, TEST_SECRET);
+        JdbcRecordHandler subSplitHandler = new JdbcRecordHandler(this.amazonS3, this.secretsManager, this.athena, databaseConnectionConfig,
+                this.jdbcConnectionFactory, com.google.common.collect.ImmutableMap.of(JdbcSubSplitReader.SUB_SPLIT_PARALLELISM, "2"))
+        {
+            @Override
+            public PreparedStatement buildSplitSql(Connection jdbcConnection, String catalogName, TableName tableName, Schema schema, Constraints constraints, Split split)
+            {
+                return statements.get(split.getProperty(JdbcSplitQueryBuilder.SUB_SPLIT_LOW));
+            }
+
+            @Override
+            protected List<Map<String, String>> getSubSplits(Connection connection, ReadRecordsRequest readRecordsRequest, int parallelism)
+            {
+                return Arrays.asList(
+                        com.google.common.collect.ImmutableMap.of(JdbcSplitQueryBuilder.SUB_SPLIT_COLUMN, "id", JdbcSplitQueryBuilder.SUB_SPLIT_LOW, "1", JdbcSplitQueryBuilder.SUB_SPLIT_HIGH, "9"),
+                        com.google.common.collect.ImmutableMap.of(JdbcSplitQueryBuilder.SUB_SPLIT_COLUMN, "id", JdbcSplitQueryBuilder.SUB_SPLIT_LOW, "10", JdbcSplitQueryBuilder.SUB_SPLIT_HIGH, "19"));
+            }
+        };
+
+        BlockAllocator allocator = new BlockAllocatorImpl();
+        Block spilledBlock = allocator.createBlock(fieldSchema);
+        BlockSpiller blockSpiller = Mockito.mock(BlockSpiller.class);
+        Mockito.doAnswer(invocation -> {
+            BlockWriter.RowWriter rowWriter = invocation.getArgument(0);
+            int rowCount = spilledBlock.getRowCount();
+            spilledBlock.setRowCount(rowCount + rowWriter.writeRows(spilledBlock, rowCount));
+            return null;
+        }).when(blockSpiller).writeRows(any());
+        Constraints constraints = new Constraints(Collections.emptyMap(), Collections.emptyList(), Collections.emptyList(),
+                Constraints.DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+        ReadRecordsRequest readRecordsRequest = new ReadRecordsRequest(this.federatedIdentity, TEST_CATALOG, TEST_QUERY_ID, inputTableName, fieldSchema,
+                Split.newBuilder(S3SpillLocation.newBuilder().withIsDirectory(true).build(), null).build(), constraints, 1024, 1024);
+
+        subSplitHandler.readWithConstraint(blockSpiller, readRecordsRequest, queryStatusChecker);
+
+        Assert.assertEquals(2, spilledBlock.getRowCount());
+        verify(this.jdbcConnectionFactory, Mockito.times(3)).getConnection(nullable(CredentialsProvider.class));
+        allocator.close();
+    }
+
+    @Test
+    public void getSubSplitsBoundsSplitRange()
+            throws Exception
+    {
+        DatabaseMetaData metaData = Mockito.mock(DatabaseMetaData.class);
+        ResultSet primaryKeys = mockResultSet(new String[] {"COLUMN_NAME"}, new Object[][] {{"id"}}, new AtomicInteger(-1));
+        when(metaData.getPrimaryKeys(null, TEST_SCHEMA, TEST_TABLE)).thenReturn(primaryKeys);
+        when(metaData.getIdentifierQuoteString()).thenReturn("\"");
+        when(this.connection.getMetaData()).thenReturn(metaData);
+        ResultSet boundsResultSet = Mockito.mock(ResultSet.class, Mockito.RETURNS_DEEP_STUBS);
+        when(boundsResultSet.getMetaData().getColumnCount()).thenReturn(2);
+        // labels are compared ignoring case, as databases fold unquoted aliases
+        when(boundsResultSet.getMetaData().getColumnLabel(1)).thenReturn("JDBC_SUB_SPLIT_MIN");
+        when(boundsResultSet.getMetaData().getColumnLabel(2)).thenReturn("JDBC_SUB_SPLIT_MAX");
+        when(boundsResultSet.getMetaData().getColumnType(1)).thenReturn(Types.INTEGER);
+        when(boundsResultSet.next()).thenReturn(true);
+        when(boundsResultSet.getInt(1)).thenReturn(100);
+        when(boundsResultSet.getInt(2)).thenReturn(199);
+        when(this.preparedStatement.executeQuery()).thenReturn(boundsResultSet);
+        List<Split> boundsSplits = new java.util.ArrayList<>();
+        JdbcRecordHandler handler = new JdbcRecordHandler(this.amazonS3, this.secretsManager, this.athena,
+                new DatabaseConnectionConfig(TEST_CATALOG, "fakedatabase", CONNECTION_STRING, TEST_SECRET), this.jdbcConnectionFactory,
+                com.google.common.collect.ImmutableMap.of())
+        {
+            @Override
+            public PreparedStatement buildSplitSql(Connection jdbcConnection, String catalogName, TableName tableName, Schema schema, Constraints constraints, Split split)
+                    throws SQLException
+            {
+                boundsSplits.add(split);
+                return jdbcConnection.prepareStatement(TEST_SQL);
+            }
+        };
+        Schema fieldSchema = SchemaBuilder.newBuilder()
+                .addField(FieldBuilder.newBuilder("id", org.apache.arrow.vector.types.Types.MinorType.INT.getType()).build())
+                .build();
+        Constraints constraints = new Constraints(Collections.emptyMap(), Collections.emptyList(), Collections.emptyList(),
+                Constraints.DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+        Split split = Split.newBuilder(S3SpillLocation.newBuilder().withIsDirectory(true).build(), null)
+                .add(TEST_PARTITION_COL, TEST_PARTITION_VALUE).build();
+        ReadRecordsRequest readRecordsRequest = new ReadRecordsRequest(this.federatedIdentity, TEST_CATALOG, TEST_QUERY_ID,
+                new TableName(TEST_SCHEMA, TEST_TABLE), fieldSchema, split, constraints, 1024, 1024);
+
+        List<Map<String, String>> subSplits = handler.getSubSplits(this.connection, readRecordsRequest, 2);
+
+        // the bounds are queried through the split's own query, so they stay within its partition
+        Assert.assertEquals(1, boundsSplits.size());
+        Assert.assertEquals("id", boundsSplits.get(0).getProperty(JdbcSplitQueryBuilder.SUB_SPLIT_BOUNDS_COLUMN));
+        Assert.assertEquals(TEST_PARTITION_VALUE, boundsSplits.get(0).getProperty(TEST_PARTITION_COL));
+        Assert.assertEquals(Arrays.asList(
+                com.google.common.collect.ImmutableMap.of(JdbcSplitQueryBuilder.SUB_SPLIT_COLUMN, "id", JdbcSplitQueryBuilder.SUB_SPLIT_LOW, "100", JdbcSplitQueryBuilder.SUB_SPLIT_HIGH, "149"),
+                com.google.common.collect.ImmutableMap.of(JdbcSplitQueryBuilder.SUB_SPLIT_COLUMN, "id", JdbcSplitQueryBuilder.SUB_SPLIT_LOW, "150", JdbcSplitQueryBuilder.SUB_SPLIT_HIGH, "199")), subSplits);
+
+        // a query builder which ignores the bounds column returns the rows of the split, which aren't bounds
+        when(boundsResultSet.getMetaData().getColumnCount()).thenReturn(1);
+        ResultSet morePrimaryKeys = mockResultSet(new String[] {"COLUMN_NAME"}, new Object[][] {{"id"}}, new AtomicInteger(-1));
+        when(metaData.getPrimaryKeys(null, TEST_SCHEMA, TEST_TABLE)).thenReturn(morePrimaryKeys);
+        Assert.assertTrue(handler.getSubSplits(this.connection, readRecordsRequest, 2).isEmpty());
+    }
+
+    @Test
+    public void getSubSplitsIgnoredBoundsColumnWithTwoColumnProjection()
+            throws Exception
+    {
+        DatabaseMetaData metaData = Mockito.mock(DatabaseMetaData.class);
+        ResultSet primaryKeys = mockResultSet(new String[] {"COLUMN_NAME"}, new Object[][] {{"id"}}, new AtomicInteger(-1));
+        when(metaData.getPrimaryKeys(null, TEST_SCHEMA, TEST_TABLE)).thenReturn(primaryKeys);
+        when(this.connection.getMetaData()).thenReturn(metaData);
+        // a query builder which ignores the bounds column returns the split's rows, here two integer columns
+        ResultSet rowsResultSet = Mockito.mock(ResultSet.class, Mockito.RETURNS_DEEP_STUBS);
+        when(rowsResultSet.getMetaData().getColumnCount()).thenReturn(2);
+        when(rowsResultSet.getMetaData().getColumnLabel(1)).thenReturn("id");
+        when(rowsResultSet.getMetaData().getColumnLabel(2)).thenReturn("quantity");
+        when(rowsResultSet.getMetaData().getColumnType(1)).thenReturn(Types.INTEGER);
+        when(rowsResultSet.next()).thenReturn(true);
+        when(rowsResultSet.getInt(1)).thenReturn(100);
+        when(rowsResultSet.getInt(2)).thenReturn(199);
+        when(this.preparedStatement.executeQuery()).thenReturn(rowsResultSet);
+        JdbcRecordHandler handler = new JdbcRecordHandler(this.amazonS3, this.secretsManager, this.athena,
+                new DatabaseConnectionConfig(TEST_CATALOG, "fakedatabase", CONNECTION_STRING, TEST_SECRET), this.jdbcConnectionFactory,
+                com.google.common.collect.ImmutableMap.of())
+        {
+            @Override
+            public PreparedStatement buildSplitSql(Connection jdbcConnection, String catalogName, TableName tableName, Schema schema, Constraints constraints, Split split)
+                    throws SQLException
+            {
+                return jdbcConnection.prepareStatement(TEST_SQL);
+            }
+        };
+        Schema fieldSchema = SchemaBuilder.newBuilder()
+                .addField(FieldBuilder.newBuilder("id", org.apache.arrow.vector.types.Types.MinorType.INT.getType()).build())
+                .addField(FieldBuilder.newBuilder("quantity", org.apache.arrow.vector.types.Types.MinorType.INT.getType()).build())
+                .build();
+        Constraints constraints = new Constraints(Collections.emptyMap(), Collections.emptyList(), Collections.emptyList(),
+                Constraints.DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+        ReadRecordsRequest readRecordsRequest = new ReadRecordsRequest(this.federatedIdentity, TEST_CATALOG, TEST_QUERY_ID,
+                new TableName(TEST_SCHEMA, TEST_TABLE), fieldSchema, Split.newBuilder(S3SpillLocation.newBuilder().withIsDirectory(true).build(), null).build(),
+                constraints, 1024, 1024);
+
+        // the first row must not be taken for bounds, sub-splits of [100, 199] would drop the split's other rows
+        Assert.assertTrue(handler.getSubSplits(this.connection, readRecordsRequest, 2).isEmpty());
+    }
+
     @Test
     public void makeExtractor()
             throws Exception
@@ -85,10 +85,15 @@ import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
 import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.atMost;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.never;
 import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -184,6 +189,29 @@ public class JdbcSplitQueryBuilderTest
         verify(mockConnection).prepareStatement(contains("SELECT \"" + TEST_COL1 + "\""));
     }
 
+    @Test
+    public void testBuildSql_WithSubSplitBounds() throws SQLException
+    {
+        when(split.getProperty(JdbcSplitQueryBuilder.SUB_SPLIT_COLUMN)).thenReturn("id");
+        when(split.getProperty(JdbcSplitQueryBuilder.SUB_SPLIT_LOW)).thenReturn("0");
+        when(split.getProperty(JdbcSplitQueryBuilder.SUB_SPLIT_HIGH)).thenReturn("99");
+
+        builder.buildSql(mockConnection, TEST_CATALOG, TEST_SCHEMA, TEST_TABLE, schema, constraints, split);
+        verify(mockConnection).prepareStatement(contains("\"" + TEST_PARTITION_COL + "\" = '" + TEST_PARTITION_VALUE + "' AND (\"id\" >= ? AND \"id\" <= ?)"));
+        verify(mockStatement).setLong(1, 0L);
+        verify(mockStatement).setLong(2, 99L);
+    }
+
+    @Test
+    public void testBuildSql_WithSubSplitBoundsColumn() throws SQLException
+    {
+        when(split.getProperty(JdbcSplitQueryBuilder.SUB_SPLIT_BOUNDS_COLUMN)).thenReturn("id");
+
+        builder.buildSql(mockConnection, TEST_CATALOG, TEST_SCHEMA, TEST_TABLE, schema, constraints, split);
+        verify(mockConnection).prepareStatement(contains("SELECT MIN(\"id\") AS jdbc_sub_split_min, MAX(\"id\") AS jdbc_sub_split_max FROM \"" + TEST_SCHEMA + "\".\"" + TEST_TABLE
+                + "\" WHERE \"" + TEST_PARTITION_COL + "\" = '" + TEST_PARTITION_VALUE + "'"));
+    }
+
     @Test
     public void testExtractOrderByClause_AscNullsFirst()
     {
@@ -1403,4 +1431,96 @@ public class JdbcSplitQueryBuilderTest
                 + "FROM `tpch`.`lineitem`\n"
                 + "WHERE `l_returnflag` = ? AND \"partition_col\" = '2024'\n"
                 + "FETCH NEXT 50 ROWS ONLY", sql);    }
+
+    @Test
+    public void testPrepareStatementWithCalciteSql_ReusesParameterizedSqlAcrossSplits()
+            throws Exception
+    {
+        // SELECT * FROM "tpch"."lineitem" WHERE "l_returnflag" = 'R' LIMIT 50
+        String base64Plan = "ChsIARIXL2Z1bmN0aW9uc19ib29sZWFuLnlhbWwKHggCEhovZnVuY3Rpb25zX2NvbXBhcmlzb24ueWFtbBIOGgwIARoIYW5kOmJvb2wSFRoTCAIQARoNZXF1YWw6YW55X2FueRrUAxLRAwrOAxrLAwoCCgASwAMSvQMKAgoAEvkCCvYCCgIKABLdAgoKbF9vcmRlcmtleQoJbF9wYXJ0a2V5CglsX3N1cHBrZXkKDGxfbGluZW51bWJlcgoKbF9xdWFudGl0eQoPbF9leHRlbmRlZHByaWNlCgpsX2Rpc2NvdW50CgVsX3RheAoMbF9yZXR1cm5mbGFnCgxsX2xpbmVzdGF0dXMKCmxfc2hpcGRhdGUKDGxfY29tbWl0ZGF0ZQoNbF9yZWNlaXB0ZGF0ZQoObF9zaGlwaW5zdHJ1Y3QKCmxfc2hpcG1vZGUKCWxfY29tbWVudAoOcGFydGl0aW9uX25hbWUSfwoEKgIQAQoEKgIQAQoEKgIQAQoEKgIQAQoJwgEGCAIQDyABCgnCAQYIAhAPIAEKCcIBBggCEA8gAQoJwgEGCAIQDyABCgRiAhABCgRiAhABCgWCAQIQAQoFggECEAEKBYIBAhABCgRiAhABCgRiAhABCgRiAhABCgRiAhABGAI6EAoEdHBjaAoIbGluZWl0ZW0aOxo5GgQKAhABIiYaJBoiCAEaBAoCEAEiDBoKEggKBBICCAgiACIKGggKBmIBUpADASIJGgcKBQgBkAMBGAAgMg==";
+
+        QueryPlan queryPlan = mock(QueryPlan.class);
+        Constraints constraintsWithQueryPlan = mock(Constraints.class);
+        when(queryPlan.getSubstraitPlan()).thenReturn(base64Plan);
+        when(constraintsWithQueryPlan.getQueryPlan()).thenReturn(queryPlan);
+
+        JdbcSplitQueryBuilder splitAwareBuilder = new JdbcSplitQueryBuilder(QUOTE_CHAR, expressionParser)
+        {
+            @Override
+            protected String getFromClauseWithSplit(String catalog, String schema, String table, Split split)
+            {
+                return " FROM \"" + schema + "\".\"" + table + "\"";
+            }
+
+            @Override
+            protected List<String> getPartitionWhereClauses(Split split)
+            {
+                return Collections.singletonList("\"" + TEST_PARTITION_COL + "\" = '" + split.getProperty(TEST_PARTITION_COL) + "'");
+            }
+        };
+        Split split1 = mock(Split.class);
+        when(split1.getProperty(TEST_PARTITION_COL)).thenReturn("p0");
+        Split split2 = mock(Split.class);
+        when(split2.getProperty(TEST_PARTITION_COL)).thenReturn("p1");
+
+        try (MockedStatic<SubstraitSqlUtils> substraitSqlUtils = mockStatic(SubstraitSqlUtils.class, CALLS_REAL_METHODS)) {
+            splitAwareBuilder.prepareStatementWithCalciteSql(mockConnection, constraintsWithQueryPlan, AnsiSqlDialect.DEFAULT, split1);
+            splitAwareBuilder.prepareStatementWithCalciteSql(mockConnection, constraintsWithQueryPlan, AnsiSqlDialect.DEFAULT, split2);
+
+            // the plan is converted at most once, other tests may already have cached it
+            substraitSqlUtils.verify(() -> SubstraitSqlUtils.getSqlNodeFromSubstraitPlan(anyString(), any()), atMost(1));
+        }
+
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(mockConnection, times(2)).prepareStatement(sqlCaptor.capture());
+        assertEquals("SELECT *\n"
+                + "FROM `tpch`.`lineitem`\n"
+                + "WHERE `l_returnflag` = ? AND \"partition_col\" = 'p0'\n"
+                + "FETCH NEXT 50 ROWS ONLY", sqlCaptor.getAllValues().get(0));
+        assertEquals("SELECT *\n"
+                + "FROM `tpch`.`lineitem`\n"
+                + "WHERE `l_returnflag` = ? AND \"partition_col\" = 'p1'\n"
+                + "FETCH NEXT 50 ROWS ONLY", sqlCaptor.getAllValues().get(1));
+        verify(mockStatement, times(2)).setString(1, "R");
+    }
+
+    @Test
+    public void testPrepareStatementWithCalciteSql_BindsSubSplitBounds()
+            throws Exception
+    {
+        // SELECT * FROM "tpch"."lineitem" WHERE "l_returnflag" = 'R' LIMIT 50
+        String base64Plan = "ChsIARIXL2Z1bmN0aW9uc19ib29sZWFuLnlhbWwKHggCEhovZnVuY3Rpb25zX2NvbXBhcmlzb24ueWFtbBIOGgwIARoIYW5kOmJvb2wSFRoTCAIQARoNZXF1YWw6YW55X2FueRrUAxLRAwrOAxrLAwoCCgASwAMSvQMKAgoAEvkCCvYCCgIKABLdAgoKbF9vcmRlcmtleQoJbF9wYXJ0a2V5CglsX3N1cHBrZXkKDGxfbGluZW51bWJlcgoKbF9xdWFudGl0eQoPbF9leHRlbmRlZHByaWNlCgpsX2Rpc2NvdW50CgVsX3RheAoMbF9yZXR1cm5mbGFnCgxsX2xpbmVzdGF0dXMKCmxfc2hpcGRhdGUKDGxfY29tbWl0ZGF0ZQoNbF9yZWNlaXB0ZGF0ZQoObF9zaGlwaW5zdHJ1Y3QKCmxfc2hpcG1vZGUKCWxfY29tbWVudAoOcGFydGl0aW9uX25hbWUSfwoEKgIQAQoEKgIQAQoEKgIQAQoEKgIQAQoJwgEGCAIQDyABCgnCAQYIAhAPIAEKCcIBBggCEA8gAQoJwgEGCAIQDyABCgRiAhABCgRiAhABCgWCAQIQAQoFggECEAEKBYIBAhABCgRiAhABCgRiAhABCgRiAhABCgRiAhABGAI6EAoEdHBjaAoIbGluZWl0ZW0aOxo5GgQKAhABIiYaJBoiCAEaBAoCEAEiDBoKEggKBBICCAgiACIKGggKBmIBUpADASIJGgcKBQgBkAMBGAAgMg==";
+
+        QueryPlan queryPlan = mock(QueryPlan.class);
+        Constraints constraintsWithQueryPlan = mock(Constraints.class);
+        when(queryPlan.getSubstraitPlan()).thenReturn(base64Plan);
+        when(constraintsWithQueryPlan.getQueryPlan()).thenReturn(queryPlan);
+        Split lowSubSplit = mock(Split.class);
+        when(lowSubSplit.getProperty(JdbcSplitQueryBuilder.SUB_SPLIT_COLUMN)).thenReturn("l_orderkey");
+        when(lowSubSplit.getProperty(JdbcSplitQueryBuilder.SUB_SPLIT_LOW)).thenReturn("0");
+        when(lowSubSplit.getProperty(JdbcSplitQueryBuilder.SUB_SPLIT_HIGH)).thenReturn("99");
+        Split highSubSplit = mock(Split.class);
+        when(highSubSplit.getProperty(JdbcSplitQueryBuilder.SUB_SPLIT_COLUMN)).thenReturn("l_orderkey");
+        when(highSubSplit.getProperty(JdbcSplitQueryBuilder.SUB_SPLIT_LOW)).thenReturn("100");
+        when(highSubSplit.getProperty(JdbcSplitQueryBuilder.SUB_SPLIT_HIGH)).thenReturn("199");
+        PreparedStatement highStatement = mock(PreparedStatement.class);
+        when(mockConnection.prepareStatement(anyString())).thenReturn(mockStatement, highStatement);
+
+        builder.prepareStatementWithCalciteSql(mockConnection, constraintsWithQueryPlan, AnsiSqlDialect.DEFAULT, lowSubSplit);
+        builder.prepareStatementWithCalciteSql(mockConnection, constraintsWithQueryPlan, AnsiSqlDialect.DEFAULT, highSubSplit);
+
+        // the sub-splits differ only in their bound values, so they share the statement text
+        ArgumentCaptor<String> sqlCaptor = ArgumentCaptor.forClass(String.class);
+        verify(mockConnection, times(2)).prepareStatement(sqlCaptor.capture());
+        assertEquals("SELECT *\n"
+                + "FROM `tpch`.`lineitem`\n"
+                + "WHERE `l_returnflag` = ? AND \"partition_col\" = '2024' AND (\"l_orderkey\" >= ? AND \"l_orderkey\" <= ?)\n"
+                + "FETCH NEXT 50 ROWS ONLY", sqlCaptor.getAllValues().get(0));
+        assertEquals(sqlCaptor.getAllValues().get(0), sqlCaptor.getAllValues().get(1));
+        verify(mockStatement).setString(eq(1), anyString());
+        verify(mockStatement).setLong(2, 0L);
+        verify(mockStatement).setLong(3, 99L);
+        verify(highStatement).setLong(2, 100L);
+        verify(highStatement).setLong(3, 199L);
+    }
 }
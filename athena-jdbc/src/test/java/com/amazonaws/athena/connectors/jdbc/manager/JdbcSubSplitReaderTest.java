@@ -0,0 +1,175 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.manager;
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.BlockUtils;
+import com.amazonaws.athena.connector.lambda.data.BlockWriter;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.google.common.collect.ImmutableMap;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+public class JdbcSubSplitReaderTest
+{
+    private static final String COL_ID = "id";
+
+    private BlockAllocatorImpl allocator;
+    private Schema schema;
+    private Block spilledBlock;
+    private BlockSpiller blockSpiller;
+
+    @Before
+    public void setup()
+    {
+        allocator = new BlockAllocatorImpl();
+        schema = SchemaBuilder.newBuilder().addField(COL_ID, Types.MinorType.INT.getType()).build();
+        spilledBlock = allocator.createBlock(schema);
+        blockSpiller = Mockito.mock(BlockSpiller.class);
+        // mirrors S3BlockSpiller, which is not safe to write from more than one thread at a time
+        doAnswer(invocation -> {
+            BlockWriter.RowWriter rowWriter = invocation.getArgument(0);
+            int rowCount = spilledBlock.getRowCount();
+            int rows = rowWriter.writeRows(spilledBlock, rowCount);
+            if (rows > 0) {
+                spilledBlock.setRowCount(rowCount + rows);
+            }
+            return null;
+        }).when(blockSpiller).writeRows(any());
+    }
+
+    @After
+    public void tearDown()
+    {
+        allocator.close();
+    }
+
+    @Test
+    public void fromConfig()
+    {
+        Assert.assertFalse(JdbcSubSplitReader.fromConfig(null).isEnabled());
+        Assert.assertFalse(JdbcSubSplitReader.fromConfig(ImmutableMap.of()).isEnabled());
+        JdbcSubSplitReader reader = JdbcSubSplitReader.fromConfig(ImmutableMap.of(JdbcSubSplitReader.SUB_SPLIT_PARALLELISM, "8"));
+        Assert.assertTrue(reader.isEnabled());
+        Assert.assertEquals(8, reader.getParallelism());
+    }
+
+    @Test
+    public void readMergesSubSplitsIntoSpiller()
+            throws Exception
+    {
+        // the first two sub-splits overflow their staging blocks
+        List<int[]> subSplits = Arrays.asList(new int[] {0, 1500}, new int[] {1500, 3000}, new int[] {3000, 3100});
+        JdbcSubSplitReader reader = new JdbcSubSplitReader(3, 2);
+        reader.read("merge", subSplits, schema, blockSpiller, this::writeRange);
+
+        Assert.assertEquals(3100, spilledBlock.getRowCount());
+        IntVector ids = (IntVector) spilledBlock.getFieldVector(COL_ID);
+        Set<Integer> values = new HashSet<>();
+        for (int i = 0; i < spilledBlock.getRowCount(); i++) {
+            values.add(ids.get(i));
+        }
+        Assert.assertEquals(3100, values.size());
+        Assert.assertEquals(2, reader.getAvailablePermits("merge"));
+    }
+
+    @Test
+    public void readBoundsConcurrencyPerSource()
+            throws Exception
+    {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        List<int[]> subSplits = Arrays.asList(new int[] {0, 10}, new int[] {10, 20}, new int[] {20, 30}, new int[] {30, 40});
+        new JdbcSubSplitReader(4, 2).read("bounded", subSplits, schema, blockSpiller, (int[] range, BlockWriter blockWriter) -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            Thread.sleep(50);
+            writeRange(range, blockWriter);
+            active.decrementAndGet();
+        });
+
+        Assert.assertEquals(40, spilledBlock.getRowCount());
+        Assert.assertTrue(maxActive.get() <= 2);
+    }
+
+    @Test
+    public void readRethrowsSubSplitFailure()
+    {
+        List<int[]> subSplits = Arrays.asList(new int[] {0, 10}, new int[] {10, 20});
+        JdbcSubSplitReader reader = new JdbcSubSplitReader(2, 2);
+        try {
+            reader.read("failing", subSplits, schema, blockSpiller, (int[] range, BlockWriter blockWriter) -> {
+                if (range[0] == 10) {
+                    throw new IllegalStateException("connection reset");
+                }
+                writeRange(range, blockWriter);
+            });
+            Assert.fail("Expected the sub-split failure to be rethrown");
+        }
+        catch (Exception ex) {
+            Assert.assertTrue(ex instanceof IllegalStateException);
+            Assert.assertEquals("connection reset", ex.getMessage());
+        }
+        Assert.assertEquals(2, reader.getAvailablePermits("failing"));
+    }
+
+    @Test
+    public void readBoundsConcurrencyPerMaxConcurrency()
+            throws Exception
+    {
+        List<int[]> subSplits = Arrays.asList(new int[] {0, 10}, new int[] {10, 20});
+        JdbcSubSplitReader serialReader = new JdbcSubSplitReader(2, 1);
+        JdbcSubSplitReader concurrentReader = new JdbcSubSplitReader(2, 3);
+        serialReader.read("shared", subSplits, schema, blockSpiller, this::writeRange);
+        concurrentReader.read("shared", subSplits, schema, blockSpiller, this::writeRange);
+
+        // the first reader of a source doesn't size the permits of readers configured differently
+        Assert.assertEquals(40, spilledBlock.getRowCount());
+        Assert.assertEquals(1, serialReader.getAvailablePermits("shared"));
+        Assert.assertEquals(3, concurrentReader.getAvailablePermits("shared"));
+    }
+
+    private void writeRange(int[] range, BlockWriter blockWriter)
+    {
+        for (int i = range[0]; i < range[1]; i++) {
+            int value = i;
+            blockWriter.writeRows((Block block, int rowNum) -> {
+                BlockUtils.setValue(block.getFieldVector(COL_ID), rowNum, value);
+                return 1;
+            });
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.splits;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class HistogramSplitterTest
+{
+    private static final String TEST_COLUMN_NAME = "testColumn";
+
+    @Test
+    public void splitStrings()
+    {
+        HistogramSplitter splitter = new HistogramSplitter(TEST_COLUMN_NAME, Types.VARCHAR, Arrays.asList("a", "c", "f", "k", "p"), 4);
+        Assert.assertEquals(4, splitter.getNumSplits());
+        Assert.assertEquals(Arrays.asList("(testColumn < 'c')", "(testColumn >= 'c' AND testColumn < 'f')",
+                "(testColumn >= 'f' AND testColumn < 'k')", "(testColumn >= 'k')"), clauses(splitter));
+    }
+
+    @Test
+    public void downsamplesBounds()
+    {
+        List<String> bounds = new ArrayList<>();
+        for (int i = 0; i <= 100; i++) {
+            bounds.add(String.valueOf(i * 10));
+        }
+        HistogramSplitter splitter = new HistogramSplitter(TEST_COLUMN_NAME, Types.BIGINT, bounds, 4);
+        Assert.assertEquals(Arrays.asList(new SplitRange<>(null, "250"), new SplitRange<>("250", "500"),
+                new SplitRange<>("500", "750"), new SplitRange<>("750", null)), ImmutableList.copyOf(splitter));
+    }
+
+    @Test
+    public void collapsesSkewedBounds()
+    {
+        HistogramSplitter splitter = new HistogramSplitter(TEST_COLUMN_NAME, Types.INTEGER, Arrays.asList("1", "7", "7", "7", "7", "9"), 5);
+        Assert.assertEquals(Arrays.asList("(testColumn < 7)", "(testColumn >= 7)"), clauses(splitter));
+    }
+
+    @Test
+    public void escapesLiterals()
+    {
+        HistogramSplitter splitter = new HistogramSplitter(TEST_COLUMN_NAME, Types.VARCHAR, Arrays.asList("a", "o'neil", "z"), 2);
+        Assert.assertEquals(Arrays.asList("(testColumn < 'o''neil')", "(testColumn >= 'o''neil')"), clauses(splitter));
+    }
+
+    @Test
+    public void tooFewBounds()
+    {
+        HistogramSplitter splitter = new HistogramSplitter(TEST_COLUMN_NAME, Types.DATE, Arrays.asList("2020-01-01", "2021-01-01"), 10);
+        Assert.assertEquals(1, splitter.getNumSplits());
+        Assert.assertEquals(Collections.singletonList("(1 = 1)"), clauses(splitter));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void invalidNumericBounds()
+    {
+        new HistogramSplitter(TEST_COLUMN_NAME, Types.DECIMAL, Arrays.asList("1", "1; drop table x", "3"), 2);
+    }
+
+    private static List<String> clauses(Splitter splitter)
+    {
+        List<String> clauses = new ArrayList<>();
+        while (splitter.hasNext()) {
+            clauses.add(splitter.nextRangeClause());
+        }
+        return clauses;
+    }
+}
@@ -0,0 +1,97 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.splits;
+
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.domain.predicate.EquatableValueSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Optional;
+
+public class KeyRangeConstraintTest
+{
+    private BlockAllocatorImpl allocator;
+
+    @Before
+    public void setup()
+    {
+        allocator = new BlockAllocatorImpl();
+    }
+
+    @After
+    public void tearDown()
+    {
+        allocator.close();
+    }
+
+    @Test
+    public void boundedRange()
+    {
+        ArrowType type = Types.MinorType.INT.getType();
+        KeyRangeConstraint constraint = KeyRangeConstraint.fromValueSet(
+                SortedRangeSet.of(false, Range.range(allocator, type, 1000, true, 2000, false), Collections.emptyList())).get();
+        Assert.assertEquals(java.sql.Types.INTEGER, constraint.getColumnType());
+        Assert.assertEquals(Optional.of(new SplitRange<>(1000L, 1999L)), constraint.getBoundedSpan());
+        Assert.assertTrue(constraint.overlaps(new SplitRange<>(1500, 3000), true));
+        Assert.assertFalse(constraint.overlaps(new SplitRange<>(2000, 3000), true));
+        Assert.assertFalse(constraint.overlaps(new SplitRange<>(1, 999), true));
+        Assert.assertFalse(constraint.overlaps(new SplitRange<>(null, "1000"), false));
+        Assert.assertTrue(constraint.overlaps(new SplitRange<>(null, "1001"), false));
+    }
+
+    @Test
+    public void multipleRanges()
+    {
+        ArrowType type = Types.MinorType.BIGINT.getType();
+        KeyRangeConstraint constraint = KeyRangeConstraint.fromValueSet(
+                SortedRangeSet.of(false, Range.lessThanOrEqual(allocator, type, 10L),
+                        Collections.singletonList(Range.greaterThan(allocator, type, 100L)))).get();
+        Assert.assertEquals(java.sql.Types.BIGINT, constraint.getColumnType());
+        Assert.assertFalse(constraint.getBoundedSpan().isPresent());
+        Assert.assertTrue(constraint.overlaps(new SplitRange<>(5L, 20L), true));
+        Assert.assertFalse(constraint.overlaps(new SplitRange<>(11L, 100L), true));
+        Assert.assertTrue(constraint.overlaps(new SplitRange<>("50", null), false));
+    }
+
+    @Test
+    public void unsupportedConstraints()
+    {
+        Assert.assertFalse(KeyRangeConstraint.fromValueSet(
+                SortedRangeSet.of(Range.equal(allocator, Types.MinorType.VARCHAR.getType(), "a"))).isPresent());
+        Assert.assertFalse(KeyRangeConstraint.fromValueSet(
+                EquatableValueSet.newBuilder(allocator, Types.MinorType.INT.getType(), true, false).add(1).build()).isPresent());
+    }
+
+    @Test
+    public void nonIntegerRangesAreKept()
+    {
+        KeyRangeConstraint constraint = KeyRangeConstraint.fromValueSet(
+                SortedRangeSet.of(Range.equal(allocator, Types.MinorType.INT.getType(), 5))).get();
+        Assert.assertTrue(constraint.overlaps(new SplitRange<>("a", "b"), false));
+    }
+}
@@ -0,0 +1,61 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.splits;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class LongSplitterTest
+{
+    @Test
+    public void splitTest()
+    {
+        LongSplitter splitter = new LongSplitter(new SplitInfo<>(new SplitRange<>(1L, 10L), "testColumn", Types.BIGINT, 4));
+        Assert.assertEquals(Arrays.asList(new SplitRange<>(1L, 3L), new SplitRange<>(4L, 6L), new SplitRange<>(7L, 8L), new SplitRange<>(9L, 10L)),
+                ImmutableList.copyOf(splitter));
+    }
+
+    @Test
+    public void fewerValuesThanSplits()
+    {
+        LongSplitter splitter = new LongSplitter(new SplitInfo<>(new SplitRange<>(1L, 2L), "testColumn", Types.BIGINT, 10));
+        Assert.assertEquals(Arrays.asList(new SplitRange<>(1L, 1L), new SplitRange<>(2L, 2L)), ImmutableList.copyOf(splitter));
+    }
+
+    @Test
+    public void upperBoundOfDomain()
+    {
+        LongSplitter splitter = new LongSplitter(new SplitInfo<>(new SplitRange<>(Long.MAX_VALUE - 3, Long.MAX_VALUE), "testColumn", Types.BIGINT, 2));
+        Assert.assertEquals(Arrays.asList(new SplitRange<>(Long.MAX_VALUE - 3, Long.MAX_VALUE - 2), new SplitRange<>(Long.MAX_VALUE - 1, Long.MAX_VALUE)),
+                ImmutableList.copyOf(splitter));
+    }
+
+    @Test
+    public void singleValue()
+    {
+        LongSplitter splitter = new LongSplitter(new SplitInfo<>(new SplitRange<>(5L, 5L), "testColumn", Types.BIGINT, 3));
+        Assert.assertEquals(Collections.singletonList(new SplitRange<>(5L, 5L)), ImmutableList.copyOf(splitter));
+    }
+}
@@ -0,0 +1,177 @@
+/*-
+ * #%L
+ * athena-jdbc
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.jdbc.splits;
+
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.EquatableValueSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
+import com.google.common.collect.ImmutableMap;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
+
+public class PartitionPrunerTest
+{
+    private BlockAllocatorImpl allocator;
+
+    @Before
+    public void setup()
+    {
+        allocator = new BlockAllocatorImpl();
+    }
+
+    @After
+    public void tearDown()
+    {
+        allocator.close();
+    }
+
+    @Test
+    public void rangePartitionsOnInteger()
+    {
+        ArrowType type = Types.MinorType.INT.getType();
+        PartitionPruner pruner = PartitionPruner.fromValueSet(
+                SortedRangeSet.of(false, Range.range(allocator, type, 100, true, 200, false), Collections.emptyList())).get();
+        // VALUES LESS THAN semantics, [low, high)
+        Assert.assertFalse(pruner.overlapsRange(null, true, "100", false));
+        Assert.assertTrue(pruner.overlapsRange("100", true, "150", false));
+        Assert.assertTrue(pruner.overlapsRange("150", true, "MAXVALUE", false));
+        Assert.assertFalse(pruner.overlapsRange("200", true, "MAXVALUE", false));
+        // RANGE LEFT semantics, (low, high]
+        Assert.assertFalse(pruner.overlapsRange(null, false, "99", true));
+        Assert.assertTrue(pruner.overlapsRange("99", false, "100", true));
+        Assert.assertFalse(pruner.overlapsRange("200", false, "300", true));
+    }
+
+    @Test
+    public void equalityOnDate()
+    {
+        ArrowType type = Types.MinorType.DATEDAY.getType();
+        int day = (int) LocalDate.of(2024, 1, 15).toEpochDay();
+        PartitionPruner pruner = PartitionPruner.fromValueSet(
+                SortedRangeSet.of(false, Range.equal(allocator, type, day), Collections.emptyList())).get();
+        Assert.assertTrue(pruner.overlapsRange("TO_DATE(' 2024-01-01 00:00:00', 'SYYYY-MM-DD HH24:MI:SS', 'NLS_CALENDAR=GREGORIAN')", true,
+                "TO_DATE(' 2024-02-01 00:00:00', 'SYYYY-MM-DD HH24:MI:SS', 'NLS_CALENDAR=GREGORIAN')", false));
+        Assert.assertFalse(pruner.overlapsRange("'2023-12-01'", true, "'2024-01-01'", false));
+        Assert.assertFalse(pruner.overlapsRange("'2024-02-01'::date", true, "MAXVALUE", false));
+        Assert.assertTrue(pruner.overlapsRange("MINVALUE", true, "'2024-01-15 00:00:00+00'", true));
+        Assert.assertFalse(pruner.overlapsRange("MINVALUE", true, "'2024-01-15 00:00:00+00'", false));
+    }
+
+    @Test
+    public void timestampRange()
+    {
+        ArrowType type = Types.MinorType.DATEMILLI.getType();
+        PartitionPruner pruner = PartitionPruner.fromValueSet(SortedRangeSet.of(false,
+                Range.greaterThanOrEqual(allocator, type, LocalDateTime.of(2024, 3, 1, 12, 0)), Collections.emptyList())).get();
+        Assert.assertFalse(pruner.overlapsRange("2024-02-01 00:00:00.000", true, "2024-03-01 00:00:00.000", false));
+        Assert.assertTrue(pruner.overlapsRange("2024-03-01", true, "2024-04-01", false));
+    }
+
+    @Test
+    public void timestampRangeWithZoneOffset()
+    {
+        ArrowType type = Types.MinorType.DATEMILLI.getType();
+        // constraint values are UTC, e.g. ts >= TIMESTAMP '2024-01-01 03:00:00'
+        PartitionPruner pruner = PartitionPruner.fromValueSet(SortedRangeSet.of(false,
+                Range.greaterThanOrEqual(allocator, type, LocalDateTime.of(2024, 1, 1, 3, 0)), Collections.emptyList())).get();
+        // timestamptz bounds rendered in a UTC-5 session, the partition ends at 2024-01-01 05:00 UTC
+        Assert.assertTrue(pruner.overlapsRange("'2023-12-01 00:00:00-05'::timestamp with time zone", true,
+                "'2024-01-01 00:00:00-05'::timestamp with time zone", false));
+        Assert.assertFalse(pruner.overlapsRange("'2023-12-01 00:00:00+05:30'", true, "'2024-01-01 00:00:00+05:30'", false));
+        Assert.assertTrue(pruner.overlapsRange("'2023-12-01 00:00:00Z'", true, "'2024-01-01 03:00:00Z'", true));
+        // an offset which can't be read keeps the partition
+        Assert.assertTrue(pruner.overlapsRange("'2023-12-01 00:00:00+99'", true, "'2023-12-02 00:00:00+99'", false));
+    }
+
+    @Test
+    public void listPartitions()
+    {
+        ArrowType type = Types.MinorType.BIGINT.getType();
+        PartitionPruner pruner = PartitionPruner.fromValueSet(SortedRangeSet.of(false,
+                Range.equal(allocator, type, 3L), Collections.singletonList(Range.equal(allocator, type, 7L)))).get();
+        Assert.assertTrue(pruner.overlapsValues(PartitionPruner.splitValues("1, 2, 3")));
+        Assert.assertFalse(pruner.overlapsValues(PartitionPruner.splitValues("4,5,6")));
+        Assert.assertFalse(pruner.overlapsValues(PartitionPruner.splitValues("NULL")));
+        Assert.assertTrue(pruner.overlapsValues(PartitionPruner.splitValues("'7'")));
+    }
+
+    @Test
+    public void unparseableBoundsKeepPartition()
+    {
+        ArrowType type = Types.MinorType.INT.getType();
+        PartitionPruner pruner = PartitionPruner.fromValueSet(
+                SortedRangeSet.of(false, Range.equal(allocator, type, 5), Collections.emptyList())).get();
+        Assert.assertTrue(pruner.overlapsRange("to_days('2024-01-01')", true, "abc", false));
+        Assert.assertTrue(pruner.overlapsValues(Collections.singletonList("'x'")));
+    }
+
+    @Test
+    public void noPruner()
+    {
+        ArrowType intType = Types.MinorType.INT.getType();
+        // nulls may live in any partition
+        Assert.assertFalse(PartitionPruner.fromValueSet(
+                SortedRangeSet.of(true, Range.equal(allocator, intType, 5), Collections.emptyList())).isPresent());
+        // every value allowed
+        Assert.assertFalse(PartitionPruner.fromValueSet(SortedRangeSet.notNull(allocator, intType)).isPresent());
+        // string ordering is collation specific
+        ArrowType varchar = Types.MinorType.VARCHAR.getType();
+        Assert.assertFalse(PartitionPruner.fromValueSet(
+                SortedRangeSet.of(false, Range.equal(allocator, varchar, "a"), Collections.emptyList())).isPresent());
+        Assert.assertFalse(PartitionPruner.fromValueSet(
+                EquatableValueSet.newBuilder(allocator, intType, true, false).add(5).build()).isPresent());
+    }
+
+    @Test
+    public void forColumnIgnoresCase()
+    {
+        ArrowType type = Types.MinorType.INT.getType();
+        ValueSet valueSet = SortedRangeSet.of(false, Range.equal(allocator, type, 5), Collections.emptyList());
+        Constraints constraints = new Constraints(ImmutableMap.of("sale_id", valueSet), Collections.emptyList(),
+                Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+        Assert.assertTrue(PartitionPruner.forColumn(constraints, "SALE_ID").isPresent());
+        Assert.assertFalse(PartitionPruner.forColumn(constraints, "other").isPresent());
+    }
+
+    @Test
+    public void splitValues()
+    {
+        Assert.assertEquals(Arrays.asList("'a,b'", "'c'"), PartitionPruner.splitValues("'a,b', 'c'"));
+        Assert.assertEquals(Arrays.asList("TO_DATE('2024-01-01', 'YYYY-MM-DD')", "10"),
+                PartitionPruner.splitValues("TO_DATE('2024-01-01', 'YYYY-MM-DD'), 10"));
+        Assert.assertEquals(Collections.emptyList(), PartitionPruner.splitValues(" "));
+        Assert.assertNull(PartitionPruner.toBoundLiteral("MAXVALUE"));
+        Assert.assertEquals("2024-01-01 00:00:00", PartitionPruner.toBoundLiteral("TIMESTAMP' 2024-01-01 00:00:00'"));
+    }
+}
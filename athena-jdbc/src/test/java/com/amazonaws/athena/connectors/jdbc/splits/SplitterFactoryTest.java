@@ -27,6 +27,7 @@ import org.mockito.Mockito;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.Arrays;
 import java.util.Optional;
 
 public class SplitterFactoryTest
@@ -91,4 +92,31 @@ public class SplitterFactoryTest
         Mockito.when(resultSet.getMetaData().getColumnType(1)).thenReturn(Types.DECIMAL);
         Assert.assertFalse(splitterFactory.getSplitter(TEST_COLUMN_NAME, resultSet, MAX_SPLITS).isPresent());
     }
+
+    @Test
+    public void getBigintSplitter()
+            throws SQLException
+    {
+        Mockito.when(resultSet.getMetaData().getColumnType(1)).thenReturn(Types.BIGINT);
+        Mockito.when(resultSet.getLong(1)).thenReturn(1L);
+        Mockito.when(resultSet.getLong(2)).thenReturn(5_000_000_000L);
+        Optional<Splitter> splitter = splitterFactory.getSplitter(TEST_COLUMN_NAME, resultSet, MAX_SPLITS);
+        Assert.assertTrue(splitter.isPresent());
+        Assert.assertEquals(LongSplitter.class, splitter.get().getClass());
+        Assert.assertEquals("(testColumn >= 1 AND testColumn <= 500000000)", splitter.get().nextRangeClause());
+    }
+
+    @Test
+    public void getHistogramSplitter()
+    {
+        Optional<Splitter> splitter = splitterFactory.getSplitter(TEST_COLUMN_NAME, Types.TIMESTAMP,
+                Arrays.asList("2020-01-01 00:00:00", "2020-06-01 00:00:00", "2021-01-01 00:00:00"), MAX_SPLITS);
+        Assert.assertTrue(splitter.isPresent());
+        Assert.assertEquals(HistogramSplitter.class, splitter.get().getClass());
+        Assert.assertEquals("(testColumn < '2020-06-01 00:00:00')", splitter.get().nextRangeClause());
+
+        Assert.assertFalse(splitterFactory.getSplitter(TEST_COLUMN_NAME, Types.BLOB, Arrays.asList("a", "b", "c"), MAX_SPLITS).isPresent());
+        Assert.assertFalse(splitterFactory.getSplitter(TEST_COLUMN_NAME, Types.VARCHAR, Arrays.asList("a", "b"), MAX_SPLITS).isPresent());
+        Assert.assertFalse(splitterFactory.getSplitter(TEST_COLUMN_NAME, Types.DECIMAL, Arrays.asList("1", "1; drop table x", "3"), MAX_SPLITS).isPresent());
+    }
 }
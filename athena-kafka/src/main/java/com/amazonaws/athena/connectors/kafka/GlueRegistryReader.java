@@ -19,6 +19,7 @@
  */
 package com.amazonaws.athena.connectors.kafka;
 
+import com.amazonaws.athena.connector.lambda.metadata.MetadataCache;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import software.amazon.awssdk.services.glue.GlueClient;
@@ -29,6 +30,9 @@ import software.amazon.awssdk.services.glue.model.GetSchemaVersionResponse;
 import software.amazon.awssdk.services.glue.model.SchemaId;
 import software.amazon.awssdk.services.glue.model.SchemaVersionNumber;
 
+import java.util.Collections;
+import java.util.Map;
+
 public class GlueRegistryReader
 {
     private static final ObjectMapper objectMapper;
@@ -39,24 +43,69 @@ public class GlueRegistryReader
         objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
     }
 
+    // The latest schema version of each registry schema, see MetadataCache for the settings enabling it.
+    private final MetadataCache<SchemaId, GetSchemaVersionResponse> schemaVersionCache;
+    private GlueClient glueClient;
+
+    public GlueRegistryReader()
+    {
+        this(Collections.emptyMap());
+    }
+
+    /**
+     * @param configOptions The connector's config options, which configure the schema cache. Readers held by a
+     * handler serve the schemas of a warm Lambda's requests from the cache until its TTL expires.
+     */
+    public GlueRegistryReader(Map<String, String> configOptions)
+    {
+        this.schemaVersionCache = MetadataCache.fromConfig(configOptions);
+    }
+
     /**
-     * Fetch glue schema content for latest version
+     * Fetch glue schema content for latest version, served from the schema cache while it holds an entry for the
+     * schema.
      * @param glueRegistryName
      * @param glueSchemaName
      * @return
      */
     public GetSchemaVersionResponse getSchemaVersionResult(String glueRegistryName, String glueSchemaName)
     {
-        GlueClient glue = GlueClient.create();
-        SchemaId sid = SchemaId.builder().registryName(glueRegistryName).schemaName(glueSchemaName).build();
-        GetSchemaResponse schemaResponse = glue.getSchema(GetSchemaRequest.builder().schemaId(sid).build());
-        SchemaVersionNumber svn = SchemaVersionNumber.builder().versionNumber(schemaResponse.latestSchemaVersion()).build();
+        SchemaId sid = SchemaId.builder()
+                .registryName(glueRegistryName)
+                .schemaName(glueSchemaName)
+                .build();
+        try {
+            return schemaVersionCache.get(sid, () -> loadSchemaVersion(sid));
+        }
+        catch (RuntimeException ex) {
+            throw ex;
+        }
+        catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private GetSchemaVersionResponse loadSchemaVersion(SchemaId sid)
+    {
+        GlueClient glue = getGlueClient();
+        GetSchemaResponse schemaResult = glue.getSchema(GetSchemaRequest.builder().schemaId(sid).build());
+        SchemaVersionNumber svn = SchemaVersionNumber.builder()
+                .versionNumber(schemaResult.latestSchemaVersion())
+                .build();
         return glue.getSchemaVersion(GetSchemaVersionRequest.builder()
                 .schemaId(sid)
                 .schemaVersionNumber(svn)
                 .build()
         );
     }
+
+    private synchronized GlueClient getGlueClient()
+    {
+        if (glueClient == null) {
+            glueClient = GlueClient.create();
+        }
+        return glueClient;
+    }
     /**
      * fetch schema file content from glue schema.
      *
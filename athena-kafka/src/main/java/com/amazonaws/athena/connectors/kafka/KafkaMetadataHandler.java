@@ -25,6 +25,10 @@ import com.amazonaws.athena.connector.lambda.data.BlockWriter;
 import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
 import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Marker;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
 import com.amazonaws.athena.connector.lambda.domain.spill.SpillLocation;
 import com.amazonaws.athena.connector.lambda.handlers.MetadataHandler;
 import com.amazonaws.athena.connector.lambda.metadata.GetSplitsRequest;
@@ -47,7 +51,9 @@ import io.confluent.kafka.schemaregistry.protobuf.ProtobufSchema;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.arrow.vector.types.pojo.FieldType;
 import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
 import org.apache.kafka.common.TopicPartition;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -61,6 +67,7 @@ import software.amazon.awssdk.services.glue.model.RegistryListItem;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -70,7 +77,10 @@ import java.util.stream.Stream;
 
 import static com.amazonaws.athena.connector.lambda.metadata.ListTablesRequest.UNLIMITED_PAGE_SIZE_VALUE;
 import static com.amazonaws.athena.connectors.kafka.KafkaConstants.AVRO_DATA_FORMAT;
+import static com.amazonaws.athena.connectors.kafka.KafkaConstants.DEFAULT_MESSAGE_TIMESTAMP_MAX_SKEW_MS;
 import static com.amazonaws.athena.connectors.kafka.KafkaConstants.MAX_RECORDS_IN_SPLIT;
+import static com.amazonaws.athena.connectors.kafka.KafkaConstants.MESSAGE_TIMESTAMP_COLUMN;
+import static com.amazonaws.athena.connectors.kafka.KafkaConstants.MESSAGE_TIMESTAMP_MAX_SKEW_MS;
 import static com.amazonaws.athena.connectors.kafka.KafkaConstants.PROTOBUF_DATA_FORMAT;
 
 public class KafkaMetadataHandler extends MetadataHandler
@@ -81,6 +91,9 @@ public class KafkaMetadataHandler extends MetadataHandler
     private static final String REGISTRY_MARKER = "{AthenaFederationKafka}";
     private static final Logger LOGGER = LoggerFactory.getLogger(KafkaMetadataHandler.class);
     private final Consumer<String, String> kafkaConsumer;
+    private final GlueRegistryReader registryReader;
+    private final String messageTimestampColumn;
+    private final long messageTimestampMaxSkewMs;
 
     public KafkaMetadataHandler(java.util.Map<String, String> configOptions) throws Exception
     {
@@ -92,6 +105,13 @@ public class KafkaMetadataHandler extends MetadataHandler
     {
         super(KafkaConstants.KAFKA_SOURCE, configOptions);
         this.kafkaConsumer = kafkaConsumer;
+        this.registryReader = new GlueRegistryReader(configOptions);
+        this.messageTimestampColumn = StringUtils.trimToNull(configOptions.get(MESSAGE_TIMESTAMP_COLUMN));
+        this.messageTimestampMaxSkewMs = Long.parseLong(configOptions.getOrDefault(MESSAGE_TIMESTAMP_MAX_SKEW_MS,
+                String.valueOf(DEFAULT_MESSAGE_TIMESTAMP_MAX_SKEW_MS)).trim());
+        if (messageTimestampMaxSkewMs < 0) {
+            throw new IllegalArgumentException(MESSAGE_TIMESTAMP_MAX_SKEW_MS + " must not be negative but was " + messageTimestampMaxSkewMs);
+        }
     }
 
     private Stream<String> filteredRegistriesStream(Stream<RegistryListItem> registries)
@@ -315,6 +335,9 @@ public class KafkaMetadataHandler extends MetadataHandler
      * as well as the start and end offset indexes for each divided partition parts.
      * This information will be used in RecordHandler to initiate kafka consumer.
      *
+     * When the message timestamp column is configured and the query constrains it, only the offsets
+     * of each partition whose messages can match the constraint are split.
+     *
      * @param allocator - instance of {@link BlockAllocator}
      * @param request - instance of {@link GetSplitsRequest}
      * @return {@link GetSplitsResponse}
@@ -331,7 +354,6 @@ public class KafkaMetadataHandler extends MetadataHandler
         String glueRegistryName = request.getTableName().getSchemaName();
         String glueSchemaName = request.getTableName().getTableName();
         String topic;
-        GlueRegistryReader registryReader = new GlueRegistryReader();
         String dataFormat = registryReader.getGlueSchemaType(glueRegistryName, glueSchemaName);
         if (dataFormat.equalsIgnoreCase(AVRO_DATA_FORMAT) || dataFormat.equalsIgnoreCase(PROTOBUF_DATA_FORMAT)) {
             //if schema type is avro/protobuf, then topic name should be glue schema name
@@ -374,6 +396,15 @@ public class KafkaMetadataHandler extends MetadataHandler
             });
         }
 
+        // Narrow the offsets to the messages which can match the predicates on the message timestamp.
+        ValueSet timestampConstraint = messageTimestampColumn == null ? null : request.getConstraints().getSummary().get(messageTimestampColumn);
+        boolean skipEmptyPartitions = false;
+        if (timestampConstraint != null) {
+            startOffsets = new HashMap<>(startOffsets);
+            endOffsets = new HashMap<>(endOffsets);
+            skipEmptyPartitions = applyMessageTimestampConstraint(timestampConstraint, topicPartitions, startOffsets, endOffsets);
+        }
+
         Set<Split> splits = new HashSet<>();
         SpillLocation spillLocation = makeSpillLocation(request);
         int continuationToken = request.getContinuationToken() == null ? 0 : Integer.parseInt(request.getContinuationToken());
@@ -382,6 +413,11 @@ public class KafkaMetadataHandler extends MetadataHandler
             partitionIndex < topicPartitions.size();
             partitionIndex++) {
             TopicPartition partition = topicPartitions.get(partitionIndex);
+            if (skipEmptyPartitions && startOffsets.get(partition) >= endOffsets.get(partition)) {
+                LOGGER.debug("[TopicPartitionPiece] No message of partition {} in topic {} can match the message timestamp predicates",
+                        partition.partition(), partition.topic());
+                continue;
+            }
             // Calculate how many pieces we can divide a topic partition.
             List<TopicPartitionPiece>  topicPartitionPieces = pieceTopicPartition(startOffsets.get(partition), endOffsets.get(partition));
             LOGGER.info("[TopicPartitionPiece] Total pieces created {} for partition {} in topic {}",
@@ -419,6 +455,82 @@ public class KafkaMetadataHandler extends MetadataHandler
         return new GetSplitsResponse(request.getCatalogName(), splits);
     }
 
+    /**
+     * Narrows the offsets of each partition to the messages which can satisfy a constraint on the message timestamp
+     * column, using the broker's time index through {@link Consumer#offsetsForTimes(Map)}. A partition starts at its
+     * first message with a timestamp at or after the lower bound, which is exact, and ends at its first message with a
+     * timestamp after the upper bound plus {@link KafkaConstants#MESSAGE_TIMESTAMP_MAX_SKEW_MS}, which assumes
+     * timestamps do not go back by more than that within a partition. Rows are still filtered by the constraint.
+     *
+     * @param constraint - the constraint on the message timestamp column
+     * @param topicPartitions - the partitions of the topic
+     * @param startOffsets - the first offset of each partition, updated in place
+     * @param endOffsets - the end offset of each partition, updated in place
+     * @return true if the offsets were narrowed and partitions left without offsets can be skipped
+     */
+    private boolean applyMessageTimestampConstraint(ValueSet constraint, List<TopicPartition> topicPartitions,
+                                                    Map<TopicPartition, Long> startOffsets, Map<TopicPartition, Long> endOffsets)
+    {
+        // Messages without a timestamp are read as null, so they could match and nothing is known about their offsets.
+        if (!(constraint instanceof SortedRangeSet) || constraint.isNullAllowed()) {
+            return false;
+        }
+        if (constraint.isNone()) {
+            topicPartitions.forEach(partition -> startOffsets.put(partition, endOffsets.get(partition)));
+            return true;
+        }
+
+        Range span = ((SortedRangeSet) constraint).getSpan();
+        boolean narrowed = false;
+        if (!span.getLow().isLowerUnbounded()) {
+            long lower = KafkaUtils.toEpochMillis(span.getLow().getValue());
+            if (span.getLow().getBound() == Marker.Bound.ABOVE && lower < Long.MAX_VALUE) {
+                lower++;
+            }
+            // The time index cannot be searched for negative timestamps, every message is at or after 0.
+            Map<TopicPartition, OffsetAndTimestamp> lowerOffsets = offsetsForTime(topicPartitions, Math.max(lower, 0L));
+            for (TopicPartition partition : topicPartitions) {
+                OffsetAndTimestamp lowerOffset = lowerOffsets.get(partition);
+                // No offset means no message of the partition is at or after the lower bound.
+                long startOffset = lowerOffset == null ? endOffsets.get(partition) : Math.max(startOffsets.get(partition), lowerOffset.offset());
+                startOffsets.put(partition, startOffset);
+            }
+            narrowed = true;
+        }
+        if (!span.getHigh().isUpperUnbounded()) {
+            long upper = KafkaUtils.toEpochMillis(span.getHigh().getValue());
+            // The first timestamp which cannot match anymore, plus the skew allowed for messages before it.
+            long cutoff = span.getHigh().getBound() == Marker.Bound.EXACTLY && upper < Long.MAX_VALUE ? upper + 1 : upper;
+            cutoff = cutoff > Long.MAX_VALUE - messageTimestampMaxSkewMs ? Long.MAX_VALUE : cutoff + messageTimestampMaxSkewMs;
+            if (cutoff <= 0) {
+                topicPartitions.forEach(partition -> endOffsets.put(partition, startOffsets.get(partition)));
+            }
+            else {
+                Map<TopicPartition, OffsetAndTimestamp> upperOffsets = offsetsForTime(topicPartitions, cutoff);
+                for (TopicPartition partition : topicPartitions) {
+                    OffsetAndTimestamp upperOffset = upperOffsets.get(partition);
+                    // No offset means every message of the partition is before the cutoff.
+                    if (upperOffset != null) {
+                        endOffsets.put(partition, Math.min(endOffsets.get(partition), upperOffset.offset()));
+                    }
+                }
+            }
+            narrowed = true;
+        }
+        if (LOGGER.isDebugEnabled()) {
+            topicPartitions.forEach(partition -> LOGGER.debug("[KafkaPartitionOffset] message timestamp offsets [topic: {}, partition: {}, start-offset: {}, end-offset: {}]",
+                    partition.topic(), partition.partition(), startOffsets.get(partition), endOffsets.get(partition)));
+        }
+        return narrowed;
+    }
+
+    private Map<TopicPartition, OffsetAndTimestamp> offsetsForTime(List<TopicPartition> topicPartitions, long timestamp)
+    {
+        Map<TopicPartition, Long> timestamps = new HashMap<>();
+        topicPartitions.forEach(partition -> timestamps.put(partition, timestamp));
+        return kafkaConsumer.offsetsForTimes(timestamps);
+    }
+
     /**
      * Create the arrow schema for a specific topic. In the metadata
      * we keep the additional information of topic schema and fields.
@@ -433,7 +545,6 @@ public class KafkaMetadataHandler extends MetadataHandler
         SchemaBuilder schemaBuilder = SchemaBuilder.newBuilder();
 
         // Get topic schema json from GLue registry as translated to TopicSchema pojo
-        GlueRegistryReader registryReader = new GlueRegistryReader();
         String dataFormat = registryReader.getGlueSchemaType(glueRegistryName, glueSchemaName);
         if (dataFormat.equalsIgnoreCase(AVRO_DATA_FORMAT)) {
             AvroTopicSchema avroTopicSchema = registryReader.getGlueSchema(glueRegistryName, glueSchemaName, AvroTopicSchema.class);
@@ -493,6 +604,13 @@ public class KafkaMetadataHandler extends MetadataHandler
             // Putting the additional schema level information into the metadata in ArrowType schema.
             schemaBuilder.addMetadata("dataFormat", topicSchema.getMessage().getDataFormat());
         }
+        if (messageTimestampColumn != null) {
+            if (schemaBuilder.getField(messageTimestampColumn) != null) {
+                throw new IllegalArgumentException(String.format("%s [%s] clashes with a field of schema [%s], configure another column name",
+                        MESSAGE_TIMESTAMP_COLUMN, messageTimestampColumn, glueSchemaName));
+            }
+            schemaBuilder.addField(KafkaUtils.createMessageTimestampField(messageTimestampColumn));
+        }
         // NOTE: these values are being shoved in here for usage later in the calling context
         // of doGetTable() since Java doesn't have tuples.
         schemaBuilder.addMetadata("glueRegistryName", glueRegistryName);
@@ -0,0 +1,124 @@
+/*-
+ * #%L
+ * athena-kafka
+ * %%
+ * Copyright (C) 2019 - 2022 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.kafka;
+
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
+import com.amazonaws.athena.connectors.kafka.dto.Message;
+import com.amazonaws.athena.connectors.kafka.dto.SplitParameters;
+import com.amazonaws.athena.connectors.kafka.dto.TopicResultSet;
+import com.amazonaws.athena.connectors.kafka.serde.KafkaJsonDeserializer;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Leaves out the records of a split which can be told not to satisfy the constraints before they are deserialized and
+ * converted into rows.
+ * <p>
+ * The record itself is checked against the constraint on the message timestamp column. Partitions and offsets are not
+ * columns of the topic tables, and are already limited by the split. For JSON topics, the equality constraints on top
+ * level fields are checked against the raw message with a streaming scan, see
+ * {@link KafkaJsonDeserializer#createFieldFilter}, before the message is parsed. Avro and Protobuf values are decoded
+ * by the schema registry deserializers while polling, so their records are only checked on the message timestamp,
+ * which still saves converting them. The records which pass are checked against all constraints when written.
+ * <p>
+ * Instances are not thread safe.
+ *
+ * @param <T> the type of the record values
+ */
+public class KafkaRecordFilter<T>
+{
+    private final SplitParameters splitParameters;
+    private final ValueSet timestampConstraint;
+    private final Function<T, byte[]> rawValue;
+    private final Predicate<byte[]> fieldFilter;
+
+    private KafkaRecordFilter(SplitParameters splitParameters, ValueSet timestampConstraint, Function<T, byte[]> rawValue, Predicate<byte[]> fieldFilter)
+    {
+        this.splitParameters = splitParameters;
+        this.timestampConstraint = timestampConstraint;
+        this.rawValue = rawValue;
+        this.fieldFilter = fieldFilter;
+    }
+
+    /**
+     * Creates the filter for records deserialized into a {@link TopicResultSet} from JSON or CSV.
+     *
+     * @param schema - the schema of the blocks being written
+     * @param constraints - the constraints of the read request
+     * @param splitParameters - instance of {@link SplitParameters}
+     * @param filterJsonFields - whether the constraints on the fields of JSON messages are checked before parsing them
+     * @return {@link KafkaRecordFilter}
+     */
+    public static KafkaRecordFilter<TopicResultSet> forTopicResultSet(Schema schema, Constraints constraints, SplitParameters splitParameters, boolean filterJsonFields)
+    {
+        Predicate<byte[]> fieldFilter = null;
+        if (filterJsonFields && Message.DATA_FORMAT_JSON.equals(schema.getCustomMetadata().get("dataFormat"))) {
+            fieldFilter = new KafkaJsonDeserializer(schema).createFieldFilter(constraints.getSummary());
+        }
+        return new KafkaRecordFilter<>(splitParameters, getTimestampConstraint(schema, constraints), TopicResultSet::getData, fieldFilter);
+    }
+
+    /**
+     * Creates the filter for records whose values are decoded while polling, i.e. Avro and Protobuf records.
+     *
+     * @param schema - the schema of the blocks being written
+     * @param constraints - the constraints of the read request
+     * @param splitParameters - instance of {@link SplitParameters}
+     * @return {@link KafkaRecordFilter}
+     */
+    public static <T> KafkaRecordFilter<T> forDecoded(Schema schema, Constraints constraints, SplitParameters splitParameters)
+    {
+        return new KafkaRecordFilter<>(splitParameters, getTimestampConstraint(schema, constraints), value -> null, null);
+    }
+
+    /**
+     * Checks a record, counting the records which are left out in {@link SplitParameters#skipped}.
+     *
+     * @param record - a record with a value
+     * @return false if the record does not satisfy the constraints, true if it may
+     */
+    public boolean test(ConsumerRecord<String, T> record)
+    {
+        if (timestampConstraint != null) {
+            if (!timestampConstraint.containsValue(KafkaUtils.getMessageTimestamp(record))) {
+                splitParameters.skipped++;
+                return false;
+            }
+        }
+        if (fieldFilter != null) {
+            byte[] data = rawValue.apply(record.value());
+            if (data != null && !fieldFilter.test(data)) {
+                splitParameters.skipped++;
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ValueSet getTimestampConstraint(Schema schema, Constraints constraints)
+    {
+        String messageTimestampColumn = KafkaUtils.getMessageTimestampColumn(schema);
+        return messageTimestampColumn != null ? constraints.getSummary().get(messageTimestampColumn) : null;
+    }
+}
@@ -20,17 +20,13 @@
 package com.amazonaws.athena.connectors.kafka;
 
 import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
-import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
 import com.amazonaws.athena.connector.lambda.handlers.RecordHandler;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
-import com.amazonaws.athena.connectors.kafka.dto.KafkaField;
 import com.amazonaws.athena.connectors.kafka.dto.SplitParameters;
 import com.amazonaws.athena.connectors.kafka.dto.TopicResultSet;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.protobuf.Descriptors;
 import com.google.protobuf.DynamicMessage;
-import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
@@ -44,8 +40,12 @@ import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 
 import java.time.Duration;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
 
 import static com.amazonaws.athena.connectors.kafka.KafkaConstants.AVRO_DATA_FORMAT;
 import static com.amazonaws.athena.connectors.kafka.KafkaConstants.PROTOBUF_DATA_FORMAT;
@@ -55,6 +55,12 @@ public class KafkaRecordHandler
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(KafkaRecordHandler.class);
     private static final int MAX_EMPTY_RESULT_FOUND_COUNT = 3;
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1L);
+
+    private final GlueRegistryReader registryReader;
+    // Kept across the splits read by a warm Lambda, see KafkaConsumerPool.
+    private final KafkaConsumerPool consumerPool;
+    private final boolean filterJsonFields;
 
     KafkaRecordHandler(java.util.Map<String, String> configOptions)
     {
@@ -69,6 +75,9 @@ public class KafkaRecordHandler
     public KafkaRecordHandler(S3Client amazonS3, SecretsManagerClient secretsManager, AthenaClient athena, java.util.Map<String, String> configOptions)
     {
         super(amazonS3, secretsManager, athena, KafkaConstants.KAFKA_SOURCE, configOptions);
+        this.registryReader = new GlueRegistryReader(configOptions);
+        this.consumerPool = new KafkaConsumerPool(configOptions);
+        this.filterJsonFields = Boolean.parseBoolean(configOptions.getOrDefault(KafkaConstants.JSON_FIELD_FILTER_ENABLED, "true"));
     }
 
     /**
@@ -86,87 +95,54 @@ public class KafkaRecordHandler
         LOGGER.info("[kafka] {} RecordHandler running", splitParameters);
         // Set which topic and partition we are going to read.
         TopicPartition partition = new TopicPartition(splitParameters.topic, splitParameters.partition);
-        Collection<TopicPartition> partitions = com.google.common.collect.ImmutableList.of(partition);
-        GlueRegistryReader registryReader = new GlueRegistryReader();
-
-        String dataFormat = registryReader.getGlueSchemaType(recordsRequest.getTableName().getSchemaName(), recordsRequest.getTableName().getTableName());
-        if (dataFormat.equalsIgnoreCase(AVRO_DATA_FORMAT)) {
-            try (Consumer<String, GenericRecord> kafkaAvroConsumer = KafkaUtils.getAvroKafkaConsumer(configOptions)) {
-                // Assign the topic and partition into this consumer.
-                kafkaAvroConsumer.assign(partitions);
 
-                // Setting the start offset from where we are interested to read data from topic partition.
-                // We have configured this start offset when we had created the split on MetadataHandler.
-                kafkaAvroConsumer.seek(partition, splitParameters.startOffset);
+        // The metadata handler planned the split against the offsets of the partition, so a split which does not
+        // start before its end offset has no data and needs neither a consumer nor another endOffsets round trip.
+        if (splitParameters.startOffset >= splitParameters.endOffset) {
+            LOGGER.debug("[kafka] split does not have data, skipping it {}", splitParameters);
 
-                // If endOffsets is 0 that means there is no data close consumer and exit
-                Map<TopicPartition, Long> endOffsets = kafkaAvroConsumer.endOffsets(partitions);
-                if (endOffsets.get(partition) == 0) {
-                    LOGGER.debug("[kafka] topic does not have data, closing consumer {}", splitParameters);
-                    kafkaAvroConsumer.close();
+            // For debug insight
+            splitParameters.info = "startOffset is not before endOffset i.e split does not have data";
+            if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(splitParameters.debug());
+            }
+            return;
+        }
 
-                    // For debug insight
-                    splitParameters.info = "endOffset is 0 i.e partition does not have data";
-                    if (LOGGER.isDebugEnabled()) {
-                        LOGGER.debug(splitParameters.debug());
-                    }
-                    return;
+        String dataFormat = registryReader.getGlueSchemaType(recordsRequest.getTableName().getSchemaName(), recordsRequest.getTableName().getTableName());
+        if (dataFormat.equalsIgnoreCase(AVRO_DATA_FORMAT)) {
+            try (KafkaConsumerPool.Lease<String, GenericRecord> lease = consumerPool.borrow(AVRO_DATA_FORMAT, null,
+                    () -> KafkaUtils.getAvroKafkaConsumer(configOptions))) {
+                Consumer<String, GenericRecord> kafkaConsumer = assign(lease.consumer(), partition, splitParameters);
+                if (!isPartitionEmpty(kafkaConsumer, partition, splitParameters)) {
+                    // Consume topic data
+                    avroConsume(spiller, recordsRequest, queryStatusChecker, splitParameters, kafkaConsumer);
                 }
-                // Consume topic data
-                avroConsume(spiller, recordsRequest, queryStatusChecker, splitParameters, kafkaAvroConsumer);
+                lease.complete();
             }
         }
         else if (dataFormat.equalsIgnoreCase(PROTOBUF_DATA_FORMAT)) {
-            try (Consumer<String, DynamicMessage> kafkaProtobufConsumer = KafkaUtils.getProtobufKafkaConsumer(configOptions)) {
-                // Assign the topic and partition into this consumer.
-                kafkaProtobufConsumer.assign(partitions);
-
-                // Setting the start offset from where we are interested to read data from topic partition.
-                // We have configured this start offset when we had created the split on MetadataHandler.
-                kafkaProtobufConsumer.seek(partition, splitParameters.startOffset);
-
-                // If endOffsets is 0 that means there is no data close consumer and exit
-                Map<TopicPartition, Long> endOffsets = kafkaProtobufConsumer.endOffsets(partitions);
-                if (endOffsets.get(partition) == 0) {
-                    LOGGER.debug("[kafka] topic does not have data, closing consumer {}", splitParameters);
-                    kafkaProtobufConsumer.close();
-
-                    // For debug insight
-                    splitParameters.info = "endOffset is 0 i.e partition does not have data";
-                    if (LOGGER.isDebugEnabled()) {
-                        LOGGER.debug(splitParameters.debug());
-                    }
-                    return;
+            try (KafkaConsumerPool.Lease<String, DynamicMessage> lease = consumerPool.borrow(PROTOBUF_DATA_FORMAT, null,
+                    () -> KafkaUtils.getProtobufKafkaConsumer(configOptions))) {
+                Consumer<String, DynamicMessage> kafkaConsumer = assign(lease.consumer(), partition, splitParameters);
+                if (!isPartitionEmpty(kafkaConsumer, partition, splitParameters)) {
+                    // Consume topic data
+                    protobufConsume(spiller, recordsRequest, queryStatusChecker, splitParameters, kafkaConsumer);
                 }
-                // Consume topic data
-                protobufConsume(spiller, recordsRequest, queryStatusChecker, splitParameters, kafkaProtobufConsumer);
+                lease.complete();
             }
         }
         else {
-            // Initiate new KafkaConsumer that MUST not belong to any consumer group.
-            try (Consumer<String, TopicResultSet> kafkaConsumer = KafkaUtils.getKafkaConsumer(recordsRequest.getSchema(), configOptions)) {
-                // Assign the topic and partition into this consumer.
-                kafkaConsumer.assign(partitions);
-
-                // Setting the start offset from where we are interested to read data from topic partition.
-                // We have configured this start offset when we had created the split on MetadataHandler.
-                kafkaConsumer.seek(partition, splitParameters.startOffset);
-
-                // If endOffsets is 0 that means there is no data close consumer and exit
-                Map<TopicPartition, Long> endOffsets = kafkaConsumer.endOffsets(partitions);
-                if (endOffsets.get(partition) == 0) {
-                    LOGGER.debug("[kafka] topic does not have data, closing consumer {}", splitParameters);
-                    kafkaConsumer.close();
-
-                    // For debug insight
-                    splitParameters.info = "endOffset is 0 i.e partition does not have data";
-                    if (LOGGER.isDebugEnabled()) {
-                        LOGGER.debug(splitParameters.debug());
-                    }
-                    return;
+            // Borrow a KafkaConsumer that MUST not belong to any consumer group, its value deserializer is built
+            // from the schema of the table.
+            try (KafkaConsumerPool.Lease<String, TopicResultSet> lease = consumerPool.borrow(dataFormat.toLowerCase(), recordsRequest.getSchema(),
+                    () -> KafkaUtils.getKafkaConsumer(recordsRequest.getSchema(), configOptions))) {
+                Consumer<String, TopicResultSet> kafkaConsumer = assign(lease.consumer(), partition, splitParameters);
+                if (!isPartitionEmpty(kafkaConsumer, partition, splitParameters)) {
+                    // Consume topic data
+                    consume(spiller, recordsRequest, queryStatusChecker, splitParameters, kafkaConsumer);
                 }
-                // Consume topic data
-                consume(spiller, recordsRequest, queryStatusChecker, splitParameters, kafkaConsumer);
+                lease.complete();
             }
         }
         if (LOGGER.isDebugEnabled()) {
@@ -175,109 +151,66 @@ public class KafkaRecordHandler
     }
 
     /**
-     * Consume topic data as batch.
+     * Assigns the partition of the split to the consumer and seeks to the start offset of the split.
      *
-     * @param spiller - instance of {@link BlockSpiller}
-     * @param recordsRequest - instance of {@link ReadRecordsRequest}
-     * @param queryStatusChecker - instance of {@link QueryStatusChecker}
+     * @param consumer - instance of {@link KafkaConsumer}
+     * @param partition - the partition of the split
      * @param splitParameters - instance of {@link SplitParameters}
-     * @param kafkaConsumer - instance of {@link KafkaConsumer}
+     * @return the consumer
      */
-    private void consume(
-            BlockSpiller spiller,
-            ReadRecordsRequest recordsRequest,
-            QueryStatusChecker queryStatusChecker,
-            SplitParameters splitParameters,
-            Consumer<String, TopicResultSet> kafkaConsumer)
+    private static <T> Consumer<String, T> assign(Consumer<String, T> consumer, TopicPartition partition, SplitParameters splitParameters)
     {
-        LOGGER.info("[kafka] {} Polling for data", splitParameters);
-        int emptyResultFoundCount = 0;
-        try (Consumer<String, TopicResultSet> consumer = kafkaConsumer) {
-            while (true) {
-                if (!queryStatusChecker.isQueryRunning()) {
-                    LOGGER.debug("[kafka]{}  Stopping and closing consumer due to query execution terminated by athena", splitParameters);
-                    splitParameters.info = "query status is false i.e no need to work";
-                    return;
-                }
+        // Assign the topic and partition into this consumer.
+        consumer.assign(Collections.singleton(partition));
 
-                // Call the poll on consumer to fetch data from kafka server
-                // poll returns data as batch which can be configured.
-                ConsumerRecords<String, TopicResultSet> records = consumer.poll(Duration.ofSeconds(1L));
-                LOGGER.debug("[kafka] {} polled records size {}", splitParameters, records.count());
-
-                // For debug insight
-                splitParameters.pulled += records.count();
-
-                // Keep track for how many times we are getting empty result for the polling call.
-                if (records.count() == 0) {
-                    emptyResultFoundCount++;
-                }
-
-                // We will close KafkaConsumer if we are getting empty result again and again.
-                // Here we are comparing with a max threshold (MAX_EMPTY_RESULT_FOUNT_COUNT) to
-                // stop the polling.
-                if (emptyResultFoundCount >= MAX_EMPTY_RESULT_FOUND_COUNT) {
-                    LOGGER.debug("[kafka] {} Closing consumer due to getting empty result from broker", splitParameters);
-                    splitParameters.info = "always getting empty data i.e leaving from work";
-                    return;
-                }
-
-                for (ConsumerRecord<String, TopicResultSet> record : records) {
-                    // Pass batch data one by one to be processed to execute. execute method is
-                    // a kind of abstraction to keep data filtering and writing on spiller separate.
-                    execute(spiller, recordsRequest, queryStatusChecker, splitParameters, record);
+        // Setting the start offset from where we are interested to read data from topic partition.
+        // We have configured this start offset when we had created the split on MetadataHandler.
+        consumer.seek(partition, splitParameters.startOffset);
+        return consumer;
+    }
 
-                    // If we have reached at the end offset of the partition. we will not continue
-                    // to call the polling.
-                    if (record.offset() >= splitParameters.endOffset) {
-                        LOGGER.debug("[kafka] {} Closing consumer due to reach at end offset (current record offset is {})", splitParameters, record.offset());
+    /**
+     * Checks whether the partition of the split has no data, e.g. because it was deleted and recreated since the split
+     * was planned.
+     *
+     * @param consumer - instance of {@link KafkaConsumer}, assigned to the partition of the split
+     * @param partition - the partition of the split
+     * @param splitParameters - instance of {@link SplitParameters}
+     * @return true if the end offset of the partition is 0
+     */
+    private static boolean isPartitionEmpty(Consumer<?, ?> consumer, TopicPartition partition, SplitParameters splitParameters)
+    {
+        // If endOffsets is 0 that means there is no data, the consumer is returned to the pool unused
+        Map<TopicPartition, Long> endOffsets = consumer.endOffsets(Collections.singleton(partition));
+        if (endOffsets.get(partition) == 0) {
+            LOGGER.debug("[kafka] topic does not have data {}", splitParameters);
 
-                        // For debug insight
-                        splitParameters.info = String.format(
-                                "reached at the end offset i.e no need to work: condition [if(record.offset() >= splitParameters.endOffset) i.e if(%s >= %s)]",
-                                record.offset(),
-                                splitParameters.endOffset
-                        );
-                        return;
-                    }
-                }
-            }
+            // For debug insight
+            splitParameters.info = "endOffset is 0 i.e partition does not have data";
+            return true;
         }
+        return false;
     }
 
     /**
-     * Abstraction to keep the data filtering and writing on spiller separate.
+     * Consume topic data as batch.
      *
      * @param spiller - instance of {@link BlockSpiller}
      * @param recordsRequest - instance of {@link ReadRecordsRequest}
      * @param queryStatusChecker - instance of {@link QueryStatusChecker}
      * @param splitParameters - instance of {@link SplitParameters}
-     * @param record - instance of {@link ConsumerRecord}
+     * @param kafkaConsumer - instance of {@link KafkaConsumer}
      */
-    private void execute(
+    private void consume(
             BlockSpiller spiller,
             ReadRecordsRequest recordsRequest,
             QueryStatusChecker queryStatusChecker,
             SplitParameters splitParameters,
-            ConsumerRecord<String, TopicResultSet> record)
+            Consumer<String, TopicResultSet> kafkaConsumer)
     {
-        final boolean[] isExecuted = {false};
-        if (record == null || record.value() == null) {
-            LOGGER.warn("[NullRecord] {} Received a null record or record value, offset: {}", splitParameters, record != null ? record.offset() : "unknown");
-            return;
-        }
-        spiller.writeRows((Block block, int rowNum) -> {
-            for (KafkaField field : record.value().getFields()) {
-                boolean isMatched = block.offerValue(field.getName(), rowNum, field.getValue());
-                if (!isMatched) {
-                    LOGGER.debug("[FailedToSpill] {} Failed to spill record, offset: {}", splitParameters, record.offset());
-                    return 0;
-                }
-            }
-            // For debug insight
-            splitParameters.spilled += 1;
-            return 1;
-        });
+        pollSplit(spiller, queryStatusChecker, splitParameters, kafkaConsumer,
+                KafkaRecordFilter.forTopicResultSet(recordsRequest.getSchema(), recordsRequest.getConstraints(), splitParameters, filterJsonFields),
+                KafkaRecordBatchWriter.forTopicResultSet(recordsRequest.getSchema(), recordsRequest.getConstraints(), splitParameters));
     }
 
     private void avroConsume(
@@ -287,96 +220,52 @@ public class KafkaRecordHandler
             SplitParameters splitParameters,
             Consumer<String, GenericRecord> kafkaAvroConsumer)
     {
-        LOGGER.info("[kafka] {} Polling for data", splitParameters);
-        int emptyResultFoundCount = 0;
-        try (Consumer<String, GenericRecord> avroConsumer = kafkaAvroConsumer) {
-            while (true) {
-                if (!queryStatusChecker.isQueryRunning()) {
-                    LOGGER.debug("[kafka]{}  Stopping and closing consumer due to query execution terminated by athena", splitParameters);
-                    splitParameters.info = "query status is false i.e no need to work";
-                    return;
-                }
-
-                // Call the poll on consumer to fetch data from kafka server
-                // poll returns data as batch which can be configured.
-                ConsumerRecords<String, GenericRecord> records = avroConsumer.poll(Duration.ofSeconds(1L));
-                LOGGER.debug("[kafka] {} polled records size {}", splitParameters, records.count());
-
-                // For debug insight
-                splitParameters.pulled += records.count();
-
-                // Keep track for how many times we are getting empty result for the polling call.
-                if (records.count() == 0) {
-                    emptyResultFoundCount++;
-                }
-
-                // We will close KafkaConsumer if we are getting empty result again and again.
-                // Here we are comparing with a max threshold (MAX_EMPTY_RESULT_FOUNT_COUNT) to
-                // stop the polling.
-                if (emptyResultFoundCount >= MAX_EMPTY_RESULT_FOUND_COUNT) {
-                    LOGGER.debug("[kafka] {} Closing consumer due to getting empty result from broker", splitParameters);
-                    splitParameters.info = "always getting empty data i.e leaving from work";
-                    return;
-                }
-
-                for (ConsumerRecord<String, GenericRecord> record : records) {
-                    // Pass batch data one by one to be processed to execute. execute method is
-                    // a kind of abstraction to keep data filtering and writing on spiller separate.
-                    avroExecute(spiller, recordsRequest, queryStatusChecker, splitParameters, record);
-
-                    // If we have reached at the end offset of the partition. we will not continue
-                    // to call the polling.
-                    if (record.offset() >= splitParameters.endOffset) {
-                        LOGGER.debug("[kafka] {} Closing consumer due to reach at end offset (current record offset is {})", splitParameters, record.offset());
-
-                        // For debug insight
-                        splitParameters.info = String.format(
-                                "reached at the end offset i.e no need to work: condition [if(record.offset() >= splitParameters.endOffset) i.e if(%s >= %s)]",
-                                record.offset(),
-                                splitParameters.endOffset
-                        );
-                        return;
-                    }
-                }
-            }
-        }
+        pollSplit(spiller, queryStatusChecker, splitParameters, kafkaAvroConsumer,
+                KafkaRecordFilter.forDecoded(recordsRequest.getSchema(), recordsRequest.getConstraints(), splitParameters),
+                KafkaRecordBatchWriter.forAvro(recordsRequest.getSchema(), recordsRequest.getConstraints(), splitParameters));
     }
 
-    private void avroExecute(
+    private void protobufConsume(
             BlockSpiller spiller,
             ReadRecordsRequest recordsRequest,
             QueryStatusChecker queryStatusChecker,
             SplitParameters splitParameters,
-            ConsumerRecord<String, GenericRecord> record)
+            Consumer<String, DynamicMessage> kafkaProtobufConsumer)
     {
-        if (record == null || record.value() == null) {
-            LOGGER.warn("[NullRecord] {} Received a null record or record value, offset: {}", splitParameters, record != null ? record.offset() : "unknown");
-            return; // Skip processing this record
-        }
-        spiller.writeRows((Block block, int rowNum) -> {
-            for (Schema.Field next : record.value().getSchema().getFields()) {
-                boolean isMatched = block.offerValue(next.name(), rowNum, record.value().get(next.name()));
-                if (!isMatched) {
-                    LOGGER.debug("[FailedToSpill] {} Failed to spill record, offset: {}", splitParameters, record.offset());
-                    return 0;
-                }
-            }
-            // For debug insight
-            splitParameters.spilled += 1;
-            return 1;
-        });
+        pollSplit(spiller, queryStatusChecker, splitParameters, kafkaProtobufConsumer,
+                KafkaRecordFilter.forDecoded(recordsRequest.getSchema(), recordsRequest.getConstraints(), splitParameters),
+                KafkaRecordBatchWriter.forProtobuf(recordsRequest.getSchema(), recordsRequest.getConstraints(), splitParameters));
     }
 
-    private void protobufConsume(
+    /**
+     * Polls the partition of the split until the consumer has moved past the end offset of the split, writing the
+     * polled records as batches.
+     * <p>
+     * Compaction, transaction markers and aborted transactions leave offsets without records, so the record at the end
+     * offset may never be polled. The position of the consumer moves past those offsets as well, so the split is read
+     * once the position is past the end offset, or is at the end offset while the consumer has no lag, i.e. the end
+     * offset is the end of the log. Polls which return no records are only counted in case the brokers stop returning
+     * data before that.
+     *
+     * @param spiller - instance of {@link BlockSpiller}
+     * @param queryStatusChecker - instance of {@link QueryStatusChecker}
+     * @param splitParameters - instance of {@link SplitParameters}
+     * @param consumer - instance of {@link KafkaConsumer}, assigned to the partition of the split
+     * @param filter - instance of {@link KafkaRecordFilter}
+     * @param batchWriter - instance of {@link KafkaRecordBatchWriter}
+     */
+    private <T> void pollSplit(
             BlockSpiller spiller,
-            ReadRecordsRequest recordsRequest,
             QueryStatusChecker queryStatusChecker,
             SplitParameters splitParameters,
-            Consumer<String, DynamicMessage> kafkaProtobufConsumer)
+            Consumer<String, T> consumer,
+            KafkaRecordFilter<T> filter,
+            KafkaRecordBatchWriter<T> batchWriter)
     {
         LOGGER.info("[kafka] {} Polling for data", splitParameters);
+        TopicPartition partition = new TopicPartition(splitParameters.topic, splitParameters.partition);
         int emptyResultFoundCount = 0;
-        try (Consumer<String, DynamicMessage> protobufConsumer = kafkaProtobufConsumer) {
+        try {
             while (true) {
                 if (!queryStatusChecker.isQueryRunning()) {
                     LOGGER.debug("[kafka]{}  Stopping and closing consumer due to query execution terminated by athena", splitParameters);
@@ -386,17 +275,34 @@ public class KafkaRecordHandler
 
                 // Call the poll on consumer to fetch data from kafka server
                 // poll returns data as batch which can be configured.
-                ConsumerRecords<String, DynamicMessage> records = protobufConsumer.poll(Duration.ofSeconds(1L));
+                long pollStartNanos = System.nanoTime();
+                ConsumerRecords<String, T> records = consumer.poll(POLL_TIMEOUT);
                 LOGGER.debug("[kafka] {} polled records size {}", splitParameters, records.count());
 
                 // For debug insight
+                splitParameters.polls++;
                 splitParameters.pulled += records.count();
-
-                // Keep track for how many times we are getting empty result for the polling call.
                 if (records.count() == 0) {
-                    emptyResultFoundCount++;
+                    splitParameters.idleMillis += TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pollStartNanos);
+                }
+
+                // Write the records of this poll up to the end offset of the split as one batch.
+                if (writeBatch(spiller, splitParameters, filter, batchWriter, records)) {
+                    return;
                 }
 
+                // The end offset has no record to poll, but the consumer has moved past it.
+                long position = consumer.position(partition);
+                if (hasReadSplit(consumer, partition, position, splitParameters)) {
+                    LOGGER.debug("[kafka] {} Closing consumer due to position {} passing the end offset", splitParameters, position);
+                    splitParameters.info = String.format(
+                            "position passed the end offset i.e no need to work: position %s, end offset %s", position, splitParameters.endOffset);
+                    return;
+                }
+
+                // Keep track for how many times in a row we are getting empty result for the polling call.
+                emptyResultFoundCount = records.count() == 0 ? emptyResultFoundCount + 1 : 0;
+
                 // We will close KafkaConsumer if we are getting empty result again and again.
                 // Here we are comparing with a max threshold (MAX_EMPTY_RESULT_FOUNT_COUNT) to
                 // stop the polling.
@@ -405,51 +311,78 @@ public class KafkaRecordHandler
                     splitParameters.info = "always getting empty data i.e leaving from work";
                     return;
                 }
-
-                for (ConsumerRecord<String, DynamicMessage> record : records) {
-                    // Pass batch data one by one to be processed to execute. execute method is
-                    // a kind of abstraction to keep data filtering and writing on spiller separate.
-                    protobufExecute(spiller, recordsRequest, queryStatusChecker, splitParameters, record);
-
-                    // If we have reached at the end offset of the partition. we will not continue
-                    // to call the polling.
-                    if (record.offset() >= splitParameters.endOffset) {
-                        LOGGER.debug("[kafka] {} Closing consumer due to reach at end offset (current record offset is {})", splitParameters, record.offset());
-
-                        // For debug insight
-                        splitParameters.info = String.format(
-                                "reached at the end offset i.e no need to work: condition [if(record.offset() >= splitParameters.endOffset) i.e if(%s >= %s)]",
-                                record.offset(),
-                                splitParameters.endOffset
-                        );
-                        return;
-                    }
-                }
             }
         }
+        finally {
+            LOGGER.info("[kafka] {} Polled {} records in {} polls, idle for {} ms, skipped {} records before deserialization", splitParameters,
+                    splitParameters.pulled, splitParameters.polls, splitParameters.idleMillis, splitParameters.skipped);
+        }
+    }
+
+    /**
+     * @param consumer - instance of {@link KafkaConsumer}, assigned to the partition of the split
+     * @param partition - the partition of the split
+     * @param position - the position of the consumer in the partition
+     * @param splitParameters - instance of {@link SplitParameters}
+     * @return true if no offset up to the end offset of the split is left to poll
+     */
+    @VisibleForTesting
+    static boolean hasReadSplit(Consumer<?, ?> consumer, TopicPartition partition, long position, SplitParameters splitParameters)
+    {
+        if (position != splitParameters.endOffset) {
+            return position > splitParameters.endOffset;
+        }
+        // The end offset of the last split of a partition is the end of the log at the time the split was planned,
+        // which holds no record unless one was produced since. The lag is known from the last fetch response.
+        OptionalLong lag = consumer.currentLag(partition);
+        return lag.isPresent() && lag.getAsLong() == 0;
     }
-    private void protobufExecute(
+
+    /**
+     * Writes the records of a poll up to and including the end offset of the split, skipping null records and the
+     * records left out by the filter.
+     *
+     * @param spiller - instance of {@link BlockSpiller}
+     * @param splitParameters - instance of {@link SplitParameters}
+     * @param filter - instance of {@link KafkaRecordFilter}
+     * @param batchWriter - instance of {@link KafkaRecordBatchWriter}
+     * @param records - the records of a poll
+     * @return true if the end offset of the split has been reached
+     */
+    private <T> boolean writeBatch(
             BlockSpiller spiller,
-            ReadRecordsRequest recordsRequest,
-            QueryStatusChecker queryStatusChecker,
             SplitParameters splitParameters,
-            ConsumerRecord<String, DynamicMessage> record)
+            KafkaRecordFilter<T> filter,
+            KafkaRecordBatchWriter<T> batchWriter,
+            ConsumerRecords<String, T> records)
     {
-        if (record == null || record.value() == null) {
-            LOGGER.warn("[NullRecord] {} Received a null record or record value, offset: {}", splitParameters, record != null ? record.offset() : "unknown");
-            return; // Skip processing this record
-        }
-        spiller.writeRows((Block block, int rowNum) -> {
-            for (Descriptors.FieldDescriptor next : record.value().getAllFields().keySet()) {
-                boolean isMatched = block.offerValue(next.getName(), rowNum, record.value().getField(next));
-                if (!isMatched) {
-                    LOGGER.debug("[FailedToSpill] {} Failed to spill record, offset: {}", splitParameters, record.offset());
-                    return 0;
-                }
+        List<ConsumerRecord<String, T>> batch = new ArrayList<>(records.count());
+        for (ConsumerRecord<String, T> record : records) {
+            if (record.value() == null) {
+                LOGGER.warn("[NullRecord] {} Received a null record or record value, offset: {}", splitParameters, record.offset());
             }
-            // For debug insight
-            splitParameters.spilled += 1;
-            return 1;
-        });
+            else if (record.offset() <= splitParameters.endOffset && filter.test(record)) {
+                // A record past the end offset, polled when the offsets up to it have no records, belongs to the
+                // next split of the partition.
+                batch.add(record);
+            }
+
+            // If we have reached at the end offset of the partition. we will not continue
+            // to call the polling.
+            if (record.offset() >= splitParameters.endOffset) {
+                batchWriter.write(spiller, batch);
+                LOGGER.debug("[kafka] {} Closing consumer due to reach at end offset (current record offset is {})", splitParameters, record.offset());
+
+                // For debug insight
+                splitParameters.info = String.format(
+                        "reached at the end offset i.e no need to work: condition [if(record.offset() >= splitParameters.endOffset) i.e if(%s >= %s)]",
+                        record.offset(),
+                        splitParameters.endOffset
+                );
+                return true;
+            }
+        }
+        batchWriter.write(spiller, batch);
+        return false;
     }
 }
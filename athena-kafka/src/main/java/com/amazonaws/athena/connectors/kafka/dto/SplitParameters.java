@@ -34,6 +34,11 @@ public class SplitParameters
     // For debug purpose
     public long pulled = 0;
     public long spilled = 0;
+    // The number of records left out by the filters applied before the records are deserialized or converted
+    public long skipped = 0;
+    // The number of polls and the time spent in polls which returned no records
+    public long polls = 0;
+    public long idleMillis = 0;
     public String info = "";
 
     /**
@@ -67,15 +72,15 @@ public class SplitParameters
      * get these related log messages in once place and download as csv, great!
      *
      * The header of the csv file is:
-     * debug,topic,partition,start_offset,end_offset,pulled,spilled,missing,info
+     * debug,topic,partition,start_offset,end_offset,pulled,spilled,missing,skipped,polls,idle_ms,info
      *
      * Note that the header missing means - we should not spill these
      */
     public String debug()
     {
         return String.format(
-                "SplitParameters,%s,%s,%s,%s,%s,%s,%s,%s %n",
-                topic, partition, startOffset, endOffset, pulled, spilled, pulled - spilled, info
+                "SplitParameters,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s,%s %n",
+                topic, partition, startOffset, endOffset, pulled, spilled, pulled - spilled, skipped, polls, idleMillis, info
         );
     }
 }
@@ -19,22 +19,38 @@
  */
 package com.amazonaws.athena.connectors.kafka.serde;
 
+import com.amazonaws.athena.connector.lambda.domain.predicate.EquatableValueSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
+import com.amazonaws.athena.connectors.kafka.KafkaUtils;
 import com.amazonaws.athena.connectors.kafka.dto.KafkaField;
 import com.amazonaws.athena.connectors.kafka.dto.Message;
 import com.amazonaws.athena.connectors.kafka.dto.TopicResultSet;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
 
 public class KafkaJsonDeserializer extends KafkaDeserializer
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(KafkaJsonDeserializer.class);
 
     private static final ObjectMapper objectMapper = new ObjectMapper();
+    private static final JsonFactory jsonFactory = objectMapper.getFactory();
 
     public KafkaJsonDeserializer(Schema schema)
     {
@@ -53,6 +69,13 @@ public class KafkaJsonDeserializer extends KafkaDeserializer
         topicResultSet.setTopicName(topic);
         topicResultSet.setDataFormat(Message.DATA_FORMAT_JSON);
 
+        // The raw data is parsed once the fields are read, records filtered out before that are never parsed.
+        topicResultSet.setData(data, this::parse);
+        return topicResultSet;
+    }
+
+    private void parse(byte[] data, List<KafkaField> fields)
+    {
         try {
             // Transforming the topic raw (json) data to JsonNode using ObjectMapper.
             JsonNode json = objectMapper.readValue(new String(data, StandardCharsets.UTF_8), JsonNode.class);
@@ -60,9 +83,13 @@ public class KafkaJsonDeserializer extends KafkaDeserializer
             // Creating Field object for each fields in raw data.
             // Also putting additional information in fields from fields metadata.
             schema.getFields().forEach(field -> {
+                // The message timestamp column is filled in from the record, not from its value.
+                if (KafkaUtils.isMessageTimestampField(field)) {
+                    return;
+                }
                 String mapping = field.getMetadata().get("mapping");
                 try {
-                    topicResultSet.getFields().add(new KafkaField(
+                    fields.add(new KafkaField(
                             field.getName(),
                             mapping,
                             field.getMetadata().get("type"),
@@ -74,7 +101,6 @@ public class KafkaJsonDeserializer extends KafkaDeserializer
                     LOGGER.error("KafkaJsonDeserializer: Error in castValue : while converting raw value to typed value", e);
                 }
             });
-            return topicResultSet;
         }
         catch (Exception e) {
             LOGGER.error("KafkaJsonDeserializer: Error when deserializing byte[] to TopicResultSet", e);
@@ -82,7 +108,140 @@ public class KafkaJsonDeserializer extends KafkaDeserializer
         finally {
             close();
         }
-        return topicResultSet;
+    }
+
+    /**
+     * Creates a check of raw JSON messages against the equality constraints on the top level fields the columns are
+     * mapped to. A message is scanned with a streaming parser which skips nested objects and arrays, instead of being
+     * parsed into a tree and having every field converted, and its fields are converted like they are when the message
+     * is deserialized. A message which can not be scanned passes the check and is left to the constraints applied to
+     * the deserialized record.
+     *
+     * @param constraints - the constraints by column name
+     * @return the check, or null if none of the constraints is an equality constraint on a column the check supports
+     */
+    public Predicate<byte[]> createFieldFilter(Map<String, ValueSet> constraints)
+    {
+        Map<String, Field> fieldsByMapping = new HashMap<>();
+        Map<String, ValueSet> constraintsByMapping = new HashMap<>();
+        for (Field field : schema.getFields()) {
+            ValueSet constraint = constraints.get(field.getName());
+            String mapping = field.getMetadata().get("mapping");
+            if (constraint != null && mapping != null && !KafkaUtils.isMessageTimestampField(field)
+                    && isEquality(constraint) && isScalar(field) && !fieldsByMapping.containsKey(mapping)) {
+                fieldsByMapping.put(mapping, field);
+                constraintsByMapping.put(mapping, constraint);
+            }
+        }
+        if (fieldsByMapping.isEmpty()) {
+            return null;
+        }
+        return data -> {
+            Map<String, String> texts = new HashMap<>();
+            try (JsonParser parser = jsonFactory.createParser(data)) {
+                if (parser.nextToken() == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String name = parser.getCurrentName();
+                        JsonToken token = parser.nextToken();
+                        // Like a JsonNode, a field given more than once holds its last value
+                        if (fieldsByMapping.containsKey(name)) {
+                            texts.put(name, asText(parser, token));
+                        }
+                        parser.skipChildren();
+                    }
+                }
+            }
+            catch (IOException | RuntimeException e) {
+                return true;
+            }
+            for (Map.Entry<String, Field> entry : fieldsByMapping.entrySet()) {
+                Field field = entry.getValue();
+                String text = texts.get(entry.getKey());
+                Object value = null;
+                if (text != null) {
+                    try {
+                        value = castValue(field, text);
+                    }
+                    catch (Exception e) {
+                        // The deserialized record leaves out a field which fails to convert, i.e. the value is null
+                    }
+                }
+                try {
+                    if (!constraintsByMapping.get(entry.getKey()).containsValue(value != null ? toColumnValue(field, value) : null)) {
+                        return false;
+                    }
+                }
+                catch (RuntimeException e) {
+                    return true;
+                }
+            }
+            return true;
+        };
+    }
+
+    /*
+    Returns the text JsonNode.asText() returns for the current value of the parser.
+     */
+    private static String asText(JsonParser parser, JsonToken token)
+            throws IOException
+    {
+        switch (token) {
+            case VALUE_NUMBER_INT:
+                return parser.getNumberValue().toString();
+            case VALUE_NUMBER_FLOAT:
+                return String.valueOf(parser.getDoubleValue());
+            case START_OBJECT:
+            case START_ARRAY:
+                return "";
+            default:
+                // strings, booleans and null
+                return parser.getText();
+        }
+    }
+
+    private static boolean isEquality(ValueSet constraint)
+    {
+        if (constraint instanceof SortedRangeSet) {
+            List<Range> ranges = ((SortedRangeSet) constraint).getOrderedRanges();
+            return !ranges.isEmpty() && ranges.stream().allMatch(Range::isSingleValue);
+        }
+        return constraint instanceof EquatableValueSet && ((EquatableValueSet) constraint).isWhiteList();
+    }
+
+    private static boolean isScalar(Field field)
+    {
+        switch (Types.getMinorTypeForArrowType(field.getType())) {
+            case BIT:
+            case TINYINT:
+            case SMALLINT:
+            case INT:
+            case BIGINT:
+            case VARCHAR:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /*
+    Converts a deserialized value into the value the row writer checks the constraint of its column against.
+     */
+    private static Object toColumnValue(Field field, Object value)
+    {
+        switch (Types.getMinorTypeForArrowType(field.getType())) {
+            case BIT:
+                return (value instanceof Boolean && (Boolean) value) || (value instanceof Integer && (Integer) value > 0);
+            case TINYINT:
+                return ((Number) value).byteValue();
+            case SMALLINT:
+                return ((Number) value).shortValue();
+            case INT:
+                return ((Number) value).intValue();
+            case BIGINT:
+                return ((Number) value).longValue();
+            default:
+                return value.toString();
+        }
     }
 
     /**
@@ -0,0 +1,189 @@
+/*-
+ * #%L
+ * Athena Kafka Connector
+ * %%
+ * Copyright (C) 2019 - 2022 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.kafka;
+
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class KafkaConsumerPoolTest
+{
+    private final AtomicLong nanos = new AtomicLong();
+    private final Ticker ticker = new Ticker()
+    {
+        @Override
+        public long read()
+        {
+            return nanos.get();
+        }
+    };
+    private final List<Consumer<String, String>> created = new ArrayList<>();
+
+    @Before
+    public void setUp()
+    {
+        nanos.set(0);
+        created.clear();
+    }
+
+    @Test
+    public void borrow_afterCompletedLease_reusesUnassignedConsumer()
+            throws Exception
+    {
+        KafkaConsumerPool pool = new KafkaConsumerPool(2, 4, 300, ticker);
+
+        Consumer<String, String> first = read(pool, "json", null, true);
+        Consumer<String, String> second = read(pool, "json", null, true);
+
+        assertSame(first, second);
+        assertEquals(1, created.size());
+        verify(first, times(2)).unsubscribe();
+        verify(first, never()).close();
+        assertEquals(1, pool.idleCount());
+    }
+
+    @Test
+    public void close_withoutComplete_closesConsumer()
+            throws Exception
+    {
+        KafkaConsumerPool pool = new KafkaConsumerPool(2, 4, 300, ticker);
+
+        Consumer<String, String> failed = read(pool, "avro", null, false);
+        Consumer<String, String> next = read(pool, "avro", null, true);
+
+        assertNotSame(failed, next);
+        verify(failed).close();
+        verify(failed, never()).unsubscribe();
+        assertEquals(2, created.size());
+    }
+
+    @Test
+    public void borrow_afterTtl_replacesExpiredConsumer()
+            throws Exception
+    {
+        KafkaConsumerPool pool = new KafkaConsumerPool(2, 4, 300, ticker);
+
+        Consumer<String, String> first = read(pool, "protobuf", null, true);
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(300));
+        Consumer<String, String> second = read(pool, "protobuf", null, true);
+
+        assertNotSame(first, second);
+        verify(first).close();
+        assertEquals(2, created.size());
+    }
+
+    @Test
+    public void borrow_withDifferentSchemas_keepsConsumersApart()
+            throws Exception
+    {
+        KafkaConsumerPool pool = new KafkaConsumerPool(2, 4, 300, ticker);
+        Schema orders = SchemaBuilder.newBuilder().addIntField("id").build();
+        Schema customers = SchemaBuilder.newBuilder().addStringField("name").build();
+
+        Consumer<String, String> ordersConsumer = read(pool, "json", orders, true);
+        Consumer<String, String> customersConsumer = read(pool, "json", customers, true);
+
+        assertNotSame(ordersConsumer, customersConsumer);
+        assertSame(ordersConsumer, read(pool, "json", SchemaBuilder.newBuilder().addIntField("id").build(), true));
+        assertEquals(2, pool.idleCount());
+
+        pool.clear();
+        verify(ordersConsumer).close();
+        verify(customersConsumer).close();
+        assertEquals(0, pool.idleCount());
+    }
+
+    @Test
+    public void borrow_afterTtl_closesExpiredConsumersOfOtherKeys()
+            throws Exception
+    {
+        KafkaConsumerPool pool = new KafkaConsumerPool(2, 4, 300, ticker);
+
+        Consumer<String, String> avroConsumer = read(pool, "avro", null, true);
+        nanos.addAndGet(TimeUnit.SECONDS.toNanos(300));
+        Consumer<String, String> jsonConsumer = read(pool, "json", null, true);
+
+        // the avro consumer is closed although no avro split is read again
+        verify(avroConsumer).close();
+        verify(jsonConsumer, never()).close();
+        assertEquals(1, pool.idleCount());
+    }
+
+    @Test
+    public void release_atMaxTotalIdle_closesConsumer()
+            throws Exception
+    {
+        KafkaConsumerPool pool = new KafkaConsumerPool(2, 2, 300, ticker);
+
+        Consumer<String, String> avroConsumer = read(pool, "avro", null, true);
+        Consumer<String, String> jsonConsumer = read(pool, "json", null, true);
+        Consumer<String, String> csvConsumer = read(pool, "csv", null, true);
+
+        verify(avroConsumer, never()).close();
+        verify(jsonConsumer, never()).close();
+        verify(csvConsumer).close();
+        assertEquals(2, pool.idleCount());
+    }
+
+    @Test
+    public void release_withPoolingDisabled_closesConsumer()
+            throws Exception
+    {
+        KafkaConsumerPool pool = new KafkaConsumerPool(ImmutableMap.of(KafkaConstants.CONSUMER_POOL_MAX_IDLE, "0"));
+
+        Consumer<String, String> consumer = read(pool, "csv", null, true);
+
+        verify(consumer).close();
+        assertEquals(0, pool.idleCount());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<String, String> read(KafkaConsumerPool pool, String dataFormat, Schema schema, boolean complete)
+            throws Exception
+    {
+        try (KafkaConsumerPool.Lease<String, String> lease = pool.borrow(dataFormat, schema, () -> {
+            Consumer<String, String> consumer = mock(Consumer.class);
+            created.add(consumer);
+            return consumer;
+        })) {
+            if (complete) {
+                lease.complete();
+            }
+            return lease.consumer();
+        }
+    }
+}
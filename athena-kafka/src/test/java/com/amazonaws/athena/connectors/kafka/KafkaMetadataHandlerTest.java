@@ -25,6 +25,9 @@ import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
 import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
 import com.amazonaws.athena.connector.lambda.metadata.*;
 import com.amazonaws.athena.connector.lambda.security.FederatedIdentity;
 
@@ -40,7 +43,11 @@ import software.amazon.awssdk.services.glue.model.ListRegistriesResponse;
 import software.amazon.awssdk.services.glue.model.RegistryListItem;
 import software.amazon.awssdk.services.glue.model.SchemaListItem;
 
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
 import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
 import org.junit.After;
@@ -53,6 +60,7 @@ import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -61,6 +69,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import com.amazonaws.athena.connectors.kafka.dto.SplitParameters;
 import com.amazonaws.athena.connectors.kafka.dto.TopicPartitionPiece;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
@@ -91,6 +100,7 @@ public class KafkaMetadataHandlerTest {
     private static final String TEST_REGISTRY_DESCRIPTION = "something something {AthenaFederationKafka} something";
     private static final int DEFAULT_PAGE_SIZE = 10;
     private static final long START_OFFSET = 0L; 
+    private static final String MESSAGE_TIMESTAMP = "message_timestamp";
     
     private KafkaMetadataHandler kafkaMetadataHandler;
     private BlockAllocator blockAllocator;
@@ -98,6 +108,7 @@ public class KafkaMetadataHandlerTest {
     private Block partitions;
     private List<String> partitionCols;
     private Constraints constraints;
+    private Map<String, String> configOptions;
 
     private MockedStatic<GlueClient> awsGlueClientBuilder;
 
@@ -121,7 +132,7 @@ public class KafkaMetadataHandlerTest {
                 Collections.emptyMap(),
                 null
         );
-        Map<String, String> configOptions = Map.of(
+        configOptions = Map.of(
             "aws.region", "us-west-2",
             "glue_registry_arn", "arn:aws:glue:us-west-2:123456789101:registry/Athena-NEW",
             "auth_type", KafkaUtils.AuthType.SSL.toString(),
@@ -684,6 +695,164 @@ public class KafkaMetadataHandlerTest {
         assertEquals("emptyProtobufSchema", getTableResponse.getSchema().getCustomMetadata().get("glueSchemaName"));
     }
     
+    @Test
+    public void doGetTable_withMessageTimestampColumn_addsTimestampField() throws Exception {
+        stubJsonTopicSchema();
+        KafkaMetadataHandler handler = new KafkaMetadataHandler(consumer, withMessageTimestampColumn());
+
+        GetTableResponse getTableResponse = handler.doGetTable(blockAllocator, createGetTableRequest(DEFAULT_SCHEMA, TEST_TOPIC));
+
+        assertEquals(2, getTableResponse.getSchema().getFields().size());
+        Field timestampField = getTableResponse.getSchema().findField(MESSAGE_TIMESTAMP);
+        assertEquals(Types.MinorType.DATEMILLI.getType(), timestampField.getType());
+        assertTrue(KafkaUtils.isMessageTimestampField(timestampField));
+        assertEquals(MESSAGE_TIMESTAMP, KafkaUtils.getMessageTimestampColumn(getTableResponse.getSchema()));
+    }
+
+    @Test
+    public void doGetSplits_withMessageTimestampRange_splitsMatchingOffsetsOnly() throws Exception {
+        stubJsonTopicSchema();
+        TopicPartition partition0 = new TopicPartition(TEST_TOPIC, 0);
+        TopicPartition partition1 = new TopicPartition(TEST_TOPIC, 1);
+        TopicPartition partition2 = new TopicPartition(TEST_TOPIC, 2);
+        Consumer<String, String> timestampConsumer = mockConsumer(partition0, partition1, partition2);
+
+        Map<TopicPartition, OffsetAndTimestamp> lowerOffsets = new HashMap<>();
+        lowerOffsets.put(partition0, new OffsetAndTimestamp(20_000L, 1_000L));
+        lowerOffsets.put(partition1, new OffsetAndTimestamp(45_000L, 1_500L));
+        // no message of partition 2 is at or after the lower bound
+        lowerOffsets.put(partition2, null);
+        Map<TopicPartition, OffsetAndTimestamp> upperOffsets = new HashMap<>();
+        upperOffsets.put(partition0, new OffsetAndTimestamp(25_000L, 2_001L));
+        // every message of partition 1 is before the upper bound
+        upperOffsets.put(partition1, null);
+        upperOffsets.put(partition2, null);
+        when(timestampConsumer.offsetsForTimes(timestamps(1_000L, partition0, partition1, partition2))).thenReturn(lowerOffsets);
+        when(timestampConsumer.offsetsForTimes(timestamps(2_001L, partition0, partition1, partition2))).thenReturn(upperOffsets);
+
+        KafkaMetadataHandler handler = new KafkaMetadataHandler(timestampConsumer, withMessageTimestampColumn());
+        ValueSet timestampRange = SortedRangeSet.of(false,
+                Range.range(blockAllocator, Types.MinorType.DATEMILLI.getType(), 1_000L, true, 2_000L, true));
+        GetSplitsResponse response = handler.doGetSplits(blockAllocator, createGetSplitsRequest(timestampRange));
+
+        Map<String, String> offsetsByPartition = response.getSplits().stream()
+                .collect(Collectors.toMap(split -> split.getProperty(SplitParameters.PARTITION),
+                        split -> split.getProperty(SplitParameters.START_OFFSET) + "-" + split.getProperty(SplitParameters.END_OFFSET)));
+        assertEquals(Map.of("0", "20000-25000", "1", "45000-50000"), offsetsByPartition);
+    }
+
+    @Test
+    public void doGetSplits_withMessageTimestampLowerBoundOnly_skipsPartitionsWithoutLaterMessages() throws Exception {
+        stubJsonTopicSchema();
+        TopicPartition partition0 = new TopicPartition(TEST_TOPIC, 0);
+        TopicPartition partition1 = new TopicPartition(TEST_TOPIC, 1);
+        Consumer<String, String> timestampConsumer = mockConsumer(partition0, partition1);
+
+        Map<TopicPartition, OffsetAndTimestamp> lowerOffsets = new HashMap<>();
+        lowerOffsets.put(partition0, new OffsetAndTimestamp(45_000L, 5_000L));
+        // no message of partition 1 is at or after the lower bound
+        lowerOffsets.put(partition1, null);
+        when(timestampConsumer.offsetsForTimes(timestamps(5_000L, partition0, partition1))).thenReturn(lowerOffsets);
+
+        KafkaMetadataHandler handler = new KafkaMetadataHandler(timestampConsumer, withMessageTimestampColumn());
+        ValueSet timestampRange = SortedRangeSet.of(false,
+                Range.greaterThanOrEqual(blockAllocator, Types.MinorType.DATEMILLI.getType(), LocalDateTime.of(1970, 1, 1, 0, 0, 5)));
+        GetSplitsResponse response = handler.doGetSplits(blockAllocator, createGetSplitsRequest(timestampRange));
+
+        Map<String, String> offsetsByPartition = response.getSplits().stream()
+                .collect(Collectors.toMap(split -> split.getProperty(SplitParameters.PARTITION),
+                        split -> split.getProperty(SplitParameters.START_OFFSET) + "-" + split.getProperty(SplitParameters.END_OFFSET)));
+        assertEquals(Map.of("0", "45000-50000"), offsetsByPartition);
+        // without an upper bound the end offsets are not searched
+        Mockito.verify(timestampConsumer, Mockito.times(1)).offsetsForTimes(any());
+    }
+
+    @Test
+    public void doGetSplits_withNullableMessageTimestampRange_splitsAllOffsets() throws Exception {
+        stubJsonTopicSchema();
+        TopicPartition partition0 = new TopicPartition(TEST_TOPIC, 0);
+        Consumer<String, String> timestampConsumer = mockConsumer(partition0);
+
+        KafkaMetadataHandler handler = new KafkaMetadataHandler(timestampConsumer, withMessageTimestampColumn());
+        ValueSet timestampRange = SortedRangeSet.of(true,
+                Range.greaterThan(blockAllocator, Types.MinorType.DATEMILLI.getType(), 1_000L));
+        GetSplitsResponse response = handler.doGetSplits(blockAllocator, createGetSplitsRequest(timestampRange));
+
+        assertEquals(5, response.getSplits().size());
+        Mockito.verify(timestampConsumer, Mockito.never()).offsetsForTimes(any());
+    }
+
+    private Map<String, String> withMessageTimestampColumn() {
+        Map<String, String> timestampConfigOptions = new HashMap<>(configOptions);
+        timestampConfigOptions.put(KafkaConstants.MESSAGE_TIMESTAMP_COLUMN, MESSAGE_TIMESTAMP);
+        timestampConfigOptions.put(KafkaConstants.MESSAGE_TIMESTAMP_MAX_SKEW_MS, "0");
+        return timestampConfigOptions;
+    }
+
+    private void stubJsonTopicSchema() {
+        GetSchemaResponse getSchemaResponse = createGetSchemaResponse(DEFAULT_ARN, DEFAULT_SCHEMA_NAME, DEFAULT_LATEST_SCHEMA_VERSION);
+        GetSchemaVersionResponse getSchemaVersionResponse = createGetSchemaVersionResponse(DEFAULT_ARN, DEFAULT_VERSION_ID, JSON_FORMAT, "{\n" +
+                "\t\"topicName\": \"" + TEST_TOPIC + "\",\n" +
+                "\t\"message\": {\n" +
+                "\t\t\"dataFormat\": \"" + JSON_FORMAT + "\",\n" +
+                "\t\t\"fields\": [{\n" +
+                "\t\t\t\"name\": \"intcol\",\n" +
+                "\t\t\t\"mapping\": \"intcol\",\n" +
+                "\t\t\t\"type\": \"INTEGER\"\n" +
+                "\t\t}]\n" +
+                "\t}\n" +
+                "}");
+        Mockito.when(glueClient.getSchema(any(GetSchemaRequest.class))).thenReturn(getSchemaResponse);
+        Mockito.when(glueClient.getSchemaVersion(any(GetSchemaVersionRequest.class))).thenReturn(getSchemaVersionResponse);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<String, String> mockConsumer(TopicPartition... topicPartitions) {
+        Consumer<String, String> mockConsumer = mock(Consumer.class);
+        Map<TopicPartition, Long> startOffsets = new HashMap<>();
+        Map<TopicPartition, Long> endOffsets = new HashMap<>();
+        List<PartitionInfo> partitionInfos = new ArrayList<>();
+        for (TopicPartition topicPartition : topicPartitions) {
+            startOffsets.put(topicPartition, START_OFFSET);
+            // the last partition only holds a few messages
+            endOffsets.put(topicPartition, topicPartition.partition() == topicPartitions.length - 1 && topicPartitions.length > 1 ? 100L : 50_000L);
+            partitionInfos.add(new PartitionInfo(topicPartition.topic(), topicPartition.partition(), null, null, null));
+        }
+        when(mockConsumer.partitionsFor(TEST_TOPIC)).thenReturn(partitionInfos);
+        when(mockConsumer.beginningOffsets(any())).thenReturn(startOffsets);
+        when(mockConsumer.endOffsets(any())).thenReturn(endOffsets);
+        return mockConsumer;
+    }
+
+    private static Map<TopicPartition, Long> timestamps(long timestamp, TopicPartition... topicPartitions) {
+        Map<TopicPartition, Long> timestamps = new HashMap<>();
+        for (TopicPartition topicPartition : topicPartitions) {
+            timestamps.put(topicPartition, timestamp);
+        }
+        return timestamps;
+    }
+
+    private GetSplitsRequest createGetSplitsRequest(ValueSet timestampConstraint) {
+        Constraints timestampConstraints = new Constraints(
+                Map.of(MESSAGE_TIMESTAMP, timestampConstraint),
+                Collections.emptyList(),
+                Collections.emptyList(),
+                Constraints.DEFAULT_NO_LIMIT,
+                Collections.emptyMap(),
+                null
+        );
+        return new GetSplitsRequest(
+                federatedIdentity,
+                QUERY_ID,
+                KAFKA_CATALOG,
+                new TableName(DEFAULT_SCHEMA, TEST_TOPIC),
+                Mockito.mock(Block.class),
+                new ArrayList<>(),
+                timestampConstraints,
+                null
+        );
+    }
+
     private RegistryListItem createRegistryListItem(String registryName, String description) {
         return RegistryListItem.builder()
                 .registryName(registryName)
@@ -0,0 +1,334 @@
+/*-
+ * #%L
+ * Athena Kafka Connector
+ * %%
+ * Copyright (C) 2019 - 2022 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.kafka;
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.spill.SpillLocation;
+import com.amazonaws.athena.connectors.kafka.dto.KafkaField;
+import com.amazonaws.athena.connectors.kafka.dto.Message;
+import com.amazonaws.athena.connectors.kafka.dto.SplitParameters;
+import com.amazonaws.athena.connectors.kafka.dto.TopicResultSet;
+import com.amazonaws.athena.connectors.kafka.serde.KafkaJsonDeserializer;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+
+import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
+
+/**
+ * Benchmark harness comparing the records per second a split converts when every record is written with its own
+ * {@link BlockSpiller#writeRows} call and {@link Block#offerValue} per field, like the record handler used to, and when
+ * whole poll batches are written through a {@link KafkaRecordBatchWriter}.
+ * <p>
+ * This is not run as part of the test suite. Run it from the test classpath with optional arguments
+ * {@code <recordCount> <pollSize> <blockRows> [bootstrapServers]}. Without bootstrap servers the records are generated
+ * in memory, so the results show the conversion cost per record and leave out the network and deserialization time
+ * which both paths share. With bootstrap servers the records are produced as JSON messages to a new single partition
+ * topic, and every run reads the partition as one split with a consumer using the connector's JSON deserializer, so
+ * the results are the records per second of a split read from the broker. Full blocks are dropped instead of being
+ * spilled to S3.
+ */
+public class KafkaRecordBatchWriterBenchmark
+{
+    private static final int RUNS = 5;
+    private static final String TIMESTAMP_FORMAT = "yyyy-MM-dd HH:mm:ss.SSS";
+    private static final Constraints NO_CONSTRAINTS = new Constraints(Collections.emptyMap(), Collections.emptyList(),
+            Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+
+    private KafkaRecordBatchWriterBenchmark() {}
+
+    public static void main(String[] args)
+            throws Exception
+    {
+        int recordCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int pollSize = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int blockRows = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+        String bootstrapServers = args.length > 3 ? args[3] : null;
+
+        Schema schema = SchemaBuilder.newBuilder()
+                .addField(createField("id", Types.MinorType.INT, "INTEGER"))
+                .addField(createField("account", Types.MinorType.BIGINT, "BIGINT"))
+                .addField(createField("name", Types.MinorType.VARCHAR, "VARCHAR"))
+                .addField(createField("country", Types.MinorType.VARCHAR, "VARCHAR"))
+                .addField(createField("amount", Types.MinorType.FLOAT8, "DOUBLE"))
+                .addField(createField("settled", Types.MinorType.BIT, "BOOLEAN"))
+                .addField(createField("created", Types.MinorType.DATEMILLI, "TIMESTAMP"))
+                .addMetadata("dataFormat", Message.DATA_FORMAT_JSON)
+                .build();
+
+        try (BlockAllocator allocator = new BlockAllocatorImpl()) {
+            System.out.printf("records=%d pollSize=%d blockRows=%d broker=%s%n", recordCount, pollSize, blockRows, bootstrapServers);
+            if (bootstrapServers == null) {
+                runInMemory(allocator, schema, recordCount, pollSize, blockRows);
+            }
+            else {
+                runOnBroker(allocator, schema, bootstrapServers, recordCount, pollSize, blockRows);
+            }
+        }
+    }
+
+    private static void runInMemory(BlockAllocator allocator, Schema schema, int recordCount, int pollSize, int blockRows)
+    {
+        List<List<ConsumerRecord<String, TopicResultSet>>> polls = generatePolls(recordCount, pollSize);
+        for (int run = 0; run < RUNS; run++) {
+            SplitParameters splitParameters = new SplitParameters("benchmark", 0, 0, recordCount);
+            DroppingSpiller spiller = new DroppingSpiller(allocator, schema, blockRows);
+            long start = System.nanoTime();
+            for (List<ConsumerRecord<String, TopicResultSet>> poll : polls) {
+                writePerRecord(spiller, poll);
+            }
+            long perRecordNanos = System.nanoTime() - start;
+            spiller.close();
+
+            spiller = new DroppingSpiller(allocator, schema, blockRows);
+            KafkaRecordBatchWriter<TopicResultSet> batchWriter = KafkaRecordBatchWriter.forTopicResultSet(schema, NO_CONSTRAINTS, splitParameters);
+            start = System.nanoTime();
+            for (List<ConsumerRecord<String, TopicResultSet>> poll : polls) {
+                batchWriter.write(spiller, poll);
+            }
+            long batchNanos = System.nanoTime() - start;
+            spiller.close();
+
+            System.out.printf("run=%d perRecord=%.0f records/s batch=%.0f records/s%n", run,
+                    recordCount * 1e9 / perRecordNanos, recordCount * 1e9 / batchNanos);
+        }
+    }
+
+    private static void runOnBroker(BlockAllocator allocator, Schema schema, String bootstrapServers, int recordCount, int pollSize, int blockRows)
+            throws Exception
+    {
+        String topic = "athena-benchmark-" + UUID.randomUUID();
+        produce(bootstrapServers, topic, recordCount);
+        // Alternate the paths so that both read the partition with a warm page cache and JIT.
+        for (int run = 0; run < RUNS; run++) {
+            long perRecordNanos = readSplit(allocator, schema, bootstrapServers, topic, recordCount, pollSize, blockRows, false);
+            long batchNanos = readSplit(allocator, schema, bootstrapServers, topic, recordCount, pollSize, blockRows, true);
+            System.out.printf("run=%d perRecord=%.0f records/s batch=%.0f records/s%n", run,
+                    recordCount * 1e9 / perRecordNanos, recordCount * 1e9 / batchNanos);
+        }
+    }
+
+    private static void produce(String bootstrapServers, String topic, int recordCount)
+            throws Exception
+    {
+        Properties properties = new Properties();
+        properties.setProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        properties.setProperty(ProducerConfig.LINGER_MS_CONFIG, "5");
+        properties.setProperty(ProducerConfig.BATCH_SIZE_CONFIG, String.valueOf(256 * 1024));
+        try (Producer<String, String> producer = new KafkaProducer<>(properties, new StringSerializer(), new StringSerializer())) {
+            for (int i = 0; i < recordCount; i++) {
+                String value = String.format("{\"id\":%d,\"account\":%d,\"name\":\"customer-%d\",\"country\":\"%s\","
+                                + "\"amount\":%s,\"settled\":%s,\"created\":\"%s\"}",
+                        i, i % 10_000, i, i % 2 == 0 ? "DE" : "US", i * 0.25, i % 3 == 0,
+                        new SimpleDateFormat(TIMESTAMP_FORMAT).format(new Date(1_600_000_000_000L + i)));
+                producer.send(new ProducerRecord<>(topic, 0, "key-" + i, value));
+            }
+            producer.flush();
+        }
+    }
+
+    /*
+    Reads the partition of the topic from offset 0 as one split and returns the nanoseconds from the first poll until
+    the last record was written.
+     */
+    private static long readSplit(BlockAllocator allocator, Schema schema, String bootstrapServers, String topic, int recordCount,
+                                  int pollSize, int blockRows, boolean batch)
+    {
+        Properties properties = new Properties();
+        properties.setProperty(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        properties.setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+        properties.setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, String.valueOf(pollSize));
+        TopicPartition partition = new TopicPartition(topic, 0);
+        SplitParameters splitParameters = new SplitParameters(topic, 0, 0, recordCount - 1);
+        KafkaRecordBatchWriter<TopicResultSet> batchWriter = KafkaRecordBatchWriter.forTopicResultSet(schema, NO_CONSTRAINTS, splitParameters);
+        DroppingSpiller spiller = new DroppingSpiller(allocator, schema, blockRows);
+        try (Consumer<String, TopicResultSet> consumer = new KafkaConsumer<>(properties, new StringDeserializer(), new KafkaJsonDeserializer(schema))) {
+            consumer.assign(Collections.singleton(partition));
+            consumer.seek(partition, 0);
+            long start = System.nanoTime();
+            int read = 0;
+            while (read < recordCount) {
+                List<ConsumerRecord<String, TopicResultSet>> poll = consumer.poll(Duration.ofSeconds(1)).records(partition);
+                if (batch) {
+                    batchWriter.write(spiller, poll);
+                }
+                else {
+                    writePerRecord(spiller, poll);
+                }
+                read += poll.size();
+            }
+            return System.nanoTime() - start;
+        }
+        finally {
+            spiller.close();
+        }
+    }
+
+    /*
+    Writes the records like the record handler did before poll batches were written through a KafkaRecordBatchWriter.
+     */
+    private static void writePerRecord(BlockSpiller spiller, List<ConsumerRecord<String, TopicResultSet>> poll)
+    {
+        for (ConsumerRecord<String, TopicResultSet> record : poll) {
+            spiller.writeRows((Block block, int rowNum) -> {
+                for (KafkaField field : record.value().getFields()) {
+                    if (!block.offerValue(field.getName(), rowNum, field.getValue())) {
+                        return 0;
+                    }
+                }
+                return 1;
+            });
+        }
+    }
+
+    private static Field createField(String name, Types.MinorType minorType, String type)
+    {
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put("mapping", name);
+        metadata.put("type", type);
+        metadata.put("formatHint", TIMESTAMP_FORMAT);
+        return new Field(name, new FieldType(true, minorType.getType(), null, metadata), null);
+    }
+
+    private static List<List<ConsumerRecord<String, TopicResultSet>>> generatePolls(int recordCount, int pollSize)
+    {
+        List<List<ConsumerRecord<String, TopicResultSet>>> polls = new ArrayList<>();
+        List<ConsumerRecord<String, TopicResultSet>> poll = new ArrayList<>();
+        for (int i = 0; i < recordCount; i++) {
+            TopicResultSet resultSet = new TopicResultSet();
+            resultSet.getFields().add(new KafkaField("id", "id", "INTEGER", "", i));
+            resultSet.getFields().add(new KafkaField("account", "account", "BIGINT", "", (long) i % 10_000));
+            resultSet.getFields().add(new KafkaField("name", "name", "VARCHAR", "", "customer-" + i));
+            resultSet.getFields().add(new KafkaField("country", "country", "VARCHAR", "", i % 2 == 0 ? "DE" : "US"));
+            resultSet.getFields().add(new KafkaField("amount", "amount", "DOUBLE", "", i * 0.25));
+            resultSet.getFields().add(new KafkaField("settled", "settled", "BOOLEAN", "", i % 3 == 0));
+            resultSet.getFields().add(new KafkaField("created", "created", "TIMESTAMP", "", new Date(1_600_000_000_000L + i)));
+            poll.add(new ConsumerRecord<>("benchmark", 0, i, "key-" + i, resultSet));
+            if (poll.size() == pollSize) {
+                polls.add(poll);
+                poll = new ArrayList<>();
+            }
+        }
+        if (!poll.isEmpty()) {
+            polls.add(poll);
+        }
+        return polls;
+    }
+
+    /**
+     * Writes rows into an in-memory block which is replaced once it holds the configured number of rows.
+     */
+    private static class DroppingSpiller
+            implements BlockSpiller
+    {
+        private final BlockAllocator allocator;
+        private final Schema schema;
+        private final int blockRows;
+        private Block block;
+
+        DroppingSpiller(BlockAllocator allocator, Schema schema, int blockRows)
+        {
+            this.allocator = allocator;
+            this.schema = schema;
+            this.blockRows = blockRows;
+            this.block = allocator.createBlock(schema);
+        }
+
+        @Override
+        public void writeRows(RowWriter rowWriter)
+        {
+            try {
+                int rows = rowWriter.writeRows(block, block.getRowCount());
+                block.setRowCount(block.getRowCount() + rows);
+                if (block.getRowCount() >= blockRows) {
+                    block.close();
+                    block = allocator.createBlock(schema);
+                }
+            }
+            catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+
+        @Override
+        public boolean spilled()
+        {
+            return false;
+        }
+
+        @Override
+        public Block getBlock()
+        {
+            return block;
+        }
+
+        @Override
+        public List<SpillLocation> getSpillLocations()
+        {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public void close()
+        {
+            try {
+                block.close();
+            }
+            catch (Exception ex) {
+                throw new RuntimeException(ex);
+            }
+        }
+
+        @Override
+        public ConstraintEvaluator getConstraintEvaluator()
+        {
+            return null;
+        }
+    }
+}
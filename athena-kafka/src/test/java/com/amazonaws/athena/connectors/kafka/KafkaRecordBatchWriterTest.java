@@ -0,0 +1,252 @@
+/*-
+ * #%L
+ * Athena Kafka Connector
+ * %%
+ * Copyright (C) 2019 - 2022 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.kafka;
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.BlockWriter;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
+import com.amazonaws.athena.connectors.kafka.dto.KafkaField;
+import com.amazonaws.athena.connectors.kafka.dto.SplitParameters;
+import com.amazonaws.athena.connectors.kafka.dto.TopicResultSet;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DynamicMessage;
+import io.confluent.kafka.schemaregistry.protobuf.ProtobufSchema;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.avro.generic.GenericData;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.avro.util.Utf8;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class KafkaRecordBatchWriterTest
+{
+    private static final String TOPIC = "myTopic";
+    private static final String MESSAGE_TIMESTAMP = "message_time";
+
+    private BlockAllocator allocator;
+    private SplitParameters splitParameters;
+
+    @Before
+    public void setUp()
+    {
+        allocator = new BlockAllocatorImpl();
+        splitParameters = new SplitParameters(TOPIC, 0, 0, 1_000);
+    }
+
+    @After
+    public void tearDown()
+    {
+        allocator.close();
+    }
+
+    @Test
+    public void write_withTopicResultSets_writesTypedRowsMatchingConstraints()
+    {
+        Schema schema = SchemaBuilder.newBuilder()
+                .addIntField("id")
+                .addStringField("name")
+                .addBitField("isActive")
+                .addTinyIntField("code")
+                .addFloat8Field("price")
+                .build();
+        ValueSet idRange = SortedRangeSet.of(false, Range.greaterThan(allocator, Types.MinorType.INT.getType(), 1));
+        KafkaRecordBatchWriter<TopicResultSet> batchWriter = KafkaRecordBatchWriter.forTopicResultSet(schema, constraints(ImmutableMap.of("id", idRange)), splitParameters);
+
+        List<ConsumerRecord<String, TopicResultSet>> records = new ArrayList<>();
+        for (int i = 0; i < 150; i++) {
+            TopicResultSet resultSet = new TopicResultSet();
+            resultSet.getFields().add(new KafkaField("id", "0", "INTEGER", "", i));
+            // a field which failed to deserialize is missing from the result set
+            if (i % 2 == 0) {
+                resultSet.getFields().add(new KafkaField("name", "1", "VARCHAR", "", "name-" + i));
+            }
+            resultSet.getFields().add(new KafkaField("isActive", "2", "BOOLEAN", "", i % 3 == 0));
+            resultSet.getFields().add(new KafkaField("code", "3", "TINYINT", "", (byte) (i % 100)));
+            resultSet.getFields().add(new KafkaField("price", "4", "DOUBLE", "", i + 0.5));
+            records.add(record(i, -1, resultSet));
+        }
+
+        Block block = allocator.createBlock(schema);
+        BlockSpiller spiller = spillerFor(block);
+        batchWriter.write(spiller, records);
+
+        // 150 records are handed to the spiller in chunks of at most MAX_ROWS_PER_WRITE rows
+        verify(spiller, times(3)).writeRows(any());
+        assertEquals(148, block.getRowCount());
+        assertEquals(148, splitParameters.spilled);
+
+        assertEquals(2, block.getFieldReader("id").readInteger().intValue());
+        assertEquals("name-2", block.getFieldReader("name").readText().toString());
+        assertEquals(false, block.getFieldReader("isActive").readBoolean());
+        assertEquals(2, block.getFieldReader("code").readByte().byteValue());
+        assertEquals(2.5, block.getFieldReader("price").readDouble(), 0.0);
+
+        block.getFieldReader("id").setPosition(1);
+        block.getFieldReader("name").setPosition(1);
+        block.getFieldReader("isActive").setPosition(1);
+        assertEquals(3, block.getFieldReader("id").readInteger().intValue());
+        assertNull(block.getFieldReader("name").readText());
+        assertEquals(true, block.getFieldReader("isActive").readBoolean());
+    }
+
+    @Test
+    public void write_withAvroRecords_writesFieldsByName()
+    {
+        Schema schema = SchemaBuilder.newBuilder()
+                .addIntField("id")
+                .addStringField("name")
+                .addBigIntField("missing")
+                .build();
+        KafkaRecordBatchWriter<GenericRecord> batchWriter = KafkaRecordBatchWriter.forAvro(schema, constraints(Collections.emptyMap()), splitParameters);
+
+        org.apache.avro.Schema avroSchema = new org.apache.avro.Schema.Parser().parse(
+                "{\"type\": \"record\",\"name\":\"greetings\",\"fields\": [{\"name\": \"name\", \"type\": \"string\"},{\"name\": \"id\", \"type\": \"int\"}]}");
+        List<ConsumerRecord<String, GenericRecord>> records = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            GenericRecord value = new GenericData.Record(avroSchema);
+            value.put("id", i);
+            value.put("name", new Utf8("name-" + i));
+            records.add(record(i, -1, value));
+        }
+
+        Block block = allocator.createBlock(schema);
+        batchWriter.write(spillerFor(block), records);
+
+        assertEquals(2, block.getRowCount());
+        block.getFieldReader("id").setPosition(1);
+        block.getFieldReader("name").setPosition(1);
+        assertEquals(1, block.getFieldReader("id").readInteger().intValue());
+        assertEquals("name-1", block.getFieldReader("name").readText().toString());
+        assertNull(block.getFieldReader("missing").readLong());
+    }
+
+    @Test
+    public void write_withProtobufMessages_writesUnsetFieldsAsNull()
+    {
+        Schema schema = SchemaBuilder.newBuilder()
+                .addStringField("name")
+                .addIntField("calories")
+                .build();
+        KafkaRecordBatchWriter<DynamicMessage> batchWriter = KafkaRecordBatchWriter.forProtobuf(schema, constraints(Collections.emptyMap()), splitParameters);
+
+        Descriptors.Descriptor descriptor = new ProtobufSchema("syntax = \"proto3\";\nmessage food {\nstring name = 1;\nint32 calories = 2;\n}").toDescriptor();
+        DynamicMessage cake = DynamicMessage.newBuilder(descriptor)
+                .setField(descriptor.findFieldByName("name"), "cake")
+                .setField(descriptor.findFieldByName("calories"), 260)
+                .build();
+        DynamicMessage water = DynamicMessage.newBuilder(descriptor)
+                .setField(descriptor.findFieldByName("name"), "water")
+                .build();
+
+        Block block = allocator.createBlock(schema);
+        batchWriter.write(spillerFor(block), ImmutableList.of(record(0, -1, cake), record(1, -1, water)));
+
+        assertEquals(2, block.getRowCount());
+        assertEquals("cake", block.getFieldReader("name").readText().toString());
+        assertEquals(260, block.getFieldReader("calories").readInteger().intValue());
+        block.getFieldReader("name").setPosition(1);
+        block.getFieldReader("calories").setPosition(1);
+        assertEquals("water", block.getFieldReader("name").readText().toString());
+        assertNull(block.getFieldReader("calories").readInteger());
+    }
+
+    @Test
+    public void write_withMessageTimestampColumn_writesRecordTimestamps()
+    {
+        Schema schema = SchemaBuilder.newBuilder()
+                .addIntField("id")
+                .addField(KafkaUtils.createMessageTimestampField(MESSAGE_TIMESTAMP))
+                .build();
+        ValueSet timestampRange = SortedRangeSet.of(true,
+                Range.greaterThanOrEqual(allocator, Types.MinorType.DATEMILLI.getType(), 2_000L));
+        KafkaRecordBatchWriter<TopicResultSet> batchWriter = KafkaRecordBatchWriter.forTopicResultSet(schema,
+                constraints(ImmutableMap.of(MESSAGE_TIMESTAMP, timestampRange)), splitParameters);
+
+        List<ConsumerRecord<String, TopicResultSet>> records = new ArrayList<>();
+        long[] timestamps = {1_000L, 2_000L, -1L};
+        for (int i = 0; i < timestamps.length; i++) {
+            TopicResultSet resultSet = new TopicResultSet();
+            resultSet.getFields().add(new KafkaField("id", "0", "INTEGER", "", i));
+            records.add(record(i, timestamps[i], resultSet));
+        }
+
+        Block block = allocator.createBlock(schema);
+        batchWriter.write(spillerFor(block), records);
+
+        // the record before the range is left out, the one without a timestamp matches the nullable range
+        assertEquals(2, block.getRowCount());
+        assertEquals(1, block.getFieldReader("id").readInteger().intValue());
+        assertEquals(LocalDateTime.of(1970, 1, 1, 0, 0, 2), block.getFieldReader(MESSAGE_TIMESTAMP).readLocalDateTime());
+        block.getFieldReader(MESSAGE_TIMESTAMP).setPosition(1);
+        assertNull(block.getFieldReader(MESSAGE_TIMESTAMP).readLocalDateTime());
+    }
+
+    private static Constraints constraints(Map<String, ValueSet> summary)
+    {
+        return new Constraints(summary, Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+    }
+
+    private static <T> ConsumerRecord<String, T> record(long offset, long timestamp, T value)
+    {
+        return new ConsumerRecord<>(TOPIC, 0, offset, timestamp, TimestampType.CREATE_TIME, 0, 0, "key", value, new RecordHeaders(), Optional.empty());
+    }
+
+    private static BlockSpiller spillerFor(Block block)
+    {
+        BlockSpiller spiller = mock(BlockSpiller.class);
+        doAnswer(invocation -> {
+            BlockWriter.RowWriter rowWriter = invocation.getArgument(0);
+            int rows = rowWriter.writeRows(block, block.getRowCount());
+            block.setRowCount(block.getRowCount() + rows);
+            return null;
+        }).when(spiller).writeRows(any());
+        return spiller;
+    }
+}
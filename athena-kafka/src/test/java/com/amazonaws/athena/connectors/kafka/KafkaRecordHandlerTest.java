@@ -25,7 +25,11 @@ import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
 import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
 import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
 import com.amazonaws.athena.connector.lambda.domain.spill.S3SpillLocation;
+import com.amazonaws.athena.connector.lambda.metadata.MetadataCache;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connector.lambda.security.EncryptionKey;
 import com.amazonaws.athena.connector.lambda.security.EncryptionKeyFactory;
@@ -37,14 +41,19 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.protobuf.Descriptors;
 import com.google.protobuf.DynamicMessage;
 import io.confluent.kafka.schemaregistry.protobuf.ProtobufSchema;
+import org.apache.arrow.vector.complex.reader.FieldReader;
+import org.apache.arrow.vector.types.Types;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.arrow.vector.types.pojo.FieldType;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.apache.avro.generic.GenericData;
 import org.apache.avro.generic.GenericRecord;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.MockConsumer;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -63,14 +72,19 @@ import software.amazon.awssdk.services.glue.model.GetSchemaVersionResponse;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.UUID;
 
 import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
 import static com.amazonaws.athena.connectors.kafka.KafkaConstants.AVRO_DATA_FORMAT;
 import static com.amazonaws.athena.connectors.kafka.KafkaConstants.PROTOBUF_DATA_FORMAT;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.anyMap;
 
 import static org.mockito.Mockito.*;
@@ -98,6 +112,7 @@ public class KafkaRecordHandlerTest {
     private static final String TEST_KEY_2 = "k2";
     private static final String TEST_KEY_3 = "k3";
     private static final int PARTITION = 0;
+    private static final String MESSAGE_TIME = "message_time";
 
     private static final ObjectMapper objectMapper = new ObjectMapper();
     private MockedStatic<GlueClient> awsGlueClientBuilder;
@@ -233,6 +248,138 @@ public class KafkaRecordHandlerTest {
         assertEquals(1, spiller.getBlock().getRowCount());
     }
 
+    @Test
+    public void readWithConstraint_withWarmHandler_reusesConsumerAndCachedSchema() throws Exception {
+        kafkaRecordHandler = new KafkaRecordHandler(amazonS3, awsSecretsManager, athena,
+                com.google.common.collect.ImmutableMap.of(MetadataCache.METADATA_CACHE_TTL_SECONDS, "60"));
+        Schema schema = createAvroSchema(createAvroTopicSchema());
+        setupConsumerOffsets(avroConsumer, GREETINGS_TOPIC, 1L);
+        mockedKafkaUtils.when(() -> KafkaUtils.createSplitParam(anyMap())).thenAnswer(invocation -> new SplitParameters(GREETINGS_TOPIC, PARTITION, 0, 1));
+        mockedKafkaUtils.when(() -> KafkaUtils.getAvroKafkaConsumer(anyMap())).thenReturn(avroConsumer);
+        setupGlueMocks(getAvroSchemaVersionResponse());
+        // stubbing a static method of a spy records the stubbed call
+        mockedKafkaUtils.clearInvocations();
+
+        QueryStatusChecker queryStatusChecker = mock(QueryStatusChecker.class);
+        when(queryStatusChecker.isQueryRunning()).thenReturn(true);
+
+        for (int split = 0; split < 2; split++) {
+            if (split > 0) {
+                // the pooled consumer is reassigned to the partition of the next split
+                ConsumerRecord<String, GenericRecord> avroRecord = createAvroConsumerRecord(0, TEST_KEY_1, createGenericRecord());
+                ConsumerRecord<String, GenericRecord> avroNullValueRecord = createAvroConsumerRecord(1, TEST_KEY_2, null);
+                avroConsumer.schedulePollTask(() -> {
+                    avroConsumer.addRecord(avroRecord);
+                    avroConsumer.addRecord(avroNullValueRecord);
+                });
+            }
+            BlockSpiller spiller = createBlockSpiller(schema);
+            kafkaRecordHandler.readWithConstraint(spiller, createReadRecordsRequest(schema), queryStatusChecker);
+            assertEquals(1, spiller.getBlock().getRowCount());
+        }
+
+        mockedKafkaUtils.verify(() -> KafkaUtils.getAvroKafkaConsumer(anyMap()), times(1));
+        verify(awsGlue, times(1)).getSchema(any(GetSchemaRequest.class));
+        verify(awsGlue, times(1)).getSchemaVersion(any(GetSchemaVersionRequest.class));
+    }
+
+    @Test
+    public void readWithConstraint_withLastSplitAtEndOfLog_stopsWithoutEmptyPolls() throws Exception {
+        Schema schema = createAvroSchema(createAvroTopicSchema());
+        // the split ends at the end of the log, there is no record at its end offset
+        setupConsumerOffsets(avroConsumer, GREETINGS_TOPIC, 2L);
+        SplitParameters splitParameters = new SplitParameters(GREETINGS_TOPIC, PARTITION, 0, 2);
+        mockedKafkaUtils.when(() -> KafkaUtils.createSplitParam(anyMap())).thenReturn(splitParameters);
+        mockedKafkaUtils.when(() -> KafkaUtils.getAvroKafkaConsumer(com.google.common.collect.ImmutableMap.of())).thenReturn(avroConsumer);
+        setupGlueMocks(getAvroSchemaVersionResponse());
+
+        QueryStatusChecker queryStatusChecker = mock(QueryStatusChecker.class);
+        when(queryStatusChecker.isQueryRunning()).thenReturn(true);
+
+        BlockSpiller spiller = createBlockSpiller(schema);
+        kafkaRecordHandler.readWithConstraint(spiller, createReadRecordsRequest(schema), queryStatusChecker);
+        assertEquals(1, spiller.getBlock().getRowCount());
+        assertEquals(1, splitParameters.polls);
+        assertEquals(0, splitParameters.idleMillis);
+    }
+
+    @Test
+    public void readWithConstraint_withOffsetGap_leavesRecordsOfNextSplit() throws Exception {
+        avroConsumer = new MockConsumer<>(EARLIEST);
+        ConsumerRecord<String, GenericRecord> avroRecord = createAvroConsumerRecord(0, TEST_KEY_1, createGenericRecord());
+        // offsets 1 and 2 were compacted away, offset 3 is the first record of the next split
+        ConsumerRecord<String, GenericRecord> nextSplitRecord = createAvroConsumerRecord(3, TEST_KEY_2, createGenericRecord());
+        avroConsumer.schedulePollTask(() -> {
+            avroConsumer.addRecord(avroRecord);
+            avroConsumer.addRecord(nextSplitRecord);
+        });
+        Schema schema = createAvroSchema(createAvroTopicSchema());
+        setupConsumerOffsets(avroConsumer, GREETINGS_TOPIC, 10L);
+        mockedKafkaUtils.when(() -> KafkaUtils.createSplitParam(anyMap())).thenReturn(new SplitParameters(GREETINGS_TOPIC, PARTITION, 0, 2));
+        mockedKafkaUtils.when(() -> KafkaUtils.getAvroKafkaConsumer(com.google.common.collect.ImmutableMap.of())).thenReturn(avroConsumer);
+        setupGlueMocks(getAvroSchemaVersionResponse());
+
+        QueryStatusChecker queryStatusChecker = mock(QueryStatusChecker.class);
+        when(queryStatusChecker.isQueryRunning()).thenReturn(true);
+
+        BlockSpiller spiller = createBlockSpiller(schema);
+        kafkaRecordHandler.readWithConstraint(spiller, createReadRecordsRequest(schema), queryStatusChecker);
+        assertEquals(1, spiller.getBlock().getRowCount());
+    }
+
+    @Test
+    public void readWithConstraint_withMessageTimestampConstraint_writesMatchingRecords() throws Exception {
+        avroConsumer = new MockConsumer<>(EARLIEST);
+        ConsumerRecord<String, GenericRecord> earlyRecord = createAvroConsumerRecord(0, 1_000L, TEST_KEY_1, createGenericRecord());
+        ConsumerRecord<String, GenericRecord> lateRecord = createAvroConsumerRecord(1, 3_000L, TEST_KEY_2, createGenericRecord());
+        avroConsumer.schedulePollTask(() -> {
+            avroConsumer.addRecord(earlyRecord);
+            avroConsumer.addRecord(lateRecord);
+        });
+        Schema topicSchema = createAvroSchema(createAvroTopicSchema());
+        SchemaBuilder schemaBuilder = SchemaBuilder.newBuilder();
+        topicSchema.getFields().forEach(schemaBuilder::addField);
+        schemaBuilder.addField(KafkaUtils.createMessageTimestampField(MESSAGE_TIME));
+        schemaBuilder.addMetadata("dataFormat", AVRO_DATA_FORMAT);
+        Schema schema = schemaBuilder.build();
+        setupKafkaMocks(avroConsumer, GREETINGS_TOPIC, 2L, schema);
+        setupGlueMocks(getAvroSchemaVersionResponse());
+
+        QueryStatusChecker queryStatusChecker = mock(QueryStatusChecker.class);
+        when(queryStatusChecker.isQueryRunning()).thenReturn(true);
+
+        // message_time >= 1970-01-01 00:00:02, the column holds the record timestamps as UTC date times
+        ValueSet timestampConstraint = SortedRangeSet.of(false,
+                Range.greaterThanOrEqual(allocator, Types.MinorType.DATEMILLI.getType(), LocalDateTime.of(1970, 1, 1, 0, 0, 2)));
+        Constraints constraints = new Constraints(Collections.singletonMap(MESSAGE_TIME, timestampConstraint), Collections.emptyList(),
+                Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+        BlockSpiller spiller = createBlockSpiller(schema);
+        kafkaRecordHandler.readWithConstraint(spiller, createReadRecordsRequest(schema, constraints), queryStatusChecker);
+
+        Block block = spiller.getBlock();
+        assertEquals(1, block.getRowCount());
+        FieldReader reader = block.getFieldReader(MESSAGE_TIME);
+        reader.setPosition(0);
+        assertEquals(LocalDateTime.of(1970, 1, 1, 0, 0, 3), reader.readLocalDateTime());
+    }
+
+    @Test
+    public void hasReadSplit_comparesPositionAndLagWithEndOffset() {
+        TopicPartition partition = new TopicPartition(MY_TOPIC, PARTITION);
+        SplitParameters splitParameters = new SplitParameters(MY_TOPIC, PARTITION, 0, 10);
+        @SuppressWarnings("unchecked")
+        Consumer<String, String> kafkaConsumer = mock(Consumer.class);
+
+        assertFalse(KafkaRecordHandler.hasReadSplit(kafkaConsumer, partition, 9, splitParameters));
+        assertTrue(KafkaRecordHandler.hasReadSplit(kafkaConsumer, partition, 11, splitParameters));
+
+        // at the end offset the split is read only if it ends at the end of the log
+        when(kafkaConsumer.currentLag(partition)).thenReturn(OptionalLong.empty(), OptionalLong.of(1), OptionalLong.of(0));
+        assertFalse(KafkaRecordHandler.hasReadSplit(kafkaConsumer, partition, 10, splitParameters));
+        assertFalse(KafkaRecordHandler.hasReadSplit(kafkaConsumer, partition, 10, splitParameters));
+        assertTrue(KafkaRecordHandler.hasReadSplit(kafkaConsumer, partition, 10, splitParameters));
+    }
+
     @Test
     public void testForQueryStatusChecker() throws Exception {
         Schema schema = createSchema(createCsvTopicSchema());
@@ -280,6 +427,11 @@ public class KafkaRecordHandlerTest {
     }
     
     private ReadRecordsRequest createReadRecordsRequest(Schema schema) {
+        return createReadRecordsRequest(schema,
+                new Constraints(Collections.emptyMap(), Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null));
+    }
+
+    private ReadRecordsRequest createReadRecordsRequest(Schema schema, Constraints constraints) {
         return new ReadRecordsRequest(
                 federatedIdentity,
                 TEST_CATALOG,
@@ -294,7 +446,7 @@ public class KafkaRecordHandlerTest {
                                 .withIsDirectory(true)
                                 .build(),
                         keyFactory.create()).build(),
-                new Constraints(Collections.emptyMap(), Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null),
+                constraints,
                 0,
                 0);
     }
@@ -307,6 +459,11 @@ public class KafkaRecordHandlerTest {
         return new ConsumerRecord<>(GREETINGS_TOPIC, PARTITION, offset, key, data);
     }
 
+    private ConsumerRecord<String, GenericRecord> createAvroConsumerRecord(long offset, long timestamp, String key, GenericRecord data) {
+        return new ConsumerRecord<>(GREETINGS_TOPIC, PARTITION, offset, timestamp, TimestampType.CREATE_TIME, 0, 0, key, data,
+                new RecordHeaders(), Optional.empty());
+    }
+
     private ConsumerRecord<String, DynamicMessage> createProtobufConsumerRecord(long offset, String key, DynamicMessage data) {
         return new ConsumerRecord<>(PROTOBUF_TEST_TOPIC, PARTITION, offset, key, data);
     }
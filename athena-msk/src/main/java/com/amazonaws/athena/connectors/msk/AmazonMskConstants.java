@@ -64,6 +64,47 @@ public class AmazonMskConstants
 
     public static final int MAX_RECORDS_IN_SPLIT = 10_000;
 
+    /**
+     * Name of an optional TIMESTAMP column holding the Kafka timestamp of each message. When set, the column is added
+     * to every topic table and predicates on it limit the offsets of each partition that are split and read.
+     */
+    public static final String MESSAGE_TIMESTAMP_COLUMN = "message_timestamp_column";
+    /**
+     * How much, in milliseconds, message timestamps may go back within a partition, e.g. from producer clock skew on
+     * topics using CreateTime. Splits end at the first message after the upper timestamp bound plus this skew.
+     */
+    public static final String MESSAGE_TIMESTAMP_MAX_SKEW_MS = "message_timestamp_max_skew_ms";
+    public static final long DEFAULT_MESSAGE_TIMESTAMP_MAX_SKEW_MS = 60_000L;
+    /**
+     * Field metadata key marking the message timestamp column, which is not part of the message value.
+     */
+    public static final String MESSAGE_TIMESTAMP_FIELD_METADATA = "messageTimestamp";
+
+    /**
+     * The max number of idle consumers the record handler keeps per deserializer type and schema, so that warm
+     * invocations reassign the partition of their split to an open consumer instead of connecting to the brokers
+     * again. 0 disables pooling and closes every consumer once its split is read.
+     */
+    public static final String CONSUMER_POOL_MAX_IDLE = "consumer_pool_max_idle";
+    public static final int DEFAULT_CONSUMER_POOL_MAX_IDLE = 2;
+    /**
+     * The max number of idle consumers the record handler keeps across all deserializer types and schemas, which bounds
+     * the connections a warm Lambda holds open when its queries read many different tables. 0 disables pooling.
+     */
+    public static final String CONSUMER_POOL_MAX_TOTAL_IDLE = "consumer_pool_max_total_idle";
+    public static final int DEFAULT_CONSUMER_POOL_MAX_TOTAL_IDLE = 4;
+    /**
+     * How long, in seconds, a pooled consumer is reused after it was created. Older consumers are closed and replaced,
+     * which also picks up rotated credentials and certificates.
+     */
+    public static final String CONSUMER_POOL_TTL_SECONDS = "consumer_pool_ttl_seconds";
+    public static final long DEFAULT_CONSUMER_POOL_TTL_SECONDS = 300L;
+    /**
+     * Whether the equality predicates on the top level fields of JSON topics are checked against the raw messages with
+     * a streaming scan, so that messages which do not match are never deserialized. Enabled by default.
+     */
+    public static final String JSON_FIELD_FILTER_ENABLED = "json_field_filter_enabled";
+
     public static final String AVRO_DATA_FORMAT = "avro";
     public static final String PROTOBUF_DATA_FORMAT = "protobuf";
 
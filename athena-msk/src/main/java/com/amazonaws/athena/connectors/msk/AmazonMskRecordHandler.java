@@ -25,11 +25,11 @@ import com.amazonaws.athena.connector.lambda.handlers.RecordHandler;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connectors.msk.consumer.MskAvroConsumer;
 import com.amazonaws.athena.connectors.msk.consumer.MskConsumer;
+import com.amazonaws.athena.connectors.msk.consumer.MskConsumerPool;
 import com.amazonaws.athena.connectors.msk.consumer.MskDefaultConsumer;
 import com.amazonaws.athena.connectors.msk.consumer.MskProtobufConsumer;
 import com.amazonaws.athena.connectors.msk.dto.SplitParameters;
 import com.google.common.annotations.VisibleForTesting;
-import org.apache.kafka.clients.consumer.Consumer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.services.athena.AthenaClient;
@@ -44,6 +44,11 @@ public class AmazonMskRecordHandler
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(AmazonMskRecordHandler.class);
 
+    private final GlueRegistryReader registryReader;
+    // Kept across the splits read by a warm Lambda, see MskConsumerPool.
+    private final MskConsumerPool consumerPool;
+    private final boolean filterJsonFields;
+
     AmazonMskRecordHandler(java.util.Map<String, String> configOptions)
     {
         this(
@@ -57,6 +62,9 @@ public class AmazonMskRecordHandler
     public AmazonMskRecordHandler(S3Client amazonS3, SecretsManagerClient secretsManager, AthenaClient athena, java.util.Map<String, String> configOptions)
     {
         super(amazonS3, secretsManager, athena, AmazonMskConstants.MSK_SOURCE, configOptions);
+        this.registryReader = new GlueRegistryReader(configOptions);
+        this.consumerPool = new MskConsumerPool(configOptions);
+        this.filterJsonFields = Boolean.parseBoolean(configOptions.getOrDefault(AmazonMskConstants.JSON_FIELD_FILTER_ENABLED, "true"));
     }
 
     /**
@@ -72,29 +80,39 @@ public class AmazonMskRecordHandler
         // Taking the Split parameters in a readable pojo format.
         SplitParameters splitParameters = AmazonMskUtils.createSplitParam(recordsRequest.getSplit().getProperties());
         LOGGER.info("[kafka] {} RecordHandler running", splitParameters);
-        GlueRegistryReader registryReader = new GlueRegistryReader();
+
+        // The metadata handler planned the split against the offsets of the partition, so a split which does not
+        // start before its end offset has no data and needs neither a consumer nor another endOffsets round trip.
+        if (splitParameters.startOffset >= splitParameters.endOffset) {
+            LOGGER.debug("[kafka] split does not have data, skipping it {}", splitParameters);
+            splitParameters.info = "startOffset is not before endOffset i.e split does not have data";
+            return;
+        }
 
         String dataFormat = registryReader.getGlueSchemaType(recordsRequest.getTableName().getSchemaName(), recordsRequest.getTableName().getTableName());
         MskConsumer mskConsumer;
-        Consumer<?, ?> consumer;
+        MskConsumerPool.Lease<?, ?> lease;
 
         switch (dataFormat.toLowerCase()) {
             case AVRO_DATA_FORMAT:
-                consumer = AmazonMskUtils.getAvroKafkaConsumer(configOptions);
+                lease = consumerPool.borrow(AVRO_DATA_FORMAT, null, () -> AmazonMskUtils.getAvroKafkaConsumer(configOptions));
                 mskConsumer = new MskAvroConsumer();
                 break;
             case PROTOBUF_DATA_FORMAT:
-                consumer = AmazonMskUtils.getProtobufKafkaConsumer(configOptions);
+                lease = consumerPool.borrow(PROTOBUF_DATA_FORMAT, null, () -> AmazonMskUtils.getProtobufKafkaConsumer(configOptions));
                 mskConsumer = new MskProtobufConsumer();
                 break;
             default:
-                consumer = AmazonMskUtils.getKafkaConsumer(recordsRequest.getSchema(), configOptions);
-                mskConsumer = new MskDefaultConsumer();
+                // the value deserializer of JSON and CSV topics is built from the schema of the table
+                lease = consumerPool.borrow(dataFormat.toLowerCase(), recordsRequest.getSchema(),
+                        () -> AmazonMskUtils.getKafkaConsumer(recordsRequest.getSchema(), configOptions));
+                mskConsumer = new MskDefaultConsumer(filterJsonFields);
                 break;
         }
 
-        try (Consumer<?, ?> kafkaConsumer = consumer) {
-            mskConsumer.consume(spiller, recordsRequest, queryStatusChecker, splitParameters, kafkaConsumer);
+        try (MskConsumerPool.Lease<?, ?> kafkaConsumer = lease) {
+            mskConsumer.consume(spiller, recordsRequest, queryStatusChecker, splitParameters, kafkaConsumer.consumer());
+            kafkaConsumer.complete();
         }
     }
 }
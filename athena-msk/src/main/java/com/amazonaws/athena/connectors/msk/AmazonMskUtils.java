@@ -30,13 +30,17 @@ import com.amazonaws.services.schemaregistry.utils.AvroRecordType;
 import com.amazonaws.services.schemaregistry.utils.ProtobufMessageType;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
 import com.google.protobuf.DynamicMessage;
 import org.apache.arrow.vector.types.Types;
 import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.apache.avro.generic.GenericRecord;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
 import org.apache.kafka.common.serialization.Deserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
@@ -60,10 +64,16 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
 import java.util.Map;
 import java.util.Properties;
 import java.util.UUID;
 
+import static com.amazonaws.athena.connectors.msk.AmazonMskConstants.MESSAGE_TIMESTAMP_FIELD_METADATA;
+
 public class AmazonMskUtils
 {
     // Parameters.AuthType.AllowedValues from athena-msk.yaml
@@ -98,6 +108,7 @@ public class AmazonMskUtils
     private static final String KAFKA_AUTO_OFFSET_RESET_CONFIG = "auto.offset.reset";
     private static final String KAFKA_MAX_POLL_RECORDS_CONFIG = "max.poll.records";
     private static final String KAFKA_MAX_PARTITION_FETCH_BYTES_CONFIG = "max.partition.fetch.bytes";
+    private static final String KAFKA_FETCH_MIN_BYTES_CONFIG = "fetch.min.bytes";
     private static final String KAFKA_KEY_DESERIALIZER_CLASS_CONFIG = "key.deserializer";
     private static final String KAFKA_VALUE_DESERIALIZER_CLASS_CONFIG = "value.deserializer";
     private static final ObjectMapper objectMapper = new ObjectMapper();
@@ -187,8 +198,11 @@ public class AmazonMskUtils
         properties.setProperty(KAFKA_EXCLUDE_INTERNAL_TOPICS_CONFIG, "true");
         properties.setProperty(KAFKA_ENABLE_AUTO_COMMIT_CONFIG, "false");
         properties.setProperty(KAFKA_AUTO_OFFSET_RESET_CONFIG, "earliest");
-        properties.setProperty(KAFKA_MAX_POLL_RECORDS_CONFIG, "10000");
+        // A split spans up to MAX_RECORDS_IN_SPLIT + 1 offsets, let a single poll return all of them.
+        properties.setProperty(KAFKA_MAX_POLL_RECORDS_CONFIG, String.valueOf(AmazonMskConstants.MAX_RECORDS_IN_SPLIT + 1));
         properties.setProperty(KAFKA_MAX_PARTITION_FETCH_BYTES_CONFIG, "1048576");
+        // Answer fetches as soon as any data is available, the tail of a split is usually smaller than a full fetch.
+        properties.setProperty(KAFKA_FETCH_MIN_BYTES_CONFIG, "1");
         properties.setProperty(KAFKA_KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getName());
 
         //fetch authentication type for the kafka cluster
@@ -416,6 +430,85 @@ public class AmazonMskUtils
         return new SplitParameters(topic, partition, startOffset, endOffset);
     }
 
+    /**
+     * Creates the column holding the message timestamp, which is added to the topic schema when
+     * {@link AmazonMskConstants#MESSAGE_TIMESTAMP_COLUMN} is configured.
+     *
+     * @param name - the column name
+     * @return {@link Field}
+     */
+    public static Field createMessageTimestampField(String name)
+    {
+        FieldType fieldType = new FieldType(
+                true,
+                Types.MinorType.DATEMILLI.getType(),
+                null,
+                ImmutableMap.of(MESSAGE_TIMESTAMP_FIELD_METADATA, Boolean.TRUE.toString())
+        );
+        return new Field(name, fieldType, null);
+    }
+
+    /**
+     * Whether the field is the message timestamp column rather than a field of the message value.
+     *
+     * @param field - arrow type field
+     * @return boolean
+     */
+    public static boolean isMessageTimestampField(Field field)
+    {
+        return Boolean.parseBoolean(field.getMetadata().get(MESSAGE_TIMESTAMP_FIELD_METADATA));
+    }
+
+    /**
+     * Finds the message timestamp column of a table schema.
+     *
+     * @param schema - the table schema
+     * @return the column name, or null when the table has no message timestamp column
+     */
+    public static String getMessageTimestampColumn(Schema schema)
+    {
+        for (Field field : schema.getFields()) {
+            if (isMessageTimestampField(field)) {
+                return field.getName();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the value of the message timestamp column of a record, which like every DATEMILLI value is the UTC date time
+     * the constraints are checked against.
+     *
+     * @param record - the consumed record
+     * @return the record's timestamp, or null when the message was written without one
+     */
+    public static LocalDateTime getMessageTimestamp(ConsumerRecord<?, ?> record)
+    {
+        // Messages written without a timestamp report RecordBatch.NO_TIMESTAMP (-1)
+        long timestamp = record.timestamp();
+        return timestamp >= 0 ? LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneOffset.UTC) : null;
+    }
+
+    /**
+     * Converts a constraint value of the message timestamp column to epoch milliseconds.
+     *
+     * @param value - the value of a {@link com.amazonaws.athena.connector.lambda.domain.predicate.Marker}
+     * @return the epoch milliseconds
+     */
+    public static long toEpochMillis(Object value)
+    {
+        if (value instanceof LocalDateTime) {
+            return ((LocalDateTime) value).toInstant(ZoneOffset.UTC).toEpochMilli();
+        }
+        if (value instanceof Date) {
+            return ((Date) value).getTime();
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        throw new IllegalArgumentException("Unsupported message timestamp value " + value);
+    }
+
     /**
      * Converts string data type name to ArrowType.
      * After pulling schema from glue schema registry we use this method
@@ -20,6 +20,7 @@
 package com.amazonaws.athena.connectors.msk;
 
 import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import com.amazonaws.athena.connector.lambda.metadata.MetadataCache;
 import com.amazonaws.athena.connectors.msk.dto.MSKField;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -45,7 +46,9 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 public class GlueRegistryReader
@@ -61,6 +64,24 @@ public class GlueRegistryReader
         objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
     }
 
+    // The latest schema version of each registry schema, see MetadataCache for the settings enabling it.
+    private final MetadataCache<SchemaId, GetSchemaVersionResponse> schemaVersionCache;
+    private GlueClient glueClient;
+
+    public GlueRegistryReader()
+    {
+        this(Collections.emptyMap());
+    }
+
+    /**
+     * @param configOptions The connector's config options, which configure the schema cache. Readers held by a
+     * handler serve the schemas of a warm Lambda's requests from the cache until its TTL expires.
+     */
+    public GlueRegistryReader(Map<String, String> configOptions)
+    {
+        this.schemaVersionCache = MetadataCache.fromConfig(configOptions);
+    }
+
     /**
      * Parse protobuf schema definition from Glue Schema Registry using protoc compiler
      * @param glueRegistryName Registry name
@@ -153,18 +174,32 @@ public class GlueRegistryReader
     }
 
     /**
-     * Fetch glue schema content for latest version
+     * Fetch glue schema content for latest version, served from the schema cache while it holds an entry for the
+     * schema.
      * @param glueRegistryName
      * @param glueSchemaName
      * @return
      */
     public GetSchemaVersionResponse getSchemaVersionResult(String glueRegistryName, String glueSchemaName)
     {
-        GlueClient glue = GlueClient.create();
         SchemaId sid = SchemaId.builder()
                 .registryName(glueRegistryName)
                 .schemaName(glueSchemaName)
                 .build();
+        try {
+            return schemaVersionCache.get(sid, () -> loadSchemaVersion(sid));
+        }
+        catch (RuntimeException ex) {
+            throw ex;
+        }
+        catch (Exception ex) {
+            throw new RuntimeException(ex);
+        }
+    }
+
+    private GetSchemaVersionResponse loadSchemaVersion(SchemaId sid)
+    {
+        GlueClient glue = getGlueClient();
         GetSchemaResponse schemaResult = glue.getSchema(GetSchemaRequest.builder().schemaId(sid).build());
         SchemaVersionNumber svn = SchemaVersionNumber.builder()
                 .versionNumber(schemaResult.latestSchemaVersion())
@@ -176,6 +211,14 @@ public class GlueRegistryReader
         );
     }
 
+    private synchronized GlueClient getGlueClient()
+    {
+        if (glueClient == null) {
+            glueClient = GlueClient.create();
+        }
+        return glueClient;
+    }
+
     /**
      * fetch schema file content from glue schema.
      *
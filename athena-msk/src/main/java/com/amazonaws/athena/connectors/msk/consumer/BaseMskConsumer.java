@@ -31,78 +31,162 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
 
 public abstract class BaseMskConsumer<T> implements MskConsumer
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(BaseMskConsumer.class);
     protected static final int MAX_EMPTY_RESULT_FOUND_COUNT = 3;
+    private static final Duration POLL_TIMEOUT = Duration.ofSeconds(1L);
 
     @Override
     public void consume(BlockSpiller spiller, ReadRecordsRequest recordsRequest, QueryStatusChecker queryStatusChecker, SplitParameters splitParameters, Consumer<?, ?> consumer)
     {
         @SuppressWarnings("unchecked")
         Consumer<String, T> typedConsumer = (Consumer<String, T>) consumer;
-        typedConsumer.assign(Collections.singleton(new TopicPartition(splitParameters.topic, splitParameters.partition)));
-        typedConsumer.seek(new TopicPartition(splitParameters.topic, splitParameters.partition), splitParameters.startOffset);
+        TopicPartition partition = new TopicPartition(splitParameters.topic, splitParameters.partition);
+        typedConsumer.assign(Collections.singleton(partition));
+        typedConsumer.seek(partition, splitParameters.startOffset);
 
-        Map<TopicPartition, Long> endOffsets = typedConsumer.endOffsets(Collections.singleton(new TopicPartition(splitParameters.topic, splitParameters.partition)));
-        if (endOffsets.get(new TopicPartition(splitParameters.topic, splitParameters.partition)) == 0) {
-            LOGGER.debug("[kafka] topic does not have data, closing consumer {}", splitParameters);
-            typedConsumer.close();
+        // The partition may have been deleted and recreated since the split was planned. The consumer is left open,
+        // the record handler returns it to the pool.
+        Map<TopicPartition, Long> endOffsets = typedConsumer.endOffsets(Collections.singleton(partition));
+        if (endOffsets.get(partition) == 0) {
+            LOGGER.debug("[kafka] topic does not have data {}", splitParameters);
             splitParameters.info = "endOffset is 0 i.e partition does not have data";
             return;
         }
 
-        pollAndProcess(spiller, queryStatusChecker, splitParameters, typedConsumer);
+        pollAndProcess(spiller, queryStatusChecker, splitParameters, typedConsumer,
+                createFilter(recordsRequest, splitParameters), createBatchWriter(recordsRequest, splitParameters));
     }
 
-    private void pollAndProcess(BlockSpiller spiller, QueryStatusChecker queryStatusChecker, SplitParameters splitParameters, Consumer<String, T> consumer)
+    /**
+     * Polls the partition of the split until the consumer has moved past the end offset of the split, writing the
+     * polled records as batches.
+     * <p>
+     * Compaction, transaction markers and aborted transactions leave offsets without records, so the record at the end
+     * offset may never be polled. The position of the consumer moves past those offsets as well, so the split is read
+     * once the position is past the end offset, or is at the end offset while the consumer has no lag, i.e. the end
+     * offset is the end of the log. Polls which return no records are only counted in case the brokers stop returning
+     * data before that.
+     */
+    private void pollAndProcess(BlockSpiller spiller, QueryStatusChecker queryStatusChecker, SplitParameters splitParameters, Consumer<String, T> consumer,
+                                MskRecordFilter<T> filter, MskRecordBatchWriter<T> batchWriter)
     {
         LOGGER.info("[kafka] {} Polling for data", splitParameters);
+        TopicPartition partition = new TopicPartition(splitParameters.topic, splitParameters.partition);
         int emptyResultFoundCount = 0;
-        while (true) {
-            if (!queryStatusChecker.isQueryRunning()) {
-                LOGGER.debug("[kafka]{} Stopping and closing consumer due to query execution terminated by athena", splitParameters);
-                splitParameters.info = "query status is false i.e no need to work";
-                return;
-            }
+        try {
+            while (true) {
+                if (!queryStatusChecker.isQueryRunning()) {
+                    LOGGER.debug("[kafka]{} Stopping and closing consumer due to query execution terminated by athena", splitParameters);
+                    splitParameters.info = "query status is false i.e no need to work";
+                    return;
+                }
 
-            ConsumerRecords<String, T> records = consumer.poll(Duration.ofSeconds(1L));
-            LOGGER.debug("[kafka] {} polled records size {}", splitParameters, records.count());
+                long pollStartNanos = System.nanoTime();
+                ConsumerRecords<String, T> records = consumer.poll(POLL_TIMEOUT);
+                LOGGER.debug("[kafka] {} polled records size {}", splitParameters, records.count());
 
-            splitParameters.pulled += records.count();
+                splitParameters.polls++;
+                splitParameters.pulled += records.count();
+                if (records.count() == 0) {
+                    splitParameters.idleMillis += TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pollStartNanos);
+                }
 
-            if (records.count() == 0) {
-                emptyResultFoundCount++;
-            }
+                // Write the records of this poll up to the end offset of the split, or up to a null record, as one batch.
+                List<ConsumerRecord<String, T>> batch = new ArrayList<>(records.count());
+                for (ConsumerRecord<String, T> record : records) {
+                    if (record == null || record.value() == null) {
+                        batchWriter.write(spiller, batch);
+                        LOGGER.warn("[NullRecord] {} Received a null record or record value, offset: {}", splitParameters, record != null ? record.offset() : "unknown");
+                        return;
+                    }
+                    // A record past the end offset, polled when the offsets up to it have no records, belongs to the
+                    // next split of the partition.
+                    if (record.offset() <= splitParameters.endOffset && filter.test(record)) {
+                        batch.add(record);
+                    }
 
-            if (emptyResultFoundCount >= MAX_EMPTY_RESULT_FOUND_COUNT) {
-                LOGGER.debug("[kafka] {} Closing consumer due to getting empty result from broker", splitParameters);
-                splitParameters.info = "always getting empty data i.e leaving from work";
-                return;
-            }
+                    if (record.offset() >= splitParameters.endOffset) {
+                        batchWriter.write(spiller, batch);
+                        LOGGER.debug("[kafka] {} Closing consumer due to reach at end offset (current record offset is {})", splitParameters, record.offset());
+                        splitParameters.info = String.format(
+                                "reached at the end offset i.e no need to work: condition [if(record.offset() >= splitParameters.endOffset) i.e if(%s >= %s)]",
+                                record.offset(),
+                                splitParameters.endOffset
+                        );
+                        return;
+                    }
+                }
+                batchWriter.write(spiller, batch);
 
-            for (ConsumerRecord<String, T> record : records) {
-                if (record == null || record.value() == null) {
-                    LOGGER.warn("[NullRecord] {} Received a null record or record value, offset: {}", splitParameters, record != null ? record.offset() : "unknown");
+                // The end offset has no record to poll, but the consumer has moved past it.
+                long position = consumer.position(partition);
+                if (hasReadSplit(consumer, partition, position, splitParameters)) {
+                    LOGGER.debug("[kafka] {} Closing consumer due to position {} passing the end offset", splitParameters, position);
+                    splitParameters.info = String.format(
+                            "position passed the end offset i.e no need to work: position %s, end offset %s", position, splitParameters.endOffset);
                     return;
                 }
-                processRecord(spiller, splitParameters, record);
 
-                if (record.offset() >= splitParameters.endOffset) {
-                    LOGGER.debug("[kafka] {} Closing consumer due to reach at end offset (current record offset is {})", splitParameters, record.offset());
-                    splitParameters.info = String.format(
-                            "reached at the end offset i.e no need to work: condition [if(record.offset() >= splitParameters.endOffset) i.e if(%s >= %s)]",
-                            record.offset(),
-                            splitParameters.endOffset
-                    );
+                emptyResultFoundCount = records.count() == 0 ? emptyResultFoundCount + 1 : 0;
+                if (emptyResultFoundCount >= MAX_EMPTY_RESULT_FOUND_COUNT) {
+                    LOGGER.debug("[kafka] {} Closing consumer due to getting empty result from broker", splitParameters);
+                    splitParameters.info = "always getting empty data i.e leaving from work";
                     return;
                 }
             }
         }
+        finally {
+            LOGGER.info("[kafka] {} Polled {} records in {} polls, idle for {} ms, skipped {} records before deserialization", splitParameters,
+                    splitParameters.pulled, splitParameters.polls, splitParameters.idleMillis, splitParameters.skipped);
+        }
+    }
+
+    /**
+     * @param consumer - instance of {@link Consumer}, assigned to the partition of the split
+     * @param partition - the partition of the split
+     * @param position - the position of the consumer in the partition
+     * @param splitParameters - instance of {@link SplitParameters}
+     * @return true if no offset up to the end offset of the split is left to poll
+     */
+    static boolean hasReadSplit(Consumer<?, ?> consumer, TopicPartition partition, long position, SplitParameters splitParameters)
+    {
+        if (position != splitParameters.endOffset) {
+            return position > splitParameters.endOffset;
+        }
+        // The end offset of the last split of a partition is the end of the log at the time the split was planned,
+        // which holds no record unless one was produced since. The lag is known from the last fetch response.
+        OptionalLong lag = consumer.currentLag(partition);
+        return lag.isPresent() && lag.getAsLong() == 0;
+    }
+
+    /**
+     * Creates the filter leaving out the records of a split before they are written, by default on the message timestamp
+     * of the records whose values are decoded while polling.
+     *
+     * @param recordsRequest - instance of {@link ReadRecordsRequest}
+     * @param splitParameters - instance of {@link SplitParameters}
+     * @return {@link MskRecordFilter}
+     */
+    protected MskRecordFilter<T> createFilter(ReadRecordsRequest recordsRequest, SplitParameters splitParameters)
+    {
+        return MskRecordFilter.forDecoded(recordsRequest.getSchema(), recordsRequest.getConstraints(), splitParameters);
     }
 
-    protected abstract void processRecord(BlockSpiller spiller, SplitParameters splitParameters, ConsumerRecord<String, T> record);
+    /**
+     * Creates the writer converting the records of a split into rows of the requested schema.
+     *
+     * @param recordsRequest - instance of {@link ReadRecordsRequest}
+     * @param splitParameters - instance of {@link SplitParameters}
+     * @return {@link MskRecordBatchWriter}
+     */
+    protected abstract MskRecordBatchWriter<T> createBatchWriter(ReadRecordsRequest recordsRequest, SplitParameters splitParameters);
 }
@@ -19,37 +19,15 @@
  */
 package com.amazonaws.athena.connectors.msk.consumer;
 
-import com.amazonaws.athena.connector.lambda.data.Block;
-import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connectors.msk.dto.SplitParameters;
-import org.apache.avro.Schema;
 import org.apache.avro.generic.GenericRecord;
-import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 public class MskAvroConsumer extends BaseMskConsumer<GenericRecord>
 {
-    private static final Logger LOGGER = LoggerFactory.getLogger(MskAvroConsumer.class);
-
     @Override
-    protected void processRecord(BlockSpiller spiller, SplitParameters splitParameters, ConsumerRecord<String, GenericRecord> record)
-    {
-        getRecordProcessor().processRecord(spiller, splitParameters, record);
-    }
-
-    private MskRecordProcessor<GenericRecord> getRecordProcessor()
+    protected MskRecordBatchWriter<GenericRecord> createBatchWriter(ReadRecordsRequest recordsRequest, SplitParameters splitParameters)
     {
-        return (spiller, splitParameters, record) -> spiller.writeRows((Block block, int rowNum) -> {
-            for (Schema.Field next : record.value().getSchema().getFields()) {
-                boolean isMatched = block.offerValue(next.name(), rowNum, record.value().get(next.name()));
-                if (!isMatched) {
-                    LOGGER.debug("[FailedToSpill] {} Failed to spill record, offset: {}", splitParameters, record.offset());
-                    return 0;
-                }
-            }
-            splitParameters.spilled += 1;
-            return 1;
-        });
+        return MskRecordBatchWriter.forAvro(recordsRequest.getSchema(), recordsRequest.getConstraints(), splitParameters);
     }
 }
@@ -0,0 +1,305 @@
+/*-
+ * #%L
+ * Athena MSK Connector
+ * %%
+ * Copyright (C) 2019 - 2024 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.msk.consumer;
+
+import com.amazonaws.athena.connectors.msk.AmazonMskConstants;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the consumers of finished splits open so that the next split read by a warm Lambda reassigns its partition to
+ * a connected consumer, instead of paying for a new connection, TLS/SASL handshake and metadata fetch.
+ * <p>
+ * Consumers are pooled per data format and, for JSON and CSV topics whose value deserializer is built from the table
+ * schema, per schema. The broker settings come from the connector's config options, which do not change for the life
+ * of the record handler owning the pool. A returned consumer is unassigned from its partitions and kept idle until it
+ * is borrowed again or exceeds its time to live, and consumers which failed while reading a split are closed instead
+ * of being pooled. Expired consumers of every key are closed whenever a consumer is borrowed or returned, so consumers
+ * of tables which are not read again do not hold their connections open, and the number of idle consumers is capped
+ * both per key and in total.
+ */
+public class MskConsumerPool
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(MskConsumerPool.class);
+
+    private final int maxIdle;
+    private final int maxTotalIdle;
+    private final long ttlNanos;
+    private final Ticker ticker;
+    private final Map<Key, Deque<PooledConsumer>> idleConsumers = new HashMap<>();
+
+    /**
+     * Creates a pool configured from the supplied config options.
+     *
+     * @param configOptions The connector's config options (usually the Lambda environment).
+     */
+    public MskConsumerPool(java.util.Map<String, String> configOptions)
+    {
+        this(Integer.parseInt(configOptions.getOrDefault(AmazonMskConstants.CONSUMER_POOL_MAX_IDLE,
+                        String.valueOf(AmazonMskConstants.DEFAULT_CONSUMER_POOL_MAX_IDLE))),
+                Integer.parseInt(configOptions.getOrDefault(AmazonMskConstants.CONSUMER_POOL_MAX_TOTAL_IDLE,
+                        String.valueOf(AmazonMskConstants.DEFAULT_CONSUMER_POOL_MAX_TOTAL_IDLE))),
+                Long.parseLong(configOptions.getOrDefault(AmazonMskConstants.CONSUMER_POOL_TTL_SECONDS,
+                        String.valueOf(AmazonMskConstants.DEFAULT_CONSUMER_POOL_TTL_SECONDS))),
+                Ticker.systemTicker());
+    }
+
+    /**
+     * @param maxIdle The max number of idle consumers kept per key, 0 disables pooling.
+     * @param maxTotalIdle The max number of idle consumers kept across all keys, 0 disables pooling.
+     * @param ttlSeconds The number of seconds a consumer may be reused after it was created.
+     * @param ticker The time source used to expire consumers.
+     */
+    @VisibleForTesting
+    MskConsumerPool(int maxIdle, int maxTotalIdle, long ttlSeconds, Ticker ticker)
+    {
+        this.maxIdle = Math.max(maxIdle, 0);
+        this.maxTotalIdle = Math.max(maxTotalIdle, 0);
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(Math.max(ttlSeconds, 0));
+        this.ticker = ticker;
+    }
+
+    /**
+     * Borrows an idle consumer for the data format and schema, or creates one when there is none.
+     *
+     * @param dataFormat The data format of the topic, which decides the value deserializer.
+     * @param schema The schema the value deserializer is built from, or null when the deserializer does not use one.
+     * @param factory Creates a consumer when the pool has no idle consumer to lend.
+     * @return The lease of the consumer, which must be closed once the split is read.
+     * @throws Exception - {@link Exception} thrown by the factory
+     */
+    @SuppressWarnings("unchecked")
+    public <K, V> Lease<K, V> borrow(String dataFormat, Schema schema, Callable<Consumer<K, V>> factory)
+            throws Exception
+    {
+        Key key = new Key(dataFormat, schema);
+        PooledConsumer pooled = takeIdle(key);
+        if (pooled != null) {
+            LOGGER.debug("borrow: reusing pooled consumer for {}", dataFormat);
+            return new Lease<>(this, key, pooled.createdNanos, (Consumer<K, V>) pooled.consumer);
+        }
+        return new Lease<>(this, key, ticker.read(), factory.call());
+    }
+
+    /**
+     * @return The number of idle consumers currently held by the pool.
+     */
+    public synchronized int idleCount()
+    {
+        return idleConsumers.values().stream().mapToInt(Deque::size).sum();
+    }
+
+    /**
+     * Closes all idle consumers.
+     */
+    public synchronized void clear()
+    {
+        idleConsumers.values().forEach(consumers -> consumers.forEach(pooled -> closeQuietly(pooled.consumer)));
+        idleConsumers.clear();
+    }
+
+    private synchronized PooledConsumer takeIdle(Key key)
+    {
+        closeExpired();
+        Deque<PooledConsumer> consumers = idleConsumers.get(key);
+        if (consumers == null) {
+            return null;
+        }
+        PooledConsumer pooled = consumers.pollFirst();
+        if (consumers.isEmpty()) {
+            idleConsumers.remove(key);
+        }
+        return pooled;
+    }
+
+    /*
+    Closes the idle consumers of every key which exceeded their time to live. Must be called holding the pool's lock.
+     */
+    private void closeExpired()
+    {
+        Iterator<Deque<PooledConsumer>> keys = idleConsumers.values().iterator();
+        while (keys.hasNext()) {
+            Deque<PooledConsumer> consumers = keys.next();
+            consumers.removeIf(pooled -> {
+                if (!isExpired(pooled.createdNanos)) {
+                    return false;
+                }
+                LOGGER.debug("closeExpired: closing consumer which exceeded its time to live");
+                closeQuietly(pooled.consumer);
+                return true;
+            });
+            if (consumers.isEmpty()) {
+                keys.remove();
+            }
+        }
+    }
+
+    private void release(Key key, long createdNanos, Consumer<?, ?> consumer)
+    {
+        if (maxIdle == 0 || maxTotalIdle == 0 || isExpired(createdNanos)) {
+            closeQuietly(consumer);
+            return;
+        }
+        try {
+            // Also clears the partitions the consumer was assigned to with assign()
+            consumer.unsubscribe();
+        }
+        catch (RuntimeException ex) {
+            LOGGER.warn("release: failed to unsubscribe consumer, closing it", ex);
+            closeQuietly(consumer);
+            return;
+        }
+        synchronized (this) {
+            closeExpired();
+            Deque<PooledConsumer> consumers = idleConsumers.get(key);
+            int keyIdle = consumers != null ? consumers.size() : 0;
+            if (keyIdle < maxIdle && idleCount() < maxTotalIdle) {
+                idleConsumers.computeIfAbsent(key, k -> new ArrayDeque<>()).addFirst(new PooledConsumer(createdNanos, consumer));
+                return;
+            }
+        }
+        closeQuietly(consumer);
+    }
+
+    private boolean isExpired(long createdNanos)
+    {
+        return ticker.read() - createdNanos >= ttlNanos;
+    }
+
+    private static void closeQuietly(Consumer<?, ?> consumer)
+    {
+        try {
+            consumer.close();
+        }
+        catch (RuntimeException ex) {
+            LOGGER.warn("closeQuietly: failed to close consumer", ex);
+        }
+    }
+
+    /**
+     * A consumer borrowed from the pool. Closing the lease returns the consumer to the pool if {@link #complete()} was
+     * called, i.e. the split was read without error, and closes the consumer otherwise.
+     *
+     * @param <K> The type of the record keys.
+     * @param <V> The type of the record values.
+     */
+    public static class Lease<K, V>
+            implements AutoCloseable
+    {
+        private final MskConsumerPool pool;
+        private final Key key;
+        private final long createdNanos;
+        private final Consumer<K, V> consumer;
+        private boolean completed;
+        private boolean closed;
+
+        private Lease(MskConsumerPool pool, Key key, long createdNanos, Consumer<K, V> consumer)
+        {
+            this.pool = pool;
+            this.key = key;
+            this.createdNanos = createdNanos;
+            this.consumer = consumer;
+        }
+
+        public Consumer<K, V> consumer()
+        {
+            return consumer;
+        }
+
+        /**
+         * Marks the consumer as safe to reuse for another split.
+         */
+        public void complete()
+        {
+            completed = true;
+        }
+
+        @Override
+        public void close()
+        {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            if (completed) {
+                pool.release(key, createdNanos, consumer);
+            }
+            else {
+                closeQuietly(consumer);
+            }
+        }
+    }
+
+    private static class PooledConsumer
+    {
+        private final long createdNanos;
+        private final Consumer<?, ?> consumer;
+
+        PooledConsumer(long createdNanos, Consumer<?, ?> consumer)
+        {
+            this.createdNanos = createdNanos;
+            this.consumer = consumer;
+        }
+    }
+
+    private static class Key
+    {
+        private final String dataFormat;
+        private final Schema schema;
+
+        Key(String dataFormat, Schema schema)
+        {
+            this.dataFormat = dataFormat;
+            this.schema = schema;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key that = (Key) o;
+            return Objects.equals(dataFormat, that.dataFormat) && Objects.equals(schema, that.schema);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(dataFormat, schema);
+        }
+    }
+}
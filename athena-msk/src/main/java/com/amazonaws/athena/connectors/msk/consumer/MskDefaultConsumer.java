@@ -19,37 +19,36 @@
  */
 package com.amazonaws.athena.connectors.msk.consumer;
 
-import com.amazonaws.athena.connector.lambda.data.Block;
-import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
-import com.amazonaws.athena.connectors.msk.dto.MSKField;
+import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connectors.msk.dto.SplitParameters;
 import com.amazonaws.athena.connectors.msk.dto.TopicResultSet;
-import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 public class MskDefaultConsumer extends BaseMskConsumer<TopicResultSet>
 {
-    private static final Logger LOGGER = LoggerFactory.getLogger(MskDefaultConsumer.class);
+    private final boolean filterJsonFields;
+
+    public MskDefaultConsumer()
+    {
+        this(true);
+    }
+
+    /**
+     * @param filterJsonFields - whether the constraints on the fields of JSON messages are checked before parsing them
+     */
+    public MskDefaultConsumer(boolean filterJsonFields)
+    {
+        this.filterJsonFields = filterJsonFields;
+    }
 
     @Override
-    protected void processRecord(BlockSpiller spiller, SplitParameters splitParameters, ConsumerRecord<String, TopicResultSet> record)
+    protected MskRecordFilter<TopicResultSet> createFilter(ReadRecordsRequest recordsRequest, SplitParameters splitParameters)
     {
-        getRecordProcessor().processRecord(spiller, splitParameters, record);
+        return MskRecordFilter.forTopicResultSet(recordsRequest.getSchema(), recordsRequest.getConstraints(), splitParameters, filterJsonFields);
     }
 
-    private MskRecordProcessor<TopicResultSet> getRecordProcessor()
+    @Override
+    protected MskRecordBatchWriter<TopicResultSet> createBatchWriter(ReadRecordsRequest recordsRequest, SplitParameters splitParameters)
     {
-        return (spiller, splitParameters, record) -> spiller.writeRows((Block block, int rowNum) -> {
-            for (MSKField field : record.value().getFields()) {
-                boolean isMatched = block.offerValue(field.getName(), rowNum, field.getValue());
-                if (!isMatched) {
-                    LOGGER.debug("[FailedToSpill] {} Failed to spill record, offset: {}", splitParameters, record.offset());
-                    return 0;
-                }
-            }
-            splitParameters.spilled += 1;
-            return 1;
-        });
+        return MskRecordBatchWriter.forTopicResultSet(recordsRequest.getSchema(), recordsRequest.getConstraints(), splitParameters);
     }
 }
@@ -19,37 +19,15 @@
  */
 package com.amazonaws.athena.connectors.msk.consumer;
 
-import com.amazonaws.athena.connector.lambda.data.Block;
-import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connectors.msk.dto.SplitParameters;
-import com.google.protobuf.Descriptors;
 import com.google.protobuf.DynamicMessage;
-import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 public class MskProtobufConsumer extends BaseMskConsumer<DynamicMessage>
 {
-    private static final Logger LOGGER = LoggerFactory.getLogger(MskProtobufConsumer.class);
-
     @Override
-    protected void processRecord(BlockSpiller spiller, SplitParameters splitParameters, ConsumerRecord<String, DynamicMessage> record)
-    {
-        getRecordProcessor().processRecord(spiller, splitParameters, record);
-    }
-
-    private MskRecordProcessor<DynamicMessage> getRecordProcessor()
+    protected MskRecordBatchWriter<DynamicMessage> createBatchWriter(ReadRecordsRequest recordsRequest, SplitParameters splitParameters)
     {
-        return (spiller, splitParameters, record) -> spiller.writeRows((Block block, int rowNum) -> {
-            for (Descriptors.FieldDescriptor next : record.value().getAllFields().keySet()) {
-                boolean isMatched = block.offerValue(next.getName(), rowNum, record.value().getField(next));
-                if (!isMatched) {
-                    LOGGER.debug("[FailedToSpill] {} Failed to spill record, offset: {}", splitParameters, record.offset());
-                    return 0;
-                }
-            }
-            splitParameters.spilled += 1;
-            return 1;
-        });
+        return MskRecordBatchWriter.forProtobuf(recordsRequest.getSchema(), recordsRequest.getConstraints(), splitParameters);
     }
 }
@@ -0,0 +1,359 @@
+/*-
+ * #%L
+ * Athena MSK Connector
+ * %%
+ * Copyright (C) 2019 - 2024 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.msk.consumer;
+
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.BlockUtils;
+import com.amazonaws.athena.connector.lambda.data.writers.GeneratedRowWriter;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.BigIntExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.BitExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.DateDayExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.DateMilliExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.Extractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.Float4Extractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.Float8Extractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.IntExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.SmallIntExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.TinyIntExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.VarCharExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.fieldwriters.FieldWriter;
+import com.amazonaws.athena.connector.lambda.data.writers.fieldwriters.FieldWriterFactory;
+import com.amazonaws.athena.connector.lambda.data.writers.holders.NullableVarCharHolder;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintProjector;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connectors.msk.AmazonMskUtils;
+import com.amazonaws.athena.connectors.msk.dto.MSKField;
+import com.amazonaws.athena.connectors.msk.dto.SplitParameters;
+import com.amazonaws.athena.connectors.msk.dto.TopicResultSet;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.DynamicMessage;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.holders.NullableBigIntHolder;
+import org.apache.arrow.vector.holders.NullableBitHolder;
+import org.apache.arrow.vector.holders.NullableDateDayHolder;
+import org.apache.arrow.vector.holders.NullableDateMilliHolder;
+import org.apache.arrow.vector.holders.NullableFloat4Holder;
+import org.apache.arrow.vector.holders.NullableFloat8Holder;
+import org.apache.arrow.vector.holders.NullableIntHolder;
+import org.apache.arrow.vector.holders.NullableSmallIntHolder;
+import org.apache.arrow.vector.holders.NullableTinyIntHolder;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.avro.generic.GenericRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Writes the records of a poll batch into the blocks of a {@link BlockSpiller}.
+ * <p>
+ * The per field work is resolved once per split instead of once per record: every column of the schema gets an
+ * extractor of a {@link GeneratedRowWriter} which knows how to find its value in a record, caching the field position
+ * of the last seen Avro schema or Protobuf descriptor, and how to convert it into the column type. Constraints are
+ * checked on the typed values by the row writer, and the records of a batch are handed to the spiller a chunk of
+ * rows at a time instead of one {@link BlockSpiller#writeRows} call per record.
+ * <p>
+ * Instances are not thread safe.
+ *
+ * @param <T> the type of the record values
+ */
+public class MskRecordBatchWriter<T>
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(MskRecordBatchWriter.class);
+
+    // The SDK advises against writing many rows per writeRows call, the block size is only checked in between calls
+    static final int MAX_ROWS_PER_WRITE = 64;
+
+    private final GeneratedRowWriter rowWriter;
+    private final SplitParameters splitParameters;
+
+    @SuppressWarnings("unchecked")
+    private MskRecordBatchWriter(Schema schema, Constraints constraints, SplitParameters splitParameters, Function<Field, ValueAccessor<T>> accessors)
+    {
+        this.splitParameters = splitParameters;
+        GeneratedRowWriter.RowWriterBuilder builder = GeneratedRowWriter.newBuilder(constraints);
+        for (Field field : schema.getFields()) {
+            Function<Object, Object> valueOf;
+            if (AmazonMskUtils.isMessageTimestampField(field)) {
+                valueOf = context -> AmazonMskUtils.getMessageTimestamp((ConsumerRecord<?, ?>) context);
+            }
+            else {
+                ValueAccessor<T> accessor = accessors.apply(field);
+                valueOf = context -> accessor.get(((ConsumerRecord<String, T>) context).value());
+            }
+            Extractor extractor = makeExtractor(field, valueOf);
+            if (extractor != null) {
+                builder.withExtractor(field.getName(), extractor);
+            }
+            else {
+                builder.withFieldWriterFactory(field.getName(), makeFactory(valueOf));
+            }
+        }
+        this.rowWriter = builder.build();
+    }
+
+    /**
+     * Creates the writer for records deserialized into a {@link TopicResultSet} from JSON or CSV.
+     *
+     * @param schema - the schema of the blocks being written
+     * @param constraints - the constraints of the read request
+     * @param splitParameters - instance of {@link SplitParameters}
+     * @return {@link MskRecordBatchWriter}
+     */
+    public static MskRecordBatchWriter<TopicResultSet> forTopicResultSet(Schema schema, Constraints constraints, SplitParameters splitParameters)
+    {
+        // The deserializers add the fields of a record in schema order, leaving out the message timestamp column which
+        // is the only one not read through an accessor
+        int[] valueIndex = {0};
+        return new MskRecordBatchWriter<>(schema, constraints, splitParameters, field -> {
+            String name = field.getName();
+            int index = valueIndex[0]++;
+            return (TopicResultSet value) -> {
+                List<MSKField> fields = value.getFields();
+                if (index < fields.size() && name.equals(fields.get(index).getName())) {
+                    return fields.get(index).getValue();
+                }
+                // a field which failed to deserialize is left out, shifting the ones after it
+                for (MSKField next : fields) {
+                    if (name.equals(next.getName())) {
+                        return next.getValue();
+                    }
+                }
+                return null;
+            };
+        });
+    }
+
+    /**
+     * Creates the writer for Avro records.
+     *
+     * @param schema - the schema of the blocks being written
+     * @param constraints - the constraints of the read request
+     * @param splitParameters - instance of {@link SplitParameters}
+     * @return {@link MskRecordBatchWriter}
+     */
+    public static MskRecordBatchWriter<GenericRecord> forAvro(Schema schema, Constraints constraints, SplitParameters splitParameters)
+    {
+        return new MskRecordBatchWriter<>(schema, constraints, splitParameters, field -> new ValueAccessor<GenericRecord>()
+        {
+            private org.apache.avro.Schema lastSchema;
+            private int position;
+
+            @Override
+            public Object get(GenericRecord value)
+            {
+                if (value.getSchema() != lastSchema) {
+                    org.apache.avro.Schema.Field avroField = value.getSchema().getField(field.getName());
+                    position = avroField != null ? avroField.pos() : -1;
+                    lastSchema = value.getSchema();
+                }
+                return position >= 0 ? value.get(position) : null;
+            }
+        });
+    }
+
+    /**
+     * Creates the writer for Protobuf messages. Like {@link DynamicMessage#getAllFields()}, fields which are not set are
+     * written as null.
+     *
+     * @param schema - the schema of the blocks being written
+     * @param constraints - the constraints of the read request
+     * @param splitParameters - instance of {@link SplitParameters}
+     * @return {@link MskRecordBatchWriter}
+     */
+    public static MskRecordBatchWriter<DynamicMessage> forProtobuf(Schema schema, Constraints constraints, SplitParameters splitParameters)
+    {
+        return new MskRecordBatchWriter<>(schema, constraints, splitParameters, field -> new ValueAccessor<DynamicMessage>()
+        {
+            private Descriptors.Descriptor lastDescriptor;
+            private Descriptors.FieldDescriptor fieldDescriptor;
+
+            @Override
+            public Object get(DynamicMessage value)
+            {
+                if (value.getDescriptorForType() != lastDescriptor) {
+                    fieldDescriptor = value.getDescriptorForType().findFieldByName(field.getName());
+                    lastDescriptor = value.getDescriptorForType();
+                }
+                if (fieldDescriptor == null) {
+                    return null;
+                }
+                boolean isSet = fieldDescriptor.isRepeated() ? value.getRepeatedFieldCount(fieldDescriptor) > 0 : value.hasField(fieldDescriptor);
+                return isSet ? value.getField(fieldDescriptor) : null;
+            }
+        });
+    }
+
+    /**
+     * Writes the records into the spiller, leaving out the ones which do not satisfy the constraints.
+     *
+     * @param spiller - instance of {@link BlockSpiller}
+     * @param records - the records to write, none of them with a null value
+     */
+    public void write(BlockSpiller spiller, List<ConsumerRecord<String, T>> records)
+    {
+        for (int start = 0; start < records.size(); start += MAX_ROWS_PER_WRITE) {
+            List<ConsumerRecord<String, T>> chunk = records.subList(start, Math.min(start + MAX_ROWS_PER_WRITE, records.size()));
+            spiller.writeRows((Block block, int startRow) -> writeRows(block, startRow, chunk));
+        }
+    }
+
+    private int writeRows(Block block, int startRow, List<ConsumerRecord<String, T>> records)
+            throws Exception
+    {
+        int rowNum = startRow;
+        for (ConsumerRecord<String, T> record : records) {
+            // A record which does not match is overwritten by the next one
+            if (rowWriter.writeRow(block, rowNum, record)) {
+                rowNum++;
+            }
+            else {
+                LOGGER.debug("[FailedToSpill] {} Failed to spill record, offset: {}", splitParameters, record.offset());
+            }
+        }
+        // For debug insight
+        splitParameters.spilled += rowNum - startRow;
+        return rowNum - startRow;
+    }
+
+    /*
+    Creates the extractor converting the values of a field the way BlockUtils.setValue would, or null for the field
+    types the topic schemas do not produce.
+     */
+    private static Extractor makeExtractor(Field field, Function<Object, Object> valueOf)
+    {
+        switch (Types.getMinorTypeForArrowType(field.getType())) {
+            case BIT:
+                return (BitExtractor) (Object context, NullableBitHolder dst) -> {
+                    Object value = valueOf.apply(context);
+                    dst.isSet = value != null ? 1 : 0;
+                    if (value != null) {
+                        dst.value = (value instanceof Boolean && (Boolean) value) || (value instanceof Integer && (Integer) value > 0) ? 1 : 0;
+                    }
+                };
+            case TINYINT:
+                return (TinyIntExtractor) (Object context, NullableTinyIntHolder dst) -> {
+                    Object value = valueOf.apply(context);
+                    dst.isSet = value != null ? 1 : 0;
+                    if (value != null) {
+                        dst.value = ((Number) value).byteValue();
+                    }
+                };
+            case SMALLINT:
+                return (SmallIntExtractor) (Object context, NullableSmallIntHolder dst) -> {
+                    Object value = valueOf.apply(context);
+                    dst.isSet = value != null ? 1 : 0;
+                    if (value != null) {
+                        dst.value = ((Number) value).shortValue();
+                    }
+                };
+            case INT:
+                return (IntExtractor) (Object context, NullableIntHolder dst) -> {
+                    Object value = valueOf.apply(context);
+                    dst.isSet = value != null ? 1 : 0;
+                    if (value != null) {
+                        dst.value = ((Number) value).intValue();
+                    }
+                };
+            case BIGINT:
+                return (BigIntExtractor) (Object context, NullableBigIntHolder dst) -> {
+                    Object value = valueOf.apply(context);
+                    dst.isSet = value != null ? 1 : 0;
+                    if (value != null) {
+                        dst.value = ((Number) value).longValue();
+                    }
+                };
+            case FLOAT4:
+                return (Float4Extractor) (Object context, NullableFloat4Holder dst) -> {
+                    Object value = valueOf.apply(context);
+                    dst.isSet = value != null ? 1 : 0;
+                    if (value != null) {
+                        dst.value = ((Number) value).floatValue();
+                    }
+                };
+            case FLOAT8:
+                return (Float8Extractor) (Object context, NullableFloat8Holder dst) -> {
+                    Object value = valueOf.apply(context);
+                    dst.isSet = value != null ? 1 : 0;
+                    if (value != null) {
+                        dst.value = ((Number) value).doubleValue();
+                    }
+                };
+            case DATEDAY:
+                return (DateDayExtractor) (Object context, NullableDateDayHolder dst) -> {
+                    Object value = valueOf.apply(context);
+                    dst.isSet = value != null ? 1 : 0;
+                    if (value instanceof Date) {
+                        dst.value = (int) TimeUnit.MILLISECONDS.toDays(((Date) value).getTime());
+                    }
+                    else if (value instanceof LocalDate) {
+                        dst.value = (int) ((LocalDate) value).toEpochDay();
+                    }
+                    else if (value != null) {
+                        dst.value = ((Number) value).intValue();
+                    }
+                };
+            case DATEMILLI:
+                return (DateMilliExtractor) (Object context, NullableDateMilliHolder dst) -> {
+                    Object value = valueOf.apply(context);
+                    dst.isSet = value != null ? 1 : 0;
+                    if (value != null) {
+                        dst.value = AmazonMskUtils.toEpochMillis(value);
+                    }
+                };
+            case VARCHAR:
+                return (VarCharExtractor) (Object context, NullableVarCharHolder dst) -> {
+                    Object value = valueOf.apply(context);
+                    dst.isSet = value != null ? 1 : 0;
+                    if (value != null) {
+                        dst.value = value.toString();
+                    }
+                };
+            default:
+                return null;
+        }
+    }
+
+    private static FieldWriterFactory makeFactory(Function<Object, Object> valueOf)
+    {
+        return (FieldVector vector, Extractor extractor, ConstraintProjector constraint) ->
+                (FieldWriter) (Object context, int rowNum) -> {
+                    Object value = valueOf.apply(context);
+                    BlockUtils.setValue(vector, rowNum, value);
+                    return constraint == null || constraint.apply(value);
+                };
+    }
+
+    /**
+     * Finds the value of a single field in a record value.
+     */
+    private interface ValueAccessor<V>
+    {
+        Object get(V value);
+    }
+}
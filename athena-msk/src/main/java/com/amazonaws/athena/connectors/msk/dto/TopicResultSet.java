@@ -21,12 +21,16 @@ package com.amazonaws.athena.connectors.msk.dto;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.BiConsumer;
 
 public class TopicResultSet
 {
     String topicName;
     String dataFormat;
     List<MSKField> fields = new ArrayList<>();
+    // The raw message value and how to parse it into fields, until the fields are first read
+    byte[] data;
+    BiConsumer<byte[], List<MSKField>> parser;
 
     public String getTopicName()
     {
@@ -50,12 +54,41 @@ public class TopicResultSet
 
     public List<MSKField> getFields()
     {
+        if (parser != null) {
+            BiConsumer<byte[], List<MSKField>> deferred = parser;
+            parser = null;
+            deferred.accept(data, fields);
+            data = null;
+        }
         return fields;
     }
 
     public void setFields(List<MSKField> fields)
     {
         this.fields = fields;
+        this.data = null;
+        this.parser = null;
+    }
+
+    /**
+     * @return The raw message value if it has not been parsed into fields yet, null otherwise.
+     */
+    public byte[] getData()
+    {
+        return data;
+    }
+
+    /**
+     * Defers parsing the raw message value until the fields are first read, so that records which are filtered out
+     * before that are never parsed.
+     *
+     * @param data - the raw message value
+     * @param parser - adds the fields parsed from the raw message value to the list of fields
+     */
+    public void setData(byte[] data, BiConsumer<byte[], List<MSKField>> parser)
+    {
+        this.data = data;
+        this.parser = parser;
     }
 
     @Override
@@ -64,7 +97,7 @@ public class TopicResultSet
         return "TopicResultSet{" +
                 "topicName='" + topicName + '\'' +
                 ", dataFormat='" + dataFormat + '\'' +
-                ", fields=" + fields +
+                ", fields=" + getFields() +
                 '}';
     }
 }
@@ -19,6 +19,7 @@
  */
 package com.amazonaws.athena.connectors.msk.serde;
 
+import com.amazonaws.athena.connectors.msk.AmazonMskUtils;
 import com.amazonaws.athena.connectors.msk.dto.MSKField;
 import com.amazonaws.athena.connectors.msk.dto.Message;
 import com.amazonaws.athena.connectors.msk.dto.TopicResultSet;
@@ -50,6 +51,13 @@ public class MskCsvDeserializer extends MskDeserializer
         topicResultSet.setTopicName(topic);
         topicResultSet.setDataFormat(Message.DATA_FORMAT_CSV);
 
+        // The raw data is parsed once the fields are read, records filtered out before that are never parsed.
+        topicResultSet.setData(data, this::parse);
+        return topicResultSet;
+    }
+
+    private void parse(byte[] data, List<MSKField> fields)
+    {
         try {
             // Transforming the topic raw (csv) data to string List.
             List<String> words = Arrays
@@ -60,9 +68,13 @@ public class MskCsvDeserializer extends MskDeserializer
             // Creating Field object for each fields in raw data.
             // Also putting additional information in fields from fields metadata.
             schema.getFields().forEach(field -> {
+                // The message timestamp column is filled in from the record, not from its value.
+                if (AmazonMskUtils.isMessageTimestampField(field)) {
+                    return;
+                }
                 String mapping = field.getMetadata().get("mapping");
                 try {
-                    topicResultSet.getFields().add(new MSKField(
+                    fields.add(new MSKField(
                             field.getName(),
                             mapping,
                             field.getMetadata().get("type"),
@@ -74,7 +86,6 @@ public class MskCsvDeserializer extends MskDeserializer
                     LOGGER.error("MskCsvDeserializer: Error in castValue : while converting raw value to typed value", e);
                 }
             });
-            return topicResultSet;
         }
         catch (Exception e) {
             LOGGER.error("MskCsvDeserializer: Error when deserializing byte[] to TopicResultSet", e);
@@ -82,7 +93,6 @@ public class MskCsvDeserializer extends MskDeserializer
         finally {
             close();
         }
-        return topicResultSet;
     }
 
     /**
@@ -25,10 +25,17 @@ import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
 import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
 import com.amazonaws.athena.connector.lambda.metadata.*;
 import com.amazonaws.athena.connector.lambda.security.FederatedIdentity;
+import com.amazonaws.athena.connectors.msk.dto.SplitParameters;
 import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.kafka.clients.consumer.Consumer;
 import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
 import org.apache.kafka.clients.consumer.OffsetResetStrategy;
 import org.apache.kafka.common.PartitionInfo;
 import org.apache.kafka.common.TopicPartition;
@@ -51,6 +58,7 @@ import software.amazon.awssdk.services.glue.model.ListRegistriesRequest;
 import software.amazon.awssdk.services.glue.model.ListRegistriesResponse;
 import software.amazon.awssdk.services.glue.model.RegistryListItem;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -61,6 +69,7 @@ import java.util.stream.Collectors;
 import static com.amazonaws.athena.connectors.msk.AmazonMskConstants.PROTOBUF_DATA_FORMAT;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
@@ -69,6 +78,7 @@ import static org.mockito.Mockito.when;
 @RunWith(MockitoJUnitRunner.class)
 public class AmazonMskMetadataHandlerTest {
     private static final String QUERY_ID = "queryId";
+    private static final String MESSAGE_TIMESTAMP = "message_timestamp";
     private AmazonMskMetadataHandler amazonMskMetadataHandler;
     private BlockAllocator blockAllocator;
     private FederatedIdentity federatedIdentity;
@@ -76,6 +86,7 @@ public class AmazonMskMetadataHandlerTest {
     private List<String> partitionCols;
     private Constraints constraints;
     private MockedStatic<GlueClient>  awsGlueClientBuilder;
+    private Map<String, String> configOptions;
 
     @Mock
     GlueClient awsGlue;
@@ -90,7 +101,7 @@ public class AmazonMskMetadataHandlerTest {
         partitions = Mockito.mock(Block.class);
         partitionCols = Mockito.mock(List.class);
         constraints = Mockito.mock(Constraints.class);
-        java.util.Map configOptions = com.google.common.collect.ImmutableMap.of(
+        configOptions = com.google.common.collect.ImmutableMap.of(
             "aws.region", "us-west-2",
             "glue_registry_arn", "arn:aws:glue:us-west-2:123456789101:registry/Athena-NEW",
             "auth_type", AmazonMskUtils.AuthType.SSL.toString(),
@@ -300,4 +311,178 @@ public class AmazonMskMetadataHandlerTest {
         assertEquals(500, response.getSplits().size());
         assertNull(response.getContinuationToken());
     }
+
+    @Test
+    public void doGetTable_withMessageTimestampColumn_addsTimestampField() throws Exception
+    {
+        stubJsonTopicSchema();
+        AmazonMskMetadataHandler handler = new AmazonMskMetadataHandler(consumer, withMessageTimestampColumn());
+
+        GetTableRequest getTableRequest = new GetTableRequest(federatedIdentity, QUERY_ID, "kafka", new TableName("default", "testtable"), Collections.emptyMap());
+        GetTableResponse getTableResponse = handler.doGetTable(blockAllocator, getTableRequest);
+
+        assertEquals(2, getTableResponse.getSchema().getFields().size());
+        Field timestampField = getTableResponse.getSchema().findField(MESSAGE_TIMESTAMP);
+        assertEquals(Types.MinorType.DATEMILLI.getType(), timestampField.getType());
+        assertTrue(AmazonMskUtils.isMessageTimestampField(timestampField));
+        assertEquals(MESSAGE_TIMESTAMP, AmazonMskUtils.getMessageTimestampColumn(getTableResponse.getSchema()));
+    }
+
+    @Test
+    public void doGetSplits_withMessageTimestampRange_splitsMatchingOffsetsOnly() throws Exception
+    {
+        stubJsonTopicSchema();
+        TopicPartition partition0 = new TopicPartition("testTopic", 0);
+        TopicPartition partition1 = new TopicPartition("testTopic", 1);
+        Consumer<String, String> timestampConsumer = mockConsumer(partition0, partition1);
+
+        Map<TopicPartition, OffsetAndTimestamp> lowerOffsets = new HashMap<>();
+        lowerOffsets.put(partition0, new OffsetAndTimestamp(20_000L, 1_001L));
+        // no message of partition 1 is after the lower bound
+        lowerOffsets.put(partition1, null);
+        Map<TopicPartition, OffsetAndTimestamp> upperOffsets = new HashMap<>();
+        upperOffsets.put(partition0, new OffsetAndTimestamp(40_000L, 62_000L));
+        upperOffsets.put(partition1, null);
+        // the lower bound is exclusive and the upper bound is exclusive plus the default skew of 60s
+        when(timestampConsumer.offsetsForTimes(timestamps(1_001L, partition0, partition1))).thenReturn(lowerOffsets);
+        when(timestampConsumer.offsetsForTimes(timestamps(62_000L, partition0, partition1))).thenReturn(upperOffsets);
+
+        Map<String, String> timestampConfigOptions = withMessageTimestampColumn();
+        timestampConfigOptions.remove(AmazonMskConstants.MESSAGE_TIMESTAMP_MAX_SKEW_MS);
+        AmazonMskMetadataHandler handler = new AmazonMskMetadataHandler(timestampConsumer, timestampConfigOptions);
+        ValueSet timestampRange = SortedRangeSet.of(false,
+                Range.range(blockAllocator, Types.MinorType.DATEMILLI.getType(), 1_000L, false, 2_000L, false));
+        GetSplitsResponse response = handler.doGetSplits(blockAllocator, createGetSplitsRequest(timestampRange));
+
+        // partition 0 is read from offset 20000 to 40000 in pieces of MAX_RECORDS_IN_SPLIT, partition 1 is skipped
+        assertEquals(2, response.getSplits().size());
+        response.getSplits().forEach(split -> assertEquals("0", split.getProperty(SplitParameters.PARTITION)));
+        assertEquals(20_000L, response.getSplits().stream().mapToLong(split -> Long.parseLong(split.getProperty(SplitParameters.START_OFFSET))).min().getAsLong());
+        assertEquals(40_000L, response.getSplits().stream().mapToLong(split -> Long.parseLong(split.getProperty(SplitParameters.END_OFFSET))).max().getAsLong());
+    }
+
+    @Test
+    public void doGetSplits_withMessageTimestampLowerBoundOnly_skipsPartitionsWithoutLaterMessages() throws Exception
+    {
+        stubJsonTopicSchema();
+        TopicPartition partition0 = new TopicPartition("testTopic", 0);
+        TopicPartition partition1 = new TopicPartition("testTopic", 1);
+        Consumer<String, String> timestampConsumer = mockConsumer(partition0, partition1);
+
+        Map<TopicPartition, OffsetAndTimestamp> lowerOffsets = new HashMap<>();
+        lowerOffsets.put(partition0, new OffsetAndTimestamp(20_000L, 5_000L));
+        // no message of partition 1 is at or after the lower bound
+        lowerOffsets.put(partition1, null);
+        when(timestampConsumer.offsetsForTimes(timestamps(5_000L, partition0, partition1))).thenReturn(lowerOffsets);
+
+        AmazonMskMetadataHandler handler = new AmazonMskMetadataHandler(timestampConsumer, withMessageTimestampColumn());
+        ValueSet timestampRange = SortedRangeSet.of(false,
+                Range.greaterThanOrEqual(blockAllocator, Types.MinorType.DATEMILLI.getType(), LocalDateTime.of(1970, 1, 1, 0, 0, 5)));
+        GetSplitsResponse response = handler.doGetSplits(blockAllocator, createGetSplitsRequest(timestampRange));
+
+        // partition 0 is read from offset 20000 to its end offset, partition 1 is skipped
+        response.getSplits().forEach(split -> assertEquals("0", split.getProperty(SplitParameters.PARTITION)));
+        assertEquals(20_000L, response.getSplits().stream().mapToLong(split -> Long.parseLong(split.getProperty(SplitParameters.START_OFFSET))).min().getAsLong());
+        assertEquals(50_000L, response.getSplits().stream().mapToLong(split -> Long.parseLong(split.getProperty(SplitParameters.END_OFFSET))).max().getAsLong());
+        // without an upper bound the end offsets are not searched
+        Mockito.verify(timestampConsumer, Mockito.times(1)).offsetsForTimes(any());
+    }
+
+    @Test
+    public void doGetSplits_withNoMatchingMessageTimestamp_returnsNoSplits() throws Exception
+    {
+        stubJsonTopicSchema();
+        Consumer<String, String> timestampConsumer = mockConsumer(new TopicPartition("testTopic", 0));
+
+        AmazonMskMetadataHandler handler = new AmazonMskMetadataHandler(timestampConsumer, withMessageTimestampColumn());
+        GetSplitsResponse response = handler.doGetSplits(blockAllocator,
+                createGetSplitsRequest(SortedRangeSet.none(Types.MinorType.DATEMILLI.getType())));
+
+        assertEquals(0, response.getSplits().size());
+        Mockito.verify(timestampConsumer, Mockito.never()).offsetsForTimes(any());
+    }
+
+    private Map<String, String> withMessageTimestampColumn()
+    {
+        Map<String, String> timestampConfigOptions = new HashMap<>(configOptions);
+        timestampConfigOptions.put(AmazonMskConstants.MESSAGE_TIMESTAMP_COLUMN, MESSAGE_TIMESTAMP);
+        timestampConfigOptions.put(AmazonMskConstants.MESSAGE_TIMESTAMP_MAX_SKEW_MS, "0");
+        return timestampConfigOptions;
+    }
+
+    private void stubJsonTopicSchema()
+    {
+        GetSchemaResponse getSchemaResponse = GetSchemaResponse.builder()
+                .schemaArn("defaultarn")
+                .schemaName("defaultschemaname")
+                .latestSchemaVersion(123L)
+                .build();
+        GetSchemaVersionResponse getSchemaVersionResponse = GetSchemaVersionResponse.builder()
+                .schemaArn("defaultarn")
+                .schemaVersionId("defaultversionid")
+                .schemaDefinition("{\n" +
+                        "\t\"topicName\": \"testTopic\",\n" +
+                        "\t\"message\": {\n" +
+                        "\t\t\"dataFormat\": \"json\",\n" +
+                        "\t\t\"fields\": [{\n" +
+                        "\t\t\t\"name\": \"intcol\",\n" +
+                        "\t\t\t\"mapping\": \"intcol\",\n" +
+                        "\t\t\t\"type\": \"INTEGER\"\n" +
+                        "\t\t}]\n" +
+                        "\t}\n" +
+                        "}")
+                .dataFormat(DataFormat.JSON)
+                .build();
+        Mockito.when(awsGlue.getSchema(any(GetSchemaRequest.class))).thenReturn(getSchemaResponse);
+        Mockito.when(awsGlue.getSchemaVersion(any(GetSchemaVersionRequest.class))).thenReturn(getSchemaVersionResponse);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Consumer<String, String> mockConsumer(TopicPartition... topicPartitions)
+    {
+        Consumer<String, String> mockConsumer = mock(Consumer.class);
+        Map<TopicPartition, Long> startOffsets = new HashMap<>();
+        Map<TopicPartition, Long> endOffsets = new HashMap<>();
+        List<PartitionInfo> partitionInfos = new ArrayList<>();
+        for (TopicPartition topicPartition : topicPartitions) {
+            startOffsets.put(topicPartition, 0L);
+            endOffsets.put(topicPartition, 50_000L);
+            partitionInfos.add(new PartitionInfo(topicPartition.topic(), topicPartition.partition(), null, null, null));
+        }
+        when(mockConsumer.partitionsFor("testTopic")).thenReturn(partitionInfos);
+        when(mockConsumer.beginningOffsets(any())).thenReturn(startOffsets);
+        when(mockConsumer.endOffsets(any())).thenReturn(endOffsets);
+        return mockConsumer;
+    }
+
+    private static Map<TopicPartition, Long> timestamps(long timestamp, TopicPartition... topicPartitions)
+    {
+        Map<TopicPartition, Long> timestamps = new HashMap<>();
+        for (TopicPartition topicPartition : topicPartitions) {
+            timestamps.put(topicPartition, timestamp);
+        }
+        return timestamps;
+    }
+
+    private GetSplitsRequest createGetSplitsRequest(ValueSet timestampConstraint)
+    {
+        Constraints timestampConstraints = new Constraints(
+                Collections.singletonMap(MESSAGE_TIMESTAMP, timestampConstraint),
+                Collections.emptyList(),
+                Collections.emptyList(),
+                Constraints.DEFAULT_NO_LIMIT,
+                Collections.emptyMap(),
+                null
+        );
+        return new GetSplitsRequest(
+                federatedIdentity,
+                QUERY_ID,
+                "kafka",
+                new TableName("default", "testTopic"),
+                Mockito.mock(Block.class),
+                new ArrayList<>(),
+                timestampConstraints,
+                null
+        );
+    }
 }
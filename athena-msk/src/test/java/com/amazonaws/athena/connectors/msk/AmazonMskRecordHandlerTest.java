@@ -20,6 +20,7 @@
 package com.amazonaws.athena.connectors.msk;
 
 import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
+import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
 import com.amazonaws.athena.connector.lambda.data.S3BlockSpiller;
@@ -29,6 +30,9 @@ import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
 import com.amazonaws.athena.connector.lambda.domain.predicate.ConstraintEvaluator;
 import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
 import com.amazonaws.athena.connector.lambda.domain.spill.S3SpillLocation;
 import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
 import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
@@ -51,6 +55,8 @@ import com.google.protobuf.DescriptorProtos.FieldDescriptorProto;
 import com.google.protobuf.DescriptorProtos.FileDescriptorSet;
 import com.google.protobuf.Descriptors;
 import com.google.protobuf.DynamicMessage;
+import org.apache.arrow.vector.complex.reader.FieldReader;
+import org.apache.arrow.vector.types.Types;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.arrow.vector.types.pojo.FieldType;
 import org.apache.arrow.vector.types.pojo.Schema;
@@ -60,6 +66,8 @@ import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.MockConsumer;
 import org.apache.kafka.clients.consumer.OffsetResetStrategy;
 import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -87,8 +95,10 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Optional;
 import java.util.UUID;
 
 import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
@@ -253,6 +263,57 @@ public class AmazonMskRecordHandlerTest
         assertEquals(1, spiller.getBlock().getRowCount());
     }
 
+    @Test
+    public void testForConsumeAvroDataFromTopicWithMessageTimestampConstraint() throws Exception
+    {
+        avroConsumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        ConsumerRecord<String, GenericRecord> earlyRecord = createAvroConsumerRecord("greetings", 0, 0, 1_000L, "k1", createGenericRecord("greetings"));
+        ConsumerRecord<String, GenericRecord> lateRecord = createAvroConsumerRecord("greetings", 0, 1, 3_000L, "k2", createGenericRecord("greetings"));
+        avroConsumer.schedulePollTask(() -> {
+            avroConsumer.addRecord(earlyRecord);
+            avroConsumer.addRecord(lateRecord);
+        });
+        HashMap<TopicPartition, Long> offsets;
+        offsets = new HashMap<>();
+        offsets.put(new TopicPartition("greetings", 0), 0L);
+        avroConsumer.updateBeginningOffsets(offsets);
+
+        offsets = new HashMap<>();
+        offsets.put(new TopicPartition("greetings", 0), 2L);
+        avroConsumer.updateEndOffsets(offsets);
+
+        SplitParameters splitParameters = new SplitParameters("greetings", 0, 0, 1);
+        SchemaBuilder schemaBuilder = SchemaBuilder.newBuilder();
+        createAvroSchema(createAvroTopicSchema()).getFields().forEach(schemaBuilder::addField);
+        schemaBuilder.addField(AmazonMskUtils.createMessageTimestampField("message_time"));
+        schemaBuilder.addMetadata("dataFormat", AVRO_DATA_FORMAT);
+        Schema schema = schemaBuilder.build();
+
+        mockedMskUtils.when(() -> AmazonMskUtils.getAvroKafkaConsumer(com.google.common.collect.ImmutableMap.of())).thenReturn(avroConsumer);
+        mockedMskUtils.when(() -> AmazonMskUtils.createSplitParam(anyMap())).thenReturn(splitParameters);
+
+        Mockito.when(awsGlue.getSchema(any(GetSchemaRequest.class))).thenReturn(getSchemaResponse());
+        Mockito.when(awsGlue.getSchemaVersion(any(GetSchemaVersionRequest.class))).thenReturn(getAvroSchemaVersionResponse());
+
+        QueryStatusChecker queryStatusChecker = mock(QueryStatusChecker.class);
+        when(queryStatusChecker.isQueryRunning()).thenReturn(true);
+
+        // message_time >= 1970-01-01 00:00:02, the column holds the record timestamps as UTC date times
+        ValueSet timestampConstraint = SortedRangeSet.of(false,
+                Range.greaterThanOrEqual(allocator, Types.MinorType.DATEMILLI.getType(), LocalDateTime.of(1970, 1, 1, 0, 0, 2)));
+        Constraints constraints = new Constraints(Collections.singletonMap("message_time", timestampConstraint), Collections.emptyList(),
+                Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+        ReadRecordsRequest request = createReadRecordsRequest(schema, constraints);
+        BlockSpiller spiller = new S3BlockSpiller(amazonS3, spillConfig, allocator, schema, ConstraintEvaluator.emptyEvaluator(), com.google.common.collect.ImmutableMap.of());
+        amazonMskRecordHandler.readWithConstraint(spiller, request, queryStatusChecker);
+
+        Block block = spiller.getBlock();
+        assertEquals(1, block.getRowCount());
+        FieldReader reader = block.getFieldReader("message_time");
+        reader.setPosition(0);
+        assertEquals(LocalDateTime.of(1970, 1, 1, 0, 0, 3), reader.readLocalDateTime());
+    }
+
     @Test
     public void testForConsumeProtobufDataFromTopic() throws Exception
     {
@@ -370,6 +431,12 @@ public class AmazonMskRecordHandlerTest
     }
 
     private ReadRecordsRequest createReadRecordsRequest(Schema schema)
+    {
+        return createReadRecordsRequest(schema,
+                new Constraints(Collections.emptyMap(), Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null));
+    }
+
+    private ReadRecordsRequest createReadRecordsRequest(Schema schema, Constraints constraints)
     {
         return new ReadRecordsRequest(
                 federatedIdentity,
@@ -385,7 +452,7 @@ public class AmazonMskRecordHandlerTest
                                 .withIsDirectory(true)
                                 .build(),
                         keyFactory.create()).build(),
-                new Constraints(Collections.emptyMap(), Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null),
+                constraints,
                 0,
                 0);
     }
@@ -400,6 +467,11 @@ public class AmazonMskRecordHandlerTest
         return new ConsumerRecord<>(topic, partition, offset, key, data);
     }
 
+    private ConsumerRecord<String, GenericRecord> createAvroConsumerRecord(String topic, int partition, long offset, long timestamp, String key, GenericRecord data)
+    {
+        return new ConsumerRecord<>(topic, partition, offset, timestamp, TimestampType.CREATE_TIME, 0, 0, key, data, new RecordHeaders(), Optional.empty());
+    }
+
     private ConsumerRecord<String, DynamicMessage> createProtobufConsumerRecord(String topic, int partition, long offset, String key, DynamicMessage data) throws Exception
     {
         return new ConsumerRecord<>(topic, partition, offset, key, data);
@@ -0,0 +1,67 @@
+/*-
+ * #%L
+ * Athena MSK Connector
+ * %%
+ * Copyright (C) 2019 - 2024 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.msk.consumer;
+
+import com.amazonaws.athena.connectors.msk.dto.SplitParameters;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.Test;
+
+import java.util.OptionalLong;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BaseMskConsumerTest
+{
+    private static final String TOPIC = "myTopic";
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void hasReadSplit_beforeOrPastEndOffset_comparesPosition()
+    {
+        TopicPartition partition = new TopicPartition(TOPIC, 0);
+        SplitParameters splitParameters = new SplitParameters(TOPIC, 0, 0, 10);
+        Consumer<String, String> consumer = mock(Consumer.class);
+
+        assertFalse(BaseMskConsumer.hasReadSplit(consumer, partition, 9, splitParameters));
+        assertTrue(BaseMskConsumer.hasReadSplit(consumer, partition, 11, splitParameters));
+        verify(consumer, never()).currentLag(partition);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void hasReadSplit_atEndOffset_requiresNoLag()
+    {
+        TopicPartition partition = new TopicPartition(TOPIC, 0);
+        SplitParameters splitParameters = new SplitParameters(TOPIC, 0, 0, 10);
+        Consumer<String, String> consumer = mock(Consumer.class);
+
+        // the split is read at its end offset only if the offset is the end of the log
+        when(consumer.currentLag(partition)).thenReturn(OptionalLong.empty(), OptionalLong.of(1), OptionalLong.of(0));
+        assertFalse(BaseMskConsumer.hasReadSplit(consumer, partition, 10, splitParameters));
+        assertFalse(BaseMskConsumer.hasReadSplit(consumer, partition, 10, splitParameters));
+        assertTrue(BaseMskConsumer.hasReadSplit(consumer, partition, 10, splitParameters));
+    }
+}
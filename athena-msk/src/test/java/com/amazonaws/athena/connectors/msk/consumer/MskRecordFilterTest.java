@@ -0,0 +1,202 @@
+/*-
+ * #%L
+ * Athena MSK Connector
+ * %%
+ * Copyright (C) 2019 - 2024 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.msk.consumer;
+
+import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
+import com.amazonaws.athena.connectors.msk.AmazonMskUtils;
+import com.amazonaws.athena.connectors.msk.dto.SplitParameters;
+import com.amazonaws.athena.connectors.msk.dto.TopicResultSet;
+import com.amazonaws.athena.connectors.msk.serde.MskCsvDeserializer;
+import com.amazonaws.athena.connectors.msk.serde.MskJsonDeserializer;
+import com.google.common.collect.ImmutableMap;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MskRecordFilterTest
+{
+    private static final String TOPIC = "myTopic";
+    private static final String MESSAGE_TIMESTAMP = "message_time";
+
+    private BlockAllocator allocator;
+    private SplitParameters splitParameters;
+
+    @Before
+    public void setUp()
+    {
+        allocator = new BlockAllocatorImpl();
+        splitParameters = new SplitParameters(TOPIC, 0, 0, 1_000);
+    }
+
+    @After
+    public void tearDown()
+    {
+        allocator.close();
+    }
+
+    @Test
+    public void test_withJsonFieldEquality_skipsMessagesWithoutParsingThem()
+    {
+        Schema schema = jsonSchema();
+        MskJsonDeserializer deserializer = new MskJsonDeserializer(schema);
+        MskRecordFilter<TopicResultSet> filter = MskRecordFilter.forTopicResultSet(schema, constraints(ImmutableMap.of(
+                "name", SortedRangeSet.of(false, Range.equal(allocator, Types.MinorType.VARCHAR.getType(), "James")),
+                "id", SortedRangeSet.of(false, Range.equal(allocator, Types.MinorType.INT.getType(), 10),
+                        Range.equal(allocator, Types.MinorType.INT.getType(), 11)))), splitParameters, true);
+
+        ConsumerRecord<String, TopicResultSet> match = record(0, -1, deserializer.deserialize(TOPIC,
+                json("{\"id\": 10, \"address\": {\"name\": \"Main St\"}, \"tags\": [\"a\", {\"b\": 1}], \"name\": \"James\"}")));
+        ConsumerRecord<String, TopicResultSet> otherName = record(1, -1, deserializer.deserialize(TOPIC,
+                json("{\"id\": \"11\", \"name\": \"Mary\", \"isActive\": true}")));
+        ConsumerRecord<String, TopicResultSet> otherId = record(2, -1, deserializer.deserialize(TOPIC,
+                json("{\"id\": 12, \"name\": \"James\"}")));
+        ConsumerRecord<String, TopicResultSet> missingId = record(3, -1, deserializer.deserialize(TOPIC,
+                json("{\"name\": \"James\"}")));
+
+        assertTrue(filter.test(match));
+        assertFalse(filter.test(otherName));
+        assertFalse(filter.test(otherId));
+        assertFalse(filter.test(missingId));
+        assertEquals(3, splitParameters.skipped);
+
+        // the messages left out are never parsed, the one which passes is parsed once its fields are read
+        assertNotNull(otherName.value().getData());
+        assertNotNull(match.value().getData());
+        assertEquals(10, match.value().getFields().get(0).getValue());
+        assertEquals("James", match.value().getFields().get(1).getValue());
+        assertNull(match.value().getData());
+    }
+
+    @Test
+    public void test_withUnscannableJson_leavesMessagesToTheRowWriter()
+    {
+        Schema schema = jsonSchema();
+        MskJsonDeserializer deserializer = new MskJsonDeserializer(schema);
+        MskRecordFilter<TopicResultSet> filter = MskRecordFilter.forTopicResultSet(schema, constraints(ImmutableMap.of(
+                "name", SortedRangeSet.of(false, Range.equal(allocator, Types.MinorType.VARCHAR.getType(), "James")))), splitParameters, true);
+
+        assertTrue(filter.test(record(0, -1, deserializer.deserialize(TOPIC, json("{\"name\": \"Ma")))));
+        assertTrue(filter.test(record(1, -1, deserializer.deserialize(TOPIC, json("{\"name\": \"James\", }")))));
+        assertEquals(0, splitParameters.skipped);
+    }
+
+    @Test
+    public void test_withRangeOrDisabledFieldFilter_checksNoFields()
+    {
+        Schema schema = jsonSchema();
+        MskJsonDeserializer deserializer = new MskJsonDeserializer(schema);
+        Map<String, ValueSet> summary = ImmutableMap.of(
+                "id", SortedRangeSet.of(false, Range.greaterThan(allocator, Types.MinorType.INT.getType(), 10)));
+        ConsumerRecord<String, TopicResultSet> record = record(0, -1, deserializer.deserialize(TOPIC, json("{\"id\": 5}")));
+
+        assertNull(deserializer.createFieldFilter(summary));
+        assertTrue(MskRecordFilter.forTopicResultSet(schema, constraints(summary), splitParameters, true).test(record));
+
+        Map<String, ValueSet> equality = ImmutableMap.of(
+                "id", SortedRangeSet.of(false, Range.equal(allocator, Types.MinorType.INT.getType(), 10)));
+        assertTrue(MskRecordFilter.forTopicResultSet(schema, constraints(equality), splitParameters, false).test(record));
+        assertEquals(0, splitParameters.skipped);
+    }
+
+    @Test
+    public void test_withMessageTimestampConstraint_skipsRecordsOutsideRange()
+    {
+        Schema schema = SchemaBuilder.newBuilder()
+                .addField(field("id", Types.MinorType.INT.getType(), "0", "INTEGER"))
+                .addField(AmazonMskUtils.createMessageTimestampField(MESSAGE_TIMESTAMP))
+                .addMetadata("dataFormat", "csv")
+                .build();
+        MskCsvDeserializer deserializer = new MskCsvDeserializer(schema);
+        ValueSet timestampRange = SortedRangeSet.of(true,
+                Range.greaterThanOrEqual(allocator, Types.MinorType.DATEMILLI.getType(), 2_000L));
+        MskRecordFilter<TopicResultSet> filter = MskRecordFilter.forTopicResultSet(schema,
+                constraints(ImmutableMap.of(MESSAGE_TIMESTAMP, timestampRange)), splitParameters, true);
+
+        ConsumerRecord<String, TopicResultSet> before = record(0, 1_000L, deserializer.deserialize(TOPIC, json("1")));
+        assertFalse(filter.test(before));
+        assertTrue(filter.test(record(1, 2_000L, deserializer.deserialize(TOPIC, json("2")))));
+        // a message without a timestamp matches the nullable range
+        assertTrue(filter.test(record(2, -1L, deserializer.deserialize(TOPIC, json("3")))));
+        assertEquals(1, splitParameters.skipped);
+        assertNotNull(before.value().getData());
+
+        MskRecordFilter<String> decodedFilter = MskRecordFilter.forDecoded(schema,
+                constraints(ImmutableMap.of(MESSAGE_TIMESTAMP, timestampRange)), splitParameters);
+        assertFalse(decodedFilter.test(record(3, 1_999L, "decoded")));
+        assertTrue(decodedFilter.test(record(4, 3_000L, "decoded")));
+        assertEquals(2, splitParameters.skipped);
+    }
+
+    private static Schema jsonSchema()
+    {
+        return SchemaBuilder.newBuilder()
+                .addField(field("id", Types.MinorType.INT.getType(), "id", "INTEGER"))
+                .addField(field("name", Types.MinorType.VARCHAR.getType(), "name", "VARCHAR"))
+                .addField(field("isActive", Types.MinorType.BIT.getType(), "isActive", "BOOLEAN"))
+                .addMetadata("dataFormat", "json")
+                .build();
+    }
+
+    private static Field field(String name, ArrowType type, String mapping, String sourceType)
+    {
+        return new Field(name, new FieldType(true, type, null, ImmutableMap.of("mapping", mapping, "formatHint", "", "type", sourceType)), null);
+    }
+
+    private static byte[] json(String value)
+    {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Constraints constraints(Map<String, ValueSet> summary)
+    {
+        return new Constraints(summary, Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+    }
+
+    private static <T> ConsumerRecord<String, T> record(long offset, long timestamp, T value)
+    {
+        return new ConsumerRecord<>(TOPIC, 0, offset, timestamp, TimestampType.CREATE_TIME, 0, 0, "key", value, new RecordHeaders(), Optional.empty());
+    }
+}
@@ -27,6 +27,7 @@ import com.amazonaws.athena.connector.lambda.data.BlockWriter;
 import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
 import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
 import com.amazonaws.athena.connector.lambda.domain.predicate.functions.StandardFunctions;
 import com.amazonaws.athena.connector.lambda.domain.spill.SpillLocation;
 import com.amazonaws.athena.connector.lambda.metadata.GetDataSourceCapabilitiesRequest;
@@ -48,6 +49,7 @@ import com.amazonaws.athena.connectors.jdbc.manager.JDBCUtil;
 import com.amazonaws.athena.connectors.jdbc.manager.JdbcMetadataHandler;
 import com.amazonaws.athena.connectors.jdbc.manager.PreparedStatementBuilder;
 import com.amazonaws.athena.connectors.jdbc.resolver.JDBCCaseResolver;
+import com.amazonaws.athena.connectors.jdbc.splits.PartitionPruner;
 import com.amazonaws.athena.connectors.mysql.resolver.MySqlJDBCCaseResolver;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
@@ -67,7 +69,10 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static com.amazonaws.athena.connectors.mysql.MySqlConstants.MYSQL_DEFAULT_PORT;
 import static com.amazonaws.athena.connectors.mysql.MySqlConstants.MYSQL_DRIVER_CLASS;
@@ -83,6 +88,11 @@ public class MySqlMetadataHandler
     static final Map<String, String> JDBC_PROPERTIES = ImmutableMap.of("databaseTerm", "SCHEMA");
     static final String GET_PARTITIONS_QUERY = "SELECT DISTINCT partition_name FROM INFORMATION_SCHEMA.PARTITIONS WHERE TABLE_NAME = ? AND TABLE_SCHEMA = ? " +
             "AND partition_name IS NOT NULL";
+    // one row per partition, sub partitions repeat the partition's description
+    static final String GET_PARTITION_BOUNDS_QUERY = "SELECT partition_name, partition_method, partition_expression, partition_description " +
+            "FROM INFORMATION_SCHEMA.PARTITIONS WHERE TABLE_NAME = ? AND TABLE_SCHEMA = ? AND partition_name IS NOT NULL " +
+            "AND (subpartition_ordinal_position IS NULL OR subpartition_ordinal_position = 1) ORDER BY partition_ordinal_position";
+    private static final Pattern PARTITION_COLUMN_PATTERN = Pattern.compile("^`([^`]+)`$");
     static final String BLOCK_PARTITION_COLUMN_NAME = "partition_name";
     static final String ALL_PARTITIONS = "*";
     static final String PARTITION_COLUMN_NAME = "partition_name";
@@ -179,10 +189,15 @@ public class MySqlMetadataHandler
                     });
                 }
                 else {
+                    Set<String> prunedPartitions = getPrunedPartitions(connection, parameters, getTableLayoutRequest.getConstraints());
                     do {
                         final String partitionName = resultSet.getString(PARTITION_COLUMN_NAME);
+                        if (prunedPartitions.contains(partitionName)) {
+                            LOGGER.debug("Skipping partition {}, its bounds don't overlap the constraints", partitionName);
+                            continue;
+                        }
 
-                        // 1. Returns all partitions of table, we are not supporting constraints push down to filter partitions.
+                        // 1. Returns the partitions of table whose bounds may hold rows matching the constraints.
                         // 2. This API is not paginated, we could use order by and limit clause with offsets here.
                         blockWriter.writeRows((Block block, int rowNum) -> {
                             block.setValue(BLOCK_PARTITION_COLUMN_NAME, rowNum, partitionName);
@@ -197,6 +212,66 @@ public class MySqlMetadataHandler
         }
     }
 
+    /**
+     * Finds the partitions which can't hold rows matching the query's constraint on the partition key, only RANGE and
+     * LIST partitioning on a single column (not an expression) is considered. Partitions are kept if their bounds can't
+     * be read.
+     *
+     * @param connection connection to the database.
+     * @param parameters table and schema name, as used by {@link #GET_PARTITIONS_QUERY}.
+     * @param constraints the query's constraints.
+     * @return names of the partitions to skip.
+     */
+    @VisibleForTesting
+    Set<String> getPrunedPartitions(Connection connection, List<String> parameters, Constraints constraints)
+    {
+        Set<String> prunedPartitions = new HashSet<>();
+        if (constraints == null || constraints.getSummary() == null || constraints.getSummary().isEmpty()) {
+            return prunedPartitions;
+        }
+        try (PreparedStatement preparedStatement = new PreparedStatementBuilder().withConnection(connection).withQuery(GET_PARTITION_BOUNDS_QUERY).withParameters(parameters).build();
+                ResultSet resultSet = preparedStatement.executeQuery()) {
+            PartitionPruner pruner = null;
+            String lowerBound = null;
+            while (resultSet.next()) {
+                if (pruner == null) {
+                    String expression = resultSet.getString("partition_expression");
+                    Matcher columnMatcher = PARTITION_COLUMN_PATTERN.matcher(expression == null ? "" : expression.trim());
+                    Optional<PartitionPruner> columnPruner = columnMatcher.matches()
+                            ? PartitionPruner.forColumn(constraints, columnMatcher.group(1)) : Optional.empty();
+                    if (!columnPruner.isPresent()) {
+                        break;
+                    }
+                    pruner = columnPruner.get();
+                }
+                String partitionName = resultSet.getString(PARTITION_COLUMN_NAME);
+                String description = resultSet.getString("partition_description");
+                String method = resultSet.getString("partition_method");
+                boolean overlaps;
+                if ("RANGE".equalsIgnoreCase(method) || "RANGE COLUMNS".equalsIgnoreCase(method)) {
+                    // VALUES LESS THAN (high), the previous partition's high value is this partition's inclusive low
+                    overlaps = pruner.overlapsRange(lowerBound, true, description, false);
+                    lowerBound = description;
+                }
+                else if ("LIST".equalsIgnoreCase(method) || "LIST COLUMNS".equalsIgnoreCase(method)) {
+                    overlaps = description == null || pruner.overlapsValues(PartitionPruner.splitValues(description));
+                }
+                else {
+                    break;
+                }
+                if (!overlaps) {
+                    prunedPartitions.add(partitionName);
+                }
+            }
+        }
+        catch (SQLException ex) {
+            LOGGER.warn("Unable to read partition bounds, no partitions are pruned: {}", ex.getMessage());
+            return new HashSet<>();
+        }
+        LOGGER.info("Pruned {} partitions using the constraints", prunedPartitions.size());
+        return prunedPartitions;
+    }
+
     @Override
     public GetSplitsResponse doGetSplits(
             final BlockAllocator blockAllocator, final GetSplitsRequest getSplitsRequest)
@@ -28,6 +28,8 @@ import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
 import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
 import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
 import com.amazonaws.athena.connector.lambda.metadata.GetSplitsRequest;
 import com.amazonaws.athena.connector.lambda.metadata.GetSplitsResponse;
 import com.amazonaws.athena.connector.lambda.metadata.GetTableLayoutRequest;
@@ -41,6 +43,7 @@ import com.amazonaws.athena.connectors.jdbc.TestBase;
 import com.amazonaws.athena.connectors.jdbc.connection.DatabaseConnectionConfig;
 import com.amazonaws.athena.connectors.jdbc.connection.JdbcConnectionFactory;
 import com.amazonaws.athena.connector.credentials.CredentialsProvider;
+import org.apache.arrow.vector.types.pojo.ArrowType;
 import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.junit.Assert;
@@ -68,6 +71,7 @@ import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
 import static com.amazonaws.athena.connectors.mysql.MySqlConstants.MYSQL_NAME;
 import static org.mockito.ArgumentMatchers.nullable;
 
@@ -149,6 +153,42 @@ public class MySqlMetadataHandlerTest
         Mockito.verify(preparedStatement, Mockito.times(1)).setString(2, tableName.getSchemaName());
     }
 
+    @Test
+    public void doGetTableLayoutWithPartitionKeyConstraint()
+            throws Exception
+    {
+        BlockAllocator blockAllocator = new BlockAllocatorImpl();
+        ArrowType intType = org.apache.arrow.vector.types.Types.MinorType.INT.getType();
+        Constraints constraints = new Constraints(Collections.singletonMap("region_id",
+                SortedRangeSet.of(false, Range.equal(blockAllocator, intType, 4), Collections.emptyList())),
+                Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+        TableName tableName = new TableName("testSchema", "testTable");
+        Schema partitionSchema = this.mySqlMetadataHandler.getPartitionSchema("testCatalogName");
+        Set<String> partitionCols = partitionSchema.getFields().stream().map(Field::getName).collect(Collectors.toSet());
+        GetTableLayoutRequest getTableLayoutRequest = new GetTableLayoutRequest(this.federatedIdentity, "testQueryId", "testCatalogName", tableName, constraints, partitionSchema, partitionCols);
+
+        PreparedStatement preparedStatement = Mockito.mock(PreparedStatement.class);
+        Mockito.when(this.connection.prepareStatement(MySqlMetadataHandler.GET_PARTITIONS_QUERY)).thenReturn(preparedStatement);
+        ResultSet resultSet = mockResultSet(new String[] {"partition_name"}, new int[] {Types.VARCHAR},
+                new Object[][] {{"p_east"}, {"p_west"}, {"p_north"}}, new AtomicInteger(-1));
+        Mockito.when(preparedStatement.executeQuery()).thenReturn(resultSet);
+
+        PreparedStatement boundsStatement = Mockito.mock(PreparedStatement.class);
+        Mockito.when(this.connection.prepareStatement(MySqlMetadataHandler.GET_PARTITION_BOUNDS_QUERY)).thenReturn(boundsStatement);
+        String[] boundColumns = {"partition_name", "partition_method", "partition_expression", "partition_description"};
+        int[] boundTypes = {Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR};
+        Object[][] bounds = {{"p_east", "LIST", "`region_id`", "1,2,3"}, {"p_west", "LIST", "`region_id`", "4,5"}, {"p_north", "LIST", "`region_id`", "6"}};
+        ResultSet boundsResultSet = mockResultSet(boundColumns, boundTypes, bounds, new AtomicInteger(-1));
+        Mockito.when(boundsStatement.executeQuery()).thenReturn(boundsResultSet);
+
+        Mockito.when(this.connection.getMetaData().getSearchStringEscape()).thenReturn(null);
+
+        GetTableLayoutResponse getTableLayoutResponse = this.mySqlMetadataHandler.doGetTableLayout(blockAllocator, getTableLayoutRequest);
+
+        Assert.assertEquals(1, getTableLayoutResponse.getPartitions().getRowCount());
+        Assert.assertEquals("[partition_name : p_west]", BlockUtils.rowToString(getTableLayoutResponse.getPartitions(), 0));
+    }
+
     @Test
     public void doGetTableLayoutWithNoPartitions()
             throws Exception
@@ -31,6 +31,7 @@ import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
 import com.amazonaws.athena.connector.lambda.data.SupportedTypes;
 import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
 import com.amazonaws.athena.connector.lambda.domain.predicate.functions.StandardFunctions;
 import com.amazonaws.athena.connector.lambda.domain.spill.SpillLocation;
 import com.amazonaws.athena.connector.lambda.metadata.GetDataSourceCapabilitiesRequest;
@@ -54,6 +55,7 @@ import com.amazonaws.athena.connectors.jdbc.manager.JdbcArrowTypeConverter;
 import com.amazonaws.athena.connectors.jdbc.manager.JdbcMetadataHandler;
 import com.amazonaws.athena.connectors.jdbc.manager.PreparedStatementBuilder;
 import com.amazonaws.athena.connectors.jdbc.resolver.JDBCCaseResolver;
+import com.amazonaws.athena.connectors.jdbc.splits.PartitionPruner;
 import com.amazonaws.athena.connectors.oracle.resolver.OracleJDBCCaseResolver;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
@@ -91,6 +93,15 @@ public class OracleMetadataHandler
         extends JdbcMetadataHandler
 {
     static final String GET_PARTITIONS_QUERY = "Select DISTINCT PARTITION_NAME as \"partition_name\" FROM USER_TAB_PARTITIONS where table_name= ?";
+    /**
+     * Bounds of the partitions of a table partitioned on a single column, HIGH_VALUE is the VALUES LESS THAN bound of
+     * a RANGE partition and the value list of a LIST partition.
+     */
+    static final String GET_PARTITION_BOUNDS_QUERY = "SELECT p.PARTITION_NAME AS \"partition_name\", p.HIGH_VALUE AS \"high_value\", " +
+            "t.PARTITIONING_TYPE AS \"partitioning_type\", k.COLUMN_NAME AS \"column_name\" FROM USER_TAB_PARTITIONS p " +
+            "JOIN USER_PART_TABLES t ON t.TABLE_NAME = p.TABLE_NAME " +
+            "JOIN USER_PART_KEY_COLUMNS k ON k.NAME = p.TABLE_NAME AND k.OBJECT_TYPE = 'TABLE' " +
+            "WHERE p.TABLE_NAME = ? AND t.PARTITIONING_KEY_COUNT = 1 ORDER BY p.PARTITION_POSITION";
     static final String BLOCK_PARTITION_COLUMN_NAME = "PARTITION_NAME".toLowerCase();
     static final String ALL_PARTITIONS = "0";
     static final String PARTITION_COLUMN_NAME = "PARTITION_NAME".toLowerCase();
@@ -174,10 +185,15 @@ public class OracleMetadataHandler
                     });
                 }
                 else {
+                    Set<String> prunedPartitions = getPrunedPartitions(connection, parameters, getTableLayoutRequest.getConstraints());
                     do {
                         final String partitionName = resultSet.getString(PARTITION_COLUMN_NAME);
+                        if (prunedPartitions.contains(partitionName)) {
+                            LOGGER.debug("Skipping partition {}, its bounds don't overlap the constraints", partitionName);
+                            continue;
+                        }
 
-                        // 1. Returns all partitions of table, we are not supporting constraints push down to filter partitions.
+                        // 1. Returns the partitions of table whose bounds may hold rows matching the constraints.
                         // 2. This API is not paginated, we could use order by and limit clause with offsets here.
                         blockWriter.writeRows((Block block, int rowNum) -> {
                             block.setValue(BLOCK_PARTITION_COLUMN_NAME, rowNum, partitionName);
@@ -192,6 +208,63 @@ public class OracleMetadataHandler
         }
     }
 
+    /**
+     * Finds the partitions which can't hold rows matching the query's constraint on the partition key, only single
+     * column RANGE and LIST partitioning is considered. Partitions are kept if their bounds can't be read.
+     *
+     * @param connection connection to the database.
+     * @param parameters the table name, as used by {@link #GET_PARTITIONS_QUERY}.
+     * @param constraints the query's constraints.
+     * @return names of the partitions to skip.
+     */
+    @VisibleForTesting
+    Set<String> getPrunedPartitions(Connection connection, List<String> parameters, Constraints constraints)
+    {
+        Set<String> prunedPartitions = new HashSet<>();
+        if (constraints == null || constraints.getSummary() == null || constraints.getSummary().isEmpty()) {
+            return prunedPartitions;
+        }
+        try (PreparedStatement preparedStatement = new PreparedStatementBuilder().withConnection(connection).withQuery(GET_PARTITION_BOUNDS_QUERY).withParameters(parameters).build();
+                ResultSet resultSet = preparedStatement.executeQuery()) {
+            PartitionPruner pruner = null;
+            String lowerBound = null;
+            while (resultSet.next()) {
+                if (pruner == null) {
+                    Optional<PartitionPruner> columnPruner = PartitionPruner.forColumn(constraints, resultSet.getString("column_name"));
+                    if (!columnPruner.isPresent()) {
+                        break;
+                    }
+                    pruner = columnPruner.get();
+                }
+                String partitionName = resultSet.getString(PARTITION_COLUMN_NAME);
+                String highValue = resultSet.getString("high_value");
+                String partitioningType = resultSet.getString("partitioning_type");
+                boolean overlaps;
+                if ("RANGE".equalsIgnoreCase(partitioningType)) {
+                    // VALUES LESS THAN (high), the previous partition's high value is this partition's inclusive low
+                    overlaps = pruner.overlapsRange(lowerBound, true, highValue, false);
+                    lowerBound = highValue;
+                }
+                else if ("LIST".equalsIgnoreCase(partitioningType)) {
+                    overlaps = highValue == null || "DEFAULT".equalsIgnoreCase(highValue.trim())
+                            || pruner.overlapsValues(PartitionPruner.splitValues(highValue));
+                }
+                else {
+                    break;
+                }
+                if (!overlaps) {
+                    prunedPartitions.add(partitionName);
+                }
+            }
+        }
+        catch (SQLException ex) {
+            LOGGER.warn("Unable to read partition bounds, no partitions are pruned: {}", ex.getMessage());
+            return new HashSet<>();
+        }
+        LOGGER.info("Pruned {} partitions using the constraints", prunedPartitions.size());
+        return prunedPartitions;
+    }
+
     /**
      *
      * @param blockAllocator
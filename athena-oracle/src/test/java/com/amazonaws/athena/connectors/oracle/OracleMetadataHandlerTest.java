@@ -30,6 +30,8 @@ import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
 import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
 import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
 import com.amazonaws.athena.connector.lambda.metadata.GetDataSourceCapabilitiesRequest;
 import com.amazonaws.athena.connector.lambda.metadata.GetDataSourceCapabilitiesResponse;
 import com.amazonaws.athena.connector.lambda.metadata.GetSplitsRequest;
@@ -175,6 +177,42 @@ public class OracleMetadataHandlerTest
         verify(preparedStatement, Mockito.times(1)).setString(1, tableName.getTableName());
     }
 
+    @Test
+    public void doGetTableLayout_withPartitionKeyConstraint_prunesPartitions()
+            throws Exception
+    {
+        ArrowType intType = org.apache.arrow.vector.types.Types.MinorType.INT.getType();
+        Constraints constraints = new Constraints(Collections.singletonMap("id",
+                SortedRangeSet.of(false, Range.range(blockAllocator, intType, 150, true, 250, false), Collections.emptyList())),
+                Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+        TableName tableName = new TableName("testSchema", "TESTTABLE");
+        Schema partitionSchema = this.oracleMetadataHandler.getPartitionSchema(CATALOG_NAME);
+        Set<String> partitionCols = partitionSchema.getFields().stream().map(Field::getName).collect(Collectors.toSet());
+        GetTableLayoutRequest getTableLayoutRequest = new GetTableLayoutRequest(this.federatedIdentity, "testQUERY_ID", CATALOG_NAME, tableName, constraints, partitionSchema, partitionCols);
+
+        PreparedStatement preparedStatement = Mockito.mock(PreparedStatement.class);
+        Mockito.when(this.connection.prepareStatement(OracleMetadataHandler.GET_PARTITIONS_QUERY)).thenReturn(preparedStatement);
+        ResultSet resultSet = mockResultSet(new String[] {"partition_name"}, new int[] {Types.VARCHAR},
+                new Object[][] {{"p0"}, {"p1"}, {"p2"}, {"p3"}}, new AtomicInteger(-1));
+        Mockito.when(preparedStatement.executeQuery()).thenReturn(resultSet);
+
+        PreparedStatement boundsStatement = Mockito.mock(PreparedStatement.class);
+        Mockito.when(this.connection.prepareStatement(OracleMetadataHandler.GET_PARTITION_BOUNDS_QUERY)).thenReturn(boundsStatement);
+        String[] boundColumns = {"partition_name", "high_value", "partitioning_type", "column_name"};
+        int[] boundTypes = {Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR};
+        Object[][] bounds = {{"p0", "100", "RANGE", "ID"}, {"p1", "200", "RANGE", "ID"}, {"p2", "300", "RANGE", "ID"}, {"p3", "MAXVALUE", "RANGE", "ID"}};
+        ResultSet boundsResultSet = mockResultSet(boundColumns, boundTypes, bounds, new AtomicInteger(-1));
+        Mockito.when(boundsStatement.executeQuery()).thenReturn(boundsResultSet);
+
+        GetTableLayoutResponse getTableLayoutResponse = this.oracleMetadataHandler.doGetTableLayout(blockAllocator, getTableLayoutRequest);
+
+        List<String> actualValues = new ArrayList<>();
+        for (int i = 0; i < getTableLayoutResponse.getPartitions().getRowCount(); i++) {
+            actualValues.add(BlockUtils.rowToString(getTableLayoutResponse.getPartitions(), i));
+        }
+        assertEquals(Arrays.asList("[partition_name : p1]", "[partition_name : p2]"), actualValues);
+    }
+
     @Test
     public void doGetTableLayout_withoutPartitions_returnsDefaultPartition()
             throws Exception
@@ -0,0 +1,438 @@
+/*-
+ * #%L
+ * athena-postgresql
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.postgresql;
+
+import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.writers.GeneratedRowWriter;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.BigIntExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.BitExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.DateDayExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.DateMilliExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.DecimalExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.Extractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.Float4Extractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.Float8Extractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.IntExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.SmallIntExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.VarBinaryExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.extractors.VarCharExtractor;
+import com.amazonaws.athena.connector.lambda.data.writers.holders.NullableDecimalHolder;
+import com.amazonaws.athena.connector.lambda.data.writers.holders.NullableVarBinaryHolder;
+import com.amazonaws.athena.connector.lambda.data.writers.holders.NullableVarCharHolder;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import com.google.common.collect.ImmutableMap;
+import org.apache.arrow.vector.holders.NullableBigIntHolder;
+import org.apache.arrow.vector.holders.NullableBitHolder;
+import org.apache.arrow.vector.holders.NullableDateDayHolder;
+import org.apache.arrow.vector.holders.NullableDateMilliHolder;
+import org.apache.arrow.vector.holders.NullableFloat4Holder;
+import org.apache.arrow.vector.holders.NullableFloat8Holder;
+import org.apache.arrow.vector.holders.NullableIntHolder;
+import org.apache.arrow.vector.holders.NullableSmallIntHolder;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
+import software.amazon.awssdk.services.glue.model.ErrorDetails;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static com.amazonaws.athena.connectors.postgresql.PostGreSqlConstants.POSTGRES_QUOTE_CHARACTER;
+
+/**
+ * Reads a split through {@code COPY (...) TO STDOUT WITH (FORMAT binary)} rather than a JDBC ResultSet. The binary tuple
+ * stream is far cheaper to decode than per-cell ResultSet getters: each tuple is read into a reusable buffer and its
+ * fields are decoded straight from the wire representation as the row is written to the block.
+ * <p>
+ * Every column is cast in the COPY query to the PostgreSQL type whose binary representation matches its Arrow type, so the
+ * decoder never depends on the source column's actual type. Schemas containing other Arrow types (e.g. lists) are not
+ * supported and must be read through the ResultSet path.
+ */
+public final class PostGreSqlBinaryCopyReader
+{
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+    //Set in the header flags if each tuple carries an OID, which we never request.
+    private static final int FLAG_HAS_OIDS = 1 << 16;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    //Binary dates and timestamps count from 2000-01-01 rather than the Unix epoch.
+    private static final int PG_EPOCH_DAYS = 10_957;
+    private static final long PG_EPOCH_MILLIS = 946_684_800_000L;
+
+    private static final int NUMERIC_NEGATIVE = 0x4000;
+    private static final int NUMERIC_DIGIT_DECIMALS = 4;
+
+    //The PostgreSQL type each Arrow type is cast to in the COPY query, timestamps are left as is because both timestamp and
+    //timestamptz are sent as microseconds since the epoch.
+    private static final Map<Types.MinorType, String> COPY_CASTS = ImmutableMap.<Types.MinorType, String>builder()
+            .put(Types.MinorType.BIT, "bool")
+            .put(Types.MinorType.SMALLINT, "int2")
+            .put(Types.MinorType.INT, "int4")
+            .put(Types.MinorType.BIGINT, "int8")
+            .put(Types.MinorType.FLOAT4, "float4")
+            .put(Types.MinorType.FLOAT8, "float8")
+            .put(Types.MinorType.DECIMAL, "numeric")
+            .put(Types.MinorType.DATEDAY, "date")
+            .put(Types.MinorType.VARCHAR, "text")
+            .put(Types.MinorType.VARBINARY, "bytea")
+            .build();
+
+    private PostGreSqlBinaryCopyReader() {}
+
+    /**
+     * @param schema The schema of the split being read.
+     * @param partitionValues The split's partition values, which are not selected from the source.
+     * @return True if every selected column can be decoded from the binary COPY format.
+     */
+    public static boolean isSupported(Schema schema, Map<String, String> partitionValues)
+    {
+        List<Field> columns = getSelectedColumns(schema, partitionValues);
+        return !columns.isEmpty() && columns.stream().allMatch(field -> {
+            Types.MinorType type = Types.getMinorTypeForArrowType(field.getType());
+            return COPY_CASTS.containsKey(type) || type == Types.MinorType.DATEMILLI;
+        });
+    }
+
+    /**
+     * Wraps the split's SQL in a binary COPY which casts each column to the type the decoder expects.
+     *
+     * @param splitSql The split's SELECT with all parameters inlined.
+     * @param schema The schema of the split being read.
+     * @param partitionValues The split's partition values, which are not selected from the source.
+     * @return The COPY statement.
+     */
+    public static String buildCopySql(String splitSql, Schema schema, Map<String, String> partitionValues)
+    {
+        String columns = getSelectedColumns(schema, partitionValues).stream()
+                .map(field -> {
+                    String column = quote(field.getName());
+                    String cast = COPY_CASTS.get(Types.getMinorTypeForArrowType(field.getType()));
+                    return cast != null ? column + "::" + cast : column;
+                })
+                .collect(Collectors.joining(", "));
+        return "COPY (SELECT " + columns + " FROM (" + splitSql + ") AS copy_split) TO STDOUT WITH (FORMAT binary)";
+    }
+
+    /**
+     * Decodes the binary COPY stream, writing one row per tuple.
+     *
+     * @param copyStream The output of the statement built by {@link #buildCopySql(String, Schema, Map)}.
+     * @param schema The schema of the split being read.
+     * @param partitionValues The split's partition values, written as constants.
+     * @param constraints The constraints applied to each row.
+     * @param blockSpiller The spiller the rows are written to.
+     * @param queryStatusChecker Used to stop reading once the query has terminated.
+     * @return The number of tuples read from the stream.
+     * @throws Exception If the stream is malformed or a row can not be written.
+     */
+    public static long read(InputStream copyStream, Schema schema, Map<String, String> partitionValues, Constraints constraints,
+            BlockSpiller blockSpiller, QueryStatusChecker queryStatusChecker)
+            throws Exception
+    {
+        List<Field> columns = getSelectedColumns(schema, partitionValues);
+        CopyTuple tuple = new CopyTuple(columns.size());
+
+        GeneratedRowWriter.RowWriterBuilder rowWriterBuilder = GeneratedRowWriter.newBuilder(constraints);
+        for (Field next : schema.getFields()) {
+            rowWriterBuilder.withExtractor(next.getName(), makeExtractor(next, columns.indexOf(next), tuple, partitionValues));
+        }
+        GeneratedRowWriter rowWriter = rowWriterBuilder.build();
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(copyStream, BUFFER_SIZE));
+        readHeader(in);
+        long rows = 0;
+        while (tuple.read(in)) {
+            if (!queryStatusChecker.isQueryRunning()) {
+                return rows;
+            }
+            blockSpiller.writeRows((Block block, int rowNum) -> rowWriter.writeRow(block, rowNum, tuple) ? 1 : 0);
+            rows++;
+        }
+        return rows;
+    }
+
+    private static List<Field> getSelectedColumns(Schema schema, Map<String, String> partitionValues)
+    {
+        return schema.getFields().stream()
+                .filter(field -> !partitionValues.containsKey(field.getName()))
+                .collect(Collectors.toList());
+    }
+
+    private static String quote(String name)
+    {
+        return POSTGRES_QUOTE_CHARACTER + name.replace(POSTGRES_QUOTE_CHARACTER, POSTGRES_QUOTE_CHARACTER + POSTGRES_QUOTE_CHARACTER) + POSTGRES_QUOTE_CHARACTER;
+    }
+
+    private static void readHeader(DataInputStream in)
+            throws IOException
+    {
+        byte[] signature = new byte[SIGNATURE.length];
+        in.readFully(signature);
+        if (!Arrays.equals(SIGNATURE, signature)) {
+            throw new IOException("Stream is not in PostgreSQL binary COPY format");
+        }
+        int flags = in.readInt();
+        if ((flags & FLAG_HAS_OIDS) != 0) {
+            throw new IOException("Binary COPY streams with OIDs are not supported");
+        }
+        int extensionLength = in.readInt();
+        in.skipBytes(extensionLength);
+    }
+
+    private static Extractor makeExtractor(Field field, int column, CopyTuple tuple, Map<String, String> partitionValues)
+    {
+        Types.MinorType fieldType = Types.getMinorTypeForArrowType(field.getType());
+        if (column < 0) {
+            String partitionValue = partitionValues.get(field.getName());
+            return (VarCharExtractor) (Object context, NullableVarCharHolder dst) ->
+            {
+                dst.isSet = 1;
+                dst.value = partitionValue;
+            };
+        }
+
+        switch (fieldType) {
+            case BIT:
+                return (BitExtractor) (Object context, NullableBitHolder dst) ->
+                {
+                    dst.isSet = tuple.isNull(column) ? 0 : 1;
+                    dst.value = dst.isSet == 1 && tuple.getByte(column) != 0 ? 1 : 0;
+                };
+            case SMALLINT:
+                return (SmallIntExtractor) (Object context, NullableSmallIntHolder dst) ->
+                {
+                    dst.isSet = tuple.isNull(column) ? 0 : 1;
+                    dst.value = dst.isSet == 1 ? tuple.getShort(column) : 0;
+                };
+            case INT:
+                return (IntExtractor) (Object context, NullableIntHolder dst) ->
+                {
+                    dst.isSet = tuple.isNull(column) ? 0 : 1;
+                    dst.value = dst.isSet == 1 ? tuple.getInt(column) : 0;
+                };
+            case BIGINT:
+                return (BigIntExtractor) (Object context, NullableBigIntHolder dst) ->
+                {
+                    dst.isSet = tuple.isNull(column) ? 0 : 1;
+                    dst.value = dst.isSet == 1 ? tuple.getLong(column) : 0;
+                };
+            case FLOAT4:
+                return (Float4Extractor) (Object context, NullableFloat4Holder dst) ->
+                {
+                    dst.isSet = tuple.isNull(column) ? 0 : 1;
+                    dst.value = dst.isSet == 1 ? Float.intBitsToFloat(tuple.getInt(column)) : 0;
+                };
+            case FLOAT8:
+                return (Float8Extractor) (Object context, NullableFloat8Holder dst) ->
+                {
+                    dst.isSet = tuple.isNull(column) ? 0 : 1;
+                    dst.value = dst.isSet == 1 ? Double.longBitsToDouble(tuple.getLong(column)) : 0;
+                };
+            case DECIMAL:
+                return (DecimalExtractor) (Object context, NullableDecimalHolder dst) ->
+                {
+                    dst.isSet = tuple.isNull(column) ? 0 : 1;
+                    dst.value = dst.isSet == 1 ? tuple.getNumeric(column) : null;
+                };
+            case DATEDAY:
+                return (DateDayExtractor) (Object context, NullableDateDayHolder dst) ->
+                {
+                    dst.isSet = tuple.isNull(column) ? 0 : 1;
+                    dst.value = dst.isSet == 1 ? tuple.getDate(column) : 0;
+                };
+            case DATEMILLI:
+                return (DateMilliExtractor) (Object context, NullableDateMilliHolder dst) ->
+                {
+                    dst.isSet = tuple.isNull(column) ? 0 : 1;
+                    dst.value = dst.isSet == 1 ? tuple.getTimestamp(column) : 0;
+                };
+            case VARCHAR:
+                return (VarCharExtractor) (Object context, NullableVarCharHolder dst) ->
+                {
+                    dst.isSet = tuple.isNull(column) ? 0 : 1;
+                    dst.value = dst.isSet == 1 ? tuple.getString(column) : null;
+                };
+            case VARBINARY:
+                return (VarBinaryExtractor) (Object context, NullableVarBinaryHolder dst) ->
+                {
+                    dst.isSet = tuple.isNull(column) ? 0 : 1;
+                    dst.value = dst.isSet == 1 ? tuple.getBytes(column) : null;
+                };
+            default:
+                throw new AthenaConnectorException("Unhandled type " + fieldType,
+                        ErrorDetails.builder().errorCode(FederationSourceErrorCode.OPERATION_NOT_SUPPORTED_EXCEPTION.toString()).build());
+        }
+    }
+
+    /**
+     * The raw fields of the current tuple, read into a buffer which is reused for every tuple of the stream.
+     */
+    private static final class CopyTuple
+    {
+        private final int[] offsets;
+        private final int[] lengths;
+        private byte[] data = new byte[BUFFER_SIZE];
+        private ByteBuffer buffer = ByteBuffer.wrap(data);
+
+        private CopyTuple(int numColumns)
+        {
+            this.offsets = new int[numColumns];
+            this.lengths = new int[numColumns];
+        }
+
+        /**
+         * @return True if a tuple was read, false if the trailer was reached.
+         */
+        private boolean read(DataInputStream in)
+                throws IOException
+        {
+            short numFields;
+            try {
+                numFields = in.readShort();
+            }
+            catch (EOFException ex) {
+                throw new IOException("Binary COPY stream ended without a trailer", ex);
+            }
+            if (numFields == -1) {
+                return false;
+            }
+            if (numFields != offsets.length) {
+                throw new IOException("Expected " + offsets.length + " fields per tuple but found " + numFields);
+            }
+
+            int position = 0;
+            for (int i = 0; i < numFields; i++) {
+                int length = in.readInt();
+                offsets[i] = position;
+                lengths[i] = length;
+                if (length > 0) {
+                    ensureCapacity(position + length);
+                    in.readFully(data, position, length);
+                    position += length;
+                }
+            }
+            return true;
+        }
+
+        private void ensureCapacity(int capacity)
+        {
+            if (capacity > data.length) {
+                data = Arrays.copyOf(data, Math.max(capacity, data.length * 2));
+                buffer = ByteBuffer.wrap(data);
+            }
+        }
+
+        private boolean isNull(int column)
+        {
+            return lengths[column] < 0;
+        }
+
+        private byte getByte(int column)
+        {
+            return data[offsets[column]];
+        }
+
+        private short getShort(int column)
+        {
+            return buffer.getShort(offsets[column]);
+        }
+
+        private int getInt(int column)
+        {
+            return buffer.getInt(offsets[column]);
+        }
+
+        private long getLong(int column)
+        {
+            return buffer.getLong(offsets[column]);
+        }
+
+        private String getString(int column)
+        {
+            return new String(data, offsets[column], lengths[column], StandardCharsets.UTF_8);
+        }
+
+        private byte[] getBytes(int column)
+        {
+            return Arrays.copyOfRange(data, offsets[column], offsets[column] + lengths[column]);
+        }
+
+        private int getDate(int column)
+        {
+            int days = getInt(column);
+            if (days == Integer.MAX_VALUE || days == Integer.MIN_VALUE) {
+                throw unsupportedValue("infinite date");
+            }
+            return days + PG_EPOCH_DAYS;
+        }
+
+        private long getTimestamp(int column)
+        {
+            long micros = getLong(column);
+            if (micros == Long.MAX_VALUE || micros == Long.MIN_VALUE) {
+                throw unsupportedValue("infinite timestamp");
+            }
+            return Math.floorDiv(micros, 1000L) + PG_EPOCH_MILLIS;
+        }
+
+        /**
+         * Numerics are sent as base 10000 digits: digit count, weight of the first digit, sign and display scale.
+         */
+        private BigDecimal getNumeric(int column)
+        {
+            int offset = offsets[column];
+            int numDigits = buffer.getShort(offset);
+            int weight = buffer.getShort(offset + 2);
+            int sign = buffer.getShort(offset + 4) & 0xFFFF;
+            int scale = buffer.getShort(offset + 6);
+            if (sign != 0 && sign != NUMERIC_NEGATIVE) {
+                throw unsupportedValue("NaN or infinite numeric");
+            }
+
+            BigDecimal value = BigDecimal.ZERO;
+            for (int i = 0; i < numDigits; i++) {
+                int digit = buffer.getShort(offset + 8 + i * 2);
+                value = value.add(BigDecimal.valueOf(digit).scaleByPowerOfTen((weight - i) * NUMERIC_DIGIT_DECIMALS));
+            }
+            value = value.setScale(scale);
+            return sign == NUMERIC_NEGATIVE ? value.negate() : value;
+        }
+
+        private static AthenaConnectorException unsupportedValue(String value)
+        {
+            return new AthenaConnectorException("Binary COPY read does not support " + value + " values",
+                    ErrorDetails.builder().errorCode(FederationSourceErrorCode.OPERATION_NOT_SUPPORTED_EXCEPTION.toString()).build());
+        }
+    }
+}
@@ -25,6 +25,8 @@ public class PostGreSqlConstants
     public static final String POSTGRESQL_DRIVER_CLASS = "org.postgresql.Driver";
     public static final int POSTGRESQL_DEFAULT_PORT = 5432;
     public static final String POSTGRES_QUOTE_CHARACTER = "\"";
+    //Opt-in read of splits through binary COPY instead of a JDBC ResultSet.
+    public static final String BINARY_COPY_READ_ENABLED = "postgresql_binary_copy_read_enabled";
 
     private PostGreSqlConstants() {}
 }
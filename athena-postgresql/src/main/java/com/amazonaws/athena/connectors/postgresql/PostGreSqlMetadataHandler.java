@@ -27,6 +27,7 @@ import com.amazonaws.athena.connector.lambda.data.BlockWriter;
 import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
 import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
 import com.amazonaws.athena.connector.lambda.domain.predicate.functions.StandardFunctions;
 import com.amazonaws.athena.connector.lambda.domain.spill.SpillLocation;
 import com.amazonaws.athena.connector.lambda.metadata.GetDataSourceCapabilitiesRequest;
@@ -49,6 +50,7 @@ import com.amazonaws.athena.connectors.jdbc.manager.JDBCUtil;
 import com.amazonaws.athena.connectors.jdbc.manager.JdbcMetadataHandler;
 import com.amazonaws.athena.connectors.jdbc.manager.PreparedStatementBuilder;
 import com.amazonaws.athena.connectors.jdbc.resolver.JDBCCaseResolver;
+import com.amazonaws.athena.connectors.jdbc.splits.PartitionPruner;
 import com.amazonaws.athena.connectors.postgresql.resolver.PostGreSqlJDBCCaseResolver;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
@@ -71,7 +73,10 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static com.amazonaws.athena.connectors.postgresql.PostGreSqlConstants.POSTGRESQL_DEFAULT_PORT;
 import static com.amazonaws.athena.connectors.postgresql.PostGreSqlConstants.POSTGRESQL_DRIVER_CLASS;
@@ -90,6 +95,14 @@ public class PostGreSqlMetadataHandler
             "ON pg_inherits.inhparent = parent.oid JOIN pg_class child ON pg_inherits.inhrelid = child.oid JOIN pg_namespace nmsp_parent " +
             "ON nmsp_parent.oid = parent.relnamespace JOIN pg_namespace nmsp_child ON nmsp_child.oid = child.relnamespace where nmsp_parent.nspname = ? " +
             "AND parent.relname = ?";
+    static final String GET_PARTITION_BOUNDS_QUERY = "SELECT nmsp_child.nspname AS child_schema, child.relname AS child, " +
+            "pg_get_expr(child.relpartbound, child.oid) AS partition_bound, pg_get_partkeydef(parent.oid) AS partition_key FROM pg_inherits " +
+            "JOIN pg_class parent ON pg_inherits.inhparent = parent.oid JOIN pg_class child ON pg_inherits.inhrelid = child.oid " +
+            "JOIN pg_namespace nmsp_parent ON nmsp_parent.oid = parent.relnamespace JOIN pg_namespace nmsp_child ON nmsp_child.oid = child.relnamespace " +
+            "where nmsp_parent.nspname = ? AND parent.relname = ?";
+    private static final Pattern PARTITION_KEY_PATTERN = Pattern.compile("^(RANGE|LIST) \\(\"?([^\",()]+)\"?\\)$", Pattern.CASE_INSENSITIVE);
+    private static final Pattern RANGE_BOUND_PATTERN = Pattern.compile("^FOR VALUES FROM \\((.*)\\) TO \\((.*)\\)$", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern LIST_BOUND_PATTERN = Pattern.compile("^FOR VALUES IN \\((.*)\\)$", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
     public static final String BLOCK_PARTITION_COLUMN_NAME = "partition_name";
     public static final String BLOCK_PARTITION_SCHEMA_COLUMN_NAME = "partition_schema_name";
     private static final String MATERIALIZED_VIEWS = "Materialized Views";
@@ -98,6 +111,9 @@ public class PostGreSqlMetadataHandler
     private static final String PARTITION_SCHEMA_NAME = "child_schema";
     private static final String PARTITION_NAME = "child";
     private static final int MAX_SPLITS_PER_REQUEST = 1000_000;
+    static final String ESTIMATED_ROW_COUNT_QUERY = "SELECT c.reltuples::bigint FROM pg_class c JOIN pg_namespace n ON n.oid = c.relnamespace " +
+            "WHERE n.nspname = ? AND c.relname = ?";
+    static final String HISTOGRAM_BOUNDS_QUERY = "SELECT histogram_bounds::text::text[] FROM pg_stats WHERE schemaname = ? AND tablename = ? AND attname = ?";
 
     static final String LIST_PAGINATED_TABLES_QUERY = "SELECT a.\"TABLE_NAME\", a.\"TABLE_SCHEM\" FROM ((SELECT table_name as \"TABLE_NAME\", table_schema as \"TABLE_SCHEM\" FROM information_schema.tables WHERE table_schema = ?) UNION (SELECT matviewname as \"TABLE_NAME\", schemaname as \"TABLE_SCHEM\" from pg_catalog.pg_matviews mv where has_table_privilege(format('%I.%I', mv.schemaname, mv.matviewname), 'select') and schemaname = ?)) AS a ORDER BY a.\"TABLE_NAME\" LIMIT ? OFFSET ?";
 
@@ -207,11 +223,16 @@ public class PostGreSqlMetadataHandler
                     });
                 }
                 else {
+                    Set<String> prunedPartitions = getPrunedPartitions(connection, parameters, getTableLayoutRequest.getConstraints());
                     do {
                         final String partitionSchemaName = resultSet.getString(PARTITION_SCHEMA_NAME);
                         final String partitionName = resultSet.getString(PARTITION_NAME);
+                        if (prunedPartitions.contains(partitionSchemaName + "." + partitionName)) {
+                            LOGGER.debug("Skipping partition {}.{}, its bounds don't overlap the constraints", partitionSchemaName, partitionName);
+                            continue;
+                        }
 
-                        // 1. Returns all partitions of table, we are not supporting constraints push down to filter partitions.
+                        // 1. Returns the partitions of table whose bounds may hold rows matching the constraints.
                         // 2. This API is not paginated, we could use order by and limit clause with offsets here.
                         blockWriter.writeRows((Block block, int rowNum) -> {
                             block.setValue(BLOCK_PARTITION_SCHEMA_COLUMN_NAME, rowNum, partitionSchemaName);
@@ -226,6 +247,65 @@ public class PostGreSqlMetadataHandler
         }
     }
 
+    /**
+     * Finds the partitions which can't hold rows matching the query's constraint on the partition key, only single
+     * column RANGE and LIST partitioning is considered. Partitions are kept if their bounds can't be read, e.g. on
+     * databases without declarative partitioning.
+     *
+     * @param connection connection to the database.
+     * @param parameters schema and table name, as used by {@link #GET_PARTITIONS_QUERY}.
+     * @param constraints the query's constraints.
+     * @return schema qualified names of the partitions to skip.
+     */
+    @VisibleForTesting
+    Set<String> getPrunedPartitions(Connection connection, List<String> parameters, Constraints constraints)
+    {
+        Set<String> prunedPartitions = new HashSet<>();
+        if (constraints == null || constraints.getSummary() == null || constraints.getSummary().isEmpty()) {
+            return prunedPartitions;
+        }
+        try (PreparedStatement preparedStatement = new PreparedStatementBuilder().withConnection(connection).withQuery(GET_PARTITION_BOUNDS_QUERY).withParameters(parameters).build();
+                ResultSet resultSet = preparedStatement.executeQuery()) {
+            PartitionPruner pruner = null;
+            while (resultSet.next()) {
+                if (pruner == null) {
+                    String partitionKey = resultSet.getString("partition_key");
+                    Matcher keyMatcher = PARTITION_KEY_PATTERN.matcher(partitionKey == null ? "" : partitionKey.trim());
+                    Optional<PartitionPruner> columnPruner = keyMatcher.matches()
+                            ? PartitionPruner.forColumn(constraints, keyMatcher.group(2).trim()) : Optional.empty();
+                    if (!columnPruner.isPresent()) {
+                        break;
+                    }
+                    pruner = columnPruner.get();
+                }
+                String partitionBound = resultSet.getString("partition_bound");
+                if (partitionBound == null) {
+                    continue;
+                }
+                // DEFAULT and sub partitioned children are kept
+                Matcher rangeMatcher = RANGE_BOUND_PATTERN.matcher(partitionBound.trim());
+                Matcher listMatcher = LIST_BOUND_PATTERN.matcher(partitionBound.trim());
+                boolean overlaps = true;
+                if (rangeMatcher.matches()) {
+                    // FOR VALUES FROM (low) TO (high), low is inclusive and high exclusive
+                    overlaps = pruner.overlapsRange(rangeMatcher.group(1), true, rangeMatcher.group(2), false);
+                }
+                else if (listMatcher.matches()) {
+                    overlaps = pruner.overlapsValues(PartitionPruner.splitValues(listMatcher.group(1)));
+                }
+                if (!overlaps) {
+                    prunedPartitions.add(resultSet.getString(PARTITION_SCHEMA_NAME) + "." + resultSet.getString(PARTITION_NAME));
+                }
+            }
+        }
+        catch (SQLException ex) {
+            LOGGER.warn("Unable to read partition bounds, no partitions are pruned: {}", ex.getMessage());
+            return new HashSet<>();
+        }
+        LOGGER.info("Pruned {} partitions using the constraints", prunedPartitions.size());
+        return prunedPartitions;
+    }
+
     @Override
     public GetSplitsResponse doGetSplits(BlockAllocator blockAllocator, GetSplitsRequest getSplitsRequest)
     {
@@ -432,6 +512,51 @@ public class PostGreSqlMetadataHandler
         return charColumns;
     }
 
+    /**
+     * Uses the planner's row estimate (`pg_class.reltuples`), which is maintained by ANALYZE and VACUUM, to size splits.
+     */
+    @Override
+    protected long getEstimatedRowCount(Connection jdbcConnection, TableName tableName)
+    {
+        try (PreparedStatement statement = jdbcConnection.prepareStatement(ESTIMATED_ROW_COUNT_QUERY)) {
+            statement.setString(1, tableName.getSchemaName());
+            statement.setString(2, tableName.getTableName());
+            try (ResultSet resultSet = statement.executeQuery()) {
+                // tables which were never analyzed report 0 or -1, treat those as unknown
+                if (resultSet.next() && resultSet.getLong(1) > 0) {
+                    return resultSet.getLong(1);
+                }
+            }
+        }
+        catch (SQLException ex) {
+            LOGGER.warn("Unable to read estimated row count of {}", tableName, ex);
+        }
+        return super.getEstimatedRowCount(jdbcConnection, tableName);
+    }
+
+    /**
+     * Uses the equi-depth histogram ANALYZE keeps in `pg_stats.histogram_bounds` for the split column, so splits are
+     * balanced for skewed keys and available for any orderable type without scanning the table.
+     */
+    @Override
+    protected List<String> getSplitBoundaries(Connection jdbcConnection, TableName tableName, String splitColumn, int numSplits)
+    {
+        try (PreparedStatement statement = jdbcConnection.prepareStatement(HISTOGRAM_BOUNDS_QUERY)) {
+            statement.setString(1, tableName.getSchemaName());
+            statement.setString(2, tableName.getTableName());
+            statement.setString(3, splitColumn);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next() && resultSet.getArray(1) != null) {
+                    return Arrays.asList((String[]) resultSet.getArray(1).getArray());
+                }
+            }
+        }
+        catch (SQLException ex) {
+            LOGGER.warn("Unable to read histogram bounds of {}.{}", tableName, splitColumn, ex);
+        }
+        return super.getSplitBoundaries(jdbcConnection, tableName, splitColumn, numSplits);
+    }
+
     protected String wrapNameWithEscapedCharacter(String input)
     {
         return "\"" + input + "\"";
@@ -21,18 +21,24 @@ package com.amazonaws.athena.connectors.postgresql;
 
 import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import com.amazonaws.athena.connectors.jdbc.export.ExportFilterBuilder;
 import com.amazonaws.athena.connectors.jdbc.manager.FederationExpressionParser;
 import com.amazonaws.athena.connectors.jdbc.manager.JdbcSplitQueryBuilder;
+import com.amazonaws.athena.connectors.jdbc.manager.TypeAndValue;
 import com.google.common.base.Strings;
+import org.apache.arrow.vector.types.Types;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.apache.calcite.sql.SqlDialect;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -58,10 +64,108 @@ public class PostGreSqlQueryStringBuilder
             final Constraints constraints,
             final Split split)
             throws SQLException
+    {
+        String columnNames = getColumnNames(jdbcConnection, schema, table, tableSchema, split);
+        return prepareStatementWithSql(jdbcConnection, catalog, schema, table, tableSchema, constraints, split, columnNames);
+    }
+
+    /**
+     * Builds the same query as {@link #buildSql(Connection, String, String, String, Schema, Constraints, Split)} as plain
+     * SQL, with each parameter rendered as an escaped literal, for statements which can't be parameterized (e.g. COPY).
+     * Queries built from a query plan are not supported.
+     *
+     * @return The query, or empty if a parameter can't be rendered as a literal.
+     */
+    public Optional<String> buildSqlWithLiterals(
+            final Connection jdbcConnection,
+            final String catalog,
+            final String schema,
+            final String table,
+            final Schema tableSchema,
+            final Constraints constraints,
+            final Split split)
+            throws SQLException
+    {
+        String columnNames = getColumnNames(jdbcConnection, schema, table, tableSchema, split);
+        List<TypeAndValue> accumulator = new ArrayList<>();
+        String sql = buildSQLStringLiteral(catalog, schema, table, tableSchema, constraints, split, columnNames, accumulator);
+        return inlineParameters(sql, accumulator);
+    }
+
+    /**
+     * Replaces the query's placeholders, skipping quoted literals and identifiers, with its parameters.
+     *
+     * @return The query, or empty if a parameter can't be rendered as a literal or the placeholders don't match the
+     * parameters.
+     */
+    static Optional<String> inlineParameters(String sql, List<TypeAndValue> parameters)
+    {
+        StringBuilder inlined = new StringBuilder(sql.length());
+        int parameter = 0;
+        char quote = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char next = sql.charAt(i);
+            if (quote != 0) {
+                // an escaped (doubled) quote closes and reopens the literal
+                if (next == quote) {
+                    quote = 0;
+                }
+            }
+            else if (next == '\'' || next == '"') {
+                quote = next;
+            }
+            else if (next == '?') {
+                if (parameter == parameters.size()) {
+                    return Optional.empty();
+                }
+                Optional<String> literal = toLiteral(parameters.get(parameter++));
+                if (!literal.isPresent()) {
+                    return Optional.empty();
+                }
+                inlined.append(literal.get());
+                continue;
+            }
+            inlined.append(next);
+        }
+        return parameter == parameters.size() ? Optional.of(inlined.toString()) : Optional.empty();
+    }
+
+    /**
+     * Strings are written as escape string constants so that they are read the same whatever the session's
+     * standard_conforming_strings, other types as standard SQL literals.
+     */
+    private static Optional<String> toLiteral(TypeAndValue parameter)
+    {
+        Object value = parameter.getValue();
+        switch (Types.getMinorTypeForArrowType(parameter.getType())) {
+            case VARCHAR:
+                return Optional.of("E'" + String.valueOf(value).replace("\\", "\\\\").replace("'", "''") + "'");
+            case FLOAT4:
+            case FLOAT8:
+                // NaN and infinities are only accepted as quoted strings
+                if (!Double.isFinite(((Number) value).doubleValue())) {
+                    return Optional.empty();
+                }
+                break;
+            case VARBINARY:
+                return Optional.empty();
+            default:
+                break;
+        }
+        try {
+            return Optional.of(ExportFilterBuilder.toSqlLiteral(parameter.getType(), value));
+        }
+        catch (AthenaConnectorException ex) {
+            return Optional.empty();
+        }
+    }
+
+    private String getColumnNames(Connection jdbcConnection, String schema, String table, Schema tableSchema, Split split)
+            throws SQLException
     {
         List<String> charColumns = PostGreSqlMetadataHandler.getCharColumns(jdbcConnection, schema, table);
 
-        String columnNames = tableSchema.getFields().stream()
+        return tableSchema.getFields().stream()
                 .map(field -> {
                     String columnName = field.getName();
                     if (!split.getProperties().containsKey(columnName)) {
@@ -78,7 +182,6 @@ public class PostGreSqlQueryStringBuilder
                 })
                 .filter(Objects::nonNull)
                 .collect(Collectors.joining(", "));
-        return prepareStatementWithSql(jdbcConnection, catalog, schema, table, tableSchema, constraints, split, columnNames);
     }
 
     @Override
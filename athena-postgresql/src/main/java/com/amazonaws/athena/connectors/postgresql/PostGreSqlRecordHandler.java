@@ -19,10 +19,13 @@
  */
 package com.amazonaws.athena.connectors.postgresql;
 
+import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
+import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
 import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
 import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
 import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connectors.jdbc.connection.DatabaseConnectionConfig;
 import com.amazonaws.athena.connectors.jdbc.connection.DatabaseConnectionInfo;
 import com.amazonaws.athena.connectors.jdbc.connection.GenericJdbcConnectionFactory;
@@ -33,6 +36,8 @@ import com.amazonaws.athena.connectors.jdbc.manager.JdbcSplitQueryBuilder;
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.arrow.vector.types.pojo.Schema;
 import org.apache.commons.lang3.Validate;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyInputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.services.athena.AthenaClient;
@@ -41,10 +46,14 @@ import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 
+import java.io.InputStream;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.util.Map;
+import java.util.Optional;
 
+import static com.amazonaws.athena.connectors.postgresql.PostGreSqlConstants.BINARY_COPY_READ_ENABLED;
 import static com.amazonaws.athena.connectors.postgresql.PostGreSqlConstants.POSTGRESQL_DEFAULT_PORT;
 import static com.amazonaws.athena.connectors.postgresql.PostGreSqlConstants.POSTGRESQL_DRIVER_CLASS;
 import static com.amazonaws.athena.connectors.postgresql.PostGreSqlConstants.POSTGRES_NAME;
@@ -58,6 +67,7 @@ public class PostGreSqlRecordHandler
     private static final int FETCH_SIZE = 1000;
 
     private final JdbcSplitQueryBuilder jdbcSplitQueryBuilder;
+    private final boolean binaryCopyReadEnabled;
 
     /**
      * Instantiates handler to be used by Lambda function directly.
@@ -82,6 +92,75 @@ public class PostGreSqlRecordHandler
     {
         super(amazonS3, secretsManager, athena, databaseConnectionConfig, jdbcConnectionFactory, configOptions);
         this.jdbcSplitQueryBuilder = Validate.notNull(jdbcSplitQueryBuilder, "query builder must not be null");
+        this.binaryCopyReadEnabled = configOptions != null && Boolean.parseBoolean(configOptions.get(BINARY_COPY_READ_ENABLED));
+    }
+
+    /**
+     * Reads the split through binary COPY when enabled and every column can be decoded from the COPY format, otherwise
+     * through the JDBC ResultSet. Sources which do not speak the PostgreSQL COPY protocol (e.g. Redshift through its own
+     * driver) always use the ResultSet, as do splits read as concurrent sub-splits.
+     */
+    @Override
+    public void readWithConstraint(BlockSpiller blockSpiller, ReadRecordsRequest readRecordsRequest, QueryStatusChecker queryStatusChecker)
+            throws Exception
+    {
+        Constraints constraints = readRecordsRequest.getConstraints();
+        Map<String, String> partitionValues = readRecordsRequest.getSplit().getProperties();
+        // sub-splits read a split over several connections, binary COPY streams it over one
+        if (!binaryCopyReadEnabled || isSubSplitReadEnabled() || constraints.isQueryPassThrough() || constraints.getQueryPlan() != null
+                || !PostGreSqlBinaryCopyReader.isSupported(readRecordsRequest.getSchema(), partitionValues)
+                || !readWithBinaryCopy(blockSpiller, readRecordsRequest, queryStatusChecker)) {
+            super.readWithConstraint(blockSpiller, readRecordsRequest, queryStatusChecker);
+        }
+    }
+
+    /**
+     * @return True if the split was read, false if binary COPY could not be started and the split must be read through
+     * the ResultSet instead.
+     */
+    private boolean readWithBinaryCopy(BlockSpiller blockSpiller, ReadRecordsRequest readRecordsRequest, QueryStatusChecker queryStatusChecker)
+            throws Exception
+    {
+        try (Connection connection = getJdbcConnectionFactory().getConnection(getCredentialProvider(getRequestOverrideConfig(readRecordsRequest)))) {
+            if (!connection.isWrapperFor(PGConnection.class)) {
+                return false;
+            }
+            connection.setAutoCommit(false);
+            enableCaseSensitivelyLookUpSession(connection);
+
+            // COPY does not accept bind parameters, the split's query is built with its parameters as literals instead
+            Optional<String> splitSql = Optional.empty();
+            if (jdbcSplitQueryBuilder instanceof PostGreSqlQueryStringBuilder) {
+                TableName tableName = readRecordsRequest.getTableName();
+                splitSql = ((PostGreSqlQueryStringBuilder) jdbcSplitQueryBuilder).buildSqlWithLiterals(connection, null, tableName.getSchemaName(),
+                        tableName.getTableName(), readRecordsRequest.getSchema(), readRecordsRequest.getConstraints(), readRecordsRequest.getSplit());
+            }
+            if (!splitSql.isPresent()) {
+                LOGGER.info("readWithBinaryCopy: Split query can't be rendered with literals, reading through the ResultSet instead");
+                return false;
+            }
+
+            Map<String, String> partitionValues = readRecordsRequest.getSplit().getProperties();
+            String copySql = PostGreSqlBinaryCopyReader.buildCopySql(splitSql.get(), readRecordsRequest.getSchema(), partitionValues);
+            InputStream copyStream;
+            try {
+                copyStream = new PGCopyInputStream(connection.unwrap(PGConnection.class), copySql);
+            }
+            catch (SQLException ex) {
+                LOGGER.warn("readWithBinaryCopy: Unable to start binary COPY, reading through the ResultSet instead", ex);
+                connection.rollback();
+                return false;
+            }
+
+            try (InputStream in = copyStream) {
+                long rows = PostGreSqlBinaryCopyReader.read(in, readRecordsRequest.getSchema(), partitionValues, readRecordsRequest.getConstraints(),
+                        blockSpiller, queryStatusChecker);
+                LOGGER.info("{} rows returned by database using binary COPY.", rows);
+            }
+            connection.commit();
+            disableCaseSensitivelyLookUpSession(connection);
+            return true;
+        }
     }
 
     @Override
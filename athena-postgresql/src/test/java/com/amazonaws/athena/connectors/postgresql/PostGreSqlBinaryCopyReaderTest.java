@@ -0,0 +1,259 @@
+/*-
+ * #%L
+ * athena-postgresql
+ * %%
+ * Copyright (C) 2019 Amazon Web Services
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+package com.amazonaws.athena.connectors.postgresql;
+
+import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
+import com.amazonaws.athena.connector.lambda.data.Block;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.data.BlockWriter;
+import com.amazonaws.athena.connector.lambda.data.FieldBuilder;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.google.common.collect.ImmutableMap;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+
+public class PostGreSqlBinaryCopyReaderTest
+{
+    private static final long PG_EPOCH_MILLIS = 946_684_800_000L;
+    private static final Map<String, String> PARTITION_VALUES = ImmutableMap.of("partition_name", "p0");
+
+    private BlockAllocatorImpl allocator;
+    private Schema schema;
+    private Block block;
+    private BlockSpiller blockSpiller;
+    private QueryStatusChecker queryStatusChecker;
+
+    @Before
+    public void setup()
+            throws Exception
+    {
+        allocator = new BlockAllocatorImpl();
+        schema = SchemaBuilder.newBuilder()
+                .addField(FieldBuilder.newBuilder("id", Types.MinorType.INT.getType()).build())
+                .addField(FieldBuilder.newBuilder("big", Types.MinorType.BIGINT.getType()).build())
+                .addField(FieldBuilder.newBuilder("flag", Types.MinorType.BIT.getType()).build())
+                .addField(FieldBuilder.newBuilder("price", Types.MinorType.FLOAT8.getType()).build())
+                .addField(FieldBuilder.newBuilder("amount", new ArrowType.Decimal(10, 3, 128)).build())
+                .addField(FieldBuilder.newBuilder("day", Types.MinorType.DATEDAY.getType()).build())
+                .addField(FieldBuilder.newBuilder("ts", Types.MinorType.DATEMILLI.getType()).build())
+                .addField(FieldBuilder.newBuilder("name", Types.MinorType.VARCHAR.getType()).build())
+                .addField(FieldBuilder.newBuilder("payload", Types.MinorType.VARBINARY.getType()).build())
+                .addField(FieldBuilder.newBuilder("partition_name", Types.MinorType.VARCHAR.getType()).build())
+                .build();
+        block = allocator.createBlock(schema);
+
+        blockSpiller = Mockito.mock(BlockSpiller.class);
+        Mockito.doAnswer(invocation -> {
+            BlockWriter.RowWriter rowWriter = invocation.getArgument(0);
+            int rows = rowWriter.writeRows(block, block.getRowCount());
+            block.setRowCount(block.getRowCount() + rows);
+            return null;
+        }).when(blockSpiller).writeRows(any());
+
+        queryStatusChecker = Mockito.mock(QueryStatusChecker.class);
+        Mockito.when(queryStatusChecker.isQueryRunning()).thenReturn(true);
+    }
+
+    @After
+    public void tearDown()
+    {
+        allocator.close();
+    }
+
+    @Test
+    public void isSupported()
+    {
+        Assert.assertTrue(PostGreSqlBinaryCopyReader.isSupported(schema, PARTITION_VALUES));
+
+        Schema withList = SchemaBuilder.newBuilder()
+                .addField(FieldBuilder.newBuilder("id", Types.MinorType.INT.getType()).build())
+                .addListField("tags", Types.MinorType.VARCHAR.getType())
+                .build();
+        Assert.assertFalse(PostGreSqlBinaryCopyReader.isSupported(withList, Collections.emptyMap()));
+
+        Schema onlyPartitions = SchemaBuilder.newBuilder()
+                .addField(FieldBuilder.newBuilder("partition_name", Types.MinorType.VARCHAR.getType()).build())
+                .build();
+        Assert.assertFalse(PostGreSqlBinaryCopyReader.isSupported(onlyPartitions, PARTITION_VALUES));
+    }
+
+    @Test
+    public void buildCopySql()
+    {
+        Schema copySchema = SchemaBuilder.newBuilder()
+                .addField(FieldBuilder.newBuilder("id", Types.MinorType.INT.getType()).build())
+                .addField(FieldBuilder.newBuilder("ts", Types.MinorType.DATEMILLI.getType()).build())
+                .addField(FieldBuilder.newBuilder("we\"ird", Types.MinorType.VARCHAR.getType()).build())
+                .addField(FieldBuilder.newBuilder("partition_name", Types.MinorType.VARCHAR.getType()).build())
+                .build();
+        Assert.assertEquals("COPY (SELECT \"id\"::int4, \"ts\", \"we\"\"ird\"::text FROM (SELECT * FROM \"s\".\"t\" WHERE \"id\" = 1) AS copy_split) "
+                        + "TO STDOUT WITH (FORMAT binary)",
+                PostGreSqlBinaryCopyReader.buildCopySql("SELECT * FROM \"s\".\"t\" WHERE \"id\" = 1", copySchema, PARTITION_VALUES));
+    }
+
+    @Test
+    public void read()
+            throws Exception
+    {
+        LocalDate day = LocalDate.of(2024, 1, 15);
+        long tsMillis = LocalDateTime.of(2024, 1, 15, 10, 30).toInstant(ZoneOffset.UTC).toEpochMilli();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeHeader(out);
+
+        out.writeShort(9);
+        writeField(out, 4).writeInt(1);
+        writeField(out, 8).writeLong(9_000_000_000L);
+        writeField(out, 1).writeByte(1);
+        writeField(out, 8).writeDouble(12.5);
+        // 12345.678 as base 10000 digits 1, 2345, 6780 with weight 1
+        writeField(out, 14).writeShort(3);
+        out.writeShort(1);
+        out.writeShort(0);
+        out.writeShort(3);
+        out.writeShort(1);
+        out.writeShort(2345);
+        out.writeShort(6780);
+        writeField(out, 4).writeInt((int) (day.toEpochDay() - 10_957));
+        writeField(out, 8).writeLong((tsMillis - PG_EPOCH_MILLIS) * 1000);
+        byte[] name = "héllo".getBytes(StandardCharsets.UTF_8);
+        writeField(out, name.length).write(name);
+        writeField(out, 2).write(new byte[] {0x0A, 0x0B});
+
+        out.writeShort(9);
+        writeField(out, 4).writeInt(2);
+        for (int i = 0; i < 2; i++) {
+            out.writeInt(-1);
+        }
+        writeField(out, 8).writeDouble(-1);
+        // -0.05 as base 10000 digit 500 with weight -1
+        writeField(out, 10).writeShort(1);
+        out.writeShort(-1);
+        out.writeShort(0x4000);
+        out.writeShort(2);
+        out.writeShort(500);
+        for (int i = 0; i < 4; i++) {
+            out.writeInt(-1);
+        }
+
+        out.writeShort(-1);
+
+        long rows = PostGreSqlBinaryCopyReader.read(new ByteArrayInputStream(bytes.toByteArray()), schema, PARTITION_VALUES,
+                emptyConstraints(), blockSpiller, queryStatusChecker);
+
+        Assert.assertEquals(2, rows);
+        Assert.assertEquals(2, block.getRowCount());
+
+        block.getFieldReader("id").setPosition(0);
+        Assert.assertEquals(Integer.valueOf(1), block.getFieldReader("id").readInteger());
+        block.getFieldReader("big").setPosition(0);
+        Assert.assertEquals(Long.valueOf(9_000_000_000L), block.getFieldReader("big").readLong());
+        block.getFieldReader("flag").setPosition(0);
+        Assert.assertTrue(block.getFieldReader("flag").readBoolean());
+        block.getFieldReader("price").setPosition(0);
+        Assert.assertEquals(12.5, block.getFieldReader("price").readDouble(), 0.0);
+        block.getFieldReader("amount").setPosition(0);
+        Assert.assertEquals(new BigDecimal("12345.678"), block.getFieldReader("amount").readBigDecimal());
+        block.getFieldReader("day").setPosition(0);
+        Assert.assertEquals(Integer.valueOf((int) day.toEpochDay()), block.getFieldReader("day").readInteger());
+        block.getFieldReader("ts").setPosition(0);
+        Assert.assertEquals(LocalDateTime.of(2024, 1, 15, 10, 30), block.getFieldReader("ts").readLocalDateTime());
+        block.getFieldReader("name").setPosition(0);
+        Assert.assertEquals("héllo", block.getFieldReader("name").readText().toString());
+        block.getFieldReader("payload").setPosition(0);
+        Assert.assertArrayEquals(new byte[] {0x0A, 0x0B}, block.getFieldReader("payload").readByteArray());
+        block.getFieldReader("partition_name").setPosition(0);
+        Assert.assertEquals("p0", block.getFieldReader("partition_name").readText().toString());
+
+        block.getFieldReader("big").setPosition(1);
+        Assert.assertFalse(block.getFieldReader("big").isSet());
+        block.getFieldReader("amount").setPosition(1);
+        Assert.assertEquals(new BigDecimal("-0.050"), block.getFieldReader("amount").readBigDecimal());
+        block.getFieldReader("name").setPosition(1);
+        Assert.assertFalse(block.getFieldReader("name").isSet());
+        block.getFieldReader("partition_name").setPosition(1);
+        Assert.assertEquals("p0", block.getFieldReader("partition_name").readText().toString());
+    }
+
+    @Test(expected = IOException.class)
+    public void readMissingTrailer()
+            throws Exception
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeHeader(out);
+
+        PostGreSqlBinaryCopyReader.read(new ByteArrayInputStream(bytes.toByteArray()), schema, PARTITION_VALUES,
+                emptyConstraints(), blockSpiller, queryStatusChecker);
+    }
+
+    @Test(expected = IOException.class)
+    public void readInvalidSignature()
+            throws Exception
+    {
+        byte[] text = "1\tfoo\n".getBytes(StandardCharsets.UTF_8);
+        PostGreSqlBinaryCopyReader.read(new ByteArrayInputStream(text), schema, PARTITION_VALUES,
+                emptyConstraints(), blockSpiller, queryStatusChecker);
+    }
+
+    private static void writeHeader(DataOutputStream out)
+            throws IOException
+    {
+        out.write(new byte[] {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0});
+        out.writeInt(0);
+        out.writeInt(0);
+    }
+
+    private static DataOutputStream writeField(DataOutputStream out, int length)
+            throws IOException
+    {
+        out.writeInt(length);
+        return out;
+    }
+
+    private static Constraints emptyConstraints()
+    {
+        return new Constraints(Collections.emptyMap(), Collections.emptyList(), Collections.emptyList(),
+                Constraints.DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+    }
+}
@@ -32,6 +32,8 @@ import java.util.UUID;
 import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
 import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
 import com.amazonaws.athena.connector.lambda.metadata.GetSplitsRequest;
 import com.amazonaws.athena.connector.lambda.metadata.GetSplitsResponse;
 import com.amazonaws.athena.connector.lambda.metadata.GetTableLayoutRequest;
@@ -97,6 +99,7 @@ import java.util.stream.Collectors;
 
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Mockito.when;
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
 
 public class PostGreSqlMetadataHandlerTest
         extends TestBase
@@ -269,6 +272,48 @@ public class PostGreSqlMetadataHandlerTest
         Assert.assertEquals(tableName, getTableLayoutResponse.getTableName());
     }
 
+    @Test
+    public void doGetTableLayoutWithPartitionKeyConstraint()
+            throws Exception
+    {
+        BlockAllocator blockAllocator = new BlockAllocatorImpl();
+        ArrowType dateType = org.apache.arrow.vector.types.Types.MinorType.DATEDAY.getType();
+        int day = (int) java.time.LocalDate.of(2024, 1, 15).toEpochDay();
+        Constraints constraints = new Constraints(Collections.singletonMap("sale_date",
+                SortedRangeSet.of(false, Range.equal(blockAllocator, dateType, day), Collections.emptyList())),
+                Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+        TableName tableName = new TableName(TEST_SCHEMA, TEST_TABLE);
+        Schema partitionSchema = this.postGreSqlMetadataHandler.getPartitionSchema(CATALOG_NAME);
+        Set<String> partitionCols = partitionSchema.getFields().stream().map(Field::getName).collect(Collectors.toSet());
+        GetTableLayoutRequest getTableLayoutRequest = new GetTableLayoutRequest(this.federatedIdentity, TEST_QUERY_ID, CATALOG_NAME, tableName, constraints, partitionSchema, partitionCols);
+
+        PreparedStatement preparedStatement = Mockito.mock(PreparedStatement.class);
+        Mockito.when(this.connection.prepareStatement(PostGreSqlMetadataHandler.GET_PARTITIONS_QUERY)).thenReturn(preparedStatement);
+        ResultSet resultSet = mockResultSet(new String[] {CHILD_SCHEMA, CHILD}, new int[] {Types.VARCHAR, Types.VARCHAR},
+                new Object[][] {{"s0", "p0"}, {"s0", "p1"}, {"s0", "p2"}, {"s0", "p_default"}}, new AtomicInteger(-1));
+        Mockito.when(preparedStatement.executeQuery()).thenReturn(resultSet);
+
+        PreparedStatement boundsStatement = Mockito.mock(PreparedStatement.class);
+        Mockito.when(this.connection.prepareStatement(PostGreSqlMetadataHandler.GET_PARTITION_BOUNDS_QUERY)).thenReturn(boundsStatement);
+        String[] boundColumns = {CHILD_SCHEMA, CHILD, "partition_bound", "partition_key"};
+        int[] boundTypes = {Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR};
+        Object[][] bounds = {
+                {"s0", "p0", "FOR VALUES FROM (MINVALUE) TO ('2024-01-01')", "RANGE (sale_date)"},
+                {"s0", "p1", "FOR VALUES FROM ('2024-01-01') TO ('2024-02-01')", "RANGE (sale_date)"},
+                {"s0", "p2", "FOR VALUES FROM ('2024-02-01') TO ('2024-03-01')", "RANGE (sale_date)"},
+                {"s0", "p_default", "DEFAULT", "RANGE (sale_date)"}};
+        ResultSet boundsResultSet = mockResultSet(boundColumns, boundTypes, bounds, new AtomicInteger(-1));
+        Mockito.when(boundsStatement.executeQuery()).thenReturn(boundsResultSet);
+
+        GetTableLayoutResponse getTableLayoutResponse = this.postGreSqlMetadataHandler.doGetTableLayout(blockAllocator, getTableLayoutRequest);
+
+        List<String> actualValues = new ArrayList<>();
+        for (int i = 0; i < getTableLayoutResponse.getPartitions().getRowCount(); i++) {
+            actualValues.add(BlockUtils.rowToString(getTableLayoutResponse.getPartitions(), i));
+        }
+        Assert.assertEquals(Arrays.asList("[partition_schema_name : s0], [partition_name : p1]", "[partition_schema_name : s0], [partition_name : p_default]"), actualValues);
+    }
+
     @Test
     public void testListTablesWithValidConnection() throws SQLException {
         // Create mock connection
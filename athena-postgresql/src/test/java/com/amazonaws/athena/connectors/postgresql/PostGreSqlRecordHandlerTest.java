@@ -36,6 +36,8 @@ import com.amazonaws.athena.connectors.jdbc.connection.JdbcConnectionFactory;
 import com.amazonaws.athena.connector.credentials.CredentialsProvider;
 import com.amazonaws.athena.connectors.jdbc.manager.JDBCUtil;
 import com.amazonaws.athena.connectors.jdbc.manager.JdbcSplitQueryBuilder;
+import com.amazonaws.athena.connectors.jdbc.manager.TypeAndValue;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import org.apache.arrow.vector.types.Types;
 import org.apache.arrow.vector.types.pojo.ArrowType;
@@ -57,12 +59,14 @@ import java.sql.Connection;
 import java.sql.Date;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.concurrent.TimeUnit;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static com.amazonaws.athena.connectors.postgresql.PostGreSqlConstants.POSTGRES_NAME;
@@ -254,6 +258,48 @@ public class PostGreSqlRecordHandlerTest extends TestBase
         logger.info("buildSplitSqlForDateTest - exit");
     }
 
+    @Test
+    public void buildSqlWithLiteralsTest()
+            throws SQLException
+    {
+        TableName tableName = new TableName(TEST_SCHEMA, TEST_TABLE);
+        SchemaBuilder schemaBuilder = createTestSchemaBuilder();
+        schemaBuilder.addField(FieldBuilder.newBuilder(TEST_COL1, Types.MinorType.INT.getType()).build());
+        schemaBuilder.addField(FieldBuilder.newBuilder(TEST_COL2, Types.MinorType.VARCHAR.getType()).build());
+        schemaBuilder.addField(FieldBuilder.newBuilder("testDate", Types.MinorType.DATEDAY.getType()).build());
+        schemaBuilder.addField(FieldBuilder.newBuilder(TEST_COL10, Types.MinorType.VARCHAR.getType()).build());
+        Schema schema = schemaBuilder.build();
+        Split split = createMockSplit(PARTITION_SCHEMA, PARTITION_NAME);
+        Constraints constraints = createConstraints(new ImmutableMap.Builder<String, ValueSet>()
+                .put(TEST_COL1, createMultiValueSet(Arrays.asList(1, 2)))
+                .put(TEST_COL2, getSingleValueSet("it's a \\ ?"))
+                .put("testDate", getSingleValueSet(LocalDate.of(2020, 1, 5).toEpochDay()))
+                .build());
+
+        Optional<String> sql = ((PostGreSqlQueryStringBuilder) jdbcSplitQueryBuilder).buildSqlWithLiterals(this.connection, null,
+                TEST_SCHEMA, TEST_TABLE, schema, constraints, split);
+
+        Assert.assertEquals(Optional.of("SELECT \"testCol1\", \"testCol2\", \"testDate\", RTRIM(\"testCol10\") AS \"testCol10\" FROM \"s0\".\"p0\" "
+                + " WHERE (\"testCol1\" IN (1,2)) AND (\"testCol2\" = E'it''s a \\\\ ?') AND (\"testDate\" = DATE '2020-01-05')"), sql);
+        Mockito.verify(this.connection, Mockito.never()).prepareStatement(anyString());
+    }
+
+    @Test
+    public void inlineParametersTest()
+    {
+        TypeAndValue id = new TypeAndValue(Types.MinorType.BIGINT.getType(), 7L);
+
+        // placeholders in quoted identifiers and literals are not parameters
+        Assert.assertEquals(Optional.of("SELECT \"a?\" FROM t WHERE b = 'x''?' AND c = 7"),
+                PostGreSqlQueryStringBuilder.inlineParameters("SELECT \"a?\" FROM t WHERE b = 'x''?' AND c = ?", ImmutableList.of(id)));
+        Assert.assertEquals(Optional.empty(), PostGreSqlQueryStringBuilder.inlineParameters("SELECT a FROM t WHERE c = ? OR c = ?", ImmutableList.of(id)));
+        Assert.assertEquals(Optional.empty(), PostGreSqlQueryStringBuilder.inlineParameters("SELECT a FROM t", ImmutableList.of(id)));
+        Assert.assertEquals(Optional.empty(), PostGreSqlQueryStringBuilder.inlineParameters("SELECT a FROM t WHERE c = ?",
+                ImmutableList.of(new TypeAndValue(Types.MinorType.VARBINARY.getType(), new byte[] {1}))));
+        Assert.assertEquals(Optional.empty(), PostGreSqlQueryStringBuilder.inlineParameters("SELECT a FROM t WHERE c = ?",
+                ImmutableList.of(new TypeAndValue(Types.MinorType.FLOAT8.getType(), Double.NaN))));
+    }
+
     private ValueSet getSingleValueSet(Object value) {
         Range range = Mockito.mock(Range.class, Mockito.RETURNS_DEEP_STUBS);
         Mockito.when(range.isSingleValue()).thenReturn(true);
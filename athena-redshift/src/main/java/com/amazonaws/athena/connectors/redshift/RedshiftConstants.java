@@ -19,11 +19,41 @@
  */
 package com.amazonaws.athena.connectors.redshift;
 
+import java.util.Map;
+
 public class RedshiftConstants
 {
     public static final String REDSHIFT_NAME = "redshift";
     public static final String REDSHIFT_DRIVER_CLASS = "com.amazon.redshift.jdbc.Driver";
     public static final int REDSHIFT_DEFAULT_PORT = 5439;
 
+    /**
+     * UNLOAD export configuration. When enabled, table scans are unloaded by Redshift as Parquet files under
+     * {@link #REDSHIFT_UNLOAD_S3_PATH} (e.g. s3://bucket/prefix) using {@link #REDSHIFT_UNLOAD_IAM_ROLE}, and each
+     * file becomes a split that is read back from S3 instead of over JDBC.
+     */
+    public static final String REDSHIFT_UNLOAD_ENABLED = "redshift_unload_enabled";
+    public static final String REDSHIFT_UNLOAD_S3_PATH = "redshift_unload_s3_path";
+    public static final String REDSHIFT_UNLOAD_IAM_ROLE = "redshift_unload_iam_role";
+    //Files are capped at 64 MB so that a large table unloads into enough files for the reads to run in parallel.
+    public static final String REDSHIFT_UNLOAD_QUERY_TEMPLATE = "UNLOAD ('%s') TO '%s' IAM_ROLE '%s' FORMAT AS PARQUET MAXFILESIZE 64 MB MANIFEST VERBOSE";
+    public static final String REDSHIFT_UNLOAD_MANIFEST_NAME = "manifest";
+
+    /**
+     * Partition column carrying the serialized projection schema from getPartitions to doGetSplits, the latter has
+     * no column information of its own.
+     */
+    public static final String UNLOAD_SCHEMA_PARTITION_COLUMN_NAME = "unload_schema";
+
+    public static final String REDSHIFT_SPLIT_QUERY_ID = "query_id";
+    public static final String REDSHIFT_SPLIT_EXPORT_BUCKET = "exportBucket";
+    public static final String REDSHIFT_SPLIT_OBJECT_KEY = "s3ObjectKey";
+    public static final String REDSHIFT_SPLIT_OBJECT_SIZE = "s3ObjectSize";
+
     private RedshiftConstants() {}
+
+    public static boolean isUnloadEnabled(Map<String, String> configOptions)
+    {
+        return Boolean.parseBoolean(configOptions.getOrDefault(REDSHIFT_UNLOAD_ENABLED, "false"));
+    }
 }
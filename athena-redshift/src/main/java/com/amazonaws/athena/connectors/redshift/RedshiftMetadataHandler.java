@@ -19,11 +19,20 @@
  */
 package com.amazonaws.athena.connectors.redshift;
 
+import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
+import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
+import com.amazonaws.athena.connector.lambda.data.BlockWriter;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
 import com.amazonaws.athena.connector.lambda.domain.predicate.functions.StandardFunctions;
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
 import com.amazonaws.athena.connector.lambda.metadata.GetDataSourceCapabilitiesRequest;
 import com.amazonaws.athena.connector.lambda.metadata.GetDataSourceCapabilitiesResponse;
+import com.amazonaws.athena.connector.lambda.metadata.GetSplitsRequest;
+import com.amazonaws.athena.connector.lambda.metadata.GetSplitsResponse;
+import com.amazonaws.athena.connector.lambda.metadata.GetTableLayoutRequest;
 import com.amazonaws.athena.connector.lambda.metadata.optimizations.DataSourceOptimizations;
 import com.amazonaws.athena.connector.lambda.metadata.optimizations.OptimizationSubType;
 import com.amazonaws.athena.connector.lambda.metadata.optimizations.pushdown.ComplexExpressionPushdownSubType;
@@ -34,25 +43,60 @@ import com.amazonaws.athena.connectors.jdbc.connection.DatabaseConnectionConfig;
 import com.amazonaws.athena.connectors.jdbc.connection.DatabaseConnectionInfo;
 import com.amazonaws.athena.connectors.jdbc.connection.GenericJdbcConnectionFactory;
 import com.amazonaws.athena.connectors.jdbc.connection.JdbcConnectionFactory;
+import com.amazonaws.athena.connectors.jdbc.export.ExportFile;
+import com.amazonaws.athena.connectors.jdbc.export.ExportPrefixCleaner;
+import com.amazonaws.athena.connectors.jdbc.export.ExportSplitPlanner;
 import com.amazonaws.athena.connectors.jdbc.manager.JDBCUtil;
 import com.amazonaws.athena.connectors.postgresql.PostGreSqlMetadataHandler;
+import com.amazonaws.athena.connectors.postgresql.PostgreSqlFederationExpressionParser;
 import com.amazonaws.athena.connectors.redshift.resolver.RedshiftJDBCCaseResolver;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableMap;
 import org.apache.arrow.util.VisibleForTesting;
+import org.apache.arrow.vector.complex.reader.FieldReader;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Schema;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.ResponseInputStream;
 import software.amazon.awssdk.services.athena.AthenaClient;
+import software.amazon.awssdk.services.glue.model.ErrorDetails;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Uri;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
+import static com.amazonaws.athena.connectors.postgresql.PostGreSqlConstants.POSTGRES_QUOTE_CHARACTER;
 import static com.amazonaws.athena.connectors.redshift.RedshiftConstants.REDSHIFT_DEFAULT_PORT;
 import static com.amazonaws.athena.connectors.redshift.RedshiftConstants.REDSHIFT_DRIVER_CLASS;
 import static com.amazonaws.athena.connectors.redshift.RedshiftConstants.REDSHIFT_NAME;
+import static com.amazonaws.athena.connectors.redshift.RedshiftConstants.REDSHIFT_SPLIT_EXPORT_BUCKET;
+import static com.amazonaws.athena.connectors.redshift.RedshiftConstants.REDSHIFT_SPLIT_OBJECT_KEY;
+import static com.amazonaws.athena.connectors.redshift.RedshiftConstants.REDSHIFT_SPLIT_OBJECT_SIZE;
+import static com.amazonaws.athena.connectors.redshift.RedshiftConstants.REDSHIFT_SPLIT_QUERY_ID;
+import static com.amazonaws.athena.connectors.redshift.RedshiftConstants.REDSHIFT_UNLOAD_IAM_ROLE;
+import static com.amazonaws.athena.connectors.redshift.RedshiftConstants.REDSHIFT_UNLOAD_MANIFEST_NAME;
+import static com.amazonaws.athena.connectors.redshift.RedshiftConstants.REDSHIFT_UNLOAD_S3_PATH;
+import static com.amazonaws.athena.connectors.redshift.RedshiftConstants.UNLOAD_SCHEMA_PARTITION_COLUMN_NAME;
 
 /**
  * Handles metadata for PostGreSql. User must have access to `schemata`, `tables`, `columns`, `partitions` tables in
@@ -63,6 +107,11 @@ public class RedshiftMetadataHandler
 {
     static final String LIST_PAGINATED_TABLES_QUERY = "SELECT a.\"TABLE_NAME\", a.\"TABLE_SCHEM\" FROM (( SELECT table_name as \"TABLE_NAME\", table_schema as \"TABLE_SCHEM\" FROM information_schema.tables WHERE table_schema = ?) UNION (SELECT tablename as \"TABLE_NAME\", schemaname as \"TABLE_SCHEM\" FROM svv_external_tables where schemaname = ?)) AS a ORDER BY a.\"TABLE_NAME\" LIMIT ? OFFSET ?";
     private static final Logger LOGGER = LoggerFactory.getLogger(RedshiftMetadataHandler.class);
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private S3Client amazonS3;
+    private final RedshiftSqlQueryStringBuilder redshiftSqlQueryStringBuilder = new RedshiftSqlQueryStringBuilder(POSTGRES_QUOTE_CHARACTER,
+            new PostgreSqlFederationExpressionParser(POSTGRES_QUOTE_CHARACTER));
 
     /**
      * Instantiates handler to be used by Lambda function directly.
@@ -80,6 +129,9 @@ public class RedshiftMetadataHandler
                 new GenericJdbcConnectionFactory(databaseConnectionConfig, JDBC_PROPERTIES, new DatabaseConnectionInfo(REDSHIFT_DRIVER_CLASS, REDSHIFT_DEFAULT_PORT)),
                 configOptions,
                 new RedshiftJDBCCaseResolver(REDSHIFT_NAME));
+        if (RedshiftConstants.isUnloadEnabled(configOptions)) {
+            this.amazonS3 = S3Client.create();
+        }
     }
 
     @VisibleForTesting
@@ -88,6 +140,13 @@ public class RedshiftMetadataHandler
         super(databaseConnectionConfig, secretsManager, athena, jdbcConnectionFactory, configOptions, new RedshiftJDBCCaseResolver(REDSHIFT_NAME));
     }
 
+    @VisibleForTesting
+    RedshiftMetadataHandler(DatabaseConnectionConfig databaseConnectionConfig, SecretsManagerClient secretsManager, AthenaClient athena, S3Client s3Client, JdbcConnectionFactory jdbcConnectionFactory, java.util.Map<String, String> configOptions)
+    {
+        this(databaseConnectionConfig, secretsManager, athena, jdbcConnectionFactory, configOptions);
+        this.amazonS3 = s3Client;
+    }
+
     @Override
     public GetDataSourceCapabilitiesResponse doGetDataSourceCapabilities(BlockAllocator allocator, GetDataSourceCapabilitiesRequest request)
     {
@@ -124,4 +183,166 @@ public class RedshiftMetadataHandler
         LOGGER.debug("Prepared Statement for getting tables in schema {} : {}", databaseName, preparedStatement);
         return JDBCUtil.getTableMetadata(preparedStatement, TABLES_AND_VIEWS);
     }
+
+    /**
+     * With UNLOAD enabled, Redshift writes its own files and splits follow those files instead of the table's partitions.
+     */
+    @Override
+    public Schema getPartitionSchema(final String catalogName)
+    {
+        if (RedshiftConstants.isUnloadEnabled(configOptions)) {
+            return SchemaBuilder.newBuilder().build();
+        }
+        return super.getPartitionSchema(catalogName);
+    }
+
+    /**
+     * Adds the column used to hand the projected schema to doGetSplits, which builds the UNLOAD query.
+     */
+    @Override
+    public void enhancePartitionSchema(SchemaBuilder partitionSchemaBuilder, GetTableLayoutRequest request)
+    {
+        if (RedshiftConstants.isUnloadEnabled(configOptions) && !request.getConstraints().isQueryPassThrough()
+                && partitionSchemaBuilder.getField(UNLOAD_SCHEMA_PARTITION_COLUMN_NAME) == null) {
+            partitionSchemaBuilder.addField(UNLOAD_SCHEMA_PARTITION_COLUMN_NAME, Types.MinorType.VARBINARY.getType());
+        }
+    }
+
+    @Override
+    public void getPartitions(final BlockWriter blockWriter, final GetTableLayoutRequest getTableLayoutRequest, QueryStatusChecker queryStatusChecker)
+            throws Exception
+    {
+        if (!RedshiftConstants.isUnloadEnabled(configOptions) || getTableLayoutRequest.getConstraints().isQueryPassThrough()) {
+            super.getPartitions(blockWriter, getTableLayoutRequest, queryStatusChecker);
+            return;
+        }
+        blockWriter.writeRows((Block block, int rowNum) -> {
+            block.setValue(UNLOAD_SCHEMA_PARTITION_COLUMN_NAME, rowNum, getTableLayoutRequest.getSchema().serializeAsMessage());
+            return 1;
+        });
+    }
+
+    @Override
+    public GetSplitsResponse doGetSplits(BlockAllocator blockAllocator, GetSplitsRequest getSplitsRequest)
+    {
+        if (!RedshiftConstants.isUnloadEnabled(configOptions) || getSplitsRequest.getConstraints().isQueryPassThrough()) {
+            return super.doGetSplits(blockAllocator, getSplitsRequest);
+        }
+        return handleUnloadSplits(getSplitsRequest);
+    }
+
+    /**
+     * Unloads the pushed down query as Parquet under a prefix unique to this request and returns the splits planned
+     * (see {@link ExportSplitPlanner}) from the non-empty files listed in the UNLOAD manifest.
+     */
+    private GetSplitsResponse handleUnloadSplits(GetSplitsRequest request)
+    {
+        String queryId = request.getQueryId();
+        String unloadRoot = getUnloadRoot();
+        String unloadPath = String.format("%s/%s/%s/", unloadRoot, queryId, UUID.randomUUID());
+        S3Uri unloadUri = amazonS3.utilities().parseUri(URI.create(unloadPath));
+        String bucket = unloadUri.bucket().orElseThrow();
+
+        try (Connection connection = getJdbcConnectionFactory().getConnection(getCredentialProvider(getRequestOverrideConfig(request)))) {
+            FieldReader schemaReader = request.getPartitions().getFieldReader(UNLOAD_SCHEMA_PARTITION_COLUMN_NAME);
+            schemaReader.setPosition(0);
+            Schema schema = Schema.deserializeMessage(ByteBuffer.wrap(schemaReader.readByteArray()));
+
+            String schemaName = request.getTableName().getSchemaName();
+            String tableName = request.getTableName().getTableName();
+            String unloadSql = redshiftSqlQueryStringBuilder.buildUnloadSql(schemaName, tableName, schema, request.getConstraints(),
+                    PostGreSqlMetadataHandler.getCharColumns(connection, schemaName, tableName), unloadPath, getUnloadIamRole());
+            LOGGER.info("Redshift UNLOAD statement: {} for queryId: {}", unloadSql, queryId);
+
+            try (Statement statement = connection.createStatement()) {
+                // Same session setting as the JDBC read path so that quoted identifiers keep their case.
+                statement.execute("SET enable_case_sensitive_identifier to TRUE;");
+                statement.execute(unloadSql);
+            }
+        }
+        catch (Exception e) {
+            throw new AthenaConnectorException("Exception in execution of UNLOAD statement: " + e.getMessage(), e,
+                    ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
+        }
+
+        ExportPrefixCleaner.fromConfig(amazonS3, configOptions).ifPresent(cleaner ->
+                cleaner.deleteExpiredPrefixes(bucket, amazonS3.utilities().parseUri(URI.create(unloadRoot + "/")).key().orElse("")));
+
+        Set<Split> splits = new HashSet<>();
+        ExportSplitPlanner planner = ExportSplitPlanner.fromConfig(amazonS3, configOptions);
+        for (List<ExportFile> files : planner.plan(getUnloadedFiles(bucket, unloadUri.key().orElseThrow() + REDSHIFT_UNLOAD_MANIFEST_NAME))) {
+            Split.Builder split = Split.newBuilder(makeSpillLocation(request), makeEncryptionKey(getRequestOverrideConfig(request)))
+                    .add(REDSHIFT_SPLIT_QUERY_ID, queryId)
+                    .add(REDSHIFT_SPLIT_EXPORT_BUCKET, files.get(0).getBucket())
+                    .add(REDSHIFT_SPLIT_OBJECT_SIZE, String.valueOf(files.stream().mapToLong(ExportFile::getSize).sum()));
+            splits.add(ExportSplitPlanner.addFiles(split, REDSHIFT_SPLIT_OBJECT_KEY, files).build());
+        }
+        LOGGER.info("{} splits planned from the files unloaded for queryId {}", splits.size(), queryId);
+
+        if (splits.isEmpty()) {
+            // Athena still expects a split when the query selected no rows, it is read as an empty file.
+            splits.add(Split.newBuilder(makeSpillLocation(request), makeEncryptionKey(getRequestOverrideConfig(request)))
+                    .add(REDSHIFT_SPLIT_QUERY_ID, queryId)
+                    .add(REDSHIFT_SPLIT_EXPORT_BUCKET, bucket)
+                    .add(REDSHIFT_SPLIT_OBJECT_KEY, "")
+                    .add(REDSHIFT_SPLIT_OBJECT_SIZE, "0")
+                    .build());
+        }
+        return new GetSplitsResponse(request.getCatalogName(), splits);
+    }
+
+    /**
+     * @return The configured UNLOAD path without a trailing '/', each query unloads under its own prefix below it.
+     */
+    private String getUnloadRoot()
+    {
+        String s3Path = configOptions.get(REDSHIFT_UNLOAD_S3_PATH);
+        if (s3Path == null || s3Path.isEmpty()) {
+            throw new AthenaConnectorException(REDSHIFT_UNLOAD_S3_PATH + " must be set when UNLOAD is enabled",
+                    ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
+        }
+        return s3Path.endsWith("/") ? s3Path.substring(0, s3Path.length() - 1) : s3Path;
+    }
+
+    private String getUnloadIamRole()
+    {
+        String iamRole = configOptions.get(REDSHIFT_UNLOAD_IAM_ROLE);
+        if (iamRole == null || iamRole.isEmpty()) {
+            throw new AthenaConnectorException(REDSHIFT_UNLOAD_IAM_ROLE + " must be set when UNLOAD is enabled",
+                    ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
+        }
+        return iamRole;
+    }
+
+    /**
+     * Reads the manifest written by UNLOAD ... MANIFEST VERBOSE, which lists every file along with its size and row count.
+     * Files without rows are skipped.
+     */
+    @VisibleForTesting
+    List<ExportFile> getUnloadedFiles(String bucket, String manifestKey)
+    {
+        JsonNode manifest;
+        try (ResponseInputStream<GetObjectResponse> stream = amazonS3.getObject(GetObjectRequest.builder().bucket(bucket).key(manifestKey).build())) {
+            manifest = OBJECT_MAPPER.readTree(stream);
+        }
+        catch (NoSuchKeyException e) {
+            LOGGER.info("No UNLOAD manifest at s3://{}/{}, the query selected no rows", bucket, manifestKey);
+            return Collections.emptyList();
+        }
+        catch (IOException e) {
+            throw new AthenaConnectorException("Failed to read UNLOAD manifest s3://" + bucket + "/" + manifestKey + ": " + e.getMessage(), e,
+                    ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
+        }
+
+        List<ExportFile> files = new ArrayList<>();
+        for (JsonNode entry : manifest.path("entries")) {
+            JsonNode meta = entry.path("meta");
+            if (meta.has("record_count") && meta.get("record_count").asLong() == 0) {
+                continue;
+            }
+            S3Uri fileUri = amazonS3.utilities().parseUri(URI.create(entry.get("url").asText()));
+            files.add(new ExportFile(fileUri.bucket().orElseThrow(), fileUri.key().orElseThrow(), meta.path("content_length").asLong(0)));
+        }
+        return files;
+    }
 }
@@ -19,10 +19,18 @@
  */
 package com.amazonaws.athena.connectors.redshift;
 
+import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
+import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
+import com.amazonaws.athena.connector.lambda.domain.Split;
+import com.amazonaws.athena.connector.lambda.exceptions.AthenaConnectorException;
+import com.amazonaws.athena.connector.lambda.records.ReadRecordsRequest;
 import com.amazonaws.athena.connectors.jdbc.connection.DatabaseConnectionConfig;
 import com.amazonaws.athena.connectors.jdbc.connection.DatabaseConnectionInfo;
 import com.amazonaws.athena.connectors.jdbc.connection.GenericJdbcConnectionFactory;
 import com.amazonaws.athena.connectors.jdbc.connection.JdbcConnectionFactory;
+import com.amazonaws.athena.connectors.jdbc.export.ExportFile;
+import com.amazonaws.athena.connectors.jdbc.export.ExportReader;
+import com.amazonaws.athena.connectors.jdbc.export.ExportSplitPlanner;
 import com.amazonaws.athena.connectors.jdbc.manager.JDBCUtil;
 import com.amazonaws.athena.connectors.jdbc.manager.JdbcSplitQueryBuilder;
 import com.amazonaws.athena.connectors.postgresql.PostGreSqlMetadataHandler;
@@ -30,25 +38,36 @@ import com.amazonaws.athena.connectors.postgresql.PostGreSqlMuxCompositeHandler;
 import com.amazonaws.athena.connectors.postgresql.PostGreSqlRecordHandler;
 import com.amazonaws.athena.connectors.postgresql.PostgreSqlFederationExpressionParser;
 import org.apache.arrow.util.VisibleForTesting;
+import org.apache.arrow.vector.ipc.ArrowReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.services.athena.AthenaClient;
+import software.amazon.awssdk.services.glue.model.ErrorDetails;
+import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import static com.amazonaws.athena.connectors.postgresql.PostGreSqlConstants.POSTGRES_QUOTE_CHARACTER;
 import static com.amazonaws.athena.connectors.redshift.RedshiftConstants.REDSHIFT_DEFAULT_PORT;
 import static com.amazonaws.athena.connectors.redshift.RedshiftConstants.REDSHIFT_DRIVER_CLASS;
 import static com.amazonaws.athena.connectors.redshift.RedshiftConstants.REDSHIFT_NAME;
+import static com.amazonaws.athena.connectors.redshift.RedshiftConstants.REDSHIFT_SPLIT_EXPORT_BUCKET;
+import static com.amazonaws.athena.connectors.redshift.RedshiftConstants.REDSHIFT_SPLIT_OBJECT_KEY;
+import static com.amazonaws.athena.connectors.redshift.RedshiftConstants.REDSHIFT_SPLIT_OBJECT_SIZE;
+import static com.amazonaws.athena.connectors.redshift.RedshiftConstants.REDSHIFT_SPLIT_QUERY_ID;
 
 public class RedshiftRecordHandler
         extends PostGreSqlRecordHandler
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(RedshiftRecordHandler.class);
 
+    private final ExportReader exportReader = new ExportReader();
+
     /**
      * Instantiates handler to be used by Lambda function directly.
      *
@@ -73,6 +92,44 @@ public class RedshiftRecordHandler
         super(databaseConnectionConfig, amazonS3, secretsManager, athena, jdbcConnectionFactory, jdbcSplitQueryBuilder, configOptions);
     }
 
+    /**
+     * Splits created from an UNLOAD manifest are read from their Parquet file in S3, all others over JDBC.
+     */
+    @Override
+    public void readWithConstraint(BlockSpiller spiller, ReadRecordsRequest recordsRequest, QueryStatusChecker queryStatusChecker)
+            throws Exception
+    {
+        if (recordsRequest.getSplit().getProperties().containsKey(REDSHIFT_SPLIT_OBJECT_KEY)) {
+            readUnloadedFile(spiller, recordsRequest, queryStatusChecker);
+        }
+        else {
+            super.readWithConstraint(spiller, recordsRequest, queryStatusChecker);
+        }
+    }
+
+    private void readUnloadedFile(BlockSpiller spiller, ReadRecordsRequest recordsRequest, QueryStatusChecker queryStatusChecker)
+    {
+        Split split = recordsRequest.getSplit();
+        List<String> keys = ExportSplitPlanner.getObjectKeys(split, REDSHIFT_SPLIT_OBJECT_KEY);
+        if (keys.isEmpty()) {
+            LOGGER.debug("UNLOAD produced no rows for queryId {}, nothing to read", split.getProperty(REDSHIFT_SPLIT_QUERY_ID));
+            return;
+        }
+
+        String bucket = split.getProperty(REDSHIFT_SPLIT_EXPORT_BUCKET);
+        List<String> uris = keys.stream().map(key -> ExportFile.toUri(bucket, key)).collect(Collectors.toList());
+        LOGGER.info("readUnloadedFile: reading {} ({} bytes) for queryId {}", uris, split.getProperty(REDSHIFT_SPLIT_OBJECT_SIZE),
+                split.getProperty(REDSHIFT_SPLIT_QUERY_ID));
+
+        try (ArrowReader reader = exportReader.open(uris, recordsRequest.getSchema(), recordsRequest.getConstraints())) {
+            ExportReader.writeBatches(reader, recordsRequest.getSchema(), spiller, queryStatusChecker);
+        }
+        catch (Exception e) {
+            throw new AthenaConnectorException("Error reading unloaded files " + uris + ": " + e.getMessage(), e,
+                    ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
+        }
+    }
+
     @Override
     protected boolean enableCaseSensitivelyLookUpSession(Connection connection)
     {
@@ -19,11 +19,29 @@
  */
 package com.amazonaws.athena.connectors.redshift;
 
+import com.amazonaws.athena.connector.lambda.domain.Split;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connectors.jdbc.export.ExportFilterBuilder;
 import com.amazonaws.athena.connectors.jdbc.manager.FederationExpressionParser;
+import com.amazonaws.athena.connectors.jdbc.manager.TypeAndValue;
 import com.amazonaws.athena.connectors.postgresql.PostGreSqlQueryStringBuilder;
+import com.google.common.collect.ImmutableMap;
+import org.apache.arrow.util.VisibleForTesting;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.Schema;
 import org.apache.calcite.sql.SqlDialect;
 import org.apache.calcite.sql.dialect.RedshiftSqlDialect;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.amazonaws.athena.connectors.postgresql.PostGreSqlMetadataHandler.ALL_PARTITIONS;
+import static com.amazonaws.athena.connectors.postgresql.PostGreSqlMetadataHandler.BLOCK_PARTITION_COLUMN_NAME;
+import static com.amazonaws.athena.connectors.postgresql.PostGreSqlMetadataHandler.BLOCK_PARTITION_SCHEMA_COLUMN_NAME;
+import static com.amazonaws.athena.connectors.redshift.RedshiftConstants.REDSHIFT_UNLOAD_QUERY_TEMPLATE;
+
 public class RedshiftSqlQueryStringBuilder extends PostGreSqlQueryStringBuilder
 {
     public RedshiftSqlQueryStringBuilder(String quoteCharacters, FederationExpressionParser federationExpressionParser)
@@ -36,4 +54,84 @@ public class RedshiftSqlQueryStringBuilder extends PostGreSqlQueryStringBuilder
     {
         return RedshiftSqlDialect.DEFAULT;
     }
+
+    /**
+     * Builds the UNLOAD statement exporting the rows of a table scan as Parquet files under the given S3 prefix. The
+     * query's projection, predicate, ORDER BY and LIMIT are pushed into the unloaded SELECT.
+     *
+     * @param schema The schema of the table being scanned.
+     * @param table The table being scanned.
+     * @param tableSchema The columns to project.
+     * @param constraints The constraints to push down.
+     * @param charColumns The CHAR columns of the table, these are trimmed the same way as on the JDBC read path.
+     * @param s3Path The S3 prefix to unload into, e.g. s3://bucket/prefix/query_id/.
+     * @param iamRole The IAM role Redshift assumes to write to the S3 prefix.
+     * @return The UNLOAD statement.
+     */
+    public String buildUnloadSql(
+            final String schema,
+            final String table,
+            final Schema tableSchema,
+            final Constraints constraints,
+            final List<String> charColumns,
+            final String s3Path,
+            final String iamRole)
+    {
+        String selectSql = buildUnloadSelectSql(schema, table, tableSchema, constraints, charColumns);
+        // The query is embedded in a string literal, where UNLOAD treats both quotes and backslashes as escapes.
+        String escapedSql = selectSql.replace("\\", "\\\\").replace("'", "\\'");
+        return String.format(REDSHIFT_UNLOAD_QUERY_TEMPLATE, escapedSql, s3Path, iamRole);
+    }
+
+    @VisibleForTesting
+    String buildUnloadSelectSql(
+            final String schema,
+            final String table,
+            final Schema tableSchema,
+            final Constraints constraints,
+            final List<String> charColumns)
+    {
+        String columnNames = tableSchema.getFields().stream()
+                .map(Field::getName)
+                .map(name -> charColumns.contains(name) ? "RTRIM(" + quote(name) + ") AS " + quote(name) : quote(name))
+                .collect(Collectors.joining(", "));
+        if (columnNames.isEmpty()) {
+            columnNames = "*";
+        }
+
+        Split split = new Split(null, null, ImmutableMap.of(BLOCK_PARTITION_SCHEMA_COLUMN_NAME, ALL_PARTITIONS, BLOCK_PARTITION_COLUMN_NAME, ALL_PARTITIONS));
+        List<TypeAndValue> accumulator = new ArrayList<>();
+        String sql = buildSQLStringLiteral(null, schema, table, tableSchema, constraints, split, columnNames, accumulator);
+
+        // UNLOAD rejects a LIMIT in the outermost SELECT, nesting the query keeps pushed down limits and top-n valid.
+        return "SELECT * FROM (" + inlineParameters(sql, accumulator).trim() + ") AS unload_source";
+    }
+
+    /**
+     * Replaces each ? placeholder outside of quoted identifiers and literals with the matching parameter as a SQL literal.
+     */
+    @VisibleForTesting
+    String inlineParameters(String sql, List<TypeAndValue> accumulator)
+    {
+        StringBuilder expanded = new StringBuilder(sql.length());
+        Iterator<TypeAndValue> parameters = accumulator.iterator();
+        boolean inIdentifier = false;
+        boolean inLiteral = false;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '"' && !inLiteral) {
+                inIdentifier = !inIdentifier;
+            }
+            else if (c == '\'' && !inIdentifier) {
+                inLiteral = !inLiteral;
+            }
+            else if (c == '?' && !inIdentifier && !inLiteral) {
+                TypeAndValue parameter = parameters.next();
+                expanded.append(ExportFilterBuilder.toSqlLiteral(parameter.getType(), parameter.getValue()));
+                continue;
+            }
+            expanded.append(c);
+        }
+        return expanded.toString();
+    }
 }
@@ -58,18 +58,29 @@ import org.apache.arrow.vector.types.pojo.Schema;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.regions.Region;
 import software.amazon.awssdk.services.athena.AthenaClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Utilities;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
 import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueResponse;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -81,6 +92,7 @@ import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.nullable;
 
 public class RedshiftMetadataHandlerTest
@@ -526,4 +538,86 @@ public class RedshiftMetadataHandlerTest
         Assert.assertEquals(TOP_N_PUSHDOWN_SIZE, topNPushdown.size());
         Assert.assertTrue(topNPushdown.stream().anyMatch(subType -> subType.getSubType().equals(SUPPORTS_ORDER_BY)));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void doGetTableLayoutWithUnloadAndQueryPassthrough()
+            throws Exception
+    {
+        Map<String, String> configOptions = ImmutableMap.of(
+                RedshiftConstants.REDSHIFT_UNLOAD_ENABLED, "true",
+                RedshiftConstants.REDSHIFT_UNLOAD_S3_PATH, "s3://unload-bucket/athena/",
+                RedshiftConstants.REDSHIFT_UNLOAD_IAM_ROLE, "arn:aws:iam::123456789012:role/unload");
+        RedshiftMetadataHandler handler = new RedshiftMetadataHandler(databaseConnectionConfig, this.secretsManager, this.athena,
+                Mockito.mock(S3Client.class), this.jdbcConnectionFactory, configOptions);
+
+        // passthrough queries are read over JDBC, so no schema is handed to doGetSplits for an UNLOAD
+        BlockAllocator blockAllocator = new BlockAllocatorImpl();
+        Constraints constraints = Mockito.mock(Constraints.class);
+        Mockito.when(constraints.isQueryPassThrough()).thenReturn(true);
+        TableName tableName = new TableName(TEST_SCHEMA, TEST_TABLE);
+        Schema partitionSchema = this.redshiftMetadataHandler.getPartitionSchema(CATALOG_NAME);
+        Set<String> partitionCols = partitionSchema.getFields().stream().map(Field::getName).collect(Collectors.toSet());
+        GetTableLayoutRequest getTableLayoutRequest = new GetTableLayoutRequest(this.federatedIdentity, TEST_QUERY_ID, CATALOG_NAME, tableName, constraints, partitionSchema, partitionCols);
+
+        PreparedStatement preparedStatement = Mockito.mock(PreparedStatement.class);
+        Mockito.when(this.connection.prepareStatement(PostGreSqlMetadataHandler.GET_PARTITIONS_QUERY)).thenReturn(preparedStatement);
+        ResultSet resultSet = mockResultSet(new String[] {"child_schema", "child"}, new int[] {Types.VARCHAR, Types.VARCHAR}, new Object[][] {}, new AtomicInteger(-1));
+        Mockito.when(preparedStatement.executeQuery()).thenReturn(resultSet);
+
+        GetTableLayoutResponse getTableLayoutResponse = handler.doGetTableLayout(blockAllocator, getTableLayoutRequest);
+
+        Assert.assertEquals(1, getTableLayoutResponse.getPartitions().getRowCount());
+        Assert.assertEquals("[partition_schema_name : *], [partition_name : *]", BlockUtils.rowToString(getTableLayoutResponse.getPartitions(), 0));
+        Assert.assertTrue(getTableLayoutResponse.getPartitions().getSchema().getFields().stream()
+                .noneMatch(field -> field.getName().equals(RedshiftConstants.UNLOAD_SCHEMA_PARTITION_COLUMN_NAME)));
+    }
+
+    @Test
+    public void doGetSplitsWithUnload()
+            throws Exception
+    {
+        Map<String, String> configOptions = ImmutableMap.of(
+                RedshiftConstants.REDSHIFT_UNLOAD_ENABLED, "true",
+                RedshiftConstants.REDSHIFT_UNLOAD_S3_PATH, "s3://unload-bucket/athena/",
+                RedshiftConstants.REDSHIFT_UNLOAD_IAM_ROLE, "arn:aws:iam::123456789012:role/unload");
+        S3Client s3Client = Mockito.mock(S3Client.class);
+        Mockito.when(s3Client.utilities()).thenReturn(S3Utilities.builder().region(Region.US_EAST_1).build());
+        String manifest = "{\"entries\": ["
+                + "{\"url\": \"s3://unload-bucket/athena/f0000_part_00.parquet\", \"meta\": {\"content_length\": 1024, \"record_count\": 10}},"
+                + "{\"url\": \"s3://unload-bucket/athena/f0001_part_00.parquet\", \"meta\": {\"content_length\": 512, \"record_count\": 0}},"
+                + "{\"url\": \"s3://unload-bucket/athena/f0002_part_00.parquet\", \"meta\": {\"content_length\": 2048, \"record_count\": 20}}]}";
+        ArgumentCaptor<GetObjectRequest> manifestRequest = ArgumentCaptor.forClass(GetObjectRequest.class);
+        Mockito.when(s3Client.getObject(manifestRequest.capture())).thenReturn(new ResponseInputStream<>(GetObjectResponse.builder().build(),
+                AbortableInputStream.create(new ByteArrayInputStream(manifest.getBytes(StandardCharsets.UTF_8)))));
+        Statement statement = Mockito.mock(Statement.class);
+        Mockito.when(this.connection.createStatement()).thenReturn(statement);
+        RedshiftMetadataHandler handler = new RedshiftMetadataHandler(databaseConnectionConfig, this.secretsManager, this.athena, s3Client, this.jdbcConnectionFactory, configOptions);
+
+        BlockAllocator blockAllocator = new BlockAllocatorImpl();
+        Constraints constraints = new Constraints(Collections.emptyMap(), Collections.emptyList(), Collections.emptyList(), Constraints.DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+        TableName tableName = new TableName(TEST_SCHEMA, TEST_TABLE);
+        Schema tableSchema = SchemaBuilder.newBuilder().addField("id", org.apache.arrow.vector.types.Types.MinorType.INT.getType()).build();
+        Assert.assertTrue(handler.getPartitionSchema(CATALOG_NAME).getFields().isEmpty());
+        GetTableLayoutRequest getTableLayoutRequest = new GetTableLayoutRequest(this.federatedIdentity, TEST_QUERY_ID, CATALOG_NAME, tableName, constraints, tableSchema, Collections.emptySet());
+        GetTableLayoutResponse getTableLayoutResponse = handler.doGetTableLayout(blockAllocator, getTableLayoutRequest);
+
+        GetSplitsRequest getSplitsRequest = new GetSplitsRequest(this.federatedIdentity, TEST_QUERY_ID, CATALOG_NAME, tableName, getTableLayoutResponse.getPartitions(), Collections.emptyList(), constraints, null);
+        GetSplitsResponse getSplitsResponse = handler.doGetSplits(new BlockAllocatorImpl(), getSplitsRequest);
+
+        ArgumentCaptor<String> unloadSql = ArgumentCaptor.forClass(String.class);
+        Mockito.verify(statement, Mockito.times(2)).execute(unloadSql.capture());
+        String unload = unloadSql.getAllValues().get(1);
+        Assert.assertTrue(unload, unload.startsWith("UNLOAD ('SELECT * FROM (SELECT \"id\" FROM \"testSchema\".\"testTable\") AS unload_source') TO 's3://unload-bucket/athena/testQueryId/"));
+        Assert.assertTrue(unload, unload.endsWith("IAM_ROLE 'arn:aws:iam::123456789012:role/unload' FORMAT AS PARQUET MAXFILESIZE 64 MB MANIFEST VERBOSE"));
+        Assert.assertTrue(manifestRequest.getValue().key().startsWith("athena/testQueryId/"));
+        Assert.assertTrue(manifestRequest.getValue().key().endsWith("/manifest"));
+
+        Set<Map<String, String>> expectedSplits = new HashSet<>();
+        expectedSplits.add(ImmutableMap.of(RedshiftConstants.REDSHIFT_SPLIT_QUERY_ID, TEST_QUERY_ID, RedshiftConstants.REDSHIFT_SPLIT_EXPORT_BUCKET, "unload-bucket",
+                RedshiftConstants.REDSHIFT_SPLIT_OBJECT_KEY, "athena/f0000_part_00.parquet", RedshiftConstants.REDSHIFT_SPLIT_OBJECT_SIZE, "1024"));
+        expectedSplits.add(ImmutableMap.of(RedshiftConstants.REDSHIFT_SPLIT_QUERY_ID, TEST_QUERY_ID, RedshiftConstants.REDSHIFT_SPLIT_EXPORT_BUCKET, "unload-bucket",
+                RedshiftConstants.REDSHIFT_SPLIT_OBJECT_KEY, "athena/f0002_part_00.parquet", RedshiftConstants.REDSHIFT_SPLIT_OBJECT_SIZE, "2048"));
+        Set<Map<String, String>> actualSplits = getSplitsResponse.getSplits().stream().map(Split::getProperties).collect(Collectors.toSet());
+        Assert.assertEquals(expectedSplits, actualSplits);
+    }
+}
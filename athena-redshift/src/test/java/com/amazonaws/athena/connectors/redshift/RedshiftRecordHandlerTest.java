@@ -32,6 +32,7 @@ import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
 import com.amazonaws.athena.connectors.jdbc.TestBase;
 import com.amazonaws.athena.connectors.jdbc.connection.DatabaseConnectionConfig;
 import com.amazonaws.athena.connectors.jdbc.connection.JdbcConnectionFactory;
+import com.amazonaws.athena.connectors.jdbc.export.ExportReader;
 import com.amazonaws.athena.connectors.jdbc.manager.JDBCUtil;
 import com.amazonaws.athena.connectors.jdbc.manager.JdbcSplitQueryBuilder;
 import com.amazonaws.athena.connectors.postgresql.PostGreSqlMetadataHandler;
@@ -39,6 +40,10 @@ import com.amazonaws.athena.connectors.postgresql.PostGreSqlQueryStringBuilder;
 import com.amazonaws.athena.connectors.postgresql.PostgreSqlFederationExpressionParser;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.DateMilliVector;
+import org.apache.arrow.vector.TimeStampMicroVector;
 import org.apache.arrow.vector.types.Types;
 import org.apache.arrow.vector.types.pojo.ArrowType;
 import org.apache.arrow.vector.types.pojo.Schema;
@@ -348,4 +353,23 @@ public class RedshiftRecordHandlerTest
         // Verify the handler was created successfully (constructor didn't throw)
         Assert.assertNotNull("RedshiftRecordHandler should be created successfully", handler);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void appendVectorConvertsUnloadedTimestampsToDateMilli()
+    {
+        try (BufferAllocator allocator = new RootAllocator();
+                TimeStampMicroVector source = new TimeStampMicroVector("ts", allocator);
+                DateMilliVector target = new DateMilliVector("ts", allocator)) {
+            source.allocateNew(2);
+            source.set(0, 1_700_000_000_123_456L);
+            source.setNull(1);
+            source.setValueCount(2);
+
+            ExportReader.appendVector(target, source);
+
+            Assert.assertEquals(2, target.getValueCount());
+            Assert.assertEquals(1_700_000_000_123L, target.get(0));
+            assertTrue(target.isNull(1));
+        }
+    }
+}
@@ -19,11 +19,25 @@
  */
 package com.amazonaws.athena.connectors.redshift;
 
+import com.amazonaws.athena.connector.lambda.data.BlockAllocator;
+import com.amazonaws.athena.connector.lambda.data.BlockAllocatorImpl;
+import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
+import com.amazonaws.athena.connector.lambda.domain.predicate.ValueSet;
 import com.amazonaws.athena.connectors.postgresql.PostgreSqlFederationExpressionParser;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.arrow.vector.types.Types;
+import org.apache.arrow.vector.types.pojo.Schema;
 import org.apache.calcite.sql.SqlDialect;
 import org.apache.calcite.sql.dialect.RedshiftSqlDialect;
 import org.junit.Test;
 
+import java.util.Collections;
+import java.util.Map;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -55,4 +69,42 @@ public class RedshiftSqlQueryStringBuilderTest
         assertTrue("Constructor should create valid instance with RedshiftSqlDialect", 
             dialect instanceof RedshiftSqlDialect);
     }
+
+    @Test
+    public void testBuildUnloadSqlInlinesPushdown()
+    {
+        try (BlockAllocator allocator = new BlockAllocatorImpl()) {
+            Schema schema = SchemaBuilder.newBuilder()
+                    .addField("id", Types.MinorType.INT.getType())
+                    .addField("name", Types.MinorType.VARCHAR.getType())
+                    .addField("code", Types.MinorType.VARCHAR.getType())
+                    .build();
+            Map<String, ValueSet> summary = ImmutableMap.of(
+                    "id", SortedRangeSet.of(Range.greaterThanOrEqual(allocator, Types.MinorType.INT.getType(), 10)),
+                    "name", SortedRangeSet.of(Range.equal(allocator, Types.MinorType.VARCHAR.getType(), "O'Brien")));
+            Constraints constraints = new Constraints(summary, Collections.emptyList(), Collections.emptyList(), 5, Collections.emptyMap(), null);
+
+            String sql = queryStringBuilder.buildUnloadSql("public", "orders", schema, constraints, ImmutableList.of("code"),
+                    "s3://bucket/unload/query/", "arn:aws:iam::123456789012:role/unload");
+
+            assertEquals("UNLOAD ('SELECT * FROM (SELECT \"id\", \"name\", RTRIM(\"code\") AS \"code\" FROM \"public\".\"orders\"  "
+                    + "WHERE ((\"id\" >= 10)) AND (\"name\" = \\'O\\'\\'Brien\\') LIMIT 5) AS unload_source') "
+                    + "TO 's3://bucket/unload/query/' IAM_ROLE 'arn:aws:iam::123456789012:role/unload' FORMAT AS PARQUET MAXFILESIZE 64 MB MANIFEST VERBOSE", sql);
+        }
+    }
+
+    @Test
+    public void testInlineParametersSkipsQuotedText()
+    {
+        try (BlockAllocator allocator = new BlockAllocatorImpl()) {
+            Schema schema = SchemaBuilder.newBuilder().addField("what?", Types.MinorType.DATEDAY.getType()).build();
+            Map<String, ValueSet> summary = ImmutableMap.of(
+                    "what?", SortedRangeSet.of(Range.equal(allocator, Types.MinorType.DATEDAY.getType(), 19000)));
+            Constraints constraints = new Constraints(summary, Collections.emptyList(), Collections.emptyList(), Constraints.DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+
+            String sql = queryStringBuilder.buildUnloadSelectSql("public", "t", schema, constraints, Collections.emptyList());
+
+            assertEquals("SELECT * FROM (SELECT \"what?\" FROM \"public\".\"t\"  WHERE (\"what?\" = DATE '2022-01-08')) AS unload_source", sql);
+        }
+    }
 }
@@ -155,9 +155,10 @@ public class SaphanaQueryStringBuilder extends JdbcSplitQueryBuilder
                 .filter(c -> !split.getProperties().containsKey(c.replace("\"", "")))
                 .collect(Collectors.joining(", "));
 
+        String selectList = getSelectList(split, columnNames);
         sql.append("SELECT ");
-        sql.append(columnNames);
-        if (columnNames.isEmpty()) {
+        sql.append(selectList);
+        if (selectList.isEmpty()) {
             sql.append("null");
         }
 
@@ -167,6 +168,7 @@ public class SaphanaQueryStringBuilder extends JdbcSplitQueryBuilder
 
         List<String> clauses = toConjuncts(tableSchema.getFields(), constraints, accumulator, split.getProperties());
         clauses.addAll(getPartitionWhereClauses(split));
+        addSubSplitWhereClauses(split, clauses, accumulator);
         if (!clauses.isEmpty()) {
             sql.append(" WHERE ")
                     .append(Joiner.on(" AND ").join(clauses));
@@ -51,6 +51,9 @@ import com.amazonaws.athena.connector.util.PaginationHelper;
 import com.amazonaws.athena.connectors.jdbc.connection.DatabaseConnectionConfig;
 import com.amazonaws.athena.connectors.jdbc.connection.DatabaseConnectionInfo;
 import com.amazonaws.athena.connectors.jdbc.connection.JdbcConnectionFactory;
+import com.amazonaws.athena.connectors.jdbc.export.ExportFile;
+import com.amazonaws.athena.connectors.jdbc.export.ExportPrefixCleaner;
+import com.amazonaws.athena.connectors.jdbc.export.ExportSplitPlanner;
 import com.amazonaws.athena.connectors.jdbc.manager.JDBCUtil;
 import com.amazonaws.athena.connectors.jdbc.manager.JdbcMetadataHandler;
 import com.amazonaws.athena.connectors.jdbc.manager.PreparedStatementBuilder;
@@ -71,15 +74,11 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import software.amazon.awssdk.awscore.AwsRequestOverrideConfiguration;
-import software.amazon.awssdk.core.exception.SdkClientException;
 import software.amazon.awssdk.services.athena.AthenaClient;
 import software.amazon.awssdk.services.glue.model.ErrorDetails;
 import software.amazon.awssdk.services.glue.model.FederationSourceErrorCode;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.S3Uri;
-import software.amazon.awssdk.services.s3.model.ListObjectsRequest;
-import software.amazon.awssdk.services.s3.model.ListObjectsResponse;
-import software.amazon.awssdk.services.s3.model.S3Exception;
 import software.amazon.awssdk.services.s3.model.S3Object;
 import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
 
@@ -434,20 +433,23 @@ public class SnowflakeMetadataHandler extends JdbcMetadataHandler
                     ErrorDetails.builder().errorCode(FederationSourceErrorCode.INVALID_INPUT_EXCEPTION.toString()).build());
         }
 
-        List<S3Object> s3ObjectSummaries = getlistExportedObjects(s3Uri.get().bucket().orElseThrow(), s3Uri.get().key().orElseThrow());
-        LOGGER.debug("{} s3ObjectSummaries returned after executing on SnowFlake for queryId {}",
-                (long) s3ObjectSummaries.size(), queryId);
+        String exportBucket = s3Uri.get().bucket().orElseThrow();
+        String exportPrefix = s3Uri.get().key().orElseThrow();
+        ExportPrefixCleaner.fromConfig(amazonS3, configOptions).ifPresent(cleaner ->
+                cleaner.deleteExpiredPrefixes(exportBucket, getExportRootPrefix(exportPrefix, queryId)));
 
-        if (!s3ObjectSummaries.isEmpty()) {
-            LOGGER.debug("{} s3ObjectSummaries returned after executing on SnowFlake for queryId {}",
-                    (long) s3ObjectSummaries.size(), queryId);
-            for (S3Object objectSummary : s3ObjectSummaries) {
-                Split split = Split.newBuilder(makeSpillLocation(request), makeEncryptionKey(getRequestOverrideConfig(request)))
+        ExportSplitPlanner planner = ExportSplitPlanner.fromConfig(amazonS3, configOptions);
+        List<List<ExportFile>> plannedSplits = planner.plan(getlistExportedObjects(exportBucket, exportPrefix).stream()
+                .map(next -> ExportFile.of(exportBucket, next))
+                .collect(Collectors.toList()));
+        LOGGER.debug("{} splits planned from the objects exported by SnowFlake for queryId {}", plannedSplits.size(), queryId);
+
+        if (!plannedSplits.isEmpty()) {
+            for (List<ExportFile> files : plannedSplits) {
+                Split.Builder split = Split.newBuilder(makeSpillLocation(request), makeEncryptionKey(getRequestOverrideConfig(request)))
                         .add(SNOWFLAKE_SPLIT_QUERY_ID, queryId)
-                        .add(SNOWFLAKE_SPLIT_EXPORT_BUCKET, s3Uri.get().bucket().orElseThrow())
-                        .add(SNOWFLAKE_SPLIT_OBJECT_KEY, objectSummary.key())
-                        .build();
-                splits.add(split);
+                        .add(SNOWFLAKE_SPLIT_EXPORT_BUCKET, exportBucket);
+                splits.add(ExportSplitPlanner.addFiles(split, SNOWFLAKE_SPLIT_OBJECT_KEY, files).build());
             }
             return new GetSplitsResponse(request.getCatalogName(), splits);
         }
@@ -456,7 +458,7 @@ public class SnowflakeMetadataHandler extends JdbcMetadataHandler
             LOGGER.debug("s3ObjectSummaries returned empty on SnowFlake for queryId {}", queryId);
             Split split = Split.newBuilder(makeSpillLocation(request), makeEncryptionKey(getRequestOverrideConfig(request)))
                     .add(SNOWFLAKE_SPLIT_QUERY_ID, queryId)
-                    .add(SNOWFLAKE_SPLIT_EXPORT_BUCKET, s3Uri.get().bucket().orElseThrow())
+                    .add(SNOWFLAKE_SPLIT_EXPORT_BUCKET, exportBucket)
                     .add(SNOWFLAKE_SPLIT_OBJECT_KEY, EMPTY_STRING)
                     .build();
             splits.add(split);
@@ -464,6 +466,15 @@ public class SnowflakeMetadataHandler extends JdbcMetadataHandler
         }
     }
 
+    /*
+     * The export prefix is <integration path>/<queryId>/<uuid>/, the root every query exports under is what precedes the query id.
+     */
+    private static String getExportRootPrefix(String exportPrefix, String queryId)
+    {
+        int queryPrefix = exportPrefix.lastIndexOf(queryId + "/");
+        return queryPrefix < 0 ? exportPrefix : exportPrefix.substring(0, queryPrefix);
+    }
+
     @Override
     public ListTablesResponse listPaginatedTables(final Connection connection, final ListTablesRequest listTablesRequest) throws SQLException
     {
@@ -503,19 +514,7 @@ public class SnowflakeMetadataHandler extends JdbcMetadataHandler
     @VisibleForTesting
     List<S3Object> getlistExportedObjects(String s3ExportBucketName, String prefix)
     {
-        ListObjectsResponse listObjectsResponse;
-        try {
-            listObjectsResponse = amazonS3.listObjects(ListObjectsRequest.builder()
-                    .bucket(s3ExportBucketName)
-                    .prefix(prefix)
-                    .build());
-        }
-        catch (SdkClientException | S3Exception e) {
-            String errorMsg = String.format("Failed to list objects in bucket %s with prefix %s", s3ExportBucketName, prefix);
-            LOGGER.error("{}: {}", errorMsg, e.getMessage());
-            throw new RuntimeException(errorMsg, e);
-        }
-        return listObjectsResponse.contents();
+        return new ExportSplitPlanner(amazonS3, 0).listObjects(s3ExportBucketName, prefix);
     }
 
     /**
@@ -21,7 +21,6 @@ package com.amazonaws.athena.connectors.snowflake;
 
 import com.amazonaws.athena.connector.credentials.CredentialsProvider;
 import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
-import com.amazonaws.athena.connector.lambda.data.Block;
 import com.amazonaws.athena.connector.lambda.data.BlockSpiller;
 import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
@@ -32,30 +31,16 @@ import com.amazonaws.athena.connectors.jdbc.connection.DatabaseConnectionConfig;
 import com.amazonaws.athena.connectors.jdbc.connection.DatabaseConnectionInfo;
 import com.amazonaws.athena.connectors.jdbc.connection.GenericJdbcConnectionFactory;
 import com.amazonaws.athena.connectors.jdbc.connection.JdbcConnectionFactory;
+import com.amazonaws.athena.connectors.jdbc.export.ExportFile;
+import com.amazonaws.athena.connectors.jdbc.export.ExportReader;
+import com.amazonaws.athena.connectors.jdbc.export.ExportSplitPlanner;
 import com.amazonaws.athena.connectors.jdbc.manager.JDBCUtil;
 import com.amazonaws.athena.connectors.jdbc.manager.JdbcRecordHandler;
 import com.amazonaws.athena.connectors.jdbc.manager.JdbcSplitQueryBuilder;
 import com.amazonaws.athena.connectors.snowflake.connection.SnowflakeConnectionFactory;
 import com.google.common.annotations.VisibleForTesting;
-import org.apache.arrow.dataset.file.FileFormat;
-import org.apache.arrow.dataset.file.FileSystemDatasetFactory;
-import org.apache.arrow.dataset.jni.NativeMemoryPool;
-import org.apache.arrow.dataset.scanner.ScanOptions;
-import org.apache.arrow.dataset.scanner.Scanner;
-import org.apache.arrow.dataset.source.Dataset;
-import org.apache.arrow.dataset.source.DatasetFactory;
-import org.apache.arrow.memory.ArrowBuf;
-import org.apache.arrow.memory.BufferAllocator;
-import org.apache.arrow.memory.RootAllocator;
-import org.apache.arrow.vector.BitVectorHelper;
-import org.apache.arrow.vector.DateMilliVector;
-import org.apache.arrow.vector.FieldVector;
-import org.apache.arrow.vector.TimeStampMilliTZVector;
-import org.apache.arrow.vector.VectorSchemaRoot;
 import org.apache.arrow.vector.ipc.ArrowReader;
-import org.apache.arrow.vector.types.pojo.Field;
 import org.apache.arrow.vector.types.pojo.Schema;
-import org.apache.arrow.vector.util.VectorAppender;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -71,21 +56,20 @@ import java.io.IOException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.Optional;
+import java.util.List;
+import java.util.stream.Collectors;
 
-import static com.amazonaws.athena.connectors.snowflake.SnowflakeConstants.BLOCK_PARTITION_COLUMN_NAME;
 import static com.amazonaws.athena.connectors.snowflake.SnowflakeConstants.JDBC_PROPERTIES;
 import static com.amazonaws.athena.connectors.snowflake.SnowflakeConstants.SNOWFLAKE_SPLIT_EXPORT_BUCKET;
 import static com.amazonaws.athena.connectors.snowflake.SnowflakeConstants.SNOWFLAKE_SPLIT_OBJECT_KEY;
-import static com.amazonaws.athena.connectors.snowflake.SnowflakeConstants.SNOWFLAKE_SPLIT_QUERY_ID;
 
 public class SnowflakeRecordHandler extends JdbcRecordHandler
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(SnowflakeRecordHandler.class);
     private final JdbcConnectionFactory jdbcConnectionFactory;
-    private static final int EXPORT_READ_BATCH_SIZE_BYTE = 32768;
     private static final int FETCH_SIZE = 1000;
     private final JdbcSplitQueryBuilder jdbcSplitQueryBuilder;
+    private final ExportReader exportReader = new ExportReader();
 
     /**
      * Instantiates handler to be used by Lambda function directly.
@@ -150,44 +134,23 @@ public class SnowflakeRecordHandler extends JdbcRecordHandler
     {
         LOGGER.info("handleS3ExportRead: schema[{}] tableName[{}]", recordsRequest.getSchema(), recordsRequest.getTableName());
         Split split = recordsRequest.getSplit();
-        String id = split.getProperty(SNOWFLAKE_SPLIT_QUERY_ID);
         String exportBucket = split.getProperty(SNOWFLAKE_SPLIT_EXPORT_BUCKET);
-        String s3ObjectKey = split.getProperty(SNOWFLAKE_SPLIT_OBJECT_KEY);
+        List<String> s3ObjectKeys = ExportSplitPlanner.getObjectKeys(split, SNOWFLAKE_SPLIT_OBJECT_KEY);
 
-        if (s3ObjectKey.isEmpty()) {
+        if (s3ObjectKeys.isEmpty()) {
             LOGGER.debug("S3 object key is empty from request, skip read from S3");
             return;
         }
 
-        String s3path = constructS3Uri(exportBucket, s3ObjectKey);
-        try (ArrowReader reader = constructArrowReader(s3path, recordsRequest.getSchema())) {
-            VectorSchemaRoot root = reader.getVectorSchemaRoot();
-            while (reader.loadNextBatch()) {
-                // use writeRows method as it handle the spilling to s3.
-                spiller.writeRows((Block block, int startRowNum) -> {
-                    // Copy vectors directly to the block
-                    // Write all rows in the batch at once
-                    for (Field field : root.getSchema().getFields()) {
-                        if (recordsRequest.getSchema().findField(field.getName()) != null) {
-                            FieldVector originalVector = block.getFieldVector(field.getName());
-                            FieldVector toAppend = root.getVector(field.getName());
-
-                            // to_append block, both vector must be same time
-                            // However, Athena treat TSWithTZ as DateTimeMilli(UTC), hence we will need a conversion from TimeStampMilliTZ to DateTimeMilli
-                            if (toAppend instanceof TimeStampMilliTZVector) {
-                               toAppend = convertTimestampTZMilliToDateMilliFast((TimeStampMilliTZVector) toAppend, toAppend.getAllocator());
-                            }
-
-                            VectorAppender appender = new VectorAppender(originalVector);
-                            toAppend.accept(appender, null);
-                        }
-                    }
-                    return root.getRowCount();
-                });
-            }
+        List<String> s3paths = s3ObjectKeys.stream()
+                .map(key -> constructS3Uri(exportBucket, key))
+                .collect(Collectors.toList());
+        try (ArrowReader reader = constructArrowReader(s3paths, recordsRequest.getSchema(), recordsRequest.getConstraints())) {
+            // Athena treats TimeStampMilliTZ as DateMilli(UTC), the shared reader converts those vectors while appending.
+            ExportReader.writeBatches(reader, recordsRequest.getSchema(), spiller, queryStatusChecker);
         }
         catch (Exception e) {
-            throw new AthenaConnectorException("Error in object content for object : " + s3path + " " + e.getMessage(), e,
+            throw new AthenaConnectorException("Error in object content for objects : " + s3paths + " " + e.getMessage(), e,
                     ErrorDetails.builder().errorCode(FederationSourceErrorCode.INTERNAL_SERVICE_EXCEPTION.toString()).build());
         }
     }
@@ -199,31 +162,15 @@ public class SnowflakeRecordHandler extends JdbcRecordHandler
     }
 
     @VisibleForTesting
-    protected ArrowReader constructArrowReader(String uri, Schema schema)
+    protected ArrowReader constructArrowReader(List<String> uris, Schema schema, Constraints constraints)
     {
-        LOGGER.debug("URI {}", uri);
-        BufferAllocator allocator = new RootAllocator();
-        DatasetFactory datasetFactory = new FileSystemDatasetFactory(
-                allocator,
-                NativeMemoryPool.getDefault(),
-                FileFormat.PARQUET,
-                uri);
-        Dataset dataset = datasetFactory.finish();
-
-        // do a scan projection, only getting the column we want
-        ScanOptions options = new ScanOptions(/*batchSize*/ EXPORT_READ_BATCH_SIZE_BYTE,
-                Optional.of(schema.getFields().stream()
-                        .map(Field::getName)
-                        .filter(name -> !name.equalsIgnoreCase(BLOCK_PARTITION_COLUMN_NAME))
-                        .toArray(String[]::new))); // Project the column we needed only.
-
-        Scanner scanner = dataset.newScan(options);
-        return scanner.scanBatches();
+        LOGGER.debug("URIs {}", uris);
+        return exportReader.open(uris, schema, constraints);
     }
 
     private static String constructS3Uri(String bucket, String key)
     {
-        return "s3://" + bucket + "/" + key;
+        return ExportFile.toUri(bucket, key);
     }
 
     @Override
@@ -256,44 +203,4 @@ public class SnowflakeRecordHandler extends JdbcRecordHandler
 
         return null;
     }
-
-    // TSmilli and DateTimeMilli vector both have same width of 8bytes and same data type(long)
-    // direct copy the value.
-     static DateMilliVector convertTimestampTZMilliToDateMilliFast(
-            TimeStampMilliTZVector tsVector,
-            BufferAllocator allocator)
-     {
-        // record's timezone must be in UTC
-        if (!tsVector.getTimeZone().equalsIgnoreCase("UTC")) {
-            throw new IllegalArgumentException("Athena S3 Export only support Timezone with UTC");
-        }
-
-        int rowCount = tsVector.getValueCount();
-        DateMilliVector resultVector = new DateMilliVector(tsVector.getName(), allocator);
-        resultVector.allocateNew(rowCount);
-
-        // Copy data buffer directly to save time
-        ArrowBuf srcData = tsVector.getDataBuffer();
-        ArrowBuf dstData = resultVector.getDataBuffer();
-        long bytes = (long) rowCount * Long.BYTES;
-
-        // copy the data value into destination
-        dstData.setBytes(0, srcData, 0, bytes);
-
-        // copy the bitmap as well, otherwise it will show as empty(no value present)
-        ArrowBuf srcValidity = tsVector.getValidityBuffer();
-        ArrowBuf dstValidity = resultVector.getValidityBuffer();
-
-        dstValidity.setBytes(
-                0,
-                srcValidity,
-                0,
-                BitVectorHelper.getValidityBufferSize(rowCount)
-        );
-
-        // finalized the actual value, without this vector will see no data.
-        resultVector.setValueCount(rowCount);
-
-        return resultVector;
-    }
 }
@@ -43,6 +43,7 @@ import com.amazonaws.athena.connector.lambda.security.FederatedIdentity;
 import com.amazonaws.athena.connector.lambda.security.LocalKeyFactory;
 import com.amazonaws.athena.connectors.jdbc.connection.DatabaseConnectionConfig;
 import com.amazonaws.athena.connectors.jdbc.connection.JdbcConnectionFactory;
+import com.amazonaws.athena.connectors.jdbc.export.ExportReader;
 import com.amazonaws.athena.connectors.jdbc.manager.JdbcSplitQueryBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.io.ByteStreams;
@@ -191,7 +192,7 @@ public class SnowflakeRecordHandlerTest
             when(mockReader.loadNextBatch()).thenReturn(true, false);
             when(mockReader.getVectorSchemaRoot()).thenReturn(schemaRoot);
             SnowflakeRecordHandler handlerSpy = spy(handler);
-            doReturn(mockReader).when(handlerSpy).constructArrowReader(any(), any());
+            doReturn(mockReader).when(handlerSpy).constructArrowReader(any(), any(), any());
 
             Map<String, ValueSet> constraintsMap = new HashMap<>();
             constraintsMap.put("time", SortedRangeSet.copyOf(Types.MinorType.BIGINT.getType(),
@@ -252,7 +253,7 @@ public class SnowflakeRecordHandlerTest
             when(mockReader.loadNextBatch()).thenReturn(true, false);
             when(mockReader.getVectorSchemaRoot()).thenReturn(schemaRoot);
             SnowflakeRecordHandler handlerSpy = spy(handler);
-            doReturn(mockReader).when(handlerSpy).constructArrowReader(any(), any());
+            doReturn(mockReader).when(handlerSpy).constructArrowReader(any(), any(), any());
 
             Map<String, ValueSet> constraintsMap = new HashMap<>();
             constraintsMap.put("time", SortedRangeSet.copyOf(Types.MinorType.BIGINT.getType(),
@@ -530,7 +531,7 @@ public class SnowflakeRecordHandlerTest
         tsVector.setValueCount(3);
         
         org.apache.arrow.vector.DateMilliVector result = 
-            SnowflakeRecordHandler.convertTimestampTZMilliToDateMilliFast(tsVector, bufferAllocator);
+            ExportReader.toDateMilliVector(tsVector, bufferAllocator);
         
         assertNotNull(result);
         assertEquals(3, result.getValueCount());
@@ -547,7 +548,7 @@ public class SnowflakeRecordHandlerTest
         tsVector.set(0, 1609459200000L);
         tsVector.setValueCount(1);
         
-        SnowflakeRecordHandler.convertTimestampTZMilliToDateMilliFast(tsVector, bufferAllocator);
+        ExportReader.toDateMilliVector(tsVector, bufferAllocator);
     }
 
     @Test
@@ -647,12 +648,13 @@ public class SnowflakeRecordHandlerTest
             when(mockReader.getVectorSchemaRoot()).thenReturn(mockRoot);
             
             SnowflakeRecordHandler handlerSpy = spy(handler);
-            doReturn(mockReader).when(handlerSpy).constructArrowReader(any(), any());
+            doReturn(mockReader).when(handlerSpy).constructArrowReader(any(), any(), any());
             
             com.amazonaws.athena.connector.lambda.data.BlockSpiller spiller = 
                 mock(com.amazonaws.athena.connector.lambda.data.BlockSpiller.class);
             com.amazonaws.athena.connector.lambda.QueryStatusChecker queryStatusChecker = 
                 mock(com.amazonaws.athena.connector.lambda.QueryStatusChecker.class);
+            when(queryStatusChecker.isQueryRunning()).thenReturn(true);
             
             handlerSpy.readWithConstraint(spiller, request, queryStatusChecker);
             
@@ -710,6 +712,7 @@ public class SnowflakeRecordHandlerTest
                 mock(com.amazonaws.athena.connector.lambda.data.BlockSpiller.class);
             com.amazonaws.athena.connector.lambda.QueryStatusChecker queryStatusChecker = 
                 mock(com.amazonaws.athena.connector.lambda.QueryStatusChecker.class);
+            when(queryStatusChecker.isQueryRunning()).thenReturn(true);
             
             handler.readWithConstraint(spiller, request, queryStatusChecker);
             
@@ -757,12 +760,13 @@ public class SnowflakeRecordHandlerTest
         when(mockReader.getVectorSchemaRoot()).thenReturn(mockRoot);
         
         SnowflakeRecordHandler handlerSpy = spy(handler);
-        doReturn(mockReader).when(handlerSpy).constructArrowReader(any(), any());
+        doReturn(mockReader).when(handlerSpy).constructArrowReader(any(), any(), any());
         
         com.amazonaws.athena.connector.lambda.data.BlockSpiller spiller = 
             mock(com.amazonaws.athena.connector.lambda.data.BlockSpiller.class);
         com.amazonaws.athena.connector.lambda.QueryStatusChecker queryStatusChecker = 
             mock(com.amazonaws.athena.connector.lambda.QueryStatusChecker.class);
+        when(queryStatusChecker.isQueryRunning()).thenReturn(true);
         
         // Use reflection to call handleS3ExportRead
         java.lang.reflect.Method method = SnowflakeRecordHandler.class.getDeclaredMethod(
@@ -824,6 +828,7 @@ public class SnowflakeRecordHandlerTest
             mock(com.amazonaws.athena.connector.lambda.data.BlockSpiller.class);
         com.amazonaws.athena.connector.lambda.QueryStatusChecker queryStatusChecker = 
             mock(com.amazonaws.athena.connector.lambda.QueryStatusChecker.class);
+        when(queryStatusChecker.isQueryRunning()).thenReturn(true);
         
         // Use reflection to call handleDirectRead
         java.lang.reflect.Method method = SnowflakeRecordHandler.class.getDeclaredMethod(
@@ -887,7 +892,7 @@ public class SnowflakeRecordHandlerTest
         tsVector.setValueCount(3);
         
         org.apache.arrow.vector.DateMilliVector result = 
-            SnowflakeRecordHandler.convertTimestampTZMilliToDateMilliFast(tsVector, bufferAllocator);
+            ExportReader.toDateMilliVector(tsVector, bufferAllocator);
         
         assertNotNull(result);
         assertEquals(3, result.getValueCount());
@@ -923,12 +928,13 @@ public class SnowflakeRecordHandlerTest
             100_000_000_000L, 100_000_000_000L);
         
         SnowflakeRecordHandler handlerSpy = spy(handler);
-        doThrow(new RuntimeException("Test IO exception")).when(handlerSpy).constructArrowReader(any(), any());
+        doThrow(new RuntimeException("Test IO exception")).when(handlerSpy).constructArrowReader(any(), any(), any());
         
         com.amazonaws.athena.connector.lambda.data.BlockSpiller spiller = 
             mock(com.amazonaws.athena.connector.lambda.data.BlockSpiller.class);
         com.amazonaws.athena.connector.lambda.QueryStatusChecker queryStatusChecker = 
             mock(com.amazonaws.athena.connector.lambda.QueryStatusChecker.class);
+        when(queryStatusChecker.isQueryRunning()).thenReturn(true);
         
         try {
             // Use reflection to call handleS3ExportRead
@@ -32,6 +32,7 @@ import com.amazonaws.athena.connector.lambda.data.SchemaBuilder;
 import com.amazonaws.athena.connector.lambda.data.SupportedTypes;
 import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
 import com.amazonaws.athena.connector.lambda.domain.predicate.functions.StandardFunctions;
 import com.amazonaws.athena.connector.lambda.domain.spill.SpillLocation;
 import com.amazonaws.athena.connector.lambda.metadata.GetDataSourceCapabilitiesRequest;
@@ -55,6 +56,7 @@ import com.amazonaws.athena.connectors.jdbc.manager.JdbcArrowTypeConverter;
 import com.amazonaws.athena.connectors.jdbc.manager.JdbcMetadataHandler;
 import com.amazonaws.athena.connectors.jdbc.manager.PreparedStatementBuilder;
 import com.amazonaws.athena.connectors.jdbc.resolver.JDBCCaseResolver;
+import com.amazonaws.athena.connectors.jdbc.splits.PartitionPruner;
 import com.amazonaws.athena.connectors.sqlserver.resolver.SQLServerJDBCCaseResolver;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
@@ -131,6 +133,14 @@ public class SqlServerMetadataHandler extends JdbcMetadataHandler
             "    AND ic.column_id = c.column_id   " +
             "WHERE t.object_id = (select object_id from sys.objects o where o.name = ? " +
             "and schema_id = (select schema_id from sys.schemas s where s.name = ?))";
+    /**
+     * Query for retrieving the boundary values of a partition function, boundary n separates partition n from n + 1
+     */
+    static final String GET_PARTITION_BOUNDARIES_QUERY = "SELECT prv.boundary_id AS BOUNDARY_ID, " +
+            "CONVERT(nvarchar(4000), prv.value, 126) AS BOUNDARY_VALUE, pf.boundary_value_on_right AS BOUNDARY_ON_RIGHT " +
+            "FROM sys.partition_functions pf " +
+            "JOIN sys.partition_range_values prv ON prv.function_id = pf.function_id " +
+            "WHERE pf.name = ? ORDER BY prv.boundary_id";
     static final String VIEW_CHECK_QUERY = "select TYPE_DESC from sys.objects where name = ? and schema_id = (select schema_id from sys.schemas s where s.name = ?)";
     static final String LIST_PAGINATED_TABLES_QUERY = "SELECT o.name AS \"TABLE_NAME\", s.name AS \"TABLE_SCHEM\" FROM sys.objects o INNER JOIN sys.schemas s ON o.schema_id = s.schema_id WHERE o.type IN ('U', 'V') and s.name = ? ORDER BY TABLE_NAME OFFSET ? ROWS FETCH NEXT ? ROWS ONLY;";
 
@@ -275,16 +285,26 @@ public class SqlServerMetadataHandler extends JdbcMetadataHandler
                     String partitionInfo = (!partitionDetails.isEmpty() && partitionDetails.size() == 2) ?
                             ":::" + partitionDetails.get(0) + ":::" + partitionDetails.get(1) : "";
 
+                    Set<String> prunedPartitions = partitionDetails.size() == 2
+                            ? getPrunedPartitions(connection, partitionDetails.get(0), partitionDetails.get(1), getTableLayoutRequest.getConstraints())
+                            : new HashSet<>();
+
                     // Include the first partition because it's not retrieved from GET_PARTITIONS_QUERY
-                    blockWriter.writeRows((Block block, int rowNum) ->
-                    {
-                        block.setValue(PARTITION_NUMBER, rowNum, "1" + partitionInfo);
-                        return 1;
-                    });
+                    if (!prunedPartitions.contains("1")) {
+                        blockWriter.writeRows((Block block, int rowNum) ->
+                        {
+                            block.setValue(PARTITION_NUMBER, rowNum, "1" + partitionInfo);
+                            return 1;
+                        });
+                    }
                     if (resultSet.next()) {
                         do {
                             final String partitionNumber = resultSet.getString(PARTITION_NUMBER);
-                            // 1. Returns all partitions of table, we are not supporting constraints push down to filter partitions.
+                            if (prunedPartitions.contains(partitionNumber)) {
+                                LOGGER.debug("Skipping partition {}, its boundaries don't overlap the constraints", partitionNumber);
+                                continue;
+                            }
+                            // 1. Returns the partitions of table whose boundaries may hold rows matching the constraints.
                             // 2. This API is not paginated, we could use order by and limit clause with offsets here.
                             blockWriter.writeRows((Block block, int rowNum) ->
                             {
@@ -412,6 +432,54 @@ public class SqlServerMetadataHandler extends JdbcMetadataHandler
         return partitionDetails;
     }
 
+    /**
+     * Finds the partitions which can't hold rows matching the query's constraint on the partitioning column, using the
+     * boundary values of the partition function. Partitions are kept if the boundaries can't be read.
+     *
+     * @param connection connection to the database.
+     * @param partitionFunction name of the table's partition function.
+     * @param partitioningColumn the table's partitioning column.
+     * @param constraints the query's constraints.
+     * @return numbers of the partitions to skip.
+     */
+    @VisibleForTesting
+    Set<String> getPrunedPartitions(Connection connection, String partitionFunction, String partitioningColumn, Constraints constraints)
+    {
+        Set<String> prunedPartitions = new HashSet<>();
+        Optional<PartitionPruner> pruner = PartitionPruner.forColumn(constraints, partitioningColumn);
+        if (!pruner.isPresent()) {
+            return prunedPartitions;
+        }
+        List<String> boundaries = new ArrayList<>();
+        boolean boundaryOnRight = false;
+        try (PreparedStatement preparedStatement = new PreparedStatementBuilder().withConnection(connection).withQuery(GET_PARTITION_BOUNDARIES_QUERY)
+                .withParameters(Arrays.asList(partitionFunction)).build();
+                ResultSet resultSet = preparedStatement.executeQuery()) {
+            while (resultSet.next()) {
+                boundaries.add(resultSet.getString("BOUNDARY_VALUE"));
+                boundaryOnRight = resultSet.getBoolean("BOUNDARY_ON_RIGHT");
+            }
+        }
+        catch (SQLException ex) {
+            LOGGER.warn("Unable to read partition boundaries, no partitions are pruned: {}", ex.getMessage());
+            return prunedPartitions;
+        }
+        if (boundaries.isEmpty()) {
+            return prunedPartitions;
+        }
+        // partition n lies between boundaries n - 1 and n, RANGE LEFT puts the boundary value in the partition to its
+        // left, i.e. (low, high], RANGE RIGHT in the one to its right, i.e. [low, high)
+        for (int partition = 1; partition <= boundaries.size() + 1; partition++) {
+            String low = partition == 1 ? null : boundaries.get(partition - 2);
+            String high = partition > boundaries.size() ? null : boundaries.get(partition - 1);
+            if (!pruner.get().overlapsRange(low, boundaryOnRight, high, !boundaryOnRight)) {
+                prunedPartitions.add(String.valueOf(partition));
+            }
+        }
+        LOGGER.info("Pruned {} partitions using the constraints", prunedPartitions.size());
+        return prunedPartitions;
+    }
+
     @Override
     protected Optional<ArrowType> convertDatasourceTypeToArrow(int columnIndex, int precision, Map<String, String> configOptions, ResultSetMetaData metadata) throws SQLException
     {
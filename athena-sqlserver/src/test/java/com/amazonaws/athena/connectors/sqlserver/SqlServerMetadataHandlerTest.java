@@ -32,6 +32,8 @@ import com.amazonaws.athena.connector.lambda.QueryStatusChecker;
 import com.amazonaws.athena.connector.lambda.domain.Split;
 import com.amazonaws.athena.connector.lambda.domain.TableName;
 import com.amazonaws.athena.connector.lambda.domain.predicate.Constraints;
+import com.amazonaws.athena.connector.lambda.domain.predicate.Range;
+import com.amazonaws.athena.connector.lambda.domain.predicate.SortedRangeSet;
 import com.amazonaws.athena.connector.lambda.metadata.GetDataSourceCapabilitiesRequest;
 import com.amazonaws.athena.connector.lambda.metadata.GetDataSourceCapabilitiesResponse;
 import com.amazonaws.athena.connector.lambda.metadata.GetSplitsRequest;
@@ -86,6 +88,7 @@ import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
+import static com.amazonaws.athena.connector.lambda.domain.predicate.Constraints.DEFAULT_NO_LIMIT;
 import static com.amazonaws.athena.connectors.sqlserver.SqlServerConstants.PARTITION_NUMBER;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -187,6 +190,54 @@ public class SqlServerMetadataHandlerTest
                 getTableLayoutRequest.getTableName().getTableName());
     }
 
+    @Test
+    public void doGetTableLayoutWithPartitioningColumnConstraint()
+            throws Exception
+    {
+        BlockAllocator blockAllocator = new BlockAllocatorImpl();
+        ArrowType intType = org.apache.arrow.vector.types.Types.MinorType.INT.getType();
+        Constraints constraints = new Constraints(Collections.singletonMap("pc",
+                SortedRangeSet.of(false, Range.range(blockAllocator, intType, 150, true, 250, false), Collections.emptyList())),
+                Collections.emptyList(), Collections.emptyList(), DEFAULT_NO_LIMIT, Collections.emptyMap(), null);
+        TableName tableName = new TableName("testSchema", "testTable");
+        Schema partitionSchema = this.sqlServerMetadataHandler.getPartitionSchema("testCatalogName");
+        Set<String> partitionCols = partitionSchema.getFields().stream().map(Field::getName).collect(Collectors.toSet());
+        GetTableLayoutRequest getTableLayoutRequest = new GetTableLayoutRequest(this.federatedIdentity, "testQueryId", "testCatalogName", tableName, constraints, partitionSchema, partitionCols);
+
+        PreparedStatement rowCountPreparedStatement = Mockito.mock(PreparedStatement.class);
+        Mockito.when(this.connection.prepareStatement(sqlServerMetadataHandler.ROW_COUNT_QUERY)).thenReturn(rowCountPreparedStatement);
+        ResultSet rowCountResultSet = mockResultSet(new String[] {"ROW_COUNT"}, new int[] {Types.INTEGER}, new Object[][] {{3}}, new AtomicInteger(-1));
+        Mockito.when(rowCountPreparedStatement.executeQuery()).thenReturn(rowCountResultSet);
+
+        PreparedStatement preparedStatement = Mockito.mock(PreparedStatement.class);
+        Mockito.when(this.connection.prepareStatement(sqlServerMetadataHandler.GET_PARTITIONS_QUERY)).thenReturn(preparedStatement);
+        ResultSet resultSet = mockResultSet(new String[] {PARTITION_NUMBER}, new int[] {Types.VARCHAR}, new Object[][] {{"2"}, {"3"}, {"4"}}, new AtomicInteger(-1));
+        Mockito.when(preparedStatement.executeQuery()).thenReturn(resultSet);
+
+        PreparedStatement partFuncPreparedStatement = Mockito.mock(PreparedStatement.class);
+        Mockito.when(this.connection.prepareStatement(sqlServerMetadataHandler.GET_PARTITION_DETAILS_QUERY)).thenReturn(partFuncPreparedStatement);
+        ResultSet partFuncResultSet = mockResultSet(new String[] {"PARTITION FUNCTION", "PARTITIONING COLUMN"}, new int[] {Types.VARCHAR, Types.VARCHAR}, new Object[][] {{"pf", "pc"}}, new AtomicInteger(-1));
+        Mockito.when(partFuncPreparedStatement.executeQuery()).thenReturn(partFuncResultSet);
+
+        // RANGE RIGHT boundaries, partitions are (, 100), [100, 200), [200, 300) and [300, )
+        PreparedStatement boundariesPreparedStatement = Mockito.mock(PreparedStatement.class);
+        Mockito.when(this.connection.prepareStatement(sqlServerMetadataHandler.GET_PARTITION_BOUNDARIES_QUERY)).thenReturn(boundariesPreparedStatement);
+        ResultSet boundariesResultSet = mockResultSet(new String[] {"BOUNDARY_ID", "BOUNDARY_VALUE"}, new int[] {Types.INTEGER, Types.VARCHAR},
+                new Object[][] {{1, "100"}, {2, "200"}, {3, "300"}}, new AtomicInteger(-1));
+        Mockito.when(boundariesResultSet.getBoolean("BOUNDARY_ON_RIGHT")).thenReturn(true);
+        Mockito.when(boundariesPreparedStatement.executeQuery()).thenReturn(boundariesResultSet);
+
+        Mockito.when(this.connection.getMetaData().getSearchStringEscape()).thenReturn(null);
+        GetTableLayoutResponse getTableLayoutResponse = this.sqlServerMetadataHandler.doGetTableLayout(blockAllocator, getTableLayoutRequest);
+
+        List<String> actualValues = new ArrayList<>();
+        for (int i = 0; i < getTableLayoutResponse.getPartitions().getRowCount(); i++) {
+            actualValues.add(BlockUtils.rowToString(getTableLayoutResponse.getPartitions(), i));
+        }
+        assertEquals(Arrays.asList("[partition_number : 2:::pf:::pc]", "[partition_number : 3:::pf:::pc]"), actualValues);
+        Mockito.verify(boundariesPreparedStatement, Mockito.times(1)).setString(1, "pf");
+    }
+
     @Test
     public void doGetTableLayoutWithNoPartitions()
             throws Exception
@@ -42,6 +42,9 @@ import com.amazonaws.athena.connectors.jdbc.connection.DatabaseConnectionConfig;
 import com.amazonaws.athena.connectors.jdbc.connection.DatabaseConnectionInfo;
 import com.amazonaws.athena.connectors.jdbc.connection.GenericJdbcConnectionFactory;
 import com.amazonaws.athena.connectors.jdbc.connection.JdbcConnectionFactory;
+import com.amazonaws.athena.connectors.jdbc.export.ExportFile;
+import com.amazonaws.athena.connectors.jdbc.export.ExportPrefixCleaner;
+import com.amazonaws.athena.connectors.jdbc.export.ExportSplitPlanner;
 import com.amazonaws.athena.connectors.jdbc.manager.JDBCUtil;
 import com.amazonaws.athena.connectors.jdbc.manager.JdbcMetadataHandler;
 import com.amazonaws.athena.connectors.jdbc.qpt.JdbcQueryPassthrough;
@@ -56,11 +59,8 @@ import org.apache.arrow.vector.types.pojo.Schema;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import software.amazon.awssdk.core.exception.SdkClientException;
 import software.amazon.awssdk.regions.providers.DefaultAwsRegionProviderChain;
 import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.ListObjectsRequest;
-import software.amazon.awssdk.services.s3.model.ListObjectsResponse;
 import software.amazon.awssdk.services.s3.model.S3Object;
 
 import java.sql.Connection;
@@ -76,6 +76,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 import static com.amazonaws.athena.connectors.vertica.VerticaConstants.VERTICA_DEFAULT_PORT;
 import static com.amazonaws.athena.connectors.vertica.VerticaConstants.VERTICA_DRIVER_CLASS;
@@ -393,18 +394,23 @@ public class VerticaMetadataHandler
             s3ObjectsList = getlistExportedObjects(s3ExportBucketName, prefix);
         }
 
+        ExportPrefixCleaner.fromConfig(amazonS3, configOptions).ifPresent(cleaner ->
+                cleaner.deleteExpiredPrefixes(s3ExportBucketName, remainingPath));
+
         Split split;
 
-        // Create a split for each s3 object
-        if(!s3ObjectsList.isEmpty())
+        // Create a split for each group of s3 objects planned by the shared export planner
+        List<List<ExportFile>> plannedSplits = ExportSplitPlanner.fromConfig(amazonS3, configOptions).plan(s3ObjectsList.stream()
+                .map(s3Object -> ExportFile.of(s3ExportBucketName, s3Object))
+                .collect(Collectors.toList()));
+        if(!plannedSplits.isEmpty())
         {
-            for (S3Object s3Object : s3ObjectsList)
+            for (List<ExportFile> files : plannedSplits)
             {
-                split = Split.newBuilder(makeSpillLocation(request), makeEncryptionKey())
+                Split.Builder splitBuilder = Split.newBuilder(makeSpillLocation(request), makeEncryptionKey())
                         .add(VERTICA_SPLIT_QUERY_ID, queryID)
-                        .add(VERTICA_SPLIT_EXPORT_BUCKET, s3ExportBucketName)
-                        .add(VERTICA_SPLIT_OBJECT_KEY, s3Object.key())
-                        .build();
+                        .add(VERTICA_SPLIT_EXPORT_BUCKET, s3ExportBucketName);
+                split = ExportSplitPlanner.addFiles(splitBuilder, VERTICA_SPLIT_OBJECT_KEY, files).build();
                 splits.add(split);
 
             }
@@ -449,19 +455,7 @@ public class VerticaMetadataHandler
      * Get the list of all the exported S3 objects
      */
     private List<S3Object> getlistExportedObjects(String s3ExportBucket, String prefix){
-        ListObjectsResponse listObjectsResponse;
-        try
-        {
-            listObjectsResponse = amazonS3.listObjects(ListObjectsRequest.builder()
-                    .bucket(s3ExportBucket)
-                    .prefix(prefix)
-                    .build());
-        }
-        catch (SdkClientException e)
-        {
-            throw new RuntimeException("Exception listing the exported objects : " + e.getMessage(), e);
-        }
-        return listObjectsResponse.contents();
+        return new ExportSplitPlanner(amazonS3, 0).listObjects(s3ExportBucket, prefix);
     }
 
     private void testAccess(Connection conn, TableName table) {
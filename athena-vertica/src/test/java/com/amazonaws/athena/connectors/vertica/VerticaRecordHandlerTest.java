@@ -183,7 +183,7 @@ public class VerticaRecordHandlerTest
         when(mockReader.loadNextBatch()).thenReturn(true, false);
         when(mockReader.getVectorSchemaRoot()).thenReturn(schemaRoot);
         VerticaRecordHandler handlerSpy = spy(handler);
-        doReturn(mockReader).when(handlerSpy).constructArrowReader(any());
+        doReturn(mockReader).when(handlerSpy).constructArrowReader(any(), any(), any());
 
         Map<String, ValueSet> constraintsMap = new HashMap<>();
         constraintsMap.put("time", SortedRangeSet.copyOf(Types.MinorType.BIGINT.getType(),
@@ -241,7 +241,7 @@ public class VerticaRecordHandlerTest
         when(mockReader.loadNextBatch()).thenReturn(true, false);
         when(mockReader.getVectorSchemaRoot()).thenReturn(schemaRoot);
         VerticaRecordHandler handlerSpy = spy(handler);
-        doReturn(mockReader).when(handlerSpy).constructArrowReader(any());
+        doReturn(mockReader).when(handlerSpy).constructArrowReader(any(), any(), any());
 
         Map<String, ValueSet> constraintsMap = new HashMap<>();
         constraintsMap.put("time", SortedRangeSet.copyOf(Types.MinorType.BIGINT.getType(),